@@ -0,0 +1,29 @@
+package net.iwazou.rdkdler.exception;
+
+/**
+ * 処理の期限（{@link net.iwazou.rdkdler.util.Deadline}）までに処理が完了しなかったことを表す例外。
+ *
+ * <p>期限を過ぎた時点で、通信中のリクエストは打ち切られ、以降の処理（再試行や後続のリクエスト）は行われません。
+ * 期限は呼び出し側が指定したものであるため、同じ処理を再試行しても成功するとは限りません。
+ */
+public class RdkDeadlineExceededException extends RdkException {
+
+    /**
+     * メッセージを指定して例外を生成します。
+     *
+     * @param message 例外メッセージ
+     */
+    public RdkDeadlineExceededException(String message) {
+        super(message);
+    }
+
+    /**
+     * メッセージと原因例外（cause）を指定して例外を生成します。
+     *
+     * @param message 例外メッセージ
+     * @param cause 原因例外
+     */
+    public RdkDeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,32 @@
+package net.iwazou.rdkdler.exception;
+
+import lombok.Getter;
+
+/**
+ * 接続先の保護のため、リクエストを送信せずに拒否したことを表す例外。
+ *
+ * <p>サーキットブレーカーが開いている場合や、接続先ごとの同時実行数の上限（バルクヘッド）に達して
+ * 待機時間内に空きが出なかった場合に発生します。通信は行われていないため、
+ * 呼び出し側は時間をおいて再実行するか、処理を打ち切ることを想定しています。
+ */
+@Getter
+public class RdkRejectedException extends RdkException {
+
+    /**
+     * 拒否した接続先（ホスト名とポート）を取得します。
+     *
+     * @return 接続先
+     */
+    private final String host;
+
+    /**
+     * 接続先とメッセージを指定して生成します。
+     *
+     * @param host 接続先
+     * @param message 例外メッセージ
+     */
+    public RdkRejectedException(String host, String message) {
+        super(message);
+        this.host = host;
+    }
+}
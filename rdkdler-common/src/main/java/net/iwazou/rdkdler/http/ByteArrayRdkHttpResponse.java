@@ -0,0 +1,131 @@
+package net.iwazou.rdkdler.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 本文をバイト列で保持する {@link RdkHttpResponse} 実装です。
+ *
+ * <p>{@link #body()} は初回呼び出し時に文字列へデコードし、その結果を保持します。
+ * XML/JSON のパーサーへ {@link #bodyBytes()} / {@link #bodyStream()} で渡す場合は文字列化されないため、
+ * 大きなレスポンスでもバイト列 1 つ分のメモリで済みます。
+ *
+ * <p>デコードに使用する文字コードは {@code Content-Type} ヘッダの {@code charset} パラメータに従い、
+ * 指定がない場合や解釈できない場合は UTF-8 とします。
+ *
+ * <p>本クラスは不変（本文の遅延デコードを除く）で、スレッドセーフです。
+ */
+public final class ByteArrayRdkHttpResponse implements RdkHttpResponse {
+
+    private final int statusCode;
+    private final Map<String, List<String>> headers;
+    private final byte[] body;
+
+    /**
+     * デコード済みの本文です（未デコードの場合は {@code null}）。
+     */
+    private volatile String decodedBody;
+
+    /**
+     * レスポンスを生成します。
+     *
+     * <p>{@code body} はコピーせずにそのまま保持します。生成後に変更しないでください。
+     *
+     * @param statusCode HTTP ステータスコード
+     * @param headers レスポンスヘッダ（キーは小文字化済みであること。null の場合は空として扱う）
+     * @param body 本文のバイト列（null 可）
+     */
+    public ByteArrayRdkHttpResponse(
+            int statusCode, Map<String, List<String>> headers, byte[] body) {
+        this.statusCode = statusCode;
+        this.headers = headers == null ? Map.of() : headers;
+        this.body = body;
+    }
+
+    @Override
+    public int statusCode() {
+        return statusCode;
+    }
+
+    @Override
+    public Map<String, List<String>> headers() {
+        return headers;
+    }
+
+    /**
+     * レスポンス本文を文字列で返します。
+     *
+     * <p>初回呼び出し時に {@code Content-Type} の {@code charset}（既定は UTF-8）でデコードします。
+     *
+     * @return 本文（本文が存在しない場合は {@code null}）
+     */
+    @Override
+    public String body() {
+        if (body == null) {
+            return null;
+        }
+        String decoded = decodedBody;
+        if (decoded == null) {
+            decoded = new String(body, charset());
+            decodedBody = decoded;
+        }
+        return decoded;
+    }
+
+    /**
+     * レスポンス本文をバイト列で返します（コピーは行いません）。
+     *
+     * @return 本文のバイト列（本文が存在しない場合は {@code null}）
+     */
+    @Override
+    public byte[] bodyBytes() {
+        return body;
+    }
+
+    @Override
+    public InputStream bodyStream() {
+        return body == null ? null : new ByteArrayInputStream(body);
+    }
+
+    /**
+     * {@code Content-Type} ヘッダの {@code charset} パラメータから文字コードを求めます。
+     *
+     * @return 文字コード（指定がない場合や解釈できない場合は UTF-8）
+     */
+    Charset charset() {
+        String contentType = firstHeader("content-type").orElse(null);
+        if (contentType == null) {
+            return StandardCharsets.UTF_8;
+        }
+        for (String param : contentType.split(";")) {
+            String[] kv = param.trim().split("=", 2);
+            if (kv.length == 2 && kv[0].trim().toLowerCase(Locale.ROOT).equals("charset")) {
+                String name = kv[1].trim().replace("\"", "");
+                try {
+                    return Charset.forName(name);
+                } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                    return StandardCharsets.UTF_8;
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    @Override
+    public String toString() {
+        return "ByteArrayRdkHttpResponse(statusCode="
+                + statusCode
+                + ", headers="
+                + headers
+                + ", bodyLength="
+                + (body == null ? 0 : body.length)
+                + ")";
+    }
+}
@@ -1,6 +1,16 @@
 package net.iwazou.rdkdler.http;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import net.iwazou.rdkdler.exception.RdkException;
 
 /**
  * rdkdler ライブラリにおける HTTP クライアントの抽象化インターフェース。
@@ -14,6 +24,19 @@ import java.io.IOException;
  *   <li>ユニットテスト容易性（モックしやすい）</li>
  *   <li>リクエスト/レスポンス型の統一（{@link RdkHttpRequest}, {@link RdkHttpResponse}）</li>
  * </ul>
+ *
+ * <p><b>非同期 API</b><br>
+ * {@link #getAsync(RdkHttpRequest)} / {@link #postFormAsync(RdkHttpRequest)} は
+ * {@link CompletableFuture} を返す非同期版です。デフォルト実装は同期版を仮想スレッド上で実行するため、
+ * 既存の実装はそのまま非同期 API に対応します。ノンブロッキングな通信手段を持つ実装はオーバーライドしてください。
+ * 通信で発生した例外（{@link IOException} など）は、返却した {@link CompletableFuture} を例外完了させて通知します。
+ *
+ * <p><b>一括送信 API</b><br>
+ * {@link #submitAll(List, int)} / {@link #getAll(List, int)} は、複数の GET リクエストを同時に送信する数を制限しながら
+ * 並行して送信します。全放送局の週間番組表の取得のように多数のリクエストを送信する場合、
+ * 順番に送信するとリクエスト数分の往復時間がかかりますが、並行して送信することで往復時間数回分に短縮できます。
+ * HTTP/2 で通信する実装（{@link net.iwazou.rdkdler.http.internal.JdkRdkHttpClient#create()} など）では、
+ * 同じ接続先へのリクエストは 1 本の接続上に多重化されます。
  */
 public interface RdkHttpClient {
 
@@ -43,4 +66,227 @@ public interface RdkHttpClient {
      */
     RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest)
             throws IOException, InterruptedException;
+
+    /**
+     * HTTP GET リクエストを非同期で送信します。
+     *
+     * <p>デフォルト実装は {@link #get(RdkHttpRequest)} を仮想スレッド上で実行します。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報（null 不可）
+     * @return HTTP レスポンスで完了する {@link CompletableFuture}
+     *     （通信エラー等の場合は、その例外で例外完了します）
+     * @throws NullPointerException rdkHttpRequest が {@code null} の場合
+     */
+    default CompletableFuture<RdkHttpResponse> getAsync(RdkHttpRequest rdkHttpRequest) {
+        Objects.requireNonNull(rdkHttpRequest);
+        return callAsync(() -> get(rdkHttpRequest));
+    }
+
+    /**
+     * {@code application/x-www-form-urlencoded} 形式の HTTP POST リクエストを非同期で送信します。
+     *
+     * <p>デフォルト実装は {@link #postForm(RdkHttpRequest)} を仮想スレッド上で実行します。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報（null 不可）
+     * @return HTTP レスポンスで完了する {@link CompletableFuture}
+     *     （通信エラー等の場合は、その例外で例外完了します）
+     * @throws NullPointerException rdkHttpRequest が {@code null} の場合
+     */
+    default CompletableFuture<RdkHttpResponse> postFormAsync(RdkHttpRequest rdkHttpRequest) {
+        Objects.requireNonNull(rdkHttpRequest);
+        return callAsync(() -> postForm(rdkHttpRequest));
+    }
+
+    /**
+     * 複数の HTTP GET リクエストを、同時に送信する数を制限しながら非同期で送信します。
+     *
+     * <p>リクエストはリストの順に送信を開始し、同時に送信中のリクエストが {@code maxConcurrency} 件に達した場合は、
+     * いずれかの完了を待ってから次のリクエストを送信します。各リクエストの送信には {@link #getAsync(RdkHttpRequest)} を使用します。
+     *
+     * <p>返却するリストの要素は、リクエストと同じ順で、それぞれのレスポンスを受信した時点で完了します。
+     * 完了した順に処理する場合は、各要素に {@link CompletableFuture#whenComplete} などで処理を登録してください。
+     * 要素をキャンセルした場合、送信前のリクエストは送信せず、送信中のリクエストには送信のキャンセルを試みます。
+     *
+     * @param requests 送信するリクエスト情報（null 不可。要素も null 不可）
+     * @param maxConcurrency 同時に送信する最大数
+     * @return リクエストと同じ順の、各レスポンスで完了する {@link CompletableFuture} のリスト
+     *     （通信エラー等の場合は、その例外で例外完了します）
+     * @throws NullPointerException requests またはその要素が {@code null} の場合
+     * @throws IllegalArgumentException maxConcurrency が 0 以下の場合
+     */
+    default List<CompletableFuture<RdkHttpResponse>> submitAll(
+            List<RdkHttpRequest> requests, int maxConcurrency) {
+        List<RdkHttpRequest> copy = List.copyOf(requests);
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException(
+                    "maxConcurrency must be positive (value=" + maxConcurrency + ")");
+        }
+        List<CompletableFuture<RdkHttpResponse>> results = new ArrayList<>(copy.size());
+        for (int i = 0; i < copy.size(); i++) {
+            results.add(new CompletableFuture<>());
+        }
+        if (copy.isEmpty()) {
+            return results;
+        }
+        Semaphore permits = new Semaphore(maxConcurrency);
+        Thread.ofVirtual()
+                .name("rdk-http-batch")
+                .start(
+                        () -> {
+                            for (int i = 0; i < copy.size(); i++) {
+                                CompletableFuture<RdkHttpResponse> result = results.get(i);
+                                try {
+                                    permits.acquire();
+                                } catch (InterruptedException e) {
+                                    results.subList(i, results.size())
+                                            .forEach(f -> f.completeExceptionally(e));
+                                    return;
+                                }
+                                if (result.isDone()) {
+                                    // 送信前にキャンセルされた
+                                    permits.release();
+                                    continue;
+                                }
+                                submit(copy.get(i), result, permits);
+                            }
+                        });
+        return results;
+    }
+
+    /**
+     * 複数の HTTP GET リクエストを、同時に送信する数を制限しながら並行して送信し、すべてのレスポンスを返します。
+     *
+     * <p>送信の方法は {@link #submitAll(List, int)} と同じです。いずれかのリクエストが失敗した場合は、
+     * 残りのリクエストの完了を待たずに、失敗したリクエストの例外をスローします。
+     * このとき、未送信のリクエストは送信せず、送信中のリクエストにはキャンセルを試みます。
+     *
+     * @param requests 送信するリクエスト情報（null 不可。要素も null 不可）
+     * @param maxConcurrency 同時に送信する最大数
+     * @return リクエストと同じ順の HTTP レスポンス
+     * @throws NullPointerException requests またはその要素が {@code null} の場合
+     * @throws IllegalArgumentException maxConcurrency が 0 以下の場合
+     * @throws IOException 通信エラー等が発生した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    default List<RdkHttpResponse> getAll(List<RdkHttpRequest> requests, int maxConcurrency)
+            throws IOException, InterruptedException {
+        List<CompletableFuture<RdkHttpResponse>> futures = submitAll(requests, maxConcurrency);
+        // 失敗したら、残りを待たずに打ち切る
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        for (CompletableFuture<RdkHttpResponse> future : futures) {
+            future.whenComplete(
+                    (response, e) -> {
+                        if (e != null) {
+                            failed.complete(null);
+                        }
+                    });
+        }
+        List<RdkHttpResponse> responses = new ArrayList<>(futures.size());
+        try {
+            CompletableFuture.anyOf(
+                            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)),
+                            failed)
+                    .get();
+            for (CompletableFuture<RdkHttpResponse> future : futures) {
+                if (future.isCompletedExceptionally()) {
+                    future.get();
+                }
+            }
+            for (CompletableFuture<RdkHttpResponse> future : futures) {
+                responses.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw rethrow(unwrap(e.getCause()));
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+        return responses;
+    }
+
+    /**
+     * {@link #submitAll(List, int)} の 1 件分のリクエストを送信し、結果を {@code result} に反映します。
+     *
+     * @param request 送信するリクエスト情報
+     * @param result 結果を反映する {@link CompletableFuture}
+     * @param permits 同時に送信する数を制限するセマフォ（送信の完了時に解放します）
+     */
+    private void submit(
+            RdkHttpRequest request, CompletableFuture<RdkHttpResponse> result, Semaphore permits) {
+        CompletableFuture<RdkHttpResponse> sent;
+        try {
+            sent = getAsync(request);
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<RdkHttpResponse> inFlight = sent;
+        inFlight.whenComplete(
+                (response, e) -> {
+                    permits.release();
+                    if (e != null) {
+                        result.completeExceptionally(unwrap(e));
+                    } else {
+                        result.complete(response);
+                    }
+                });
+        result.whenComplete(
+                (response, e) -> {
+                    if (e instanceof CancellationException) {
+                        inFlight.cancel(true);
+                    }
+                });
+    }
+
+    /**
+     * {@link CompletionException} に包まれている場合は、その原因を返します。
+     *
+     * @param e 例外
+     * @return 原因となった例外
+     */
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    /**
+     * 非同期の通信で発生した例外を、呼び出し元へスローできる型に変換します。
+     *
+     * @param cause 通信で発生した例外
+     * @return スローする {@link IOException}（実行時例外・エラーの場合はこのメソッド内でスローします）
+     * @throws InterruptedException cause が {@link InterruptedException} の場合
+     */
+    private static IOException rethrow(Throwable cause) throws InterruptedException {
+        if (cause instanceof IOException e) {
+            return e;
+        }
+        if (cause instanceof InterruptedException e) {
+            throw e;
+        }
+        if (cause instanceof RuntimeException e) {
+            throw e;
+        }
+        if (cause instanceof Error e) {
+            throw e;
+        }
+        return new RdkException(cause);
+    }
+
+    /**
+     * ブロッキングする処理を仮想スレッド上で実行し、その結果で完了する {@link CompletableFuture} を返します。
+     *
+     * @param call 実行する処理
+     * @return 処理結果で完了する {@link CompletableFuture}
+     */
+    private static CompletableFuture<RdkHttpResponse> callAsync(Callable<RdkHttpResponse> call) {
+        CompletableFuture<RdkHttpResponse> future = new CompletableFuture<>();
+        Thread.ofVirtual()
+                .name("rdk-http-async")
+                .start(
+                        () -> {
+                            try {
+                                future.complete(call.call());
+                            } catch (Throwable e) {
+                                future.completeExceptionally(e);
+                            }
+                        });
+        return future;
+    }
 }
@@ -3,6 +3,7 @@ package net.iwazou.rdkdler.http;
 import java.util.Map;
 import lombok.Builder;
 import lombok.Getter;
+import net.iwazou.rdkdler.util.Deadline;
 
 /**
  * {@link RdkHttpClient} に渡す HTTP リクエスト情報を表す DTO（データ保持クラス）。
@@ -12,6 +13,7 @@ import lombok.Getter;
  *   <li>{@code url}: 送信先 URL（必須想定）</li>
  *   <li>{@code headers}: リクエストヘッダ（任意）</li>
  *   <li>{@code parameters}: クエリ文字列またはフォームパラメータ（任意）</li>
+ *   <li>{@code deadline}: 処理全体の期限（任意）</li>
  * </ul>
  *
  * <p>実際にどのように {@code parameters} を利用するか（GET のクエリに付与するか、
@@ -42,4 +44,13 @@ public class RdkHttpRequest {
      * @return パラメータ
      */
     private Map<String, String> parameters;
+
+    /**
+     * 処理全体の期限 を取得します。{@code null} の場合は期限なし（実装ごとのタイムアウトのみ）。
+     *
+     * <p>{@link RdkHttpClient} の実装やデコレーターは、送信・待機・再試行をこの期限までに打ち切ります。
+     *
+     * @return 処理全体の期限
+     */
+    private Deadline deadline;
 }
@@ -1,5 +1,8 @@
 package net.iwazou.rdkdler.http;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -14,6 +17,11 @@ import java.util.Optional;
  * <p><b>ヘッダキーの運用について</b><br>
  * {@link #headers()} のキーは大文字小文字の揺れがあるため、実装側で小文字化して格納する運用を推奨します。
  * 本インターフェースの {@link #firstHeader(String)} も、その前提でキーを小文字化して参照します。
+ *
+ * <p><b>本文へのアクセスについて</b><br>
+ * 本文は文字列（{@link #body()}）のほか、バイト列（{@link #bodyBytes()}）やストリーム（{@link #bodyStream()}）
+ * としても取得できます。XML/JSON のパーサーへ渡す場合は、文字列への変換を挟まないバイト列・ストリームの利用を推奨します。
+ * バイト列で本文を保持する実装は {@link ByteArrayRdkHttpResponse} を利用できます。
  */
 public interface RdkHttpResponse {
 
@@ -43,6 +51,32 @@ public interface RdkHttpResponse {
      */
     String body();
 
+    /**
+     * レスポンス本文をバイト列で返します。
+     *
+     * <p>デフォルト実装は {@link #body()} を UTF-8 でエンコードします。
+     * 本文をバイト列で保持している実装は、変換を行わずに返すようオーバーライドしてください。
+     * 返却した配列は実装が内部で保持している場合があるため、呼び出し側で変更しないでください。
+     *
+     * @return 本文のバイト列（本文が存在しない場合は {@code null}）
+     */
+    default byte[] bodyBytes() {
+        String body = body();
+        return body == null ? null : body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * レスポンス本文を読み取る {@link InputStream} を返します。
+     *
+     * <p>デフォルト実装は {@link #bodyBytes()} を読み取るストリームを返します。
+     *
+     * @return 本文を読み取るストリーム（本文が存在しない場合は {@code null}）
+     */
+    default InputStream bodyStream() {
+        byte[] bytes = bodyBytes();
+        return bytes == null ? null : new ByteArrayInputStream(bytes);
+    }
+
     /**
      * 指定したヘッダ名に対応する最初の値を返します。
      *
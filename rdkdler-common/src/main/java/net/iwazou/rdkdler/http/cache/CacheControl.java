@@ -0,0 +1,86 @@
+package net.iwazou.rdkdler.http.cache;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * {@code Cache-Control} レスポンスヘッダのうち、キャッシュの判定に使用するディレクティブです。
+ *
+ * @param noStore {@code no-store} の有無（保存しない）
+ * @param noCache {@code no-cache} の有無（保存するが、利用前に毎回再検証する）
+ * @param privateCache {@code private} の有無（メモリ層のみに保存し、ディスク層には保存しない）
+ * @param maxAge {@code max-age} の秒数（指定なしの場合 {@code -1}）
+ * @param staleWhileRevalidate {@code stale-while-revalidate} の秒数（指定なしの場合 {@code -1}）
+ */
+record CacheControl(
+        boolean noStore,
+        boolean noCache,
+        boolean privateCache,
+        long maxAge,
+        long staleWhileRevalidate) {
+
+    /**
+     * ディレクティブが 1 つも指定されていない状態です。
+     */
+    static final CacheControl EMPTY = new CacheControl(false, false, false, -1, -1);
+
+    /**
+     * {@code Cache-Control} ヘッダの値を解析します。
+     *
+     * <p>ヘッダが複数ある場合はすべてのディレクティブを対象とします。
+     * 未知のディレクティブや解釈できない値は無視します。
+     *
+     * @param values {@code Cache-Control} ヘッダの値（null 可）
+     * @return 解析結果
+     */
+    static CacheControl parse(List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return EMPTY;
+        }
+        boolean noStore = false;
+        boolean noCache = false;
+        boolean privateCache = false;
+        long maxAge = -1;
+        long staleWhileRevalidate = -1;
+        for (String value : values) {
+            if (value == null) {
+                continue;
+            }
+            for (String directive : value.split(",")) {
+                String[] kv = directive.trim().split("=", 2);
+                String name = kv[0].trim().toLowerCase(Locale.ROOT);
+                String arg = kv.length == 2 ? kv[1].trim().replace("\"", "") : null;
+                switch (name) {
+                    case "no-store" -> noStore = true;
+                    case "no-cache" -> noCache = true;
+                    case "private" -> privateCache = true;
+                    case "max-age" -> maxAge = parseSeconds(arg, maxAge);
+                    case "stale-while-revalidate" ->
+                            staleWhileRevalidate = parseSeconds(arg, staleWhileRevalidate);
+                    default -> {
+                        // 対象外のディレクティブは無視する
+                    }
+                }
+            }
+        }
+        return new CacheControl(noStore, noCache, privateCache, maxAge, staleWhileRevalidate);
+    }
+
+    /**
+     * 秒数の引数を解析します。
+     *
+     * @param arg 引数（null 可）
+     * @param defaultValue 解析できない場合の値
+     * @return 秒数（0 以上）
+     */
+    private static long parseSeconds(String arg, long defaultValue) {
+        if (arg == null) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(0, Long.parseLong(arg));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package net.iwazou.rdkdler.http.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import net.iwazou.rdkdler.http.ByteArrayRdkHttpResponse;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
+
+/**
+ * キャッシュしたレスポンスです。
+ *
+ * <p>時刻はいずれもエポックミリ秒です。
+ *
+ * <p>ディスクには、キャッシュキーの代わりにその SHA-256 を、レスポンスヘッダは {@link #PERSISTED_HEADERS} のみを保存します
+ * （キーに含まれるリクエストの内容や、{@code Set-Cookie}・{@code X-Radiko-AuthToken} 等のヘッダをファイルに残しません）。
+ *
+ * @param key キャッシュキー
+ * @param statusCode HTTP ステータスコード
+ * @param headers レスポンスヘッダ（キーは小文字化済み）
+ * @param body 本文のバイト列
+ * @param storedAt 保存（または再検証）した時刻
+ * @param freshUntil 再検証せずに利用できる期限
+ * @param staleUntil 期限切れ後、裏で再検証しながら利用できる期限（{@code stale-while-revalidate}）
+ */
+record CacheEntry(
+        String key,
+        int statusCode,
+        Map<String, List<String>> headers,
+        byte[] body,
+        long storedAt,
+        long freshUntil,
+        long staleUntil) {
+
+    /**
+     * ディスクに保存する形式のバージョンです。形式を変更した場合は値を変えてください。
+     */
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * ディスクに保存するレスポンスヘッダ（小文字）です。
+     */
+    static final Set<String> PERSISTED_HEADERS =
+            Set.of(
+                    "cache-control",
+                    "content-type",
+                    "date",
+                    "etag",
+                    "expires",
+                    "last-modified",
+                    "vary");
+
+    /**
+     * 再検証せずに利用できるかどうかを返します。
+     *
+     * @param now 現在時刻
+     * @return 有効期限内の場合 {@code true}
+     */
+    boolean isFresh(long now) {
+        return now < freshUntil;
+    }
+
+    /**
+     * 期限切れだが、裏で再検証しながら利用できるかどうかを返します。
+     *
+     * @param now 現在時刻
+     * @return {@code stale-while-revalidate} の期間内の場合 {@code true}
+     */
+    boolean isStaleUsable(long now) {
+        return !isFresh(now) && now < staleUntil;
+    }
+
+    /**
+     * 指定したヘッダの先頭の値を返します。
+     *
+     * @param name ヘッダ名（小文字）
+     * @return 値（存在しない場合は {@code null}）
+     */
+    String firstHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * キャッシュした内容から {@link RdkHttpResponse} を生成します。
+     *
+     * @return レスポンス
+     */
+    RdkHttpResponse toResponse() {
+        return new ByteArrayRdkHttpResponse(statusCode, headers, body);
+    }
+
+    /**
+     * キャッシュキーを置き換えたキャッシュを返します。
+     *
+     * @param key キャッシュキー
+     * @return キャッシュ
+     */
+    CacheEntry withKey(String key) {
+        return new CacheEntry(key, statusCode, headers, body, storedAt, freshUntil, staleUntil);
+    }
+
+    /**
+     * ディスク保存用の形式で書き出します。
+     *
+     * <p>キャッシュキーは書き出さず、代わりに指定したハッシュ値を書き出します。
+     * レスポンスヘッダは {@link #PERSISTED_HEADERS} のみを書き出します。
+     *
+     * @param out 出力先
+     * @param keyHash キャッシュキーのハッシュ値
+     * @throws IOException 書き込みに失敗した場合
+     */
+    void writeTo(DataOutputStream out, String keyHash) throws IOException {
+        Map<String, List<String>> persisted = new LinkedHashMap<>();
+        headers.forEach(
+                (name, values) -> {
+                    if (PERSISTED_HEADERS.contains(name)) {
+                        persisted.put(name, values);
+                    }
+                });
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(keyHash);
+        out.writeInt(statusCode);
+        out.writeLong(storedAt);
+        out.writeLong(freshUntil);
+        out.writeLong(staleUntil);
+        out.writeInt(persisted.size());
+        for (Map.Entry<String, List<String>> header : persisted.entrySet()) {
+            out.writeUTF(header.getKey());
+            out.writeInt(header.getValue().size());
+            for (String value : header.getValue()) {
+                out.writeUTF(value);
+            }
+        }
+        out.writeInt(body.length);
+        out.write(body);
+    }
+
+    /**
+     * {@link #writeTo(DataOutputStream, String)} で書き出した内容を読み込みます。
+     *
+     * @param in 入力元
+     * @return キャッシュしたレスポンス（キャッシュキーは、書き出したハッシュ値）
+     * @throws IOException 読み込みに失敗した場合、または形式が異なる場合
+     */
+    static CacheEntry readFrom(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("unsupported cache format version: " + version);
+        }
+        String keyHash = in.readUTF();
+        int statusCode = in.readInt();
+        long storedAt = in.readLong();
+        long freshUntil = in.readLong();
+        long staleUntil = in.readLong();
+        int headerCount = in.readInt();
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (int i = 0; i < headerCount; i++) {
+            String name = in.readUTF();
+            int valueCount = in.readInt();
+            List<String> values = new ArrayList<>(valueCount);
+            for (int j = 0; j < valueCount; j++) {
+                values.add(in.readUTF());
+            }
+            headers.put(name, List.copyOf(values));
+        }
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        return new CacheEntry(keyHash, statusCode, headers, body, storedAt, freshUntil, staleUntil);
+    }
+}
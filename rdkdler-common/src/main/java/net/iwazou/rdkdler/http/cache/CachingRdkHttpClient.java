@@ -0,0 +1,612 @@
+package net.iwazou.rdkdler.http.cache;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import net.iwazou.rdkdler.http.RdkHttpClient;
+import net.iwazou.rdkdler.http.RdkHttpRequest;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
+import net.iwazou.rdkdler.util.CommonUtils;
+import net.iwazou.rdkdler.util.Deadline;
+
+/**
+ * GET レスポンスをキャッシュする {@link RdkHttpClient} のデコレーターです。
+ *
+ * <p>ステーションリストや週間番組表のように更新頻度の低いレスポンスを、メモリ（LRU）と
+ * 任意のディスク層に保存し、有効期限内は通信せずに返します。
+ *
+ * <p><b>キャッシュの判定</b>
+ * <ul>
+ *   <li>対象はステータスコード 200 の GET レスポンスのみです。{@link #postForm(RdkHttpRequest)} はそのまま委譲します。</li>
+ *   <li>キャッシュキーは URL・パラメータ・リクエストヘッダから生成します（認証トークン等が異なれば別扱い）。
+ *       すべてのリクエストヘッダをキーに含めるため、{@code Vary} に指定したヘッダが異なるリクエストも別扱いになります。
+ *       {@code Vary: *} のレスポンスは保存しません。</li>
+ *   <li>有効期限は {@code Cache-Control: max-age}（{@code Age} を考慮）、なければ {@code Expires} から求めます。
+ *       いずれもない場合は {@link #setDefaultFreshness(Duration)} の値（既定は 0）です。</li>
+ *   <li>{@code no-store} のレスポンスは保存しません。{@code no-cache} のレスポンスは保存しますが、毎回再検証します。</li>
+ *   <li>期限切れのキャッシュは {@code If-None-Match}（{@code ETag}）／{@code If-Modified-Since}（{@code Last-Modified}）
+ *       を付けて再検証し、{@code 304 Not Modified} の場合は本文を再取得せずにキャッシュを返します。</li>
+ *   <li>{@code stale-while-revalidate} の期間内は、期限切れのキャッシュを即座に返しつつ裏で再検証します。</li>
+ * </ul>
+ *
+ * <p><b>ディスク層</b>：次のレスポンスはメモリ層のみに保存し、ディスク層には保存しません。
+ * <ul>
+ *   <li>認証情報のヘッダ（{@code X-Radiko-AuthToken} 等。{@link CommonUtils#isCredentialHeader(String)}）を
+ *       含むリクエストのレスポンス</li>
+ *   <li>{@code Cache-Control: private} のレスポンス</li>
+ * </ul>
+ * ディスク層にはキャッシュキーの代わりにその SHA-256 を保存し、レスポンスヘッダは {@code ETag}・{@code Last-Modified}・
+ * {@code Content-Type}・{@code Cache-Control} 等の判定に必要なもののみを保存します（{@code Set-Cookie} 等は保存しません）。
+ *
+ * <p><b>期限</b>：再検証のリクエストには元のリクエストの期限（{@link RdkHttpRequest#getDeadline()}）を引き継ぎます。
+ * 裏での再検証は呼び出し元の処理とは独立して行うため、{@link #setRevalidationTimeout(Duration)} の期限を設定します。
+ *
+ * <p><b>スレッドセーフ</b>：複数スレッドから同時に利用できます。メモリ層は {@link ReentrantLock} で保護し、
+ * 通信とディスク入出力はロックの外で行います。同じキーの裏での再検証は同時に 1 件までです。
+ *
+ * <p>使用例：
+ * <pre>{@code
+ * CachingRdkHttpClient client = new CachingRdkHttpClient(new JdkRdkHttpClient(httpClient), 256);
+ * client.setDiskCacheDirectory(Path.of("cache"));
+ * StationService stationService = new StationService(client);
+ * }</pre>
+ */
+@Slf4j
+public class CachingRdkHttpClient implements RdkHttpClient {
+
+    /**
+     * 委譲先の HTTP クライアントです。
+     */
+    private final RdkHttpClient delegate;
+
+    /**
+     * メモリ層に保持するレスポンスの最大件数です。
+     */
+    private final int maxEntries;
+
+    /**
+     * メモリ層（アクセス順の LRU、{@link #lock} で保護）です。
+     */
+    private final LinkedHashMap<String, CacheEntry> memory;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 裏で再検証中のキャッシュキーです。
+     */
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+    /**
+     * ディスク層です（未設定の場合は {@code null}）。
+     */
+    private volatile DiskCacheStore diskStore;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+
+    /**
+     * -- GETTER --
+     * 有効期限を示すヘッダがないレスポンスの有効期間を取得します。
+     *
+     * @return 有効期間
+     *
+     * -- SETTER --
+     * 有効期限を示すヘッダ（{@code Cache-Control: max-age}／{@code Expires}）がないレスポンスの有効期間を設定します。
+     * <p>デフォルトは 0（毎回再検証。検証子もない場合は保存しない）です。
+     *
+     * @param defaultFreshness 有効期間
+     */
+    @Getter @Setter @NonNull private volatile Duration defaultFreshness = Duration.ZERO;
+
+    /**
+     * -- SETTER --
+     * {@code stale-while-revalidate} による裏での再検証を実行する {@link Executor} を設定します。
+     * <p>デフォルトは再検証ごとに仮想スレッドを起動します。
+     *
+     * @param revalidationExecutor 再検証を実行する {@link Executor}
+     */
+    @Setter @NonNull
+    private volatile Executor revalidationExecutor =
+            task -> Thread.ofVirtual().name("rdk-cache-revalidate").start(task);
+
+    /**
+     * -- GETTER --
+     * {@code stale-while-revalidate} による裏での再検証の期限を取得します。
+     *
+     * @return 再検証を開始してからの期限
+     *
+     * -- SETTER --
+     * {@code stale-while-revalidate} による裏での再検証の期限を設定します。
+     * <p>再検証のリクエストは、開始してからこの時間を過ぎると打ち切ります。デフォルトは 10 秒です。
+     *
+     * @param revalidationTimeout 再検証を開始してからの期限
+     */
+    @Getter @Setter @NonNull private volatile Duration revalidationTimeout = Duration.ofSeconds(10);
+
+    /**
+     * -- SETTER --
+     * 有効期限の判定に使用する時計を設定します（主にテスト用）。
+     *
+     * @param clock 時計
+     */
+    @Setter @NonNull private volatile Clock clock = Clock.systemUTC();
+
+    /**
+     * メモリ層のみを使用するキャッシュを生成します。
+     *
+     * @param delegate 委譲先の HTTP クライアント（null 不可）
+     * @param maxEntries メモリ層に保持するレスポンスの最大件数（1 以上）
+     * @throws NullPointerException delegate が {@code null} の場合
+     * @throws IllegalArgumentException maxEntries が 1 未満の場合
+     */
+    public CachingRdkHttpClient(RdkHttpClient delegate, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException(
+                    "maxEntries must be positive (value=" + maxEntries + ")");
+        }
+        this.delegate = Objects.requireNonNull(delegate);
+        this.maxEntries = maxEntries;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * ディスク層の保存先ディレクトリを設定します。
+     *
+     * <p>メモリ層から追い出されたレスポンスや、再起動前に保存したレスポンスをディスクから読み込めるようになります。
+     *
+     * @param directory 保存先ディレクトリ（存在しない場合は作成します。{@code null} の場合はディスク層を使用しない）
+     * @throws IOException ディレクトリを作成できない場合
+     */
+    public void setDiskCacheDirectory(Path directory) throws IOException {
+        this.diskStore = directory == null ? null : new DiskCacheStore(directory);
+    }
+
+    /**
+     * GET リクエストを送信します。キャッシュが利用できる場合は通信せずに返します。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報（null 不可）
+     * @return HTTP レスポンス
+     * @throws NullPointerException rdkHttpRequest が {@code null} の場合
+     * @throws IOException 通信エラー等が発生した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    @Override
+    public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(rdkHttpRequest);
+        String key = CommonUtils.requestKey(rdkHttpRequest);
+        long now = clock.millis();
+        CacheEntry entry = lookup(key);
+        if (entry != null && entry.isFresh(now)) {
+            hits.increment();
+            log.debug("get(RdkHttpRequest) : キャッシュを使用します。key={}", key);
+            return entry.toResponse();
+        }
+        if (entry != null && entry.isStaleUsable(now)) {
+            staleHits.increment();
+            log.debug("get(RdkHttpRequest) : 期限切れのキャッシュを使用し、裏で再検証します。key={}", key);
+            revalidateInBackground(key, rdkHttpRequest, entry);
+            return entry.toResponse();
+        }
+        misses.increment();
+        return fetch(key, rdkHttpRequest, entry, rdkHttpRequest.getDeadline());
+    }
+
+    /**
+     * POST リクエストはキャッシュせず、そのまま委譲します。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報
+     * @return HTTP レスポンス
+     * @throws IOException 通信エラー等が発生した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    @Override
+    public RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest)
+            throws IOException, InterruptedException {
+        return delegate.postForm(rdkHttpRequest);
+    }
+
+    /**
+     * キャッシュの利用状況を返します。
+     *
+     * @return 利用状況
+     */
+    public Statistics getStatistics() {
+        lock.lock();
+        try {
+            return new Statistics(
+                    hits.sum(), staleHits.sum(), misses.sum(), notModified.sum(), memory.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * メモリ層のキャッシュを破棄します。ディスク層からは、メモリ層に載っていたキーのみ削除します。
+     */
+    public void clear() {
+        List<String> keys;
+        lock.lock();
+        try {
+            keys = List.copyOf(memory.keySet());
+            memory.clear();
+        } finally {
+            lock.unlock();
+        }
+        DiskCacheStore disk = this.diskStore;
+        if (disk != null) {
+            keys.forEach(disk::remove);
+        }
+    }
+
+    /**
+     * 委譲先へリクエストを送信し（キャッシュがある場合は条件付きリクエストとし）、結果をキャッシュへ反映します。
+     *
+     * @param key キャッシュキー
+     * @param request 元のリクエスト
+     * @param entry 期限切れのキャッシュ（ない場合は {@code null}）
+     * @param deadline 委譲先へ送信するリクエストの期限（null 可）
+     * @return HTTP レスポンス
+     * @throws IOException 通信エラー等が発生した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    private RdkHttpResponse fetch(
+            String key, RdkHttpRequest request, CacheEntry entry, Deadline deadline)
+            throws IOException, InterruptedException {
+        RdkHttpResponse response = delegate.get(conditional(request, entry, deadline));
+        long now = clock.millis();
+        if (entry != null && response.statusCode() == 304) {
+            notModified.increment();
+            log.debug("fetch(String, RdkHttpRequest, CacheEntry, Deadline) : 更新なし。key={}", key);
+            CacheEntry revalidated = revalidated(entry, response, now);
+            if (revalidated != null) {
+                put(revalidated, request);
+            }
+            return entry.toResponse();
+        }
+        CacheEntry stored = toEntry(key, response, now);
+        if (stored != null) {
+            put(stored, request);
+            // 本文はキャッシュと共有する
+            return stored.toResponse();
+        }
+        if (entry != null && response.statusCode() == 200) {
+            // 保存対象外のレスポンスに変わった場合は古いキャッシュを破棄する
+            remove(key);
+        }
+        return response;
+    }
+
+    /**
+     * {@code stale-while-revalidate} の再検証を裏で実行します（同じキーは同時に 1 件まで）。
+     *
+     * <p>再検証は {@link #revalidationTimeout} の期限までに打ち切ります。
+     *
+     * @param key キャッシュキー
+     * @param request 元のリクエスト
+     * @param entry 期限切れのキャッシュ
+     */
+    private void revalidateInBackground(String key, RdkHttpRequest request, CacheEntry entry) {
+        if (!revalidating.add(key)) {
+            return;
+        }
+        try {
+            revalidationExecutor.execute(
+                    () -> {
+                        try {
+                            fetch(key, request, entry, Deadline.after(revalidationTimeout));
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } catch (IOException | RuntimeException e) {
+                            log.debug("revalidateInBackground : 再検証に失敗しました。key={}", key, e);
+                        } finally {
+                            revalidating.remove(key);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            revalidating.remove(key);
+            log.debug("revalidateInBackground : 再検証を開始できません。key={}", key, e);
+        }
+    }
+
+    /**
+     * キャッシュの検証子と期限を付けた条件付きリクエストを生成します。
+     *
+     * @param request 元のリクエスト
+     * @param entry キャッシュ（null 可）
+     * @param deadline リクエストの期限（null 可）
+     * @return 条件付きリクエスト（検証子がなく、期限も元のリクエストと同じ場合は元のリクエスト）
+     */
+    private RdkHttpRequest conditional(
+            RdkHttpRequest request, CacheEntry entry, Deadline deadline) {
+        String etag = entry == null ? null : entry.firstHeader("etag");
+        String lastModified = entry == null ? null : entry.firstHeader("last-modified");
+        if (etag == null && lastModified == null && deadline == request.getDeadline()) {
+            return request;
+        }
+        Map<String, String> headers = new LinkedHashMap<>();
+        if (request.getHeaders() != null) {
+            headers.putAll(request.getHeaders());
+        }
+        if (etag != null) {
+            headers.put("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            headers.put("If-Modified-Since", lastModified);
+        }
+        return RdkHttpRequest.builder()
+                .url(request.getUrl())
+                .headers(headers.isEmpty() ? request.getHeaders() : headers)
+                .parameters(request.getParameters())
+                .deadline(deadline)
+                .build();
+    }
+
+    /**
+     * レスポンスからキャッシュを生成します。
+     *
+     * @param key キャッシュキー
+     * @param response レスポンス
+     * @param now 現在時刻
+     * @return キャッシュ（保存対象外の場合は {@code null}）
+     */
+    private CacheEntry toEntry(String key, RdkHttpResponse response, long now) {
+        if (response.statusCode() != 200) {
+            return null;
+        }
+        byte[] body = response.bodyBytes();
+        if (body == null) {
+            return null;
+        }
+        Map<String, List<String>> headers =
+                response.headers() == null ? Map.of() : response.headers();
+        return withFreshness(new CacheEntry(key, 200, headers, body, now, now, now), now);
+    }
+
+    /**
+     * {@code 304 Not Modified} のヘッダでキャッシュのヘッダと有効期限を更新します。
+     *
+     * @param entry キャッシュ
+     * @param response {@code 304} レスポンス
+     * @param now 現在時刻
+     * @return 更新後のキャッシュ（保存対象外となった場合は {@code null}）
+     */
+    private CacheEntry revalidated(CacheEntry entry, RdkHttpResponse response, long now) {
+        Map<String, List<String>> headers = new LinkedHashMap<>(entry.headers());
+        if (response.headers() != null) {
+            response.headers()
+                    .forEach(
+                            (name, values) -> {
+                                if (!name.equals("content-length")) {
+                                    headers.put(name, values);
+                                }
+                            });
+        }
+        return withFreshness(
+                new CacheEntry(
+                        entry.key(), entry.statusCode(), headers, entry.body(), now, now, now),
+                now);
+    }
+
+    /**
+     * ヘッダから有効期限を求めたキャッシュを返します。
+     *
+     * @param entry 有効期限を求める前のキャッシュ
+     * @param now 現在時刻
+     * @return 有効期限を設定したキャッシュ（保存対象外の場合は {@code null}）
+     */
+    private CacheEntry withFreshness(CacheEntry entry, long now) {
+        CacheControl cacheControl = CacheControl.parse(entry.headers().get("cache-control"));
+        if (cacheControl.noStore() || isVaryAny(entry.headers().get("vary"))) {
+            return null;
+        }
+        long freshness;
+        if (cacheControl.noCache()) {
+            freshness = 0;
+        } else if (cacheControl.maxAge() >= 0) {
+            long age = parseLong(entry.firstHeader("age"));
+            freshness = Math.max(0, cacheControl.maxAge() - age) * 1000;
+        } else {
+            Long expires = parseHttpDate(entry.firstHeader("expires"));
+            if (expires != null) {
+                Long date = parseHttpDate(entry.firstHeader("date"));
+                freshness = Math.max(0, expires - (date != null ? date : now));
+            } else {
+                freshness = defaultFreshness.toMillis();
+            }
+        }
+        long stale =
+                cacheControl.staleWhileRevalidate() > 0
+                        ? cacheControl.staleWhileRevalidate() * 1000
+                        : 0;
+        boolean hasValidator =
+                entry.firstHeader("etag") != null || entry.firstHeader("last-modified") != null;
+        if (freshness <= 0 && stale <= 0 && !hasValidator) {
+            // 再利用も再検証もできないため保存しない
+            return null;
+        }
+        return new CacheEntry(
+                entry.key(),
+                entry.statusCode(),
+                entry.headers(),
+                entry.body(),
+                now,
+                now + freshness,
+                now + freshness + stale);
+    }
+
+    /**
+     * メモリ層、次にディスク層からキャッシュを探します（ディスク層で見つかった場合はメモリ層へ載せます）。
+     *
+     * @param key キャッシュキー
+     * @return キャッシュ（ない場合は {@code null}）
+     */
+    private CacheEntry lookup(String key) {
+        lock.lock();
+        try {
+            CacheEntry entry = memory.get(key);
+            if (entry != null) {
+                return entry;
+            }
+        } finally {
+            lock.unlock();
+        }
+        DiskCacheStore disk = this.diskStore;
+        if (disk == null) {
+            return null;
+        }
+        CacheEntry entry = disk.load(key);
+        if (entry != null) {
+            putMemory(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * キャッシュをメモリ層とディスク層に保存します。
+     *
+     * <p>認証情報のヘッダを含むリクエストのレスポンスと、{@code Cache-Control: private} のレスポンスは
+     * メモリ層のみに保存し、ディスク層に保存済みのものは削除します。
+     *
+     * @param entry キャッシュ
+     * @param request 元のリクエスト
+     */
+    private void put(CacheEntry entry, RdkHttpRequest request) {
+        putMemory(entry);
+        DiskCacheStore disk = this.diskStore;
+        if (disk == null) {
+            return;
+        }
+        if (CommonUtils.hasCredentialHeader(request)
+                || CacheControl.parse(entry.headers().get("cache-control")).privateCache()) {
+            disk.remove(entry.key());
+        } else {
+            disk.store(entry);
+        }
+    }
+
+    /**
+     * キャッシュをメモリ層に保存し、上限を超えた場合は最も古く参照されたものを追い出します。
+     *
+     * @param entry キャッシュ
+     */
+    private void putMemory(CacheEntry entry) {
+        lock.lock();
+        try {
+            memory.put(entry.key(), entry);
+            while (memory.size() > maxEntries) {
+                String eldest = memory.keySet().iterator().next();
+                memory.remove(eldest);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * キャッシュをメモリ層とディスク層から削除します。
+     *
+     * @param key キャッシュキー
+     */
+    private void remove(String key) {
+        lock.lock();
+        try {
+            memory.remove(key);
+        } finally {
+            lock.unlock();
+        }
+        DiskCacheStore disk = this.diskStore;
+        if (disk != null) {
+            disk.remove(key);
+        }
+    }
+
+    /**
+     * {@code Vary} ヘッダが {@code *}（リクエストヘッダ以外の条件でも変わる）を含むかどうかを返します。
+     *
+     * @param values {@code Vary} ヘッダの値（null 可）
+     * @return {@code *} を含む場合は {@code true}
+     */
+    private static boolean isVaryAny(List<String> values) {
+        if (values == null) {
+            return false;
+        }
+        for (String value : values) {
+            if (value == null) {
+                continue;
+            }
+            for (String name : value.split(",")) {
+                if (name.trim().equals("*")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * HTTP 日付（RFC 1123 形式）をエポックミリ秒に変換します。
+     *
+     * @param value ヘッダの値（null 可）
+     * @return エポックミリ秒（解釈できない場合は {@code null}）
+     */
+    private static Long parseHttpDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant()
+                    .toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 秒数のヘッダ値を変換します。
+     *
+     * @param value ヘッダの値（null 可）
+     * @return 秒数（解釈できない場合は 0）
+     */
+    private static long parseLong(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * キャッシュの利用状況です。
+     *
+     * @param hits 有効期限内のキャッシュを返した回数
+     * @param staleHits 期限切れのキャッシュを返し、裏で再検証した回数
+     * @param misses キャッシュを利用できず、委譲先へリクエストを送信した回数（裏での再検証は含まない）
+     * @param notModified 再検証で {@code 304 Not Modified} が返った回数（裏での再検証を含む）
+     * @param size メモリ層に保持している件数
+     */
+    public record Statistics(long hits, long staleHits, long misses, long notModified, int size) {}
+}
@@ -0,0 +1,124 @@
+package net.iwazou.rdkdler.http.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import lombok.extern.slf4j.Slf4j;
+import net.iwazou.rdkdler.util.CommonUtils;
+
+/**
+ * {@link CacheEntry} をディレクトリ配下のファイルとして保存するディスク層です。
+ *
+ * <p>ファイル名はキャッシュキーの SHA-256 とし、ファイルにもキャッシュキーそのものは保存しません
+ * （保存する内容は {@link CacheEntry#writeTo(DataOutputStream, String)} を参照）。書き込みは一時ファイルへ出力した後に置き換えるため、
+ * 書き込み途中のファイルを読み込むことはありません。
+ * 読み込めないファイル（破損・形式違い・キーの衝突）はキャッシュなしとして扱い、削除します。
+ *
+ * <p>ディスク層の容量は制限しません。不要になった場合はディレクトリごと削除してください。
+ */
+@Slf4j
+class DiskCacheStore {
+
+    private static final String SUFFIX = ".cache";
+
+    private final Path directory;
+
+    /**
+     * 指定したディレクトリを使用するディスク層を生成します（ディレクトリが存在しない場合は作成します）。
+     *
+     * @param directory 保存先ディレクトリ
+     * @throws IOException ディレクトリを作成できない場合
+     */
+    DiskCacheStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * キャッシュを読み込みます。
+     *
+     * @param key キャッシュキー
+     * @return キャッシュしたレスポンス（存在しない、または読み込めない場合は {@code null}）
+     */
+    CacheEntry load(String key) {
+        String hash = CommonUtils.sha256Hex(key);
+        Path file = fileOf(hash);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            CacheEntry entry = CacheEntry.readFrom(new DataInputStream(in));
+            if (entry.key().equals(hash)) {
+                return entry.withKey(key);
+            }
+            log.debug("load(String) : キャッシュキーが一致しないため破棄します。file={}", file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.debug("load(String) : キャッシュを読み込めないため破棄します。file={}", file, e);
+        }
+        remove(key);
+        return null;
+    }
+
+    /**
+     * キャッシュを保存します。保存に失敗した場合はログを出力して無視します。
+     *
+     * @param entry キャッシュしたレスポンス
+     */
+    void store(CacheEntry entry) {
+        String hash = CommonUtils.sha256Hex(entry.key());
+        Path file = fileOf(hash);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, "tmp", SUFFIX);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                DataOutputStream data = new DataOutputStream(out);
+                entry.writeTo(data, hash);
+                data.flush();
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.debug("store(CacheEntry) : キャッシュを保存できません。file={}", file, e);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignore) {
+                    // 削除できない一時ファイルは残す
+                }
+            }
+        }
+    }
+
+    /**
+     * キャッシュを削除します。
+     *
+     * @param key キャッシュキー
+     */
+    void remove(String key) {
+        try {
+            Files.deleteIfExists(fileOf(CommonUtils.sha256Hex(key)));
+        } catch (IOException e) {
+            log.debug("remove(String) : キャッシュを削除できません。key={}", key, e);
+        }
+    }
+
+    /**
+     * キャッシュキーのハッシュ値に対応するファイルを返します。
+     *
+     * @param hash キャッシュキーの SHA-256
+     * @return ファイルのパス
+     */
+    private Path fileOf(String hash) {
+        return directory.resolve(hash + SUFFIX);
+    }
+}
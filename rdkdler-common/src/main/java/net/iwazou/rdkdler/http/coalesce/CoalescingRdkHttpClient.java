@@ -0,0 +1,305 @@
+package net.iwazou.rdkdler.http.coalesce;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import net.iwazou.rdkdler.exception.RdkDeadlineExceededException;
+import net.iwazou.rdkdler.exception.RdkException;
+import net.iwazou.rdkdler.http.RdkHttpClient;
+import net.iwazou.rdkdler.http.RdkHttpRequest;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
+import net.iwazou.rdkdler.util.CommonUtils;
+import net.iwazou.rdkdler.util.Deadline;
+
+/**
+ * 同時に送信された同一の GET リクエストを 1 回の通信にまとめる {@link RdkHttpClient} のデコレーターです（single-flight）。
+ *
+ * <p>多数のワーカーが一斉に起動して同じエリア判定やステーションリストを取得する場合や、
+ * キャッシュの有効期限切れが重なった場合に、同じ URL への通信が集中するのを防ぎます。
+ *
+ * <p><b>集約の判定</b>
+ * <ul>
+ *   <li>対象は GET のみです。{@link #postForm(RdkHttpRequest)} はそのまま委譲します。</li>
+ *   <li>URL・パラメータ・リクエストヘッダが同じリクエストを同一とみなします（{@link CommonUtils#requestKey(RdkHttpRequest)}）。</li>
+ *   <li>先に送信したリクエストの通信中に到着した同一のリクエストは、通信せずにその結果を待ちます。
+ *       通信が完了した後に到着したリクエストは、改めて送信します（結果を保存はしません）。</li>
+ *   <li>通信エラーの場合は、待っていたすべての呼び出し元に同じ例外をスローします。</li>
+ *   <li>先に送信した呼び出し元が割り込みで中断された場合、待っていた呼び出し元は改めて送信します。</li>
+ *   <li>待っている呼び出し元は、自身のリクエストの期限（{@link RdkHttpRequest#getDeadline()}）までしか待ちません。
+ *       期限を過ぎた場合は {@link RdkDeadlineExceededException} をスローし、通信は他の呼び出し元のために続けます。
+ *       {@link #get(RdkHttpRequest)} では、先に送信した呼び出し元の期限で通信が打ち切られた場合、
+ *       期限が残っている呼び出し元は改めて送信します。</li>
+ * </ul>
+ *
+ * <p>待っていたすべての呼び出し元に同じ {@link RdkHttpResponse} を返すため、レスポンスは読み取り専用として扱ってください。
+ *
+ * <p><b>スレッドセーフ</b>：複数スレッドから同時に利用できます。
+ *
+ * <p>使用例：
+ * <pre>{@code
+ * RdkHttpClient client = new CoalescingRdkHttpClient(new JdkRdkHttpClient(httpClient));
+ * StationService stationService = new StationService(client);
+ * }</pre>
+ */
+@Slf4j
+public class CoalescingRdkHttpClient implements RdkHttpClient {
+
+    /**
+     * 委譲先の HTTP クライアントです。
+     */
+    private final RdkHttpClient delegate;
+
+    /**
+     * 通信中のリクエストのキーと、その結果で完了する {@link CompletableFuture} です。
+     */
+    private final Map<String, CompletableFuture<RdkHttpResponse>> inFlight =
+            new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * デコレーターを生成します。
+     *
+     * @param delegate 委譲先の HTTP クライアント（null 不可）
+     * @throws NullPointerException delegate が {@code null} の場合
+     */
+    public CoalescingRdkHttpClient(RdkHttpClient delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    /**
+     * HTTP GET リクエストを送信します。同一のリクエストが通信中の場合は、その結果を待って返します。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報（null 不可）
+     * @return HTTP レスポンス
+     * @throws NullPointerException rdkHttpRequest が {@code null} の場合
+     * @throws RdkDeadlineExceededException リクエストの期限までに結果を受け取れなかった場合
+     * @throws IOException 通信エラー等が発生した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    @Override
+    public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(rdkHttpRequest);
+        requests.increment();
+        String key = CommonUtils.requestKey(rdkHttpRequest);
+        Deadline deadline = rdkHttpRequest.getDeadline();
+        while (true) {
+            CompletableFuture<RdkHttpResponse> flight = new CompletableFuture<>();
+            CompletableFuture<RdkHttpResponse> existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                return lead(key, rdkHttpRequest, flight);
+            }
+            coalesced.increment();
+            log.debug("get(RdkHttpRequest) : 通信中の同一リクエストの結果を待ちます。key={}", key);
+            try {
+                return await(rdkHttpRequest.getUrl(), existing, deadline);
+            } catch (ExecutionException e) {
+                Throwable cause = unwrap(e.getCause());
+                if (cause instanceof InterruptedException) {
+                    // 先に送信した呼び出し元が中断された場合は改めて送信する
+                    continue;
+                }
+                if (cause instanceof RdkDeadlineExceededException
+                        && (deadline == null || !deadline.isExpired())) {
+                    // 先に送信した呼び出し元の期限で打ち切られた場合は、自身の期限で改めて送信する
+                    continue;
+                }
+                throw rethrow(cause);
+            }
+        }
+    }
+
+    /**
+     * POST リクエストは集約せず、そのまま委譲します。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報
+     * @return HTTP レスポンス
+     * @throws IOException 通信エラー等が発生した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    @Override
+    public RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest)
+            throws IOException, InterruptedException {
+        return delegate.postForm(rdkHttpRequest);
+    }
+
+    /**
+     * HTTP GET リクエストを非同期で送信します。同一のリクエストが通信中の場合は、その結果で完了します。
+     *
+     * <p>呼び出し元ごとに別の {@link CompletableFuture} を返すため、取り消し等が他の呼び出し元に影響することはありません。
+     * 通信中の同一リクエストの結果を待つ場合、リクエストの期限を過ぎると
+     * {@link RdkDeadlineExceededException} で例外完了します（通信は他の呼び出し元のために続けます）。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報（null 不可）
+     * @return HTTP レスポンスで完了する {@link CompletableFuture}
+     * @throws NullPointerException rdkHttpRequest が {@code null} の場合
+     */
+    @Override
+    public CompletableFuture<RdkHttpResponse> getAsync(RdkHttpRequest rdkHttpRequest) {
+        Objects.requireNonNull(rdkHttpRequest);
+        requests.increment();
+        String key = CommonUtils.requestKey(rdkHttpRequest);
+        CompletableFuture<RdkHttpResponse> flight = new CompletableFuture<>();
+        CompletableFuture<RdkHttpResponse> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            log.debug("getAsync(RdkHttpRequest) : 通信中の同一リクエストの結果を待ちます。key={}", key);
+            return withDeadline(
+                    rdkHttpRequest.getUrl(), existing.copy(), rdkHttpRequest.getDeadline());
+        }
+        CompletableFuture<RdkHttpResponse> sent;
+        try {
+            sent = delegate.getAsync(rdkHttpRequest);
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete(
+                (response, e) -> {
+                    inFlight.remove(key, flight);
+                    if (e != null) {
+                        flight.completeExceptionally(unwrap(e));
+                    } else {
+                        flight.complete(response);
+                    }
+                });
+        return flight.copy();
+    }
+
+    /**
+     * {@code application/x-www-form-urlencoded} 形式の POST リクエストは集約せず、そのまま委譲します。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報
+     * @return HTTP レスポンスで完了する {@link CompletableFuture}
+     */
+    @Override
+    public CompletableFuture<RdkHttpResponse> postFormAsync(RdkHttpRequest rdkHttpRequest) {
+        return delegate.postFormAsync(rdkHttpRequest);
+    }
+
+    /**
+     * 利用状況を返します。
+     *
+     * @return 利用状況
+     */
+    public Statistics getStatistics() {
+        return new Statistics(requests.sum(), coalesced.sum(), inFlight.size());
+    }
+
+    /**
+     * 利用状況です。
+     *
+     * @param requests 受け付けた GET リクエスト数
+     * @param coalesced 通信中の同一リクエストにまとめた数（通信を省略した数）
+     * @param inFlight 現在通信中のリクエスト数
+     */
+    public record Statistics(long requests, long coalesced, int inFlight) {}
+
+    /**
+     * 委譲先へ送信し、結果を待っている呼び出し元へ共有します。
+     *
+     * @param key リクエストのキー
+     * @param request 送信するリクエスト
+     * @param flight 結果を共有する {@link CompletableFuture}
+     * @return HTTP レスポンス
+     * @throws IOException 通信エラー等が発生した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    private RdkHttpResponse lead(
+            String key, RdkHttpRequest request, CompletableFuture<RdkHttpResponse> flight)
+            throws IOException, InterruptedException {
+        try {
+            RdkHttpResponse response = delegate.get(request);
+            flight.complete(response);
+            return response;
+        } catch (IOException | InterruptedException | RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * 通信中の同一リクエストの結果を待ちます。期限を指定した場合は、期限までの残り時間だけ待ちます。
+     *
+     * @param url 例外メッセージに含める URL
+     * @param flight 結果を共有する {@link CompletableFuture}
+     * @param deadline 待っている呼び出し元のリクエストの期限（null 可）
+     * @return HTTP レスポンス
+     * @throws RdkDeadlineExceededException 期限までに結果を受け取れなかった場合
+     * @throws ExecutionException 通信でエラーが発生した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    private static RdkHttpResponse await(
+            String url, CompletableFuture<RdkHttpResponse> flight, Deadline deadline)
+            throws RdkDeadlineExceededException, ExecutionException, InterruptedException {
+        if (deadline == null) {
+            return flight.get();
+        }
+        try {
+            return flight.get(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new RdkDeadlineExceededException("Deadline exceeded: " + url, e);
+        }
+    }
+
+    /**
+     * 期限を過ぎた時点で、呼び出し元に返す {@link CompletableFuture} を例外完了させます。
+     *
+     * @param url 例外メッセージに含める URL
+     * @param result 呼び出し元に返す {@link CompletableFuture}（共有する結果のコピー）
+     * @param deadline 呼び出し元のリクエストの期限（null 可）
+     * @return {@code result}
+     */
+    private static CompletableFuture<RdkHttpResponse> withDeadline(
+            String url, CompletableFuture<RdkHttpResponse> result, Deadline deadline) {
+        if (deadline != null && !result.isDone()) {
+            CompletableFuture.delayedExecutor(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS)
+                    .execute(
+                            () ->
+                                    result.completeExceptionally(
+                                            new RdkDeadlineExceededException(
+                                                    "Deadline exceeded: " + url)));
+        }
+        return result;
+    }
+
+    /**
+     * {@link CompletionException} に包まれている場合は、その原因を返します。
+     *
+     * @param e 例外
+     * @return 原因となった例外
+     */
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    /**
+     * 共有された例外を、呼び出し元へスローできる型に変換します。
+     *
+     * @param cause 通信で発生した例外
+     * @return スローする {@link IOException}（実行時例外・エラーの場合はこのメソッド内でスローします）
+     */
+    private static IOException rethrow(Throwable cause) {
+        if (cause instanceof IOException e) {
+            return e;
+        }
+        if (cause instanceof RuntimeException e) {
+            throw e;
+        }
+        if (cause instanceof Error e) {
+            throw e;
+        }
+        return new RdkException(cause);
+    }
+}
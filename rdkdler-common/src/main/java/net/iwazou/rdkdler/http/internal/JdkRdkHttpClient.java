@@ -1,6 +1,9 @@
 package net.iwazou.rdkdler.http.internal;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
@@ -9,22 +12,40 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.Builder;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
+import net.iwazou.rdkdler.exception.RdkDeadlineExceededException;
+import net.iwazou.rdkdler.exception.RdkResponseException;
+import net.iwazou.rdkdler.http.ByteArrayRdkHttpResponse;
 import net.iwazou.rdkdler.http.RdkHttpClient;
 import net.iwazou.rdkdler.http.RdkHttpRequest;
 import net.iwazou.rdkdler.http.RdkHttpResponse;
 import net.iwazou.rdkdler.util.CommonUtils;
+import net.iwazou.rdkdler.util.Deadline;
 
 /**
  * JDK 標準の {@link java.net.http.HttpClient} を利用した {@link RdkHttpClient} 実装。
@@ -38,9 +59,35 @@ import net.iwazou.rdkdler.util.CommonUtils;
  *   <li>POST（{@code application/x-www-form-urlencoded}）</li>
  * </ul>
  *
+ * <p>非同期版（{@link #getAsync(RdkHttpRequest)} / {@link #postFormAsync(RdkHttpRequest)}）は
+ * {@link HttpClient#sendAsync(HttpRequest, HttpResponse.BodyHandler)} を使用するため、
+ * 応答待ちの間に呼び出し側のスレッドを占有しません。
+ *
  * <p><b>ヘッダ運用</b><br>
  * レスポンスヘッダはキーを小文字化して {@link RdkHttpResponse#headers()} に格納します。
  * {@link RdkHttpResponse#firstHeader(String)} と同じ運用方針です。
+ *
+ * <p><b>本文の扱い</b><br>
+ * 本文はバイト列のまま受信し、{@link ByteArrayRdkHttpResponse} として返します。
+ * 文字列（{@link RdkHttpResponse#body()}）へのデコードは、呼び出し側が必要とした時点で行われます。
+ *
+ * <p><b>圧縮</b><br>
+ * {@link #setCompressionEnabled(boolean) 圧縮が有効}（デフォルト）な場合は {@code Accept-Encoding: gzip, deflate}
+ * を送信し、{@code Content-Encoding} が {@code gzip}／{@code deflate} のレスポンスを展開して返します。
+ * 展開したレスポンスからは {@code Content-Encoding}／{@code Content-Length} ヘッダを取り除きます。
+ * 展開後の大きさが {@link #setMaxDecompressedSize(int) 上限} を超える場合は展開を打ち切り、
+ * {@link RdkResponseException} をスローします（小さな圧縮データが巨大なデータに展開される場合に、メモリを使い果たさないため）。
+ * Brotli（{@code br}）は JDK に展開手段がないため要求しません（呼び出し側が明示的に要求した場合は展開せずに返します）。
+ * 圧縮・展開したバイト数は {@link #getCompressionStatistics()} で取得できます。
+ *
+ * <p><b>期限</b><br>
+ * {@link RdkHttpRequest#getDeadline()} が指定されている場合は、{@link #setTimeout(Duration) タイムアウト時間}と
+ * 期限までの残り時間の短い方をリクエストのタイムアウト時間とし、期限によるタイムアウトは
+ * {@link RdkDeadlineExceededException} として通知します。送信前に期限を過ぎている場合は送信しません。
+ *
+ * <p><b>事前接続</b><br>
+ * {@link #warmUp(Collection)} で、名前解決と接続（TCP・TLS のハンドシェイク）を事前に済ませておけます。
+ * 起動直後の最初の通信の応答時間を短縮したい場合に使用してください（任意）。
  */
 public class JdkRdkHttpClient implements RdkHttpClient {
 
@@ -64,6 +111,65 @@ public class JdkRdkHttpClient implements RdkHttpClient {
      */
     @Getter @Setter @NonNull private Duration timeout = Duration.ofSeconds(30);
 
+    /**
+     * -- GETTER --
+     * レスポンスの圧縮を要求するかどうかを取得します。
+     *
+     * @return 圧縮を要求する場合 {@code true}
+     *
+     * -- SETTER --
+     * レスポンスの圧縮を要求するかどうかを設定します。
+     * <p>{@code true}（デフォルト）の場合は {@code Accept-Encoding: gzip, deflate} を送信します。
+     * リクエストヘッダで {@code Accept-Encoding} を指定した場合は、そちらが優先されます。
+     *
+     * @param compressionEnabled 圧縮を要求する場合 {@code true}
+     */
+    @Getter @Setter private volatile boolean compressionEnabled = true;
+
+    /**
+     * -- GETTER --
+     * 圧縮されたレスポンスを展開した後の本文の大きさの上限（バイト）を取得します。
+     *
+     * @return 上限（バイト）
+     */
+    @Getter private volatile int maxDecompressedSize = DEFAULT_MAX_DECOMPRESSED_SIZE;
+
+    /**
+     * 展開した後の本文の大きさの上限（バイト）の既定値（64MiB）です。
+     */
+    public static final int DEFAULT_MAX_DECOMPRESSED_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * {@code Accept-Encoding} に指定する値です。
+     */
+    private static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    /**
+     * {@link #create()} で生成する {@link HttpClient} の接続のタイムアウト時間（秒）です。
+     */
+    private static final int CONNECT_TIMEOUT_SECONDS = 20;
+
+    private final LongAdder responses = new LongAdder();
+    private final LongAdder compressedResponses = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder decompressedBytes = new LongAdder();
+
+    /**
+     * 圧縮されたレスポンスを展開した後の本文の大きさの上限（バイト）を設定します。
+     * <p>上限を超える場合は {@link RdkResponseException} をスローします。
+     * デフォルトは {@link #DEFAULT_MAX_DECOMPRESSED_SIZE} です。
+     *
+     * @param maxDecompressedSize 上限（バイト。1 以上）
+     * @throws IllegalArgumentException maxDecompressedSize が 1 未満の場合
+     */
+    public void setMaxDecompressedSize(int maxDecompressedSize) {
+        if (maxDecompressedSize <= 0) {
+            throw new IllegalArgumentException(
+                    "maxDecompressedSize must be positive (value=" + maxDecompressedSize + ")");
+        }
+        this.maxDecompressedSize = maxDecompressedSize;
+    }
+
     /**
      * 指定した {@link HttpClient} を用いて生成します。
      *
@@ -74,6 +180,120 @@ public class JdkRdkHttpClient implements RdkHttpClient {
         this.httpClient = Objects.requireNonNull(httpClient);
     }
 
+    /**
+     * HTTP/2 で通信する {@link HttpClient} を用いて生成します。
+     *
+     * <p>HTTP/2 に対応した接続先（TLS の ALPN で合意できた場合）とは、同じ接続先へのリクエストを 1 本の接続上に多重化して送信します。
+     * 対応していない接続先とは HTTP/1.1 で通信し、接続は {@link HttpClient} の接続プールで再利用されます。
+     * {@link RdkHttpClient#getAll(java.util.List, int)} などで多数のリクエストを並行して送信する場合に適しています。
+     *
+     * <p>接続のタイムアウトは {@value #CONNECT_TIMEOUT_SECONDS} 秒です。
+     * その他の設定が必要な場合は {@link #JdkRdkHttpClient(HttpClient)} を使用してください。
+     *
+     * @return 生成したインスタンス
+     */
+    public static JdkRdkHttpClient create() {
+        return new JdkRdkHttpClient(
+                HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(Duration.ofSeconds(CONNECT_TIMEOUT_SECONDS))
+                        .build());
+    }
+
+    /**
+     * 指定した URL の接続先へ事前に接続し、接続を {@link HttpClient} の接続プールに保持させます。
+     *
+     * <p>各 URL について、接続先の名前解決を行った後、{@code HEAD} リクエストを送信して接続を確立します。
+     * 名前解決の結果は JVM に、確立した接続は {@link HttpClient} にキャッシュされるため、
+     * その後の同じ接続先へのリクエストではハンドシェイクの時間がかかりません。
+     * URL ごとに並行して処理し、すべての完了を待ってから結果を返します。
+     *
+     * <p>通信に失敗した場合も例外はスローせず、結果に失敗の内容を格納します。
+     * 使用されない接続は一定時間（JDK の既定では数十秒〜数分）で切断されるため、
+     * 接続を保持し続けたい場合は定期的に呼び出してください。
+     *
+     * @param urls 接続先の URL（null 不可。要素も null 不可）
+     * @return URL と同じ順の処理結果
+     * @throws NullPointerException urls またはその要素が {@code null} の場合
+     * @throws IllegalArgumentException URL の形式が不正な場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    public List<WarmUpResult> warmUp(Collection<String> urls) throws InterruptedException {
+        List<HttpRequest> requests =
+                urls.stream()
+                        .map(
+                                url ->
+                                        HttpRequest.newBuilder(URI.create(url))
+                                                .timeout(timeout)
+                                                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                                                .build())
+                        .toList();
+        List<WarmUpResult> results = new ArrayList<>(requests.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<WarmUpResult>> futures = new ArrayList<>(requests.size());
+            for (HttpRequest request : requests) {
+                futures.add(executor.submit(() -> warmUp(request)));
+            }
+            for (Future<WarmUpResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            // warmUp(HttpRequest) は InterruptedException 以外の例外をスローしない
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * 1 つの URL の接続先へ事前に接続します。
+     *
+     * @param request 接続先へ送信する {@code HEAD} リクエスト
+     * @return 処理結果
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    private WarmUpResult warmUp(HttpRequest request) throws InterruptedException {
+        String url = request.uri().toString();
+        long start = System.nanoTime();
+        try {
+            InetAddress.getAllByName(request.uri().getHost());
+        } catch (IOException e) {
+            Duration dnsLookup = Duration.ofNanos(System.nanoTime() - start);
+            return new WarmUpResult(url, dnsLookup, Duration.ZERO, 0, e.toString());
+        }
+        long resolved = System.nanoTime();
+        Duration dnsLookup = Duration.ofNanos(resolved - start);
+        try {
+            HttpResponse<Void> response = httpClient.send(request, BodyHandlers.discarding());
+            Duration connect = Duration.ofNanos(System.nanoTime() - resolved);
+            return new WarmUpResult(url, dnsLookup, connect, response.statusCode(), null);
+        } catch (IOException e) {
+            Duration connect = Duration.ofNanos(System.nanoTime() - resolved);
+            return new WarmUpResult(url, dnsLookup, connect, 0, e.toString());
+        }
+    }
+
+    /**
+     * {@link #warmUp(Collection)} の URL ごとの処理結果です。
+     *
+     * @param url 接続先の URL
+     * @param dnsLookup 名前解決にかかった時間
+     * @param connect 接続の確立（TCP・TLS のハンドシェイク）と {@code HEAD} リクエストの往復にかかった時間
+     * @param statusCode {@code HEAD} リクエストのステータスコード（失敗した場合は 0）
+     * @param error 失敗した場合はその内容（成功した場合は {@code null}）
+     */
+    public record WarmUpResult(
+            String url, Duration dnsLookup, Duration connect, int statusCode, String error) {
+
+        /**
+         * 接続に成功したかどうかを返します。{@code HEAD} を許可しない接続先（405 など）も、接続できていれば成功とします。
+         *
+         * @return 成功した場合 {@code true}
+         */
+        public boolean succeeded() {
+            return error == null;
+        }
+    }
+
     /**
      * GET リクエストを送信します。
      *
@@ -89,12 +309,37 @@ public class JdkRdkHttpClient implements RdkHttpClient {
     @Override
     public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest)
             throws IOException, InterruptedException {
+        return send(toGetRequest(rdkHttpRequest), rdkHttpRequest.getDeadline());
+    }
+
+    /**
+     * GET リクエストを非同期で送信します。
+     *
+     * <p>リクエストの組み立ては {@link #get(RdkHttpRequest)} と同じです。
+     *
+     * @param rdkHttpRequest リクエスト情報（null 不可、URL 必須）
+     * @return レスポンスで完了する {@link CompletableFuture}（通信エラー等の場合は例外完了）
+     * @throws NullPointerException rdkHttpRequest または URL が {@code null} の場合
+     */
+    @Override
+    public CompletableFuture<RdkHttpResponse> getAsync(RdkHttpRequest rdkHttpRequest) {
+        return sendAsync(toGetRequest(rdkHttpRequest), rdkHttpRequest.getDeadline());
+    }
+
+    /**
+     * GET リクエストを組み立てます。
+     *
+     * @param rdkHttpRequest リクエスト情報（null 不可、URL 必須）
+     * @return 送信する {@link HttpRequest}
+     * @throws NullPointerException rdkHttpRequest または URL が {@code null} の場合
+     */
+    private HttpRequest toGetRequest(RdkHttpRequest rdkHttpRequest) {
         Objects.requireNonNull(rdkHttpRequest);
         Objects.requireNonNull(rdkHttpRequest.getUrl());
         String para = buildFormDataString(rdkHttpRequest.getParameters(), StandardCharsets.UTF_8);
         Builder builder =
                 HttpRequest.newBuilder()
-                        .timeout(timeout)
+                        .timeout(timeoutOf(rdkHttpRequest))
                         .GET()
                         .uri(
                                 URI.create(
@@ -102,7 +347,7 @@ public class JdkRdkHttpClient implements RdkHttpClient {
                                                 + (CommonUtils.isNotBlank(para)
                                                         ? "?" + para
                                                         : "")));
-        return execute(builder, rdkHttpRequest.getHeaders());
+        return build(builder, rdkHttpRequest.getHeaders());
     }
 
     /**
@@ -120,38 +365,271 @@ public class JdkRdkHttpClient implements RdkHttpClient {
     @Override
     public RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest)
             throws IOException, InterruptedException {
+        return send(toPostFormRequest(rdkHttpRequest), rdkHttpRequest.getDeadline());
+    }
+
+    /**
+     * フォーム（{@code application/x-www-form-urlencoded}）形式の POST リクエストを非同期で送信します。
+     *
+     * <p>リクエストの組み立ては {@link #postForm(RdkHttpRequest)} と同じです。
+     *
+     * @param rdkHttpRequest リクエスト情報（null 不可、URL 必須）
+     * @return レスポンスで完了する {@link CompletableFuture}（通信エラー等の場合は例外完了）
+     * @throws NullPointerException rdkHttpRequest または URL が {@code null} の場合
+     */
+    @Override
+    public CompletableFuture<RdkHttpResponse> postFormAsync(RdkHttpRequest rdkHttpRequest) {
+        return sendAsync(toPostFormRequest(rdkHttpRequest), rdkHttpRequest.getDeadline());
+    }
+
+    /**
+     * フォーム形式の POST リクエストを組み立てます。
+     *
+     * @param rdkHttpRequest リクエスト情報（null 不可、URL 必須）
+     * @return 送信する {@link HttpRequest}
+     * @throws NullPointerException rdkHttpRequest または URL が {@code null} の場合
+     */
+    private HttpRequest toPostFormRequest(RdkHttpRequest rdkHttpRequest) {
         Objects.requireNonNull(rdkHttpRequest);
         Objects.requireNonNull(rdkHttpRequest.getUrl());
         String formBody =
                 buildFormDataString(rdkHttpRequest.getParameters(), StandardCharsets.UTF_8);
         Builder builder =
                 HttpRequest.newBuilder()
-                        .timeout(timeout)
+                        .timeout(timeoutOf(rdkHttpRequest))
                         .uri(URI.create(rdkHttpRequest.getUrl()))
                         .header("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8")
                         .POST(
                                 HttpRequest.BodyPublishers.ofString(
                                         formBody, StandardCharsets.UTF_8));
-        return execute(builder, rdkHttpRequest.getHeaders());
+        return build(builder, rdkHttpRequest.getHeaders());
     }
 
     /**
-     * {@link HttpRequest.Builder} を最終的な {@link HttpRequest} に組み立て、送信してレスポンスを変換します。
+     * リクエストのタイムアウト時間を返します。
+     *
+     * <p>{@link RdkHttpRequest#getDeadline()} が指定されている場合は、{@link #getTimeout()} と期限までの残り時間の短い方です。
+     *
+     * @param rdkHttpRequest リクエスト情報
+     * @return タイムアウト時間（期限を過ぎている場合も、{@link HttpRequest.Builder#timeout(Duration)} に渡せる正の値）
+     */
+    private Duration timeoutOf(RdkHttpRequest rdkHttpRequest) {
+        Deadline deadline = rdkHttpRequest.getDeadline();
+        if (deadline == null) {
+            return timeout;
+        }
+        Duration capped = deadline.cap(timeout);
+        return capped.isPositive() ? capped : Duration.ofNanos(1);
+    }
+
+    /**
+     * {@link HttpRequest.Builder} を最終的な {@link HttpRequest} に組み立てます。
      *
      * <p>追加ヘッダ（{@code headers}）が指定されている場合、{@link Builder#setHeader(String, String)} で設定します。
+     * 圧縮が有効な場合の {@code Accept-Encoding} は、追加ヘッダより先に設定します（追加ヘッダが優先されます）。
      *
      * @param builder 送信するリクエストのビルダー
      * @param headers 追加ヘッダ（null 可）
-     * @return {@link RdkHttpResponse} 実装（内部 record）
+     * @return 送信する {@link HttpRequest}
+     */
+    private HttpRequest build(Builder builder, Map<String, String> headers) {
+        if (compressionEnabled) builder.setHeader("Accept-Encoding", ACCEPT_ENCODING);
+        if (headers != null) headers.forEach(builder::setHeader);
+        return builder.build();
+    }
+
+    /**
+     * リクエストを送信してレスポンスを変換します。
+     *
+     * @param request 送信するリクエスト
+     * @param deadline 処理全体の期限（null 可）
+     * @return {@link ByteArrayRdkHttpResponse}
+     * @throws RdkDeadlineExceededException 期限を過ぎた場合
      * @throws IOException 通信エラー等が発生した場合
      * @throws InterruptedException スレッド割り込みにより中断された場合
      */
-    private JdkRdkHttpResponse execute(Builder builder, Map<String, String> headers)
+    private RdkHttpResponse send(HttpRequest request, Deadline deadline)
             throws IOException, InterruptedException {
-        if (headers != null) headers.forEach(builder::setHeader);
-        HttpResponse<String> response = httpClient.send(builder.build(), BodyHandlers.ofString());
-        return new JdkRdkHttpResponse(
-                response.statusCode(), toHeaderMap(response.headers()), response.body());
+        if (deadline != null) {
+            deadline.check(request.uri().toString());
+        }
+        try {
+            return toRdkHttpResponse(httpClient.send(request, BodyHandlers.ofByteArray()));
+        } catch (HttpTimeoutException e) {
+            throw deadlineExceeded(request, deadline, e);
+        }
+    }
+
+    /**
+     * リクエストを非同期で送信し、レスポンスを変換します。
+     *
+     * @param request 送信するリクエスト
+     * @param deadline 処理全体の期限（null 可）
+     * @return 変換後のレスポンスで完了する {@link CompletableFuture}
+     *     （期限を過ぎた場合は {@link RdkDeadlineExceededException} で例外完了）
+     */
+    private CompletableFuture<RdkHttpResponse> sendAsync(HttpRequest request, Deadline deadline) {
+        if (deadline == null) {
+            return httpClient
+                    .sendAsync(request, BodyHandlers.ofByteArray())
+                    .thenApply(CommonUtils.unchecked(this::toRdkHttpResponse));
+        }
+        try {
+            deadline.check(request.uri().toString());
+        } catch (RdkDeadlineExceededException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return httpClient
+                .sendAsync(request, BodyHandlers.ofByteArray())
+                .thenApply(CommonUtils.unchecked(this::toRdkHttpResponse))
+                .exceptionallyCompose(
+                        e -> {
+                            Throwable cause =
+                                    e instanceof CompletionException && e.getCause() != null
+                                            ? e.getCause()
+                                            : e;
+                            return CompletableFuture.failedFuture(
+                                    cause instanceof HttpTimeoutException timedOut
+                                            ? deadlineExceeded(request, deadline, timedOut)
+                                            : cause);
+                        });
+    }
+
+    /**
+     * タイムアウトが期限によるものであれば {@link RdkDeadlineExceededException} に変換します。
+     *
+     * @param request 送信したリクエスト
+     * @param deadline 処理全体の期限（null 可）
+     * @param e タイムアウトの例外
+     * @return 期限を過ぎている場合は {@link RdkDeadlineExceededException}、そうでない場合は {@code e}
+     */
+    private static IOException deadlineExceeded(
+            HttpRequest request, Deadline deadline, HttpTimeoutException e) {
+        if (deadline != null && deadline.isExpired()) {
+            return new RdkDeadlineExceededException("Deadline exceeded: " + request.uri(), e);
+        }
+        return e;
+    }
+
+    /**
+     * JDK の {@link HttpResponse} を {@link RdkHttpResponse} に変換します。
+     *
+     * <p>本文が {@code gzip}／{@code deflate} で圧縮されている場合は展開します。
+     *
+     * @param response JDK のレスポンス
+     * @return {@link ByteArrayRdkHttpResponse}
+     * @throws RdkResponseException 展開した本文が上限を超える場合
+     * @throws IOException 圧縮された本文を展開できない場合
+     */
+    private RdkHttpResponse toRdkHttpResponse(HttpResponse<byte[]> response) throws IOException {
+        Map<String, List<String>> headers = toHeaderMap(response.headers());
+        byte[] body = response.body();
+        responses.increment();
+        String encoding =
+                response.headers()
+                        .firstValue("Content-Encoding")
+                        .map(v -> v.trim().toLowerCase(Locale.ROOT))
+                        .orElse("");
+        if (body != null && body.length > 0 && isSupportedEncoding(encoding)) {
+            byte[] decompressed = decompress(encoding, body, maxDecompressedSize);
+            if (decompressed.length > maxDecompressedSize) {
+                throw new RdkResponseException(
+                        "decompressed response body exceeds "
+                                + maxDecompressedSize
+                                + " bytes: "
+                                + response.uri());
+            }
+            compressedResponses.increment();
+            compressedBytes.add(body.length);
+            decompressedBytes.add(decompressed.length);
+            body = decompressed;
+            // 展開後の本文と矛盾するヘッダは取り除く
+            headers.remove("content-encoding");
+            headers.remove("content-length");
+        }
+        return new ByteArrayRdkHttpResponse(response.statusCode(), headers, body);
+    }
+
+    /**
+     * 展開に対応した {@code Content-Encoding} かどうかを返します。
+     *
+     * @param encoding {@code Content-Encoding} の値（小文字）
+     * @return {@code gzip}／{@code x-gzip}／{@code deflate} の場合 {@code true}
+     */
+    private static boolean isSupportedEncoding(String encoding) {
+        return encoding.equals("gzip") || encoding.equals("x-gzip") || encoding.equals("deflate");
+    }
+
+    /**
+     * 圧縮された本文を展開します。
+     *
+     * <p>{@code deflate} は仕様上 zlib 形式ですが、ヘッダのない raw deflate を返すサーバーもあるため、
+     * zlib 形式で展開できない場合は raw deflate として展開します。
+     *
+     * <p>展開は上限を 1 バイト超えた時点で打ち切ります。
+     *
+     * @param encoding {@code Content-Encoding} の値（小文字）
+     * @param body 圧縮された本文
+     * @param limit 展開した本文の大きさの上限（バイト）
+     * @return 展開した本文（上限を超える場合は、上限より 1 バイト長いところまで）
+     * @throws IOException 展開できない場合
+     */
+    private static byte[] decompress(String encoding, byte[] body, int limit) throws IOException {
+        // 上限を超えたことが分かるよう、上限より 1 バイト多く読み込む
+        int length = limit == Integer.MAX_VALUE ? limit : limit + 1;
+        if (!encoding.equals("deflate")) {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                return in.readNBytes(length);
+            }
+        }
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(body))) {
+            return in.readNBytes(length);
+        } catch (ZipException e) {
+            Inflater inflater = new Inflater(true);
+            try (InputStream in =
+                    new InflaterInputStream(new ByteArrayInputStream(body), inflater)) {
+                return in.readNBytes(length);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    /**
+     * 圧縮の利用状況を返します。
+     *
+     * @return 圧縮の利用状況
+     */
+    public CompressionStatistics getCompressionStatistics() {
+        return new CompressionStatistics(
+                responses.sum(),
+                compressedResponses.sum(),
+                compressedBytes.sum(),
+                decompressedBytes.sum());
+    }
+
+    /**
+     * 圧縮の利用状況です。
+     *
+     * @param responses 受信したレスポンス数
+     * @param compressedResponses そのうち圧縮されていたレスポンス数
+     * @param compressedBytes 圧縮されていたレスポンスの受信バイト数（展開前）
+     * @param decompressedBytes 圧縮されていたレスポンスの展開後のバイト数
+     */
+    public record CompressionStatistics(
+            long responses,
+            long compressedResponses,
+            long compressedBytes,
+            long decompressedBytes) {
+
+        /**
+         * 圧縮されていたレスポンスの圧縮率（展開後 ÷ 展開前）を返します。
+         *
+         * @return 圧縮率（圧縮されたレスポンスがない場合は 1.0）
+         */
+        public double ratio() {
+            return compressedBytes == 0 ? 1.0 : (double) decompressedBytes / compressedBytes;
+        }
     }
 
     /**
@@ -198,17 +676,4 @@ public class JdkRdkHttpClient implements RdkHttpClient {
                         })
                 .collect(Collectors.joining("&"));
     }
-
-    /**
-     * {@link RdkHttpResponse} の JDK 実装。
-     *
-     * <p>JDK {@link HttpResponse} の情報を {@link RdkHttpResponse} へ投影するための軽量な内部 record です。
-     *
-     * @param statusCode HTTP ステータスコード
-     * @param headers レスポンスヘッダ（キーは小文字化済み）
-     * @param body レスポンス本文（null の可能性あり）
-     */
-    private record JdkRdkHttpResponse(
-            int statusCode, Map<String, List<String>> headers, String body)
-            implements RdkHttpResponse {}
 }
@@ -0,0 +1,124 @@
+package net.iwazou.rdkdler.http.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 計測値をメモリ上で集計する {@link RdkMetrics} の実装です。
+ *
+ * <p>集計単位（endpoint）ごとに、応答時間のヒストグラム（{@link LatencyHistogram}）、送受信したバイト数、
+ * ステータスコードごとの件数、通信エラーの件数、通信中の件数を保持します。
+ * 集計値は {@link #snapshot()} で取得します。
+ *
+ * <p><b>スレッドセーフ</b>：複数スレッドから同時に利用できます。記録時はロックを取得せず、
+ * 初めての集計単位を除いてオブジェクトも生成しません。
+ */
+public class InMemoryRdkMetrics implements RdkMetrics {
+
+    /**
+     * 件数を数えるステータスコードの上限（この値を含まない）です。範囲外のステータスコードは 0 として数えます。
+     */
+    private static final int MAX_STATUS_CODE = 600;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public void requestStarted(String endpoint) {
+        endpoint(endpoint).inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void requestCompleted(
+            String endpoint, int statusCode, long latencyNanos, long bytesOut, long bytesIn) {
+        Endpoint e = endpoint(endpoint);
+        e.inFlight.decrementAndGet();
+        e.latency.record(latencyNanos);
+        e.bytesOut.add(bytesOut);
+        e.bytesIn.add(bytesIn);
+        e.statusCounts.incrementAndGet(
+                statusCode > 0 && statusCode < MAX_STATUS_CODE ? statusCode : 0);
+    }
+
+    @Override
+    public void requestFailed(String endpoint, Throwable error, long latencyNanos, long bytesOut) {
+        Endpoint e = endpoint(endpoint);
+        e.inFlight.decrementAndGet();
+        e.latency.record(latencyNanos);
+        e.bytesOut.add(bytesOut);
+        e.errors.increment();
+    }
+
+    /**
+     * 集計単位ごとの集計値を返します。
+     *
+     * @return 集計単位をキーとした集計値（キーの昇順）
+     */
+    public Map<String, EndpointSnapshot> snapshot() {
+        Map<String, EndpointSnapshot> result = new TreeMap<>();
+        endpoints.forEach((name, e) -> result.put(name, e.snapshot()));
+        return result;
+    }
+
+    /**
+     * 集計値をすべて破棄します。
+     */
+    public void reset() {
+        endpoints.clear();
+    }
+
+    /**
+     * 集計単位ごとの集計値です。
+     *
+     * @param latency 応答時間（ナノ秒）の集計値
+     * @param bytesOut 送信した本文のバイト数の合計
+     * @param bytesIn 受信した本文のバイト数の合計
+     * @param statusCounts ステータスコードごとの件数（ステータスコードの昇順。範囲外のステータスコードは 0）
+     * @param errors 通信エラーの件数
+     * @param inFlight 通信中の件数
+     */
+    public record EndpointSnapshot(
+            LatencyHistogram.Snapshot latency,
+            long bytesOut,
+            long bytesIn,
+            Map<Integer, Long> statusCounts,
+            long errors,
+            long inFlight) {}
+
+    private Endpoint endpoint(String name) {
+        Endpoint e = endpoints.get(name);
+        return e != null ? e : endpoints.computeIfAbsent(name, k -> new Endpoint());
+    }
+
+    /**
+     * 集計単位ごとの集計値を保持します。
+     */
+    private static class Endpoint {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder bytesOut = new LongAdder();
+        private final LongAdder bytesIn = new LongAdder();
+        private final AtomicLongArray statusCounts = new AtomicLongArray(MAX_STATUS_CODE);
+        private final LongAdder errors = new LongAdder();
+        private final AtomicLong inFlight = new AtomicLong();
+
+        EndpointSnapshot snapshot() {
+            Map<Integer, Long> statuses = new TreeMap<>();
+            for (int status = 0; status < MAX_STATUS_CODE; status++) {
+                long n = statusCounts.get(status);
+                if (n > 0) {
+                    statuses.put(status, n);
+                }
+            }
+            return new EndpointSnapshot(
+                    latency.snapshot(),
+                    bytesOut.sum(),
+                    bytesIn.sum(),
+                    statuses,
+                    errors.sum(),
+                    inFlight.get());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package net.iwazou.rdkdler.http.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 応答時間などの分布を記録するヒストグラムです（HDR Histogram 方式）。
+ *
+ * <p>値を 2 のべき乗ごとの区間に分け、各区間をさらに {@value #SUB_BUCKETS} 等分した固定のバケットで数えます。
+ * 相対誤差は約 {@code 1/}{@value #SUB_BUCKETS}（約 3%）で、値の大きさによらず一定です。
+ *
+ * <p><b>記録のコスト</b>：{@link #record(long)} はビット演算でバケットを求めて加算するだけで、
+ * オブジェクトを生成しません。複数スレッドから同時に記録でき、ロックも取得しません。
+ *
+ * <p>記録できる値は 0 以上 {@code 2^}{@value #MAX_EXPONENT} 未満です（ナノ秒で約 18 分）。
+ * 範囲外の値は、負の値は 0、上限以上の値は最大のバケットとして数えます（{@link #max()} は実際の値を返します）。
+ */
+public final class LatencyHistogram {
+
+    /**
+     * 2 のべき乗ごとの区間を等分する数（{@code 2^SUB_BITS}）のビット数です。
+     */
+    private static final int SUB_BITS = 5;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * 記録できる値の上限（{@code 2^MAX_EXPONENT}）の指数です。
+     */
+    private static final int MAX_EXPONENT = 40;
+
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * 値を 1 件記録します。
+     *
+     * @param value 値（ナノ秒など）
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(indexOf(v));
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * 記録した件数を返します。
+     *
+     * @return 件数
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * 記録した値の平均を返します。
+     *
+     * @return 平均（記録がない場合は 0）
+     */
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * 記録した値の最大値を返します。
+     *
+     * @return 最大値（記録がない場合は 0）
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * 指定したパーセンタイルの値を返します。
+     *
+     * <p>該当するバケットの上限値を返すため、実際の値より最大で約 3% 大きくなります（ただし {@link #max()} を超えません）。
+     *
+     * @param percentile パーセンタイル（0.0〜100.0）
+     * @return 値（記録がない場合は 0）
+     * @throws IllegalArgumentException percentile が範囲外の場合
+     */
+    public long percentile(double percentile) {
+        if (!(percentile >= 0.0 && percentile <= 100.0)) {
+            throw new IllegalArgumentException(
+                    "percentile must be between 0 and 100 (value=" + percentile + ")");
+        }
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * 現在の集計値を返します。
+     *
+     * @return 集計値
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(
+                count(), mean(), percentile(50), percentile(90), percentile(99), max());
+    }
+
+    /**
+     * ヒストグラムの集計値です。
+     *
+     * @param count 件数
+     * @param mean 平均
+     * @param p50 50 パーセンタイル（中央値）
+     * @param p90 90 パーセンタイル
+     * @param p99 99 パーセンタイル
+     * @param max 最大値
+     */
+    public record Snapshot(long count, double mean, long p50, long p90, long p99, long max) {}
+
+    /**
+     * 値を数えるバケットの位置を返します。
+     *
+     * @param value 0 以上の値
+     * @return バケットの位置
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BITS;
+        int sub = (int) (value >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * バケットに数える値の上限（この値を含む）を返します。
+     *
+     * @param index バケットの位置
+     * @return 上限値
+     */
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
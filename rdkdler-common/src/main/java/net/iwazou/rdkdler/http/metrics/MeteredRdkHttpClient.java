@@ -0,0 +1,334 @@
+package net.iwazou.rdkdler.http.metrics;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import lombok.NonNull;
+import lombok.Setter;
+import net.iwazou.rdkdler.http.RdkHttpClient;
+import net.iwazou.rdkdler.http.RdkHttpRequest;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
+
+/**
+ * 通信ごとの計測値を {@link RdkMetrics} へ通知する {@link RdkHttpClient} のデコレーターです。
+ *
+ * <p>集計単位（endpoint）ごとに、応答時間・送受信した本文のバイト数・ステータスコード・通信エラー・通信中の件数を通知します。
+ * 集計単位は {@code "GET radiko.jp/v3/station/list/{}.xml"} のように、メソッドと
+ * {@link #setEndpointResolver(Function)} で求めた文字列を組み合わせたものです。
+ * 既定（{@link #pathTemplate(RdkHttpRequest)}）はホスト名とパスで、パスのうち局 ID・エリア ID・日付などの
+ * 値を {@code {}} に置き換えます（クエリは含みません）。集計単位ごとに集計値を保持する {@link RdkMetrics}
+ * （{@link InMemoryRdkMetrics} など）で集計単位が増え続けないよう、URL ごとに変わる値は集計単位に含めないでください。
+ *
+ * <p>{@link RdkMetrics#NOOP} を指定した場合は計測を行わず、そのまま委譲します
+ * （集計単位・送信する本文のバイト数も求めません）。
+ *
+ * <p><b>スレッドセーフ</b>：複数スレッドから同時に利用できます（{@link RdkMetrics} の実装もスレッドセーフである必要があります）。
+ *
+ * <p>使用例：
+ * <pre>{@code
+ * InMemoryRdkMetrics metrics = new InMemoryRdkMetrics();
+ * RdkHttpClient client = new MeteredRdkHttpClient(new JdkRdkHttpClient(httpClient), metrics);
+ * // ...
+ * metrics.snapshot().forEach((endpoint, s) -> log.info("{} p99={}ns", endpoint, s.latency().p99()));
+ * }</pre>
+ */
+public class MeteredRdkHttpClient implements RdkHttpClient {
+
+    /**
+     * 委譲先の HTTP クライアントです。
+     */
+    private final RdkHttpClient delegate;
+
+    private final RdkMetrics metrics;
+
+    /**
+     * -- SETTER --
+     * リクエストから集計単位を求める関数を設定します（メソッド名は自動で先頭に付与します）。
+     * <p>デフォルトは {@link #pathTemplate(RdkHttpRequest)}（URL のホスト名と、値を置き換えたパス）です。
+     *
+     * @param endpointResolver 集計単位を求める関数
+     */
+    @Setter @NonNull
+    private volatile Function<RdkHttpRequest, String> endpointResolver =
+            MeteredRdkHttpClient::pathTemplate;
+
+    /**
+     * -- SETTER --
+     * 応答時間の計測に使用する時刻（ナノ秒）の取得元を設定します（主にテスト用）。
+     * <p>デフォルトは {@link System#nanoTime()} です。
+     *
+     * @param nanoTime 時刻（ナノ秒）の取得元
+     */
+    @Setter @NonNull private volatile LongSupplier nanoTime = System::nanoTime;
+
+    /**
+     * デコレーターを生成します。
+     *
+     * @param delegate 委譲先の HTTP クライアント（null 不可）
+     * @param metrics 計測値の通知先（null 不可。計測しない場合は {@link RdkMetrics#NOOP}）
+     * @throws NullPointerException delegate または metrics が {@code null} の場合
+     */
+    public MeteredRdkHttpClient(RdkHttpClient delegate, RdkMetrics metrics) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /**
+     * HTTP GET リクエストを送信し、計測値を通知します。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報（null 不可）
+     * @return HTTP レスポンス
+     * @throws NullPointerException rdkHttpRequest が {@code null} の場合
+     * @throws IOException 通信エラー等が発生した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    @Override
+    public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(rdkHttpRequest);
+        if (metrics == RdkMetrics.NOOP) {
+            return delegate.get(rdkHttpRequest);
+        }
+        String endpoint = "GET " + endpointResolver.apply(rdkHttpRequest);
+        return measure(endpoint, 0, () -> delegate.get(rdkHttpRequest));
+    }
+
+    /**
+     * HTTP POST リクエストを送信し、計測値を通知します。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報（null 不可）
+     * @return HTTP レスポンス
+     * @throws NullPointerException rdkHttpRequest が {@code null} の場合
+     * @throws IOException 通信エラー等が発生した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    @Override
+    public RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(rdkHttpRequest);
+        if (metrics == RdkMetrics.NOOP) {
+            return delegate.postForm(rdkHttpRequest);
+        }
+        String endpoint = "POST " + endpointResolver.apply(rdkHttpRequest);
+        long bytesOut = formLength(rdkHttpRequest.getParameters());
+        return measure(endpoint, bytesOut, () -> delegate.postForm(rdkHttpRequest));
+    }
+
+    /**
+     * HTTP GET リクエストを非同期で送信し、完了時に計測値を通知します。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報（null 不可）
+     * @return HTTP レスポンスで完了する {@link CompletableFuture}
+     * @throws NullPointerException rdkHttpRequest が {@code null} の場合
+     */
+    @Override
+    public CompletableFuture<RdkHttpResponse> getAsync(RdkHttpRequest rdkHttpRequest) {
+        Objects.requireNonNull(rdkHttpRequest);
+        if (metrics == RdkMetrics.NOOP) {
+            return delegate.getAsync(rdkHttpRequest);
+        }
+        String endpoint = "GET " + endpointResolver.apply(rdkHttpRequest);
+        return measureAsync(endpoint, 0, () -> delegate.getAsync(rdkHttpRequest));
+    }
+
+    /**
+     * HTTP POST リクエストを非同期で送信し、完了時に計測値を通知します。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報（null 不可）
+     * @return HTTP レスポンスで完了する {@link CompletableFuture}
+     * @throws NullPointerException rdkHttpRequest が {@code null} の場合
+     */
+    @Override
+    public CompletableFuture<RdkHttpResponse> postFormAsync(RdkHttpRequest rdkHttpRequest) {
+        Objects.requireNonNull(rdkHttpRequest);
+        if (metrics == RdkMetrics.NOOP) {
+            return delegate.postFormAsync(rdkHttpRequest);
+        }
+        String endpoint = "POST " + endpointResolver.apply(rdkHttpRequest);
+        long bytesOut = formLength(rdkHttpRequest.getParameters());
+        return measureAsync(endpoint, bytesOut, () -> delegate.postFormAsync(rdkHttpRequest));
+    }
+
+    /**
+     * 委譲先への送信を表す関数です。
+     */
+    @FunctionalInterface
+    private interface Call {
+        RdkHttpResponse call() throws IOException, InterruptedException;
+    }
+
+    /**
+     * 同期の送信を計測します。
+     *
+     * @param endpoint 集計単位
+     * @param bytesOut 送信する本文のバイト数
+     * @param call 委譲先への送信
+     * @return HTTP レスポンス
+     * @throws IOException 通信エラー等が発生した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    private RdkHttpResponse measure(String endpoint, long bytesOut, Call call)
+            throws IOException, InterruptedException {
+        metrics.requestStarted(endpoint);
+        long start = nanoTime.getAsLong();
+        RdkHttpResponse response;
+        try {
+            response = call.call();
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            metrics.requestFailed(endpoint, e, nanoTime.getAsLong() - start, bytesOut);
+            throw e;
+        }
+        completed(endpoint, response, nanoTime.getAsLong() - start, bytesOut);
+        return response;
+    }
+
+    /**
+     * 非同期の送信を計測します。計測値の通知は、返却する {@link CompletableFuture} の完了前に行います。
+     *
+     * @param endpoint 集計単位
+     * @param bytesOut 送信する本文のバイト数
+     * @param send 委譲先の非同期 API の呼び出し
+     * @return HTTP レスポンスで完了する {@link CompletableFuture}
+     */
+    private CompletableFuture<RdkHttpResponse> measureAsync(
+            String endpoint, long bytesOut, Supplier<CompletableFuture<RdkHttpResponse>> send) {
+        metrics.requestStarted(endpoint);
+        long start = nanoTime.getAsLong();
+        CompletableFuture<RdkHttpResponse> sent;
+        try {
+            sent = send.get();
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        return sent.whenComplete(
+                (response, e) -> {
+                    long latency = nanoTime.getAsLong() - start;
+                    if (e != null) {
+                        Throwable cause =
+                                e instanceof CompletionException && e.getCause() != null
+                                        ? e.getCause()
+                                        : e;
+                        metrics.requestFailed(endpoint, cause, latency, bytesOut);
+                    } else {
+                        completed(endpoint, response, latency, bytesOut);
+                    }
+                });
+    }
+
+    /**
+     * レスポンスを受信したことを通知します。
+     *
+     * @param endpoint 集計単位
+     * @param response レスポンス
+     * @param latency 応答時間（ナノ秒）
+     * @param bytesOut 送信した本文のバイト数
+     */
+    private void completed(String endpoint, RdkHttpResponse response, long latency, long bytesOut) {
+        byte[] body = response.bodyBytes();
+        metrics.requestCompleted(
+                endpoint, response.statusCode(), latency, bytesOut, body == null ? 0 : body.length);
+    }
+
+    /**
+     * URL のホスト名と、値を {@code {}} に置き換えたパスを返します（クエリは含みません）。
+     *
+     * <p>パスの各要素のうち、4 桁以上の数字を含むもの（日付など）と 32 文字を超えるもの（トークンなど）を
+     * {@code {}} に、最後の要素の拡張子を除いた部分（局 ID・エリア ID など）を {@code {}} に置き換えます。
+     * 例：{@code https://api.radiko.jp/program/v3/date/20251022/area/JP13.xml} は
+     * {@code api.radiko.jp/program/v3/date/{}/area/{}.xml}
+     *
+     * @param request リクエスト
+     * @return ホスト名とパス（解析できない場合は URL そのもの）
+     */
+    public static String pathTemplate(RdkHttpRequest request) {
+        String hostAndPath = hostAndPath(request);
+        int slash = hostAndPath.indexOf('/');
+        if (slash < 0) {
+            return hostAndPath;
+        }
+        String[] segments = hostAndPath.substring(slash + 1).split("/", -1);
+        StringBuilder sb = new StringBuilder(hostAndPath.length()).append(hostAndPath, 0, slash);
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            int dot = segment.lastIndexOf('.');
+            sb.append('/');
+            if (i == segments.length - 1 && dot > 0) {
+                sb.append("{}").append(segment, dot, segment.length());
+            } else if (segment.length() > 32 || hasDigits(segment, 4)) {
+                sb.append("{}");
+            } else {
+                sb.append(segment);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * URL のホスト名とパスを返します（クエリは含みません）。
+     *
+     * <p>パスに局 ID・日付などを含む URL はそれぞれ別の集計単位になるため、
+     * {@link #setEndpointResolver(Function)} に指定する場合は、URL の種類が限られていることを確認してください。
+     *
+     * @param request リクエスト
+     * @return ホスト名とパス（解析できない場合は URL そのもの）
+     */
+    public static String hostAndPath(RdkHttpRequest request) {
+        String url = request.getUrl();
+        try {
+            URI uri = URI.create(url);
+            if (uri.getHost() == null) {
+                return url;
+            }
+            String host = uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+            return uri.getRawPath() == null ? host : host + uri.getRawPath();
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    /**
+     * 文字列が、指定した桁数以上連続する数字を含む場合は {@code true} を返します。
+     *
+     * @param s 文字列
+     * @param digits 桁数
+     * @return 含む場合は {@code true}
+     */
+    private static boolean hasDigits(String s, int digits) {
+        int run = 0;
+        for (int i = 0; i < s.length(); i++) {
+            run = Character.isDigit(s.charAt(i)) ? run + 1 : 0;
+            if (run >= digits) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * フォームパラメータを {@code application/x-www-form-urlencoded} 形式にした場合のバイト数を返します。
+     *
+     * @param parameters パラメータ（null 可）
+     * @return バイト数
+     */
+    static long formLength(Map<String, String> parameters) {
+        if (parameters == null || parameters.isEmpty()) {
+            return 0;
+        }
+        long length = parameters.size() - 1; // 区切りの '&'
+        for (Map.Entry<String, String> e : parameters.entrySet()) {
+            length += URLEncoder.encode(e.getKey(), StandardCharsets.UTF_8).length() + 1;
+            if (e.getValue() != null) {
+                length += URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8).length();
+            }
+        }
+        return length;
+    }
+}
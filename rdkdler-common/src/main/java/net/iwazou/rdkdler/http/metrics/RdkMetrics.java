@@ -0,0 +1,56 @@
+package net.iwazou.rdkdler.http.metrics;
+
+/**
+ * HTTP 通信の計測値を受け取る SPI（Service Provider Interface）です。
+ *
+ * <p>特定の計測ライブラリ（Micrometer 等）に依存しないよう、{@link MeteredRdkHttpClient} は
+ * 計測値を本インターフェース経由で通知します。利用側は任意のライブラリへ橋渡しする実装を用意するか、
+ * 組み込みの {@link InMemoryRdkMetrics} を利用します。
+ *
+ * <p><b>実装上の注意</b>
+ * <ul>
+ *   <li>各メソッドは通信のたびに呼び出し元のスレッドで呼ばれるため、ブロックせず短時間で戻ってください。</li>
+ *   <li>複数スレッドから同時に呼び出されるため、スレッドセーフに実装してください。</li>
+ *   <li>すべてのメソッドは何もしないデフォルト実装を持ちます。必要なものだけオーバーライドしてください。</li>
+ * </ul>
+ *
+ * <p>{@code endpoint} は計測の集計単位を表す文字列です（既定は {@code "GET radiko.jp/v3/station/list/{}.xml"} のような
+ * メソッド・ホスト・値を置き換えたパスの組み合わせ。{@link MeteredRdkHttpClient#setEndpointResolver} で変更できます）。
+ */
+public interface RdkMetrics {
+
+    /**
+     * 何も記録しない実装です。
+     */
+    RdkMetrics NOOP = new RdkMetrics() {};
+
+    /**
+     * リクエストの送信を開始したことを通知します。
+     *
+     * @param endpoint 集計単位
+     */
+    default void requestStarted(String endpoint) {}
+
+    /**
+     * レスポンスを受信したことを通知します（ステータスコードが 200 以外の場合も含みます）。
+     *
+     * @param endpoint 集計単位
+     * @param statusCode ステータスコード
+     * @param latencyNanos 送信開始から受信完了までの時間（ナノ秒）
+     * @param bytesOut 送信した本文のバイト数
+     * @param bytesIn 受信した本文のバイト数
+     */
+    default void requestCompleted(
+            String endpoint, int statusCode, long latencyNanos, long bytesOut, long bytesIn) {}
+
+    /**
+     * 通信エラー等でレスポンスを受信できなかったことを通知します。
+     *
+     * @param endpoint 集計単位
+     * @param error 発生した例外
+     * @param latencyNanos 送信開始から失敗までの時間（ナノ秒）
+     * @param bytesOut 送信しようとした本文のバイト数
+     */
+    default void requestFailed(
+            String endpoint, Throwable error, long latencyNanos, long bytesOut) {}
+}
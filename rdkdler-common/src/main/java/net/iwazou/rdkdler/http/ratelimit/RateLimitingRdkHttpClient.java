@@ -0,0 +1,486 @@
+package net.iwazou.rdkdler.http.ratelimit;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import net.iwazou.rdkdler.exception.RdkDeadlineExceededException;
+import net.iwazou.rdkdler.exception.RdkException;
+import net.iwazou.rdkdler.exception.RdkRejectedException;
+import net.iwazou.rdkdler.http.RdkHttpClient;
+import net.iwazou.rdkdler.http.RdkHttpRequest;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
+import net.iwazou.rdkdler.util.CommonUtils;
+import net.iwazou.rdkdler.util.Sleeper;
+
+/**
+ * 接続先ごとに送信頻度を制限する {@link RdkHttpClient} のデコレーターです。
+ *
+ * <p>{@code radiko.jp}・{@code api.radiko.jp} などの接続先（ホスト名とポート）ごとにトークンバケットを持ち、
+ * 1 秒あたりの送信数を平準化します。一度に集中して送信して相手側で制限されるよりも、
+ * 一定の間隔で送信したほうが結果的に多くのリクエストを処理できます。
+ *
+ * <p><b>制限の設定</b>
+ * <ul>
+ *   <li>コンストラクタで指定した値が、すべての接続先の既定値になります。</li>
+ *   <li>{@link #setHostLimit(String, double, int)} で接続先ごとに個別の値を設定できます。</li>
+ *   <li>{@code fair} を指定した場合、同じ接続先への送信を呼び出し元ごとに公平に許可します（下記）。</li>
+ *   <li>{@link #setMaxWait(Duration)} を超える待機が必要な場合は、待たずに {@link RdkRejectedException} をスローします。</li>
+ *   <li>待機するとリクエストの期限（{@link RdkHttpRequest#getDeadline()}）を過ぎる場合は、待たずに
+ *       {@link RdkDeadlineExceededException} をスローします。</li>
+ * </ul>
+ *
+ * <p><b>同期 API と非同期 API</b><br>
+ * {@link #get(RdkHttpRequest)} / {@link #postForm(RdkHttpRequest)} は、送信可能になるまで呼び出し元のスレッドで待機します。
+ * {@link #getAsync(RdkHttpRequest)} / {@link #postFormAsync(RdkHttpRequest)} はスレッドを待機させず、
+ * 送信可能な時刻に委譲先の非同期 API を呼び出す {@link CompletableFuture} を即座に返します。
+ *
+ * <p><b>呼び出し元ごとの公平性</b><br>
+ * 既定では、送信の順番は予約した順番です。1 つの呼び出し元がまとめて送信すると、後から送信した他の呼び出し元は、
+ * まとめて送信した分がすべて許可されるまで待機します。
+ * {@code fair} を指定した場合は、接続先ごとに呼び出し元（{@link #setCallerKey(Function)}。既定は呼び出し元のスレッド）
+ * ごとの待ち行列を持ち、トークンが補充されるたびに、待っている呼び出し元へ順番に（ラウンドロビンで）許可します。
+ * この場合、待機は {@link #setSleeper(Sleeper)} ではなく、許可されるまで {@link CompletableFuture} の完了を待って行います。
+ * 許容する待機時間・期限の判定には、待っている送信がすべて先に許可された場合の待機時間（上限の見込み）を使用します。
+ *
+ * <p><b>スレッドセーフ</b>：複数スレッドから同時に利用できます。ロックは予約の計算中のみ保持し、
+ * 待機はロックの外で行います。
+ *
+ * <p>使用例：
+ * <pre>{@code
+ * RateLimitingRdkHttpClient client =
+ *         new RateLimitingRdkHttpClient(new JdkRdkHttpClient(httpClient), 5.0, 10);
+ * client.setHostLimit("api.radiko.jp", 2.0, 4);
+ * }</pre>
+ */
+@Slf4j
+public class RateLimitingRdkHttpClient implements RdkHttpClient {
+
+    /**
+     * 委譲先の HTTP クライアントです。
+     */
+    private final RdkHttpClient delegate;
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final boolean fair;
+
+    /**
+     * 接続先ごとのトークンバケットです。
+     */
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private volatile long maxWaitNanos = Long.MAX_VALUE;
+
+    /**
+     * -- SETTER --
+     * 送信可能になるまでの待機を行う関数を設定します（主にテスト用。{@code fair} の場合は使用しません）。
+     * <p>デフォルトは {@link Sleeper#SYSTEM} です。
+     *
+     * @param sleeper 待機を行う関数
+     */
+    @Setter @NonNull private volatile Sleeper sleeper = Sleeper.SYSTEM;
+
+    /**
+     * -- SETTER --
+     * トークンの補充に使用する時刻（ナノ秒）の取得元を設定します（主にテスト用）。
+     * <p>デフォルトは {@link System#nanoTime()} です。
+     *
+     * @param nanoTime 時刻（ナノ秒）の取得元
+     */
+    @Setter @NonNull private volatile LongSupplier nanoTime = System::nanoTime;
+
+    /**
+     * -- SETTER --
+     * {@code fair} の場合に、リクエストから呼び出し元を識別する値を求める関数を設定します。
+     * <p>同じ値を返すリクエストを同じ呼び出し元として扱います。デフォルトは呼び出し元のスレッドです
+     * （リクエストごとに仮想スレッドを起動する場合などは、処理の種類を識別する値を返す関数を設定してください）。
+     *
+     * @param callerKey リクエストから呼び出し元を識別する値（null 不可）を求める関数
+     */
+    @Setter @NonNull
+    private volatile Function<? super RdkHttpRequest, ?> callerKey =
+            request -> Thread.currentThread();
+
+    /**
+     * 呼び出し元ごとの公平性を保証しない送信頻度制限を生成します。
+     *
+     * @param delegate 委譲先の HTTP クライアント（null 不可）
+     * @param permitsPerSecond 接続先ごとの 1 秒あたりの送信数（0 より大きい値）
+     * @param burst 接続先ごとに連続して送信できる最大数（1 以上）
+     * @throws NullPointerException delegate が {@code null} の場合
+     * @throws IllegalArgumentException permitsPerSecond または burst が範囲外の場合
+     */
+    public RateLimitingRdkHttpClient(RdkHttpClient delegate, double permitsPerSecond, int burst) {
+        this(delegate, permitsPerSecond, burst, false);
+    }
+
+    /**
+     * 送信頻度制限を生成します。
+     *
+     * @param delegate 委譲先の HTTP クライアント（null 不可）
+     * @param permitsPerSecond 接続先ごとの 1 秒あたりの送信数（0 より大きい値）
+     * @param burst 接続先ごとに連続して送信できる最大数（1 以上）
+     * @param fair 同じ接続先への送信を呼び出し元ごとに公平に（ラウンドロビンで）許可する場合は {@code true}
+     * @throws NullPointerException delegate が {@code null} の場合
+     * @throws IllegalArgumentException permitsPerSecond または burst が範囲外の場合
+     */
+    public RateLimitingRdkHttpClient(
+            RdkHttpClient delegate, double permitsPerSecond, int burst, boolean fair) {
+        TokenBucket.validate(permitsPerSecond, burst);
+        this.delegate = Objects.requireNonNull(delegate);
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.fair = fair;
+    }
+
+    /**
+     * 接続先ごとに個別の制限を設定します。
+     *
+     * <p>既に使用中の接続先の場合は、トークンが満杯の状態から新しい制限で数え直します（利用状況もリセットされます）。
+     *
+     * @param host 接続先（ホスト名。ポートを明示した URL の場合は {@code ホスト名:ポート}、null 不可）
+     * @param permitsPerSecond 1 秒あたりの送信数（0 より大きい値）
+     * @param burst 連続して送信できる最大数（1 以上）
+     * @throws NullPointerException host が {@code null} の場合
+     * @throws IllegalArgumentException permitsPerSecond または burst が範囲外の場合
+     */
+    public void setHostLimit(String host, double permitsPerSecond, int burst) {
+        Objects.requireNonNull(host);
+        buckets.put(host, new TokenBucket(permitsPerSecond, burst, this::now));
+    }
+
+    /**
+     * 送信可能になるまでに許容する待機時間を設定します。
+     *
+     * <p>これを超える待機が必要な場合は、待たずに {@link RdkRejectedException} をスローします（非同期 API の場合は例外完了します）。
+     * デフォルトは無制限です。
+     *
+     * @param maxWait 許容する待機時間（null 不可）
+     * @throws NullPointerException maxWait が {@code null} の場合
+     */
+    public void setMaxWait(Duration maxWait) {
+        Objects.requireNonNull(maxWait);
+        long nanos;
+        try {
+            nanos = maxWait.toNanos();
+        } catch (ArithmeticException e) {
+            nanos = maxWait.isNegative() ? 0 : Long.MAX_VALUE;
+        }
+        this.maxWaitNanos = Math.max(0, nanos);
+    }
+
+    /**
+     * 送信可能になるまで待機してから、HTTP GET リクエストを送信します。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報（null 不可）
+     * @return HTTP レスポンス
+     * @throws NullPointerException rdkHttpRequest が {@code null} の場合
+     * @throws RdkRejectedException 許容する待機時間を超える場合
+     * @throws IOException 通信エラー等が発生した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    @Override
+    public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(rdkHttpRequest);
+        acquire("get(RdkHttpRequest)", rdkHttpRequest);
+        return delegate.get(rdkHttpRequest);
+    }
+
+    /**
+     * 送信可能になるまで待機してから、HTTP POST リクエストを送信します。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報（null 不可）
+     * @return HTTP レスポンス
+     * @throws NullPointerException rdkHttpRequest が {@code null} の場合
+     * @throws RdkRejectedException 許容する待機時間を超える場合
+     * @throws IOException 通信エラー等が発生した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    @Override
+    public RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(rdkHttpRequest);
+        acquire("postForm(RdkHttpRequest)", rdkHttpRequest);
+        return delegate.postForm(rdkHttpRequest);
+    }
+
+    /**
+     * 送信可能な時刻に、委譲先の {@link RdkHttpClient#getAsync(RdkHttpRequest)} を呼び出します。
+     *
+     * <p>呼び出し元のスレッドは待機しません。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報（null 不可）
+     * @return HTTP レスポンスで完了する {@link CompletableFuture}
+     *     （許容する待機時間を超える場合は {@link RdkRejectedException} で例外完了します）
+     * @throws NullPointerException rdkHttpRequest が {@code null} の場合
+     */
+    @Override
+    public CompletableFuture<RdkHttpResponse> getAsync(RdkHttpRequest rdkHttpRequest) {
+        Objects.requireNonNull(rdkHttpRequest);
+        return acquireAsync(
+                "getAsync(RdkHttpRequest)",
+                rdkHttpRequest,
+                () -> delegate.getAsync(rdkHttpRequest));
+    }
+
+    /**
+     * 送信可能な時刻に、委譲先の {@link RdkHttpClient#postFormAsync(RdkHttpRequest)} を呼び出します。
+     *
+     * <p>呼び出し元のスレッドは待機しません。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報（null 不可）
+     * @return HTTP レスポンスで完了する {@link CompletableFuture}
+     *     （許容する待機時間を超える場合は {@link RdkRejectedException} で例外完了します）
+     * @throws NullPointerException rdkHttpRequest が {@code null} の場合
+     */
+    @Override
+    public CompletableFuture<RdkHttpResponse> postFormAsync(RdkHttpRequest rdkHttpRequest) {
+        Objects.requireNonNull(rdkHttpRequest);
+        return acquireAsync(
+                "postFormAsync(RdkHttpRequest)",
+                rdkHttpRequest,
+                () -> delegate.postFormAsync(rdkHttpRequest));
+    }
+
+    /**
+     * すべての接続先を合計した利用状況を返します。
+     *
+     * @return 利用状況
+     */
+    public Statistics getStatistics() {
+        long permits = 0;
+        long delayed = 0;
+        long rejected = 0;
+        long waitNanos = 0;
+        long maxWaitNanos = 0;
+        for (TokenBucket bucket : buckets.values()) {
+            permits += bucket.permits.sum();
+            delayed += bucket.delayed.sum();
+            rejected += bucket.rejected.sum();
+            waitNanos += bucket.waitNanos.sum();
+            maxWaitNanos = Math.max(maxWaitNanos, bucket.maxWaitNanos.get());
+        }
+        return new Statistics(
+                permits,
+                delayed,
+                rejected,
+                Duration.ofNanos(waitNanos),
+                Duration.ofNanos(maxWaitNanos));
+    }
+
+    /**
+     * 接続先ごとの利用状況を返します。
+     *
+     * @param host 接続先（ホスト名。ポートを明示した URL の場合は {@code ホスト名:ポート}）
+     * @return 利用状況（まだ通信していない接続先の場合はすべて 0）
+     */
+    public Statistics getStatistics(String host) {
+        TokenBucket bucket = buckets.get(host);
+        if (bucket == null) {
+            return new Statistics(0, 0, 0, Duration.ZERO, Duration.ZERO);
+        }
+        return new Statistics(
+                bucket.permits.sum(),
+                bucket.delayed.sum(),
+                bucket.rejected.sum(),
+                Duration.ofNanos(bucket.waitNanos.sum()),
+                Duration.ofNanos(bucket.maxWaitNanos.get()));
+    }
+
+    /**
+     * 利用状況です。
+     *
+     * @param permits 送信を許可した数
+     * @param delayed 許可までに待機が必要だった数
+     * @param rejected 許容する待機時間を超えるため拒否した数
+     * @param totalWait 待機時間の合計
+     * @param maxWait 待機時間の最大値
+     */
+    public record Statistics(
+            long permits, long delayed, long rejected, Duration totalWait, Duration maxWait) {
+
+        /**
+         * 許可した送信 1 件あたりの平均待機時間を返します。
+         *
+         * @return 平均待機時間（許可した送信がない場合は 0）
+         */
+        public Duration averageWait() {
+            return permits == 0 ? Duration.ZERO : totalWait.dividedBy(permits);
+        }
+    }
+
+    /**
+     * 送信可能になるまで待機します。
+     *
+     * @param method ログ出力用のメソッド名
+     * @param request 送信するリクエスト
+     * @throws RdkRejectedException 許容する待機時間を超える場合
+     * @throws RdkDeadlineExceededException 待機するとリクエストの期限を過ぎる場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    private void acquire(String method, RdkHttpRequest request)
+            throws RdkException, InterruptedException {
+        if (fair) {
+            CompletableFuture<Void> granted = enqueue(method, request).granted();
+            try {
+                granted.get();
+            } catch (InterruptedException e) {
+                granted.cancel(false);
+                throw e;
+            } catch (ExecutionException e) {
+                // 割り当ては例外完了しない
+                throw new IllegalStateException(e);
+            }
+            return;
+        }
+        long wait = reserve(method, request);
+        if (wait > 0) {
+            sleeper.sleep(Duration.ofNanos(wait));
+        }
+    }
+
+    /**
+     * 送信可能な時刻に非同期の送信を開始します。
+     *
+     * @param method ログ出力用のメソッド名
+     * @param request 送信するリクエスト
+     * @param send 委譲先の非同期 API の呼び出し
+     * @return HTTP レスポンスで完了する {@link CompletableFuture}
+     */
+    private CompletableFuture<RdkHttpResponse> acquireAsync(
+            String method,
+            RdkHttpRequest request,
+            Supplier<CompletableFuture<RdkHttpResponse>> send) {
+        if (fair) {
+            try {
+                return enqueue(method, request).granted().thenCompose(v -> send.get());
+            } catch (RdkException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        long wait;
+        try {
+            wait = reserve(method, request);
+        } catch (RdkException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (wait <= 0) {
+            return send.get();
+        }
+        Executor delayed = CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS);
+        return CompletableFuture.supplyAsync(send, delayed).thenCompose(future -> future);
+    }
+
+    /**
+     * 接続先のトークンを予約し、送信可能になるまでの待機時間を返します。
+     *
+     * @param method ログ出力用のメソッド名
+     * @param request 送信するリクエスト
+     * @return 待機時間（ナノ秒）
+     * @throws RdkRejectedException 許容する待機時間を超える場合
+     * @throws RdkDeadlineExceededException 待機するとリクエストの期限を過ぎる場合
+     */
+    private long reserve(String method, RdkHttpRequest request) throws RdkException {
+        String host = CommonUtils.hostOf(request.getUrl());
+        long maxWait = maxWait(request);
+        long wait = bucket(host).reserve(nanoTime.getAsLong(), maxWait);
+        if (wait < 0) {
+            throw rejected(method, request, host, maxWait);
+        }
+        if (wait > 0) {
+            log.debug("{} : 送信頻度の制限により待機します。host={}, wait={}ns", method, host, wait);
+        }
+        return wait;
+    }
+
+    /**
+     * 接続先の、呼び出し元ごとの待ち行列に登録します（{@code fair} の場合）。
+     *
+     * @param method ログ出力用のメソッド名
+     * @param request 送信するリクエスト
+     * @return 予約（送信を許可すると {@link TokenBucket.Waiter#granted()} が完了します）
+     * @throws RdkRejectedException 待機時間の見込みが許容する待機時間を超える場合
+     * @throws RdkDeadlineExceededException 待機時間の見込みがリクエストの期限を過ぎる場合
+     */
+    private TokenBucket.Waiter enqueue(String method, RdkHttpRequest request)
+            throws RdkException {
+        String host = CommonUtils.hostOf(request.getUrl());
+        long maxWait = maxWait(request);
+        Object caller = Objects.requireNonNull(callerKey.apply(request));
+        TokenBucket.Waiter waiter = bucket(host).enqueue(caller, maxWait);
+        if (waiter == null) {
+            throw rejected(method, request, host, maxWait);
+        }
+        if (!waiter.granted().isDone()) {
+            log.debug("{} : 送信頻度の制限により待機します。host={}, caller={}", method, host, caller);
+        }
+        return waiter;
+    }
+
+    /**
+     * 接続先のトークンバケットを返します（ない場合は既定の制限で作成します）。
+     *
+     * @param host 接続先
+     * @return トークンバケット
+     */
+    private TokenBucket bucket(String host) {
+        return buckets.computeIfAbsent(
+                host, h -> new TokenBucket(permitsPerSecond, burst, this::now));
+    }
+
+    /**
+     * リクエストに許容する待機時間を返します（期限がある場合は期限までの時間以下）。
+     *
+     * @param request 送信するリクエスト
+     * @return 許容する待機時間（ナノ秒）
+     */
+    private long maxWait(RdkHttpRequest request) {
+        long maxWait = maxWaitNanos;
+        if (request.getDeadline() != null) {
+            // 期限を過ぎてから送信することになる予約はしない
+            maxWait = Math.min(maxWait, request.getDeadline().remaining().toNanos());
+        }
+        return maxWait;
+    }
+
+    /**
+     * 許容する待機時間を超えるため送信しない場合の例外を生成します。
+     *
+     * @param method ログ出力用のメソッド名
+     * @param request 送信するリクエスト
+     * @param host 接続先
+     * @param maxWait 許容した待機時間（ナノ秒）
+     * @return 期限によって制限した場合は {@link RdkDeadlineExceededException}、それ以外は {@link RdkRejectedException}
+     */
+    private RdkException rejected(
+            String method, RdkHttpRequest request, String host, long maxWait) {
+        if (maxWait < maxWaitNanos) {
+            log.debug("{} : 待機すると期限を過ぎるため打ち切ります。host={}", method, host);
+            return new RdkDeadlineExceededException("Deadline exceeded: " + request.getUrl());
+        }
+        log.debug("{} : 待機時間が上限を超えるため拒否します。host={}", method, host);
+        return new RdkRejectedException(host, "Rate limit exceeded: " + host);
+    }
+
+    /**
+     * 現在時刻（ナノ秒）を返します。
+     *
+     * @return 現在時刻（ナノ秒）
+     */
+    private long now() {
+        return nanoTime.getAsLong();
+    }
+}
@@ -0,0 +1,298 @@
+package net.iwazou.rdkdler.http.ratelimit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * 接続先ごとのトークンバケットです。
+ *
+ * <p>トークンは一定の速度で補充され、最大 {@code burst} 個まで貯まります。
+ * 取得は「予約」方式で、トークンが足りない場合も残量を負（前借り）にして即座に予約を確定し、
+ * 使用可能になるまでの待機時間を返します。待機そのものは呼び出し元がロックの外で行うため、
+ * 予約の順番どおりに一定間隔で送信されます。
+ *
+ * <p>{@link #enqueue(Object, long)} は、呼び出し元ごとの待ち行列に登録し、トークンが補充されるたびに
+ * 待っている呼び出し元へ順番に（ラウンドロビンで）1 個ずつ割り当てます。
+ * 1 つの呼び出し元がまとめて登録しても、後から登録した他の呼び出し元の予約が間に割り当てられます。
+ */
+class TokenBucket {
+
+    private final int burst;
+
+    /**
+     * トークン 1 個の補充にかかる時間（ナノ秒）です。
+     */
+    private final double intervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 現在時刻（ナノ秒）の取得元です。
+     */
+    private final LongSupplier nanoTime;
+
+    /**
+     * 現在のトークン数です（負の場合は前借りしている数）。
+     */
+    private double tokens;
+
+    private long lastRefillNanos;
+
+    /**
+     * 呼び出し元ごとの、割り当てを待っている予約です（{@link #lock} で保護）。
+     */
+    private final Map<Object, ArrayDeque<Waiter>> queues = new HashMap<>();
+
+    /**
+     * 割り当てを待っている呼び出し元の順番です（先頭に次に割り当てます。{@link #lock} で保護）。
+     */
+    private final ArrayDeque<Object> turns = new ArrayDeque<>();
+
+    /**
+     * 割り当てを待っている予約の数です（{@link #lock} で保護）。
+     */
+    private int waiting;
+
+    /**
+     * 割り当ての実行を予定しているかどうかです（{@link #lock} で保護）。
+     */
+    private boolean dispatchScheduled;
+
+    final LongAdder permits = new LongAdder();
+    final LongAdder delayed = new LongAdder();
+    final LongAdder rejected = new LongAdder();
+    final LongAdder waitNanos = new LongAdder();
+    final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * トークンが満杯の状態のバケットを生成します。
+     *
+     * @param permitsPerSecond 1 秒あたりの補充数（0 より大きい有限の値）
+     * @param burst 最大トークン数（1 以上）
+     * @param nanoTime 現在時刻（ナノ秒）の取得元
+     * @throws IllegalArgumentException permitsPerSecond または burst が範囲外の場合
+     */
+    TokenBucket(double permitsPerSecond, int burst, LongSupplier nanoTime) {
+        validate(permitsPerSecond, burst);
+        this.burst = burst;
+        this.intervalNanos = 1_000_000_000d / permitsPerSecond;
+        this.nanoTime = nanoTime;
+        this.tokens = burst;
+        this.lastRefillNanos = nanoTime.getAsLong();
+    }
+
+    /**
+     * 補充数と最大トークン数を検証します。
+     *
+     * @param permitsPerSecond 1 秒あたりの補充数（0 より大きい有限の値）
+     * @param burst 最大トークン数（1 以上）
+     * @throws IllegalArgumentException permitsPerSecond または burst が範囲外の場合
+     */
+    static void validate(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0) || Double.isInfinite(permitsPerSecond)) {
+            throw new IllegalArgumentException(
+                    "permitsPerSecond must be positive (value=" + permitsPerSecond + ")");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be positive (value=" + burst + ")");
+        }
+    }
+
+    /**
+     * トークンを 1 個予約し、使用可能になるまでの待機時間を返します。
+     *
+     * @param nowNanos 現在時刻（ナノ秒）
+     * @param maxWaitNanos 許容する待機時間（ナノ秒）
+     * @return 待機時間（ナノ秒）。許容する待機時間を超える場合は予約せずに {@code -1}
+     */
+    long reserve(long nowNanos, long maxWaitNanos) {
+        long wait;
+        lock.lock();
+        try {
+            refill(nowNanos);
+            double remaining = tokens - 1;
+            wait = remaining >= 0 ? 0 : (long) Math.ceil(-remaining * intervalNanos);
+            if (wait > maxWaitNanos) {
+                rejected.increment();
+                return -1;
+            }
+            tokens = remaining;
+        } finally {
+            lock.unlock();
+        }
+        record(wait);
+        return wait;
+    }
+
+    /**
+     * 呼び出し元の待ち行列に予約を登録します。
+     *
+     * <p>割り当てを待っている予約がなく、トークンがある場合は即座に割り当てます。
+     * それ以外の場合は、トークンが補充されるたびに、待っている呼び出し元へ順番に割り当てます。
+     * 待機時間の見込みは、待っている予約がすべて先に割り当てられた場合の値（上限）です。
+     *
+     * @param caller 呼び出し元（null 不可）
+     * @param maxWaitNanos 許容する待機時間（ナノ秒）
+     * @return 予約（割り当てると {@link Waiter#granted()} が完了します）。
+     *     待機時間の見込みが許容する待機時間を超える場合は登録せずに {@code null}
+     */
+    Waiter enqueue(Object caller, long maxWaitNanos) {
+        long now = nanoTime.getAsLong();
+        Waiter waiter = new Waiter(now);
+        boolean granted = false;
+        boolean schedule = false;
+        long delay = 0;
+        lock.lock();
+        try {
+            refill(now);
+            if (waiting == 0 && tokens >= 1) {
+                tokens -= 1;
+                granted = true;
+            } else {
+                double remaining = tokens - (waiting + 1);
+                long estimate = remaining >= 0 ? 0 : (long) Math.ceil(-remaining * intervalNanos);
+                if (estimate > maxWaitNanos) {
+                    rejected.increment();
+                    return null;
+                }
+                queues.computeIfAbsent(
+                                caller,
+                                c -> {
+                                    turns.add(c);
+                                    return new ArrayDeque<>();
+                                })
+                        .add(waiter);
+                waiting++;
+                schedule = !dispatchScheduled;
+                dispatchScheduled = true;
+                delay = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * intervalNanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (granted) {
+            record(0);
+            waiter.granted.complete(null);
+        } else if (schedule) {
+            scheduleDispatch(delay);
+        }
+        return waiter;
+    }
+
+    /**
+     * 補充されたトークンを、待っている呼び出し元へ順番に割り当てます。
+     *
+     * <p>割り当てを待っている予約が残る場合は、次のトークンが補充される時刻に再度実行します。
+     * 取り消した予約（{@link Waiter#granted()} を取り消したもの）には割り当てません。
+     */
+    private void dispatch() {
+        long now = nanoTime.getAsLong();
+        List<Waiter> granted = new ArrayList<>();
+        long delay = -1;
+        lock.lock();
+        try {
+            refill(now);
+            while (tokens >= 1 && !turns.isEmpty()) {
+                Object caller = turns.poll();
+                ArrayDeque<Waiter> queue = queues.get(caller);
+                Waiter waiter = queue.poll();
+                if (queue.isEmpty()) {
+                    queues.remove(caller);
+                } else {
+                    turns.add(caller);
+                }
+                waiting--;
+                if (!waiter.granted.isDone()) {
+                    tokens -= 1;
+                    granted.add(waiter);
+                }
+            }
+            if (turns.isEmpty()) {
+                dispatchScheduled = false;
+            } else {
+                delay = (long) Math.ceil((1 - tokens) * intervalNanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (delay >= 0) {
+            scheduleDispatch(delay);
+        }
+        for (Waiter waiter : granted) {
+            record(Math.max(0, now - waiter.enqueuedNanos));
+            waiter.granted.complete(null);
+        }
+    }
+
+    /**
+     * 指定した時間の経過後に {@link #dispatch()} を実行します。
+     *
+     * @param delayNanos 実行までの時間（ナノ秒）
+     */
+    private void scheduleDispatch(long delayNanos) {
+        CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS)
+                .execute(this::dispatch);
+    }
+
+    /**
+     * 許可した送信の利用状況を記録します。
+     *
+     * @param wait 待機時間（ナノ秒）
+     */
+    private void record(long wait) {
+        permits.increment();
+        if (wait > 0) {
+            delayed.increment();
+            waitNanos.add(wait);
+            this.maxWaitNanos.accumulateAndGet(wait, Math::max);
+        }
+    }
+
+    /**
+     * 経過時間に応じてトークンを補充します（{@link #lock} を取得した状態で呼び出すこと）。
+     *
+     * @param nowNanos 現在時刻（ナノ秒）
+     */
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(burst, tokens + elapsed / intervalNanos);
+            lastRefillNanos = nowNanos;
+        }
+    }
+
+    /**
+     * {@link #enqueue(Object, long)} で登録した予約です。
+     *
+     * <p>{@link #granted()} はトークンを割り当てると完了します。
+     * 待機をやめる場合は {@link CompletableFuture#cancel(boolean)} で取り消します（以降は割り当てません）。
+     */
+    static final class Waiter {
+
+        private final long enqueuedNanos;
+
+        private final CompletableFuture<Void> granted = new CompletableFuture<>();
+
+        private Waiter(long enqueuedNanos) {
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        /**
+         * トークンを割り当てると完了する {@link CompletableFuture} を返します。
+         *
+         * @return 割り当てると完了する {@link CompletableFuture}
+         */
+        CompletableFuture<Void> granted() {
+            return granted;
+        }
+    }
+}
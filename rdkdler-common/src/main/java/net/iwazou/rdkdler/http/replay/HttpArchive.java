@@ -0,0 +1,211 @@
+package net.iwazou.rdkdler.http.replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import net.iwazou.rdkdler.exception.RdkException;
+import net.iwazou.rdkdler.http.RdkHttpRequest;
+
+/**
+ * 記録したリクエストとレスポンスの組（{@link RecordedExchange}）をまとめたアーカイブです。
+ *
+ * <p>{@link RecordingRdkHttpClient} で記録し、{@link #write(Path)} でファイルへ保存したものを
+ * {@link #read(Path)} で読み込み、{@link ReplayRdkHttpClient} で再生します。
+ *
+ * <p><b>ファイル形式</b>：全体を gzip で圧縮したバイナリ形式です。先頭にマジックナンバーと形式のバージョンを持ち、
+ * 続けて記録した順にレスポンスを格納します。
+ *
+ * <p><b>リクエストの識別</b>：{@link #key(String, RdkHttpRequest)} で、メソッド・URL と GET のパラメータから生成します。
+ * 認証トークンのように実行ごとに変わるリクエストヘッダは含めません。また、ログインのメールアドレス・パスワードが
+ * 保存されないよう、POST のパラメータも含めません（同じ URL への POST は記録順に再生します）。
+ *
+ * <p><b>秘匿情報</b>：キーにはリクエストヘッダ・POST のパラメータを含めませんが、レスポンスは記録した内容をそのまま保存します。
+ * レスポンスに含まれる認証トークン・セッションは {@link RecordingRdkHttpClient} が記録する前に置き換えます
+ * （{@link RecordingRdkHttpClient#setRedactedHeaders(java.util.Set)} など）。
+ * それ以外の方法で生成したアーカイブには、秘匿情報が含まれていないことを確認してから共有してください。
+ *
+ * <p>本クラスは不変で、スレッドセーフです。
+ */
+public final class HttpArchive {
+
+    /**
+     * ファイルの先頭に書き出すマジックナンバー（{@code "RDKA"}）です。
+     */
+    private static final int MAGIC = 0x52444B41;
+
+    /**
+     * ファイル形式のバージョンです。形式を変更した場合は値を変えてください。
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private final List<RecordedExchange> exchanges;
+
+    /**
+     * アーカイブを生成します。
+     *
+     * @param exchanges 記録したレスポンス（記録順、null 不可）
+     * @throws NullPointerException exchanges が {@code null} の場合
+     */
+    public HttpArchive(List<RecordedExchange> exchanges) {
+        this.exchanges = List.copyOf(exchanges);
+    }
+
+    /**
+     * 記録したレスポンスを記録順で返します。
+     *
+     * @return 記録したレスポンス（変更不可）
+     */
+    public List<RecordedExchange> exchanges() {
+        return exchanges;
+    }
+
+    /**
+     * リクエストを識別するキーを生成します。
+     *
+     * @param method メソッド（{@code "GET"} または {@code "POST"}）
+     * @param request リクエスト（null 不可）
+     * @return キー
+     * @throws NullPointerException request または URL が {@code null} の場合
+     */
+    public static String key(String method, RdkHttpRequest request) {
+        String url = Objects.requireNonNull(request.getUrl());
+        StringBuilder sb = new StringBuilder(method).append(' ').append(url);
+        if (method.equals("GET")
+                && request.getParameters() != null
+                && !request.getParameters().isEmpty()) {
+            sb.append(" params=").append(new TreeMap<>(request.getParameters()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * ファイルへ保存します。
+     *
+     * <p>一時ファイルに書き出してから置き換えるため、保存に失敗しても既存のファイルは壊れません。
+     *
+     * @param file 保存先（null 不可）
+     * @throws IOException 保存に失敗した場合
+     */
+    public void write(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), "tmp", ".rdka");
+        try {
+            try (OutputStream out =
+                    new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                DataOutputStream data = new DataOutputStream(out);
+                writeTo(data);
+                data.flush();
+            }
+            try {
+                Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * {@link #write(Path)} で保存したファイルを読み込みます。
+     *
+     * @param file 読み込むファイル（null 不可）
+     * @return アーカイブ
+     * @throws RdkException ファイルの形式が異なる場合
+     * @throws IOException 読み込みに失敗した場合
+     */
+    public static HttpArchive read(Path file) throws IOException {
+        try (InputStream in =
+                new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return readFrom(new DataInputStream(in));
+        }
+    }
+
+    /**
+     * アーカイブの内容を書き出します。
+     *
+     * @param out 出力先
+     * @throws IOException 書き込みに失敗した場合
+     */
+    private void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(exchanges.size());
+        for (RecordedExchange exchange : exchanges) {
+            out.writeUTF(exchange.key());
+            out.writeInt(exchange.statusCode());
+            out.writeInt(exchange.headers().size());
+            for (Map.Entry<String, List<String>> header : exchange.headers().entrySet()) {
+                out.writeUTF(header.getKey());
+                out.writeInt(header.getValue().size());
+                for (String value : header.getValue()) {
+                    out.writeUTF(value);
+                }
+            }
+            byte[] body = exchange.body();
+            out.writeInt(body == null ? -1 : body.length);
+            if (body != null) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * {@link #writeTo(DataOutputStream)} で書き出した内容を読み込みます。
+     *
+     * @param in 入力元
+     * @return アーカイブ
+     * @throws RdkException 形式が異なる場合
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private static HttpArchive readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new RdkException("not an rdkdler http archive");
+        }
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new RdkException("unsupported archive format version: " + version);
+        }
+        int count = in.readInt();
+        List<RecordedExchange> exchanges = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String key = in.readUTF();
+            int statusCode = in.readInt();
+            int headerCount = in.readInt();
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            for (int j = 0; j < headerCount; j++) {
+                String name = in.readUTF();
+                int valueCount = in.readInt();
+                List<String> values = new ArrayList<>(valueCount);
+                for (int k = 0; k < valueCount; k++) {
+                    values.add(in.readUTF());
+                }
+                headers.put(name, List.copyOf(values));
+            }
+            int length = in.readInt();
+            byte[] body = null;
+            if (length >= 0) {
+                body = new byte[length];
+                in.readFully(body);
+            }
+            exchanges.add(new RecordedExchange(key, statusCode, headers, body));
+        }
+        return new HttpArchive(exchanges);
+    }
+}
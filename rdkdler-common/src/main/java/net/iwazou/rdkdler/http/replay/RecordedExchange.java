@@ -0,0 +1,27 @@
+package net.iwazou.rdkdler.http.replay;
+
+import java.util.List;
+import java.util.Map;
+import net.iwazou.rdkdler.http.ByteArrayRdkHttpResponse;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
+
+/**
+ * 記録したリクエストとレスポンスの組です。
+ *
+ * @param key リクエストを識別するキー（{@link HttpArchive#key(String, net.iwazou.rdkdler.http.RdkHttpRequest)}）
+ * @param statusCode HTTP ステータスコード
+ * @param headers レスポンスヘッダ
+ * @param body 本文のバイト列（null 可）
+ */
+public record RecordedExchange(
+        String key, int statusCode, Map<String, List<String>> headers, byte[] body) {
+
+    /**
+     * 記録した内容から {@link RdkHttpResponse} を生成します。
+     *
+     * @return レスポンス
+     */
+    public RdkHttpResponse toResponse() {
+        return new ByteArrayRdkHttpResponse(statusCode, headers, body);
+    }
+}
@@ -0,0 +1,263 @@
+package net.iwazou.rdkdler.http.replay;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import net.iwazou.rdkdler.http.RdkHttpClient;
+import net.iwazou.rdkdler.http.RdkHttpRequest;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
+
+/**
+ * 委譲先とのリクエスト・レスポンスを記録する {@link RdkHttpClient} のデコレーターです。
+ *
+ * <p>実際の接続先と通信しながらレスポンスを記録し、{@link #save(Path)} でファイルへ保存します。
+ * 保存したファイルは {@link ReplayRdkHttpClient} で再生でき、接続先や認証情報なしで
+ * 番組表の取得・検索などの処理を再現性をもって実行・計測できます。
+ *
+ * <p>通信エラー（例外）は記録しません。ステータスコードが 200 以外のレスポンスは記録します。
+ *
+ * <p><b>秘匿情報の除去</b>：認証トークン・セッションがアーカイブに残らないよう、記録する前に次の値を
+ * {@link #REDACTED} に置き換えます。
+ * <ul>
+ *   <li>{@link #setRedactedHeaders(Set)} で指定したレスポンスヘッダの値
+ *       （デフォルトは {@link #DEFAULT_REDACTED_HEADERS}。auth1 の {@code X-Radiko-AuthToken} など）</li>
+ *   <li>{@link #setRedactedPaths(Set)} で指定したパスを URL に含むリクエストのレスポンスの本文
+ *       （デフォルトは {@link #DEFAULT_REDACTED_PATHS}。{@code radiko_session} を返すログイン）</li>
+ * </ul>
+ * それ以外の値を除く場合は {@link #setRedactor(UnaryOperator)} で変換を追加します。
+ * 置き換えたレスポンスを再生した場合、ログインは成功しません（{@code radiko_session} を取得できません）。
+ * 認証（auth1・auth2）は、auth1 の {@code X-Radiko-KeyOffset} / {@code X-Radiko-KeyLength} を残し、
+ * auth2 はリクエストヘッダを照合しないため成功し、認証トークンは {@link #REDACTED} になります。
+ *
+ * <p><b>スレッドセーフ</b>：複数スレッドから同時に利用できます。記録順は、レスポンスを受信した順です。
+ *
+ * <p>使用例：
+ * <pre>{@code
+ * RecordingRdkHttpClient recorder = new RecordingRdkHttpClient(new JdkRdkHttpClient(httpClient));
+ * new ProgramScheduleService(recorder).getProgramSchedule("TBS");
+ * recorder.save(Path.of("radiko.rdka"));
+ * }</pre>
+ */
+public class RecordingRdkHttpClient implements RdkHttpClient {
+
+    /**
+     * 委譲先の HTTP クライアントです。
+     */
+    private final RdkHttpClient delegate;
+
+    private final Queue<RecordedExchange> exchanges = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 秘匿情報を置き換える文字列です。
+     */
+    public static final String REDACTED = "[REDACTED]";
+
+    /**
+     * 値を {@link #REDACTED} に置き換えるレスポンスヘッダ名（小文字）の既定値です。
+     */
+    public static final Set<String> DEFAULT_REDACTED_HEADERS =
+            Set.of(
+                    "x-radiko-authtoken",
+                    "set-cookie",
+                    "set-cookie2",
+                    "authorization",
+                    "proxy-authorization",
+                    "cookie");
+
+    /**
+     * 本文を {@link #REDACTED} に置き換える URL のパスの既定値です（ログイン）。
+     */
+    public static final Set<String> DEFAULT_REDACTED_PATHS = Set.of("/member/login");
+
+    /**
+     * -- GETTER --
+     * 値を置き換えるレスポンスヘッダ名（小文字）を取得します。
+     *
+     * @return レスポンスヘッダ名（変更不可）
+     */
+    @Getter private volatile Set<String> redactedHeaders = DEFAULT_REDACTED_HEADERS;
+
+    /**
+     * -- GETTER --
+     * 本文を置き換える URL のパスを取得します。
+     *
+     * @return URL のパス（変更不可）
+     */
+    @Getter private volatile Set<String> redactedPaths = DEFAULT_REDACTED_PATHS;
+
+    /**
+     * -- GETTER --
+     * 記録する直前に適用する変換を取得します。
+     *
+     * @return 変換
+     *
+     * -- SETTER --
+     * 記録する直前に適用する変換を設定します。
+     * <p>レスポンスヘッダ・本文の置き換え後の内容を受け取り、記録する内容を返します。
+     * {@code null} を返した場合は記録しません。デフォルトは何もしません。
+     *
+     * @param redactor 変換
+     */
+    @Getter @Setter @NonNull
+    private volatile UnaryOperator<RecordedExchange> redactor = UnaryOperator.identity();
+
+    /**
+     * デコレーターを生成します。
+     *
+     * @param delegate 委譲先の HTTP クライアント（null 不可）
+     * @throws NullPointerException delegate が {@code null} の場合
+     */
+    public RecordingRdkHttpClient(RdkHttpClient delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    /**
+     * 値を置き換えるレスポンスヘッダ名を設定します（大文字・小文字は区別しません）。
+     * <p>デフォルトは {@link #DEFAULT_REDACTED_HEADERS} です。
+     *
+     * @param redactedHeaders レスポンスヘッダ名（null 不可）
+     * @throws NullPointerException redactedHeaders が {@code null} の場合
+     */
+    public void setRedactedHeaders(Set<String> redactedHeaders) {
+        this.redactedHeaders =
+                redactedHeaders.stream()
+                        .map(name -> name.toLowerCase(Locale.ROOT))
+                        .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * 本文を置き換える URL のパスを設定します。URL にいずれかのパスを含むリクエストのレスポンスの本文を置き換えます。
+     * <p>デフォルトは {@link #DEFAULT_REDACTED_PATHS} です。
+     *
+     * @param redactedPaths URL のパス（null 不可）
+     * @throws NullPointerException redactedPaths が {@code null} の場合
+     */
+    public void setRedactedPaths(Set<String> redactedPaths) {
+        this.redactedPaths = Set.copyOf(redactedPaths);
+    }
+
+    /**
+     * HTTP GET リクエストを送信し、レスポンスを記録します。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報
+     * @return HTTP レスポンス
+     * @throws IOException 通信エラー等が発生した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    @Override
+    public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest)
+            throws IOException, InterruptedException {
+        RdkHttpResponse response = delegate.get(rdkHttpRequest);
+        record("GET", rdkHttpRequest, response);
+        return response;
+    }
+
+    /**
+     * HTTP POST リクエストを送信し、レスポンスを記録します。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報
+     * @return HTTP レスポンス
+     * @throws IOException 通信エラー等が発生した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    @Override
+    public RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest)
+            throws IOException, InterruptedException {
+        RdkHttpResponse response = delegate.postForm(rdkHttpRequest);
+        record("POST", rdkHttpRequest, response);
+        return response;
+    }
+
+    /**
+     * これまでに記録した内容をアーカイブとして返します。
+     *
+     * @return アーカイブ
+     */
+    public HttpArchive toArchive() {
+        return new HttpArchive(List.copyOf(exchanges));
+    }
+
+    /**
+     * これまでに記録した内容をファイルへ保存します。
+     *
+     * @param file 保存先（null 不可）
+     * @throws IOException 保存に失敗した場合
+     */
+    public void save(Path file) throws IOException {
+        toArchive().write(file);
+    }
+
+    /**
+     * 記録した内容を破棄します。
+     */
+    public void clear() {
+        exchanges.clear();
+    }
+
+    private void record(String method, RdkHttpRequest request, RdkHttpResponse response) {
+        RecordedExchange exchange =
+                new RecordedExchange(
+                        HttpArchive.key(method, request),
+                        response.statusCode(),
+                        redactHeaders(response.headers()),
+                        redactBody(request.getUrl(), response.bodyBytes()));
+        exchange = redactor.apply(exchange);
+        if (exchange != null) {
+            exchanges.add(exchange);
+        }
+    }
+
+    /**
+     * レスポンスヘッダのうち、{@link #redactedHeaders} の値を {@link #REDACTED} に置き換えます。
+     *
+     * @param headers レスポンスヘッダ（null 可）
+     * @return 置き換えたレスポンスヘッダ（変更不可）
+     */
+    private Map<String, List<String>> redactHeaders(Map<String, List<String>> headers) {
+        if (headers == null) {
+            return Map.of();
+        }
+        Set<String> names = redactedHeaders;
+        Map<String, List<String>> redacted = new LinkedHashMap<>();
+        headers.forEach(
+                (name, values) ->
+                        redacted.put(
+                                name,
+                                names.contains(name.toLowerCase(Locale.ROOT))
+                                        ? List.of(REDACTED)
+                                        : List.copyOf(values)));
+        return Map.copyOf(redacted);
+    }
+
+    /**
+     * URL が {@link #redactedPaths} のいずれかを含む場合は、本文を {@link #REDACTED} に置き換えます。
+     *
+     * @param url リクエストの URL
+     * @param body 本文（null 可）
+     * @return 置き換えた本文
+     */
+    private byte[] redactBody(String url, byte[] body) {
+        if (body == null || url == null) {
+            return body;
+        }
+        for (String path : redactedPaths) {
+            if (url.contains(path)) {
+                return REDACTED.getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        return body;
+    }
+}
@@ -0,0 +1,209 @@
+package net.iwazou.rdkdler.http.replay;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import net.iwazou.rdkdler.exception.RdkDeadlineExceededException;
+import net.iwazou.rdkdler.exception.RdkException;
+import net.iwazou.rdkdler.http.RdkHttpClient;
+import net.iwazou.rdkdler.http.RdkHttpRequest;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
+import net.iwazou.rdkdler.util.Deadline;
+import net.iwazou.rdkdler.util.Sleeper;
+
+/**
+ * {@link HttpArchive} に記録したレスポンスを再生する {@link RdkHttpClient} の実装です。
+ *
+ * <p>通信は行わず、リクエストに対応するレスポンスを記録から返します。接続先や認証情報なしで、
+ * サービスの処理を再現性をもってテスト・計測するために使用します。
+ *
+ * <p><b>再生の規則</b>
+ * <ul>
+ *   <li>リクエストは {@link HttpArchive#key(String, RdkHttpRequest)} で照合します。</li>
+ *   <li>同じキーで複数のレスポンスを記録している場合は記録順に返し、最後まで返したら先頭に戻ります。</li>
+ *   <li>記録にないリクエストの場合は {@link RdkException} をスローします。</li>
+ *   <li>{@link #setLatency(Duration)} / {@link #setJitter(Duration)} で、応答までの待機時間を模擬できます。
+ *       待機時間は {@code latency ± jitter}（一様分布）です。</li>
+ *   <li>リクエストの期限（{@link RdkHttpRequest#getDeadline()}）を過ぎている場合、
+ *       または待機中に期限を過ぎる場合は、期限まで待機して {@link RdkDeadlineExceededException} をスローします。</li>
+ * </ul>
+ *
+ * <p><b>スレッドセーフ</b>：複数スレッドから同時に利用できます。
+ *
+ * <p>使用例：
+ * <pre>{@code
+ * ReplayRdkHttpClient replay = new ReplayRdkHttpClient(HttpArchive.read(Path.of("radiko.rdka")));
+ * replay.setLatency(Duration.ofMillis(80));
+ * replay.setJitter(Duration.ofMillis(20));
+ * ProgramScheduleService service = new ProgramScheduleService(replay);
+ * }</pre>
+ */
+@Slf4j
+public class ReplayRdkHttpClient implements RdkHttpClient {
+
+    /**
+     * キーごとの記録したレスポンス（記録順）です。
+     */
+    private final Map<String, List<RecordedExchange>> exchanges = new LinkedHashMap<>();
+
+    /**
+     * キーごとの次に返すレスポンスの位置です。
+     */
+    private final Map<String, AtomicInteger> cursors = new LinkedHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * -- GETTER --
+     * 応答までの待機時間を取得します。
+     *
+     * @return 待機時間
+     *
+     * -- SETTER --
+     * 応答までの待機時間を設定します。デフォルトは 0（待機しない）です。
+     *
+     * @param latency 待機時間
+     */
+    @Getter @Setter @NonNull private volatile Duration latency = Duration.ZERO;
+
+    /**
+     * -- GETTER --
+     * 待機時間のゆらぎの幅を取得します。
+     *
+     * @return ゆらぎの幅
+     *
+     * -- SETTER --
+     * 待機時間のゆらぎの幅を設定します。デフォルトは 0（ゆらぎなし）です。
+     *
+     * @param jitter ゆらぎの幅
+     */
+    @Getter @Setter @NonNull private volatile Duration jitter = Duration.ZERO;
+
+    /**
+     * -- SETTER --
+     * 応答までの待機を行う関数を設定します（主にテスト用）。
+     * <p>デフォルトは {@link Sleeper#SYSTEM} です。
+     *
+     * @param sleeper 待機を行う関数
+     */
+    @Setter @NonNull private volatile Sleeper sleeper = Sleeper.SYSTEM;
+
+    /**
+     * 再生するクライアントを生成します。
+     *
+     * @param archive 再生するアーカイブ（null 不可）
+     * @throws NullPointerException archive が {@code null} の場合
+     */
+    public ReplayRdkHttpClient(HttpArchive archive) {
+        Objects.requireNonNull(archive);
+        for (RecordedExchange exchange : archive.exchanges()) {
+            exchanges.computeIfAbsent(exchange.key(), k -> new ArrayList<>()).add(exchange);
+            cursors.putIfAbsent(exchange.key(), new AtomicInteger());
+        }
+    }
+
+    /**
+     * 記録した GET のレスポンスを返します。
+     *
+     * @param rdkHttpRequest リクエスト情報（null 不可）
+     * @return 記録したレスポンス
+     * @throws NullPointerException rdkHttpRequest が {@code null} の場合
+     * @throws RdkDeadlineExceededException 応答までにリクエストの期限を過ぎた場合
+     * @throws RdkException 記録にないリクエストの場合
+     * @throws InterruptedException 待機中にスレッド割り込みにより中断された場合
+     */
+    @Override
+    public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest)
+            throws RdkException, InterruptedException {
+        return replay("GET", Objects.requireNonNull(rdkHttpRequest));
+    }
+
+    /**
+     * 記録した POST のレスポンスを返します。
+     *
+     * @param rdkHttpRequest リクエスト情報（null 不可）
+     * @return 記録したレスポンス
+     * @throws NullPointerException rdkHttpRequest が {@code null} の場合
+     * @throws RdkDeadlineExceededException 応答までにリクエストの期限を過ぎた場合
+     * @throws RdkException 記録にないリクエストの場合
+     * @throws InterruptedException 待機中にスレッド割り込みにより中断された場合
+     */
+    @Override
+    public RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest)
+            throws RdkException, InterruptedException {
+        return replay("POST", Objects.requireNonNull(rdkHttpRequest));
+    }
+
+    /**
+     * 利用状況を返します。
+     *
+     * @return 利用状況
+     */
+    public Statistics getStatistics() {
+        return new Statistics(hits.sum(), misses.sum());
+    }
+
+    /**
+     * 利用状況です。
+     *
+     * @param hits 記録から返した数
+     * @param misses 記録になかった数
+     */
+    public record Statistics(long hits, long misses) {}
+
+    private RdkHttpResponse replay(String method, RdkHttpRequest request)
+            throws RdkException, InterruptedException {
+        Deadline deadline = request.getDeadline();
+        if (deadline != null) {
+            deadline.check(request.getUrl());
+        }
+        String key = HttpArchive.key(method, request);
+        List<RecordedExchange> recorded = exchanges.get(key);
+        if (recorded == null) {
+            misses.increment();
+            log.debug("replay(String, RdkHttpRequest) : 記録にないリクエストです。key={}", key);
+            throw new RdkException("No recorded response: " + key);
+        }
+        int index = Math.floorMod(cursors.get(key).getAndIncrement(), recorded.size());
+        pause(request);
+        hits.increment();
+        return recorded.get(index).toResponse();
+    }
+
+    /**
+     * {@code latency ± jitter} だけ待機します。
+     *
+     * <p>待機中にリクエストの期限を過ぎる場合は、期限まで待機して例外をスローします。
+     *
+     * @param request リクエスト情報
+     * @throws RdkDeadlineExceededException 待機中にリクエストの期限を過ぎる場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    private void pause(RdkHttpRequest request)
+            throws RdkDeadlineExceededException, InterruptedException {
+        long nanos = latency.toNanos();
+        long jitterNanos = jitter.toNanos();
+        if (jitterNanos > 0) {
+            nanos += ThreadLocalRandom.current().nextLong(-jitterNanos, jitterNanos + 1);
+        }
+        Deadline deadline = request.getDeadline();
+        long remaining = deadline == null ? Long.MAX_VALUE : deadline.remaining().toNanos();
+        if (Math.min(nanos, remaining) > 0) {
+            sleeper.sleep(Duration.ofNanos(Math.min(nanos, remaining)));
+        }
+        if (nanos >= remaining) {
+            throw new RdkDeadlineExceededException("Deadline exceeded: " + request.getUrl());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package net.iwazou.rdkdler.http.resilience;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 接続先ごとのサーキットブレーカーです。
+ *
+ * <p>連続失敗回数が閾値に達すると開き（{@link CircuitState#OPEN}）、一定時間リクエストを拒否します。
+ * 時間が経過すると 1 件だけ試行を許可し（{@link CircuitState#HALF_OPEN}）、その結果で閉じるか再び開くかを決めます。
+ */
+class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    /**
+     * サーキットブレーカーを生成します。
+     *
+     * @param failureThreshold 開く連続失敗回数（0 以下の場合は開かない）
+     * @param openMillis 開いたままにする時間（ミリ秒）
+     */
+    CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * リクエストの送信を許可するかを判定します。
+     *
+     * <p>開いてから所定の時間が経過している場合は半開に移行し、呼び出し元の 1 件のみ許可します。
+     *
+     * @param now 現在時刻（エポックミリ秒）
+     * @return 許可する場合は {@code true}
+     */
+    boolean tryAcquire(long now) {
+        lock.lock();
+        try {
+            return switch (state) {
+                case CLOSED -> true;
+                case HALF_OPEN -> false;
+                case OPEN -> {
+                    if (now - openedAt < openMillis) {
+                        yield false;
+                    }
+                    state = CircuitState.HALF_OPEN;
+                    yield true;
+                }
+            };
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 成功を記録します。半開の場合は閉じます。
+     */
+    void onSuccess() {
+        lock.lock();
+        try {
+            consecutiveFailures = 0;
+            state = CircuitState.CLOSED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 失敗を記録します。半開の場合、または連続失敗回数が閾値に達した場合は開きます。
+     *
+     * @param now 現在時刻（エポックミリ秒）
+     */
+    void onFailure(long now) {
+        lock.lock();
+        try {
+            consecutiveFailures++;
+            if (state == CircuitState.HALF_OPEN
+                    || (failureThreshold > 0 && consecutiveFailures >= failureThreshold)) {
+                state = CircuitState.OPEN;
+                openedAt = now;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 成否を判定しなかったことを記録します（中断された場合など）。
+     *
+     * <p>半開の試行だった場合は開いた状態に戻し、次のリクエストで改めて試行できるようにします。
+     */
+    void onIgnored() {
+        lock.lock();
+        try {
+            if (state == CircuitState.HALF_OPEN) {
+                state = CircuitState.OPEN;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 現在の状態を返します。
+     *
+     * @return 状態
+     */
+    CircuitState state() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package net.iwazou.rdkdler.http.resilience;
+
+/**
+ * サーキットブレーカーの状態です。
+ */
+public enum CircuitState {
+    /** 通常（すべて許可） */
+    CLOSED,
+    /** 開いている（すべて拒否） */
+    OPEN,
+    /** 半開（試行中の 1 件のみ許可） */
+    HALF_OPEN
+}
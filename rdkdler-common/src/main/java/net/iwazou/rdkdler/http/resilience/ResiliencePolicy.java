@@ -0,0 +1,116 @@
+package net.iwazou.rdkdler.http.resilience;
+
+import java.time.Duration;
+import java.util.Set;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * {@link ResilientRdkHttpClient} の動作を決める設定です。
+ *
+ * <p>{@link #builder()} で必要な項目だけを指定し、それ以外はデフォルト値を使用します。
+ * <pre>{@code
+ * ResiliencePolicy policy =
+ *         ResiliencePolicy.builder().maxAttempts(5).maxConcurrentPerHost(4).build();
+ * }</pre>
+ */
+@SuppressWarnings("doclint:missing") // javadoc生成時の警告を抑止
+@Getter
+@Builder
+public class ResiliencePolicy {
+
+    /**
+     * 1 リクエストあたりの最大試行回数（初回を含む）を取得します。デフォルトは 3 です。
+     *
+     * @return 最大試行回数
+     */
+    @Builder.Default private int maxAttempts = 3;
+
+    /**
+     * 初回の再試行までの待機時間を取得します。デフォルトは 200 ミリ秒です。
+     *
+     * @return 待機時間
+     */
+    @Builder.Default private Duration initialBackoff = Duration.ofMillis(200);
+
+    /**
+     * 再試行までの待機時間の上限を取得します。デフォルトは 10 秒です。
+     *
+     * @return 待機時間の上限
+     */
+    @Builder.Default private Duration maxBackoff = Duration.ofSeconds(10);
+
+    /**
+     * 再試行ごとに待機時間を増やす倍率を取得します。デフォルトは 2.0 です。
+     *
+     * @return 倍率
+     */
+    @Builder.Default private double backoffMultiplier = 2.0;
+
+    /**
+     * 待機時間のゆらぎの割合（0.0〜1.0）を取得します。デフォルトは 0.5 です。
+     *
+     * <p>待機時間は {@code 待機時間 × (1 - jitter × 乱数)} となり、同時に失敗したリクエストの再試行が
+     * 同じ時刻に集中するのを防ぎます。0.0 の場合はゆらぎなしです。
+     *
+     * @return ゆらぎの割合
+     */
+    @Builder.Default private double jitter = 0.5;
+
+    /**
+     * {@code Retry-After} で指定された待機時間の上限を取得します。デフォルトは 60 秒です。
+     *
+     * <p>これを超える待機を求められた場合は再試行せず、そのレスポンスを返します。
+     *
+     * @return 待機時間の上限
+     */
+    @Builder.Default private Duration maxRetryAfter = Duration.ofSeconds(60);
+
+    /**
+     * 再試行の対象とするステータスコードを取得します。デフォルトは 429, 500, 502, 503, 504 です。
+     *
+     * @return ステータスコード
+     */
+    @Builder.Default private Set<Integer> retryableStatusCodes = Set.of(429, 500, 502, 503, 504);
+
+    /**
+     * POST（冪等でないリクエスト）も再試行するかを取得します。デフォルトは {@code false} です。
+     *
+     * @return 再試行する場合は {@code true}
+     */
+    @Builder.Default private boolean retryNonIdempotent = false;
+
+    /**
+     * サーキットブレーカーを開く連続失敗回数を取得します。デフォルトは 5 です。
+     *
+     * <p>通信エラーと 5xx のレスポンスを失敗として数えます。0 以下の場合はサーキットブレーカーを使用しません。
+     *
+     * @return 連続失敗回数
+     */
+    @Builder.Default private int failureThreshold = 5;
+
+    /**
+     * サーキットブレーカーを開いたままにする時間を取得します。デフォルトは 30 秒です。
+     *
+     * <p>経過後は 1 件だけ試行し（半開）、成功すれば閉じ、失敗すれば再び開きます。
+     *
+     * @return 開いたままにする時間
+     */
+    @Builder.Default private Duration openDuration = Duration.ofSeconds(30);
+
+    /**
+     * 接続先ごとの同時実行数の上限（バルクヘッド）を取得します。デフォルトは 16 です。
+     *
+     * <p>0 以下の場合は上限を設けません。
+     *
+     * @return 同時実行数の上限
+     */
+    @Builder.Default private int maxConcurrentPerHost = 16;
+
+    /**
+     * 同時実行数の上限に達している場合に空きを待つ時間を取得します。デフォルトは 30 秒です。
+     *
+     * @return 待機時間
+     */
+    @Builder.Default private Duration bulkheadTimeout = Duration.ofSeconds(30);
+}
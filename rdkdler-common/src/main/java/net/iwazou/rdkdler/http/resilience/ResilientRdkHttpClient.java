@@ -0,0 +1,426 @@
+package net.iwazou.rdkdler.http.resilience;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import net.iwazou.rdkdler.exception.RdkDeadlineExceededException;
+import net.iwazou.rdkdler.exception.RdkRejectedException;
+import net.iwazou.rdkdler.http.RdkHttpClient;
+import net.iwazou.rdkdler.http.RdkHttpRequest;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
+import net.iwazou.rdkdler.util.CommonUtils;
+import net.iwazou.rdkdler.util.Deadline;
+import net.iwazou.rdkdler.util.Sleeper;
+
+/**
+ * 再試行・サーキットブレーカー・バルクヘッドを備えた {@link RdkHttpClient} のデコレーターです。
+ *
+ * <p>接続先の一時的な障害を吸収しつつ、障害が続く接続先へ見込みのないリクエストを送り続けないようにします。
+ * 動作は {@link ResiliencePolicy} で設定します。
+ *
+ * <p><b>再試行</b>
+ * <ul>
+ *   <li>通信エラー（{@link IOException}）と、{@link ResiliencePolicy#getRetryableStatusCodes()} のステータスコードの
+ *       レスポンスを再試行します。</li>
+ *   <li>待機時間は指数バックオフにゆらぎ（jitter）を加えたものです。レスポンスに {@code Retry-After} がある場合は
+ *       その値に従います（{@link ResiliencePolicy#getMaxRetryAfter()} を超える場合は再試行しません）。</li>
+ *   <li>冪等でない POST は、{@link ResiliencePolicy#isRetryNonIdempotent()} が {@code true} の場合のみ再試行します。</li>
+ *   <li>最大試行回数に達した場合は、最後のレスポンス（または例外）をそのまま返します。</li>
+ *   <li>リクエストに期限（{@link RdkHttpRequest#getDeadline()}）がある場合、待機すると期限を過ぎるときは再試行せず、
+ *       その時点のレスポンス（または例外）を返します。期限切れ（{@link RdkDeadlineExceededException}）は再試行しません。</li>
+ * </ul>
+ *
+ * <p><b>サーキットブレーカー・バルクヘッド</b><br>
+ * いずれも接続先（ホスト名とポート）ごとに管理します。サーキットブレーカーが開いている場合、
+ * または同時実行数の上限に達して待機時間内に空きが出ない場合は、通信せずに {@link RdkRejectedException} をスローします。
+ *
+ * <p><b>スレッドセーフ</b>：複数スレッドから同時に利用できます。待機はすべて仮想スレッドを占有しない方法で行います。
+ *
+ * <p>使用例：
+ * <pre>{@code
+ * RdkHttpClient client =
+ *         new ResilientRdkHttpClient(
+ *                 new JdkRdkHttpClient(httpClient), ResiliencePolicy.builder().build());
+ * ProgramScheduleService programScheduleService = new ProgramScheduleService(client);
+ * }</pre>
+ */
+@Slf4j
+public class ResilientRdkHttpClient implements RdkHttpClient {
+
+    /**
+     * 委譲先の HTTP クライアントです。
+     */
+    private final RdkHttpClient delegate;
+
+    private final ResiliencePolicy policy;
+
+    /**
+     * 接続先ごとのサーキットブレーカーとバルクヘッドです。
+     */
+    private final Map<String, HostGuard> guards = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * -- SETTER --
+     * 再試行までの待機を行う関数を設定します（主にテスト用）。
+     * <p>デフォルトは {@link Sleeper#SYSTEM} です。
+     *
+     * @param sleeper 待機を行う関数
+     */
+    @Setter @NonNull private volatile Sleeper sleeper = Sleeper.SYSTEM;
+
+    /**
+     * -- SETTER --
+     * サーキットブレーカーと {@code Retry-After} の判定に使用する時計を設定します（主にテスト用）。
+     *
+     * @param clock 時計
+     */
+    @Setter @NonNull private volatile Clock clock = Clock.systemUTC();
+
+    /**
+     * デコレーターを生成します。
+     *
+     * @param delegate 委譲先の HTTP クライアント（null 不可）
+     * @param policy 設定（null 不可）
+     * @throws NullPointerException delegate または policy が {@code null} の場合
+     */
+    public ResilientRdkHttpClient(RdkHttpClient delegate, ResiliencePolicy policy) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.policy = Objects.requireNonNull(policy);
+    }
+
+    /**
+     * HTTP GET リクエストを送信します。必要に応じて再試行します。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報（null 不可）
+     * @return HTTP レスポンス
+     * @throws NullPointerException rdkHttpRequest が {@code null} の場合
+     * @throws RdkRejectedException サーキットブレーカーまたはバルクヘッドにより拒否した場合
+     * @throws IOException 通信エラー等が発生した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    @Override
+    public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(rdkHttpRequest);
+        return execute("get(RdkHttpRequest)", rdkHttpRequest, true, delegate::get);
+    }
+
+    /**
+     * HTTP POST リクエストを送信します。{@link ResiliencePolicy#isRetryNonIdempotent()} が {@code true} の場合のみ再試行します。
+     *
+     * @param rdkHttpRequest 送信するリクエスト情報（null 不可）
+     * @return HTTP レスポンス
+     * @throws NullPointerException rdkHttpRequest が {@code null} の場合
+     * @throws RdkRejectedException サーキットブレーカーまたはバルクヘッドにより拒否した場合
+     * @throws IOException 通信エラー等が発生した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    @Override
+    public RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(rdkHttpRequest);
+        return execute("postForm(RdkHttpRequest)", rdkHttpRequest, false, delegate::postForm);
+    }
+
+    /**
+     * 接続先のサーキットブレーカーの状態を返します。
+     *
+     * @param host 接続先（ホスト名。ポートを明示した URL の場合は {@code ホスト名:ポート}）
+     * @return 状態（まだ通信していない接続先の場合は {@link CircuitState#CLOSED}）
+     */
+    public CircuitState getCircuitState(String host) {
+        HostGuard guard = guards.get(host);
+        return guard == null ? CircuitState.CLOSED : guard.breaker.state();
+    }
+
+    /**
+     * 利用状況を返します。
+     *
+     * @return 利用状況
+     */
+    public Statistics getStatistics() {
+        return new Statistics(requests.sum(), attempts.sum(), retries.sum(), rejected.sum());
+    }
+
+    /**
+     * 利用状況です。
+     *
+     * @param requests 受け付けたリクエスト数
+     * @param attempts 委譲先へ送信した回数（再試行を含む）
+     * @param retries 再試行した回数
+     * @param rejected サーキットブレーカーまたはバルクヘッドにより拒否した回数
+     */
+    public record Statistics(long requests, long attempts, long retries, long rejected) {}
+
+    /**
+     * 委譲先への送信を表す関数です。
+     */
+    @FunctionalInterface
+    private interface Call {
+        RdkHttpResponse call(RdkHttpRequest request) throws IOException, InterruptedException;
+    }
+
+    /**
+     * リクエストを送信し、必要に応じて再試行します。
+     *
+     * @param method ログ出力用のメソッド名
+     * @param request 送信するリクエスト
+     * @param idempotent 冪等なリクエストの場合は {@code true}
+     * @param call 委譲先への送信
+     * @return HTTP レスポンス
+     * @throws IOException 通信エラー等が発生した場合、または拒否した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    private RdkHttpResponse execute(
+            String method, RdkHttpRequest request, boolean idempotent, Call call)
+            throws IOException, InterruptedException {
+        requests.increment();
+        String host = CommonUtils.hostOf(request.getUrl());
+        HostGuard guard = guards.computeIfAbsent(host, HostGuard::new);
+        boolean retryable = idempotent || policy.isRetryNonIdempotent();
+        int maxAttempts = retryable ? Math.max(1, policy.getMaxAttempts()) : 1;
+        for (int attempt = 1; ; attempt++) {
+            RdkHttpResponse response;
+            try {
+                response = guard.call(call, request);
+            } catch (RdkRejectedException | RdkDeadlineExceededException e) {
+                throw e;
+            } catch (IOException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                Duration wait = backoff(attempt);
+                if (exceedsDeadline(request, wait)) {
+                    log.debug("{} : 期限までに再試行できないため打ち切ります。host={}", method, host);
+                    throw e;
+                }
+                log.debug("{} : 通信エラーのため再試行します。host={}, wait={}", method, host, wait, e);
+                pause(wait);
+                continue;
+            }
+            if (attempt >= maxAttempts
+                    || !policy.getRetryableStatusCodes().contains(response.statusCode())) {
+                return response;
+            }
+            Duration wait = retryAfter(response);
+            if (wait == null) {
+                wait = backoff(attempt);
+            } else if (wait.compareTo(policy.getMaxRetryAfter()) > 0) {
+                log.debug(
+                        "{} : Retry-After が上限を超えるため再試行しません。host={}, retryAfter={}",
+                        method,
+                        host,
+                        wait);
+                return response;
+            }
+            if (exceedsDeadline(request, wait)) {
+                log.debug("{} : 期限までに再試行できないため打ち切ります。host={}", method, host);
+                return response;
+            }
+            log.debug(
+                    "{} : ステータス {} のため再試行します。host={}, wait={}",
+                    method,
+                    response.statusCode(),
+                    host,
+                    wait);
+            pause(wait);
+        }
+    }
+
+    /**
+     * 待機してから再試行すると、リクエストの期限を過ぎるかどうかを返します。
+     *
+     * @param request 送信するリクエスト
+     * @param wait 再試行までの待機時間
+     * @return 期限が指定されていて、待機時間が期限までの残り時間以上の場合 {@code true}
+     */
+    private static boolean exceedsDeadline(RdkHttpRequest request, Duration wait) {
+        Deadline deadline = request.getDeadline();
+        return deadline != null && wait.compareTo(deadline.remaining()) >= 0;
+    }
+
+    /**
+     * 再試行までの待機を行います。
+     *
+     * @param wait 待機時間
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    private void pause(Duration wait) throws InterruptedException {
+        retries.increment();
+        if (wait.isPositive()) {
+            sleeper.sleep(wait);
+        }
+    }
+
+    /**
+     * 指数バックオフにゆらぎを加えた待機時間を返します。
+     *
+     * @param attempt 失敗した試行の回数（1 始まり）
+     * @return 待機時間
+     */
+    Duration backoff(int attempt) {
+        double base =
+                policy.getInitialBackoff().toMillis()
+                        * Math.pow(policy.getBackoffMultiplier(), attempt - 1);
+        double capped = Math.min(base, policy.getMaxBackoff().toMillis());
+        double jitter = Math.clamp(policy.getJitter(), 0.0, 1.0);
+        double random = jitter == 0.0 ? 0.0 : ThreadLocalRandom.current().nextDouble();
+        return Duration.ofMillis(Math.round(capped * (1.0 - jitter * random)));
+    }
+
+    /**
+     * レスポンスの {@code Retry-After}（秒数または HTTP 日付）から待機時間を求めます。
+     *
+     * @param response レスポンス
+     * @return 待機時間（ヘッダがない、または解析できない場合は {@code null}）
+     */
+    Duration retryAfter(RdkHttpResponse response) {
+        String value = firstHeader(response, "retry-after");
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        value = value.trim();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            // HTTP 日付の形式を試す
+        }
+        try {
+            long at =
+                    ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME)
+                            .toInstant()
+                            .toEpochMilli();
+            return Duration.ofMillis(Math.max(0, at - clock.millis()));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * ヘッダの最初の値を、名前の大文字・小文字を区別せずに返します。
+     *
+     * @param response レスポンス
+     * @param name ヘッダ名（小文字）
+     * @return 値（ない場合は {@code null}）
+     */
+    private static String firstHeader(RdkHttpResponse response, String name) {
+        Map<String, List<String>> headers = response.headers();
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+            if (name.equalsIgnoreCase(e.getKey())
+                    && e.getValue() != null
+                    && !e.getValue().isEmpty()) {
+                return e.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 接続先ごとのサーキットブレーカーとバルクヘッドです。
+     */
+    private class HostGuard {
+        private final String host;
+        private final CircuitBreaker breaker;
+
+        /**
+         * 同時実行数を制限するセマフォです（上限を設けない場合は {@code null}）。
+         */
+        private final Semaphore bulkhead;
+
+        HostGuard(String host) {
+            this.host = host;
+            this.breaker =
+                    new CircuitBreaker(
+                            policy.getFailureThreshold(), policy.getOpenDuration().toMillis());
+            this.bulkhead =
+                    policy.getMaxConcurrentPerHost() > 0
+                            ? new Semaphore(policy.getMaxConcurrentPerHost())
+                            : null;
+        }
+
+        /**
+         * サーキットブレーカーとバルクヘッドの許可を得て、1 回だけ送信します。
+         *
+         * <p>通信エラーと 5xx のレスポンスを失敗として、それ以外を成功としてサーキットブレーカーに記録します。
+         *
+         * @param call 委譲先への送信
+         * @param request 送信するリクエスト
+         * @return HTTP レスポンス
+         * @throws RdkRejectedException サーキットブレーカーまたはバルクヘッドにより拒否した場合
+         * @throws IOException 通信エラー等が発生した場合
+         * @throws InterruptedException スレッド割り込みにより中断された場合
+         */
+        RdkHttpResponse call(Call call, RdkHttpRequest request)
+                throws IOException, InterruptedException {
+            if (!breaker.tryAcquire(clock.millis())) {
+                rejected.increment();
+                throw new RdkRejectedException(host, "Circuit breaker is open: " + host);
+            }
+            Duration bulkheadTimeout = policy.getBulkheadTimeout();
+            if (request.getDeadline() != null) {
+                bulkheadTimeout = request.getDeadline().cap(bulkheadTimeout);
+            }
+            boolean acquired;
+            try {
+                acquired =
+                        bulkhead == null
+                                || bulkhead.tryAcquire(
+                                        bulkheadTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                breaker.onIgnored();
+                throw e;
+            }
+            if (!acquired) {
+                breaker.onIgnored();
+                rejected.increment();
+                throw new RdkRejectedException(host, "Too many concurrent requests: " + host);
+            }
+            try {
+                attempts.increment();
+                RdkHttpResponse response = call.call(request);
+                if (response.statusCode() >= 500) {
+                    breaker.onFailure(clock.millis());
+                } else {
+                    breaker.onSuccess();
+                }
+                return response;
+            } catch (RdkRejectedException | RdkDeadlineExceededException e) {
+                // 呼び出し側の期限による打ち切りは、接続先の障害として数えない
+                breaker.onIgnored();
+                throw e;
+            } catch (IOException e) {
+                breaker.onFailure(clock.millis());
+                throw e;
+            } catch (InterruptedException | RuntimeException e) {
+                breaker.onIgnored();
+                throw e;
+            } finally {
+                if (bulkhead != null) {
+                    bulkhead.release();
+                }
+            }
+        }
+    }
+}
@@ -1,9 +1,21 @@
 package net.iwazou.rdkdler.util;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import net.iwazou.rdkdler.exception.RdkHttpException;
 import net.iwazou.rdkdler.exception.RdkResponseException;
+import net.iwazou.rdkdler.http.RdkHttpRequest;
 import net.iwazou.rdkdler.http.RdkHttpResponse;
 
 /**
@@ -25,6 +37,12 @@ public class CommonUtils {
      */
     private static final String VALIDATION_FAILED = "Validation failed";
 
+    /**
+     * 認証情報を含むリクエストヘッダ名（小文字）です。
+     */
+    private static final Set<String> CREDENTIAL_HEADERS =
+            Set.of("x-radiko-authtoken", "authorization", "proxy-authorization", "cookie");
+
     /**
      * インスタンス化禁止。
      */
@@ -57,6 +75,46 @@ public class CommonUtils {
         return response.body();
     }
 
+    /**
+     * HTTPレスポンスから本文（body）をバイト列で取得します。
+     *
+     * <p>検証のルールは {@link #getBody(RdkHttpResponse)} と同じです（空白の判定は ASCII の空白文字で行います）。
+     * 本文を文字列に変換せずに XML/JSON のパーサーへ渡す場合に使用します。
+     *
+     * @param response HTTPレスポンス（null は不可）
+     * @return 空でない本文のバイト列（{@link RdkHttpResponse#bodyBytes()} の戻り値。変更しないでください）
+     * @throws NullPointerException response が {@code null} の場合
+     * @throws RdkHttpException ステータスコードが 200 以外の場合
+     * @throws RdkResponseException ステータスコードは 200 だが body が空/空白のみの場合
+     */
+    public static byte[] getBodyBytes(RdkHttpResponse response)
+            throws RdkHttpException, RdkResponseException {
+        if (response.statusCode() != 200) {
+            throw new RdkHttpException(response.statusCode(), response.body());
+        }
+        byte[] bytes = response.bodyBytes();
+        if (bytes == null || isBlank(bytes)) {
+            // ここはサーバーが200を返しているがbodyがないため、RdkResponseExceptionとする
+            throw new RdkResponseException("empty body");
+        }
+        return bytes;
+    }
+
+    /**
+     * バイト列が空、または ASCII の空白文字（スペース・タブ・改行等）のみかどうかを返します。
+     *
+     * @param bytes 判定対象のバイト列
+     * @return 空または空白のみの場合 {@code true}
+     */
+    private static boolean isBlank(byte[] bytes) {
+        for (byte b : bytes) {
+            if (b != ' ' && (b < '\t' || b > '\r')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * 文字列が {@code null} でなく、かつ空文字（length=0）でないことを検証します。
      *
@@ -126,4 +184,123 @@ public class CommonUtils {
         if (suffix == null) return false;
         return str.toLowerCase(Locale.ROOT).endsWith(suffix.toLowerCase(Locale.ROOT));
     }
+
+    /**
+     * URL から接続先（ホスト名。ポートを明示している場合は {@code ホスト名:ポート}）を求めます。
+     *
+     * <p>接続先ごとに流量や障害を管理する HTTP クライアントのデコレーターで、管理単位のキーとして使用します。
+     *
+     * @param url URL
+     * @return 接続先（解析できない場合は URL そのもの）
+     */
+    public static String hostOf(String url) {
+        try {
+            URI uri = URI.create(url);
+            if (uri.getHost() == null) {
+                return url;
+            }
+            return uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    /**
+     * リクエストを識別するキーを生成します。
+     *
+     * <p>URL・パラメータ・リクエストヘッダから生成し、パラメータとヘッダはキーでソートします。
+     * 認証トークン等のヘッダが異なれば別のキーになります。レスポンスのキャッシュや、同一リクエストの集約で使用します。
+     * 認証情報のヘッダ（{@link #isCredentialHeader(String)}）は、値の代わりに値の SHA-256 をキーに含めます。
+     *
+     * @param request リクエスト（null 不可。URL も null 不可）
+     * @return キー
+     * @throws NullPointerException request または URL が {@code null} の場合
+     */
+    public static String requestKey(RdkHttpRequest request) {
+        StringBuilder sb = new StringBuilder(Objects.requireNonNull(request.getUrl()));
+        if (request.getParameters() != null && !request.getParameters().isEmpty()) {
+            sb.append(" params=").append(new TreeMap<>(request.getParameters()));
+        }
+        if (request.getHeaders() != null && !request.getHeaders().isEmpty()) {
+            TreeMap<String, String> headers = new TreeMap<>();
+            for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+                String value = header.getValue();
+                if (value != null && isCredentialHeader(header.getKey())) {
+                    value = "sha256:" + sha256Hex(value);
+                }
+                headers.put(header.getKey(), value);
+            }
+            sb.append(" headers=").append(headers);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 認証情報を含むリクエストヘッダかどうかを返します。
+     *
+     * <p>{@code X-Radiko-AuthToken}・{@code Authorization}・{@code Proxy-Authorization}・{@code Cookie}
+     * を認証情報とみなします（大文字・小文字は区別しません）。
+     *
+     * @param name ヘッダ名（null 可）
+     * @return 認証情報のヘッダの場合は {@code true}
+     */
+    public static boolean isCredentialHeader(String name) {
+        return name != null && CREDENTIAL_HEADERS.contains(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * リクエストが認証情報のヘッダ（{@link #isCredentialHeader(String)}）を含むかどうかを返します。
+     *
+     * @param request リクエスト（null 不可）
+     * @return 認証情報のヘッダを含む場合は {@code true}
+     * @throws NullPointerException request が {@code null} の場合
+     */
+    public static boolean hasCredentialHeader(RdkHttpRequest request) {
+        Map<String, String> headers = request.getHeaders();
+        return headers != null
+                && headers.keySet().stream().anyMatch(CommonUtils::isCredentialHeader);
+    }
+
+    /**
+     * 文字列（UTF-8）の SHA-256 を 16 進数の文字列で返します。
+     *
+     * @param value 文字列（null 不可）
+     * @return SHA-256（小文字の 16 進数 64 文字）
+     * @throws NullPointerException value が {@code null} の場合
+     */
+    public static String sha256Hex(String value) {
+        try {
+            byte[] hash =
+                    MessageDigest.getInstance("SHA-256")
+                            .digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 は Java SE の必須アルゴリズム
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * {@link IOException} を送出しうる変換処理を、{@link Function} に変換します。
+     *
+     * <p>変換処理が {@link IOException} を送出した場合は {@link CompletionException} に包んで送出します。
+     * {@link java.util.concurrent.CompletableFuture#thenApply(Function)} に渡すことを想定しており、
+     * この場合 {@link java.util.concurrent.CompletableFuture} は元の {@link IOException} を原因として例外完了します。
+     *
+     * @param <T> 入力の型
+     * @param <R> 結果の型
+     * @param function 変換処理（null 不可）
+     * @return {@link IOException} を {@link CompletionException} に包む {@link Function}
+     * @throws NullPointerException function が {@code null} の場合
+     */
+    public static <T, R> Function<T, R> unchecked(IOFunction<T, R> function) {
+        Objects.requireNonNull(function);
+        return t -> {
+            try {
+                return function.apply(t);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        };
+    }
 }
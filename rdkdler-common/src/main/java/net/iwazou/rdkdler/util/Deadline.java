@@ -0,0 +1,116 @@
+package net.iwazou.rdkdler.util;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+import net.iwazou.rdkdler.exception.RdkDeadlineExceededException;
+
+/**
+ * 複数の手順からなる処理全体の期限を表します。
+ *
+ * <p>処理の開始時に {@link #after(Duration)} で生成し、各手順（リクエストの送信や待機）へ引き渡します。
+ * 各手順は {@link #remaining()} / {@link #cap(Duration)} で残り時間を求めて、それを超えて待機しないようにします。
+ * 例えば認証（auth1 → auth2）に 5 秒の期限を指定した場合、auth1 に 3 秒かかれば auth2 の待機時間は残りの 2 秒までになります。
+ *
+ * <p>リクエストへの指定は {@link net.iwazou.rdkdler.http.RdkHttpRequest#getDeadline()} で行います。
+ * 期限を過ぎた場合は {@link RdkDeadlineExceededException} をスローします。
+ *
+ * <p>期限は {@link System#nanoTime()} を基準とするため、システム時刻の変更の影響を受けません。
+ * 本クラスは不変で、スレッドセーフです。
+ */
+public final class Deadline {
+
+    /**
+     * 期限（{@link #nanoTime} の値）です。
+     */
+    private final long deadlineNanos;
+
+    /**
+     * 現在時刻（ナノ秒）の取得元です。
+     */
+    private final LongSupplier nanoTime;
+
+    private Deadline(long deadlineNanos, LongSupplier nanoTime) {
+        this.deadlineNanos = deadlineNanos;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * 現在から指定した時間が経過した時点を期限とします。
+     *
+     * @param timeout 期限までの時間（null 不可）
+     * @return 期限
+     * @throws NullPointerException timeout が {@code null} の場合
+     * @throws ArithmeticException timeout が大きすぎてナノ秒で表せない場合
+     */
+    public static Deadline after(Duration timeout) {
+        return after(timeout, System::nanoTime);
+    }
+
+    /**
+     * 現在時刻の取得元を指定して生成します（主にテスト用）。
+     *
+     * @param timeout 期限までの時間（null 不可）
+     * @param nanoTime 現在時刻（ナノ秒）の取得元（null 不可）
+     * @return 期限
+     * @throws NullPointerException timeout または nanoTime が {@code null} の場合
+     * @throws ArithmeticException timeout が大きすぎてナノ秒で表せない場合
+     */
+    static Deadline after(Duration timeout, LongSupplier nanoTime) {
+        Objects.requireNonNull(nanoTime);
+        return new Deadline(nanoTime.getAsLong() + timeout.toNanos(), nanoTime);
+    }
+
+    /**
+     * 期限までの残り時間を返します。
+     *
+     * @return 残り時間（期限を過ぎている場合は {@link Duration#ZERO}）
+     */
+    public Duration remaining() {
+        long remaining = deadlineNanos - nanoTime.getAsLong();
+        return remaining > 0 ? Duration.ofNanos(remaining) : Duration.ZERO;
+    }
+
+    /**
+     * 期限を過ぎているかどうかを返します。
+     *
+     * @return 期限を過ぎている場合 {@code true}
+     */
+    public boolean isExpired() {
+        return deadlineNanos - nanoTime.getAsLong() <= 0;
+    }
+
+    /**
+     * 指定した時間と残り時間のうち、短い方を返します。
+     *
+     * @param timeout 手順ごとのタイムアウト時間（null 不可）
+     * @return 短い方の時間
+     * @throws NullPointerException timeout が {@code null} の場合
+     */
+    public Duration cap(Duration timeout) {
+        Duration remaining = remaining();
+        return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+    }
+
+    /**
+     * 期限を過ぎている場合は例外をスローします。
+     *
+     * @param operation 例外メッセージに含める処理の名前
+     * @throws RdkDeadlineExceededException 期限を過ぎている場合
+     */
+    public void check(String operation) throws RdkDeadlineExceededException {
+        if (isExpired()) {
+            throw new RdkDeadlineExceededException("Deadline exceeded: " + operation);
+        }
+    }
+
+    /**
+     * 期限までの残り時間を含む文字列を返します。
+     *
+     * @return 文字列表現
+     */
+    @Override
+    public String toString() {
+        return "Deadline(remaining=" + remaining() + ")";
+    }
+}
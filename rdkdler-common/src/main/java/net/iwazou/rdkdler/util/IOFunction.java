@@ -0,0 +1,26 @@
+package net.iwazou.rdkdler.util;
+
+import java.io.IOException;
+
+/**
+ * {@link IOException} を送出しうる変換処理を表す関数型インターフェースです。
+ *
+ * <p>{@link java.util.function.Function} は検査例外を送出できないため、
+ * 非同期処理（{@link java.util.concurrent.CompletableFuture}）の途中でレスポンスを解析する場合などに
+ * {@link CommonUtils#unchecked(IOFunction)} と組み合わせて使用します。
+ *
+ * @param <T> 入力の型
+ * @param <R> 結果の型
+ */
+@FunctionalInterface
+public interface IOFunction<T, R> {
+
+    /**
+     * 変換処理を実行します。
+     *
+     * @param t 入力
+     * @return 結果
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    R apply(T t) throws IOException;
+}
@@ -0,0 +1,26 @@
+package net.iwazou.rdkdler.util;
+
+import java.time.Duration;
+
+/**
+ * 指定した時間だけ待機する処理を表す関数型インターフェースです。
+ *
+ * <p>再試行やレート制限での待機を、テストで実際には待たずに検証できるよう差し替えるために使用します。
+ * 通常は {@link #SYSTEM}（{@link Thread#sleep(Duration)}）を使用します。
+ */
+@FunctionalInterface
+public interface Sleeper {
+
+    /**
+     * {@link Thread#sleep(Duration)} で待機する実装です。
+     */
+    Sleeper SYSTEM = Thread::sleep;
+
+    /**
+     * 指定した時間だけ待機します。
+     *
+     * @param duration 待機時間
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    void sleep(Duration duration) throws InterruptedException;
+}
@@ -0,0 +1,78 @@
+package net.iwazou.rdkdler.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class ByteArrayRdkHttpResponseTests {
+
+    @DisplayName("bodyBytes／bodyStream／bodyのテスト：正常系")
+    @Test
+    void test_body_01() throws IOException {
+        byte[] bytes = "<xml>番組表</xml>".getBytes(StandardCharsets.UTF_8);
+        ByteArrayRdkHttpResponse response = new ByteArrayRdkHttpResponse(200, null, bytes);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers()).isEmpty();
+        // バイト列はコピーせずに返す
+        assertThat(response.bodyBytes()).isSameAs(bytes);
+        try (InputStream in = response.bodyStream()) {
+            assertThat(in.readAllBytes()).isEqualTo(bytes);
+        }
+        // デコード結果は保持される
+        assertThat(response.body()).isEqualTo("<xml>番組表</xml>").isSameAs(response.body());
+    }
+
+    @DisplayName("bodyBytes／bodyStream／bodyのテスト：本文なし")
+    @Test
+    void test_body_02() {
+        ByteArrayRdkHttpResponse response = new ByteArrayRdkHttpResponse(204, Map.of(), null);
+
+        assertThat(response.bodyBytes()).isNull();
+        assertThat(response.bodyStream()).isNull();
+        assertThat(response.body()).isNull();
+    }
+
+    @DisplayName("bodyのテスト：Content-Typeのcharsetでデコードする")
+    @Test
+    void test_body_03() {
+        Charset sjis = Charset.forName("Shift_JIS");
+        ByteArrayRdkHttpResponse response =
+                new ByteArrayRdkHttpResponse(
+                        200,
+                        Map.of("content-type", List.of("text/plain; charset=Shift_JIS")),
+                        "神奈川県".getBytes(sjis));
+
+        assertThat(response.body()).isEqualTo("神奈川県");
+    }
+
+    @DisplayName("charsetのテスト：正常系")
+    @ParameterizedTest(name = "No.{index} : contentType=[{0}], charset=[{1}]")
+    @CsvSource(
+            value = {
+                "null, UTF-8",
+                "application/xml, UTF-8",
+                "application/xml; charset=UTF-8, UTF-8",
+                "'text/html; charset=\"euc-jp\"', EUC-JP",
+                "text/html;CHARSET=Shift_JIS, Shift_JIS",
+                "text/html; charset=unknown-charset, UTF-8",
+                "text/html; charset=?, UTF-8",
+            },
+            nullValues = "null")
+    void test_charset_01(String contentType, String charset) {
+        Map<String, List<String>> headers =
+                contentType == null ? Map.of() : Map.of("content-type", List.of(contentType));
+        ByteArrayRdkHttpResponse response = new ByteArrayRdkHttpResponse(200, headers, new byte[0]);
+
+        assertThat(response.charset()).isEqualTo(Charset.forName(charset));
+    }
+}
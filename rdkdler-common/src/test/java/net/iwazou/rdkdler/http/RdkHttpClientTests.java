@@ -0,0 +1,192 @@
+package net.iwazou.rdkdler.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import net.iwazou.rdkdler.TestRdkHttpResponse;
+import net.iwazou.rdkdler.exception.RdkHttpException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class RdkHttpClientTests {
+
+    @DisplayName("getAsync／postFormAsyncのデフォルト実装のテスト：正常系")
+    @Test
+    void test_async_01() {
+        ThreadRecordingClient client = new ThreadRecordingClient();
+        RdkHttpRequest request = RdkHttpRequest.builder().url("https://example.com/").build();
+
+        RdkHttpResponse get = client.getAsync(request).join();
+        assertThat(get.body()).isEqualTo("get");
+        // 同期版が仮想スレッド上で実行されている
+        assertThat(client.virtual).isTrue();
+        assertThat(client.thread).isNotSameAs(Thread.currentThread());
+
+        RdkHttpResponse post = client.postFormAsync(request).join();
+        assertThat(post.body()).isEqualTo("post");
+        assertThat(client.virtual).isTrue();
+    }
+
+    @DisplayName("getAsync／postFormAsyncのデフォルト実装のテスト：異常系")
+    @Test
+    void test_async_02() {
+        RdkHttpClient client =
+                new RdkHttpClient() {
+                    @Override
+                    public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest)
+                            throws IOException {
+                        throw new RdkHttpException(500, "error");
+                    }
+
+                    @Override
+                    public RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest) {
+                        throw new IllegalStateException("post");
+                    }
+                };
+        RdkHttpRequest request = RdkHttpRequest.builder().url("https://example.com/").build();
+
+        // 同期版の例外で例外完了する
+        assertThatExceptionOfType(CompletionException.class)
+                .isThrownBy(() -> client.getAsync(request).join())
+                .withCauseInstanceOf(RdkHttpException.class);
+        assertThatExceptionOfType(CompletionException.class)
+                .isThrownBy(() -> client.postFormAsync(request).join())
+                .withCauseInstanceOf(IllegalStateException.class);
+        // 引数の null は呼び出し時に送出する
+        assertThatExceptionOfType(NullPointerException.class)
+                .isThrownBy(() -> client.getAsync(null));
+    }
+
+    @DisplayName("getAllのテスト：同時に送信する数を制限し、リクエストの順でレスポンスを返す")
+    @Test
+    void test_getAll_01() throws Exception {
+        ConcurrencyTrackingClient client = new ConcurrencyTrackingClient();
+        List<RdkHttpRequest> requests =
+                IntStream.range(0, 20).mapToObj(i -> request("https://example.com/" + i)).toList();
+
+        List<RdkHttpResponse> responses = client.getAll(requests, 4);
+
+        assertThat(responses)
+                .extracting(RdkHttpResponse::body)
+                .containsExactlyElementsOf(requests.stream().map(RdkHttpRequest::getUrl).toList());
+        assertThat(client.maxActive.get()).isBetween(2, 4);
+        assertThat(client.calls.get()).isEqualTo(20);
+        assertThat(client.getAll(List.of(), 4)).isEmpty();
+    }
+
+    @DisplayName("getAllのテスト：失敗したリクエストの例外をスローし、未送信のリクエストは送信しない")
+    @Test
+    void test_getAll_02() {
+        ConcurrencyTrackingClient client = new ConcurrencyTrackingClient();
+        List<RdkHttpRequest> requests =
+                IntStream.range(0, 20)
+                        .mapToObj(i -> request(i == 1 ? "fail" : "https://example.com/" + i))
+                        .toList();
+
+        assertThatExceptionOfType(RdkHttpException.class)
+                .isThrownBy(() -> client.getAll(requests, 2));
+        assertThat(client.calls.get()).isLessThan(20);
+    }
+
+    @DisplayName("submitAllのテスト：キャンセルしたリクエストは送信しない／引数のチェック")
+    @Test
+    void test_submitAll_01() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        RdkHttpClient client =
+                new ThreadRecordingClient() {
+                    @Override
+                    public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest) {
+                        calls.incrementAndGet();
+                        try {
+                            release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return new TestRdkHttpResponse(200, null, rdkHttpRequest.getUrl());
+                    }
+                };
+
+        List<CompletableFuture<RdkHttpResponse>> futures =
+                client.submitAll(List.of(request("a"), request("b"), request("c")), 1);
+        futures.get(1).cancel(false);
+        release.countDown();
+
+        assertThat(futures.get(0).get().body()).isEqualTo("a");
+        assertThat(futures.get(2).get().body()).isEqualTo("c");
+        assertThat(futures.get(1)).isCancelled();
+        assertThat(calls.get()).isEqualTo(2);
+
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> client.submitAll(List.of(request("a")), 0));
+        assertThatExceptionOfType(NullPointerException.class)
+                .isThrownBy(() -> client.submitAll(null, 1));
+    }
+
+    private static RdkHttpRequest request(String url) {
+        return RdkHttpRequest.builder().url(url).build();
+    }
+
+    /**
+     * 同時に実行中の同期版の呼び出し数の最大値を記録するクライアントです。URL が {@code "fail"} の場合は失敗します。
+     */
+    private static class ConcurrencyTrackingClient implements RdkHttpClient {
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger maxActive = new AtomicInteger();
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest)
+                throws IOException, InterruptedException {
+            calls.incrementAndGet();
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+                if (rdkHttpRequest.getUrl().equals("fail")) {
+                    throw new RdkHttpException(500, "error");
+                }
+                return new TestRdkHttpResponse(200, null, rdkHttpRequest.getUrl());
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+
+        @Override
+        public RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * 同期版が呼び出されたスレッドを記録するクライアントです。
+     */
+    private static class ThreadRecordingClient implements RdkHttpClient {
+        private volatile Thread thread;
+        private volatile boolean virtual;
+
+        @Override
+        public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest) {
+            record();
+            return new TestRdkHttpResponse(200, null, "get");
+        }
+
+        @Override
+        public RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest) {
+            record();
+            return new TestRdkHttpResponse(200, null, "post");
+        }
+
+        private void record() {
+            this.thread = Thread.currentThread();
+            this.virtual = Thread.currentThread().isVirtual();
+        }
+    }
+}
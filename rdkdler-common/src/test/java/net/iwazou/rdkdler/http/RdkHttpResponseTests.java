@@ -2,6 +2,9 @@ package net.iwazou.rdkdler.http;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import net.iwazou.rdkdler.TestRdkHttpResponse;
@@ -25,4 +28,21 @@ class RdkHttpResponseTests {
         assertThat(response.firstHeader("x-null")).isEmpty();
         assertThat(response.firstHeader("x-missing")).isEmpty();
     }
+
+    @DisplayName("bodyBytes／bodyStreamのデフォルト実装のテスト：正常系")
+    @Test
+    void test_bodyBytes_01() throws IOException {
+        RdkHttpResponse response = new TestRdkHttpResponse(200, null, "エリア");
+        byte[] expected = "エリア".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(response.bodyBytes()).isEqualTo(expected);
+        try (InputStream in = response.bodyStream()) {
+            assertThat(in.readAllBytes()).isEqualTo(expected);
+        }
+
+        // 本文がない場合は null
+        RdkHttpResponse empty = new TestRdkHttpResponse(200, null, null);
+        assertThat(empty.bodyBytes()).isNull();
+        assertThat(empty.bodyStream()).isNull();
+    }
 }
@@ -0,0 +1,416 @@
+package net.iwazou.rdkdler.http.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import net.iwazou.rdkdler.TestRdkHttpResponse;
+import net.iwazou.rdkdler.http.RdkHttpClient;
+import net.iwazou.rdkdler.http.RdkHttpRequest;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
+import net.iwazou.rdkdler.http.cache.CachingRdkHttpClient.Statistics;
+import net.iwazou.rdkdler.util.Deadline;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class CachingRdkHttpClientTests {
+    private static final String URL = "https://radiko.jp/v3/station/list/JP13.xml";
+
+    private FakeRdkHttpClient delegate;
+    private MutableClock clock;
+    private CachingRdkHttpClient client;
+
+    @TempDir Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new FakeRdkHttpClient();
+        clock = new MutableClock();
+        client = new CachingRdkHttpClient(delegate, 10);
+        client.setClock(clock);
+    }
+
+    @DisplayName("getのテスト：max-ageの間はキャッシュを返す")
+    @Test
+    void test_get_01() throws Exception {
+        delegate.responses.add(ok("body1", Map.of("cache-control", List.of("max-age=60"))));
+        delegate.responses.add(ok("body2", Map.of("cache-control", List.of("max-age=60"))));
+
+        assertThat(client.get(request(URL)).body()).isEqualTo("body1");
+        clock.advance(59_999);
+        assertThat(client.get(request(URL)).body()).isEqualTo("body1");
+        assertThat(delegate.requests).hasSize(1);
+
+        // 期限切れ後は再取得する
+        clock.advance(1);
+        assertThat(client.get(request(URL)).body()).isEqualTo("body2");
+        assertThat(delegate.requests).hasSize(2);
+        assertThat(client.getStatistics()).isEqualTo(new Statistics(1, 0, 2, 0, 1));
+    }
+
+    @DisplayName("getのテスト：Ageを差し引いた期間だけキャッシュする")
+    @Test
+    void test_get_02() throws Exception {
+        delegate.responses.add(
+                ok("body1", Map.of("cache-control", List.of("max-age=60"), "age", List.of("50"))));
+        delegate.responses.add(ok("body2", Map.of()));
+
+        client.get(request(URL));
+        clock.advance(10_000);
+        assertThat(client.get(request(URL)).body()).isEqualTo("body2");
+    }
+
+    @DisplayName("getのテスト：ETag／Last-Modifiedで再検証し、304の場合はキャッシュを返す")
+    @Test
+    void test_get_03() throws Exception {
+        delegate.responses.add(
+                ok(
+                        "body1",
+                        Map.of(
+                                "etag", List.of("\"v1\""),
+                                "last-modified", List.of("Wed, 21 Oct 2015 07:28:00 GMT"))));
+        delegate.responses.add(
+                new TestRdkHttpResponse(304, Map.of("cache-control", List.of("max-age=60")), ""));
+
+        assertThat(client.get(request(URL)).body()).isEqualTo("body1");
+        RdkHttpResponse revalidated = client.get(request(URL));
+
+        assertThat(revalidated.statusCode()).isEqualTo(200);
+        assertThat(revalidated.body()).isEqualTo("body1");
+        assertThat(delegate.requests.get(0).getHeaders()).isNull();
+        assertThat(delegate.requests.get(1).getHeaders())
+                .containsEntry("If-None-Match", "\"v1\"")
+                .containsEntry("If-Modified-Since", "Wed, 21 Oct 2015 07:28:00 GMT");
+        // 304 のヘッダで有効期限が更新される
+        client.get(request(URL));
+        assertThat(delegate.requests).hasSize(2);
+        assertThat(client.getStatistics().notModified()).isEqualTo(1);
+    }
+
+    @DisplayName("getのテスト：保存対象外のレスポンス")
+    @Test
+    void test_get_04() throws Exception {
+        // no-store
+        delegate.responses.add(
+                ok("body1", Map.of("cache-control", List.of("no-store, max-age=60"))));
+        // 有効期限も検証子もない
+        delegate.responses.add(ok("body2", Map.of()));
+        // 200 以外
+        delegate.responses.add(new TestRdkHttpResponse(500, Map.of(), "error"));
+        delegate.responses.add(ok("body4", Map.of()));
+
+        assertThat(client.get(request(URL)).body()).isEqualTo("body1");
+        assertThat(client.get(request(URL)).body()).isEqualTo("body2");
+        assertThat(client.get(request(URL)).statusCode()).isEqualTo(500);
+        assertThat(client.get(request(URL)).body()).isEqualTo("body4");
+        assertThat(client.getStatistics().size()).isZero();
+    }
+
+    @DisplayName("getのテスト：stale-while-revalidateの間は期限切れのキャッシュを返し、裏で再検証する")
+    @Test
+    void test_get_05() throws Exception {
+        List<Runnable> tasks = new ArrayList<>();
+        client.setRevalidationExecutor(tasks::add);
+        delegate.responses.add(
+                ok(
+                        "body1",
+                        Map.of(
+                                "cache-control",
+                                List.of("max-age=10, stale-while-revalidate=30"))));
+        delegate.responses.add(ok("body2", Map.of("cache-control", List.of("max-age=10"))));
+
+        client.get(request(URL));
+        clock.advance(20_000);
+        assertThat(client.get(request(URL)).body()).isEqualTo("body1");
+        // 再検証中は重複して登録しない
+        assertThat(client.get(request(URL)).body()).isEqualTo("body1");
+        assertThat(tasks).hasSize(1);
+        assertThat(delegate.requests).hasSize(1);
+
+        tasks.get(0).run();
+        assertThat(client.get(request(URL)).body()).isEqualTo("body2");
+        assertThat(delegate.requests).hasSize(2);
+        assertThat(client.getStatistics().staleHits()).isEqualTo(2);
+
+        // stale-while-revalidate の期間も過ぎた場合は同期で取得する
+        delegate.responses.add(ok("body3", Map.of()));
+        clock.advance(60_000);
+        assertThat(client.get(request(URL)).body()).isEqualTo("body3");
+    }
+
+    @DisplayName("getのテスト：メモリ層は最大件数を超えると最も古く参照したものから追い出す")
+    @Test
+    void test_get_06() throws Exception {
+        client = new CachingRdkHttpClient(delegate, 2);
+        client.setClock(clock);
+        for (int i = 0; i < 4; i++) {
+            delegate.responses.add(ok("body" + i, Map.of("cache-control", List.of("max-age=60"))));
+        }
+
+        client.get(request(URL + "?a"));
+        client.get(request(URL + "?b"));
+        client.get(request(URL + "?a")); // a を参照して b を最も古くする
+        client.get(request(URL + "?c"));
+        assertThat(delegate.requests).hasSize(3);
+
+        assertThat(client.get(request(URL + "?a")).body()).isEqualTo("body0");
+        assertThat(client.get(request(URL + "?b")).body()).isEqualTo("body3");
+        assertThat(client.getStatistics().size()).isEqualTo(2);
+    }
+
+    @DisplayName("getのテスト：パラメータ・ヘッダが異なるリクエストは別のキャッシュとする")
+    @Test
+    void test_get_07() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            delegate.responses.add(ok("body" + i, Map.of("cache-control", List.of("max-age=60"))));
+        }
+        RdkHttpRequest withParam =
+                RdkHttpRequest.builder().url(URL).parameters(Map.of("k", "v")).build();
+        RdkHttpRequest withHeader =
+                RdkHttpRequest.builder()
+                        .url(URL)
+                        .headers(Map.of("X-Radiko-AuthToken", "t"))
+                        .build();
+
+        assertThat(client.get(request(URL)).body()).isEqualTo("body0");
+        assertThat(client.get(withParam).body()).isEqualTo("body1");
+        assertThat(client.get(withHeader).body()).isEqualTo("body2");
+        assertThat(client.get(withParam).body()).isEqualTo("body1");
+        assertThat(delegate.requests).hasSize(3);
+    }
+
+    @DisplayName("getのテスト：ディスク層から読み込む")
+    @Test
+    void test_get_08() throws Exception {
+        client.setDiskCacheDirectory(tempDir);
+        delegate.responses.add(
+                ok(
+                        "本文",
+                        Map.of(
+                                "cache-control", List.of("max-age=60"),
+                                "content-type", List.of("application/xml; charset=UTF-8"))));
+        client.get(request(URL));
+
+        // 別インスタンス（再起動相当）でもディスクから返す
+        CachingRdkHttpClient other = new CachingRdkHttpClient(delegate, 10);
+        other.setClock(clock);
+        other.setDiskCacheDirectory(tempDir);
+        RdkHttpResponse response = other.get(request(URL));
+
+        assertThat(response.body()).isEqualTo("本文");
+        assertThat(response.headers())
+                .containsEntry("content-type", List.of("application/xml; charset=UTF-8"));
+        assertThat(delegate.requests).hasSize(1);
+        assertThat(other.getStatistics().hits()).isEqualTo(1);
+    }
+
+    @DisplayName("getのテスト：ディスク層には認証情報・キャッシュキー・保存対象外のヘッダを保存しない")
+    @Test
+    void test_get_10() throws Exception {
+        client.setDiskCacheDirectory(tempDir);
+        delegate.responses.add(
+                ok(
+                        "station",
+                        Map.of(
+                                "cache-control", List.of("max-age=60"),
+                                "etag", List.of("\"v1\""),
+                                "set-cookie", List.of("session=secret-cookie"),
+                                "x-radiko-authtoken", List.of("secret-token"))));
+        delegate.responses.add(ok("auth", Map.of("cache-control", List.of("max-age=60"))));
+        delegate.responses.add(
+                ok("private", Map.of("cache-control", List.of("private, max-age=60"))));
+        delegate.responses.add(
+                ok("vary", Map.of("cache-control", List.of("max-age=60"), "vary", List.of("*"))));
+        delegate.responses.add(ok("vary2", Map.of("cache-control", List.of("max-age=60"))));
+
+        client.get(request(URL));
+        client.get(
+                RdkHttpRequest.builder()
+                        .url(URL + "?auth")
+                        .headers(Map.of("X-Radiko-AuthToken", "request-token"))
+                        .build());
+        client.get(request(URL + "?private"));
+        client.get(request(URL + "?vary"));
+
+        // 認証情報を含むリクエスト・private のレスポンスはディスク層に保存しない
+        List<Path> files;
+        try (var stream = java.nio.file.Files.list(tempDir)) {
+            files = stream.toList();
+        }
+        assertThat(files).hasSize(1);
+        String content =
+                new String(java.nio.file.Files.readAllBytes(files.get(0)), "ISO-8859-1");
+        assertThat(content)
+                .contains("etag", "cache-control")
+                .doesNotContain(URL, "set-cookie", "secret-cookie", "secret-token");
+        // private のレスポンスはメモリ層には保存する
+        assertThat(client.get(request(URL + "?private")).body()).isEqualTo("private");
+        // Vary: * のレスポンスは保存しない
+        assertThat(client.get(request(URL + "?vary")).body()).isEqualTo("vary2");
+
+        CachingRdkHttpClient other = new CachingRdkHttpClient(delegate, 10);
+        other.setClock(clock);
+        other.setDiskCacheDirectory(tempDir);
+        RdkHttpResponse response = other.get(request(URL));
+        assertThat(response.body()).isEqualTo("station");
+        assertThat(response.headers()).containsOnlyKeys("cache-control", "etag");
+        assertThat(delegate.requests).hasSize(5);
+    }
+
+    @DisplayName("getのテスト：再検証のリクエストに期限を設定する")
+    @Test
+    void test_get_09() throws Exception {
+        List<Runnable> tasks = new ArrayList<>();
+        client.setRevalidationExecutor(tasks::add);
+        client.setRevalidationTimeout(Duration.ofSeconds(5));
+        delegate.responses.add(ok("body1", Map.of("etag", List.of("\"v1\""))));
+        delegate.responses.add(new TestRdkHttpResponse(304, Map.of(), ""));
+        delegate.responses.add(
+                ok(
+                        "body2",
+                        Map.of(
+                                "etag", List.of("\"v2\""),
+                                "cache-control",
+                                List.of("max-age=10, stale-while-revalidate=30"))));
+        delegate.responses.add(new TestRdkHttpResponse(304, Map.of(), ""));
+        Deadline deadline = Deadline.after(Duration.ofMinutes(1));
+        RdkHttpRequest request = RdkHttpRequest.builder().url(URL).deadline(deadline).build();
+
+        client.get(request);
+        // 条件付きリクエストは呼び出し元の期限を引き継ぐ
+        client.get(request);
+        assertThat(delegate.requests.get(1).getHeaders()).containsEntry("If-None-Match", "\"v1\"");
+        assertThat(delegate.requests.get(1).getDeadline()).isSameAs(deadline);
+
+        // 裏での再検証は、呼び出し元とは別の期限を設定する
+        client.clear();
+        client.get(request);
+        clock.advance(20_000);
+        assertThat(client.get(request).body()).isEqualTo("body2");
+        tasks.get(0).run();
+        RdkHttpRequest revalidation = delegate.requests.get(3);
+        assertThat(revalidation.getHeaders()).containsEntry("If-None-Match", "\"v2\"");
+        assertThat(revalidation.getDeadline()).isNotNull().isNotSameAs(deadline);
+        assertThat(revalidation.getDeadline().remaining())
+                .isLessThanOrEqualTo(Duration.ofSeconds(5));
+    }
+
+    @DisplayName("postFormのテスト：キャッシュせずに委譲する")
+    @Test
+    void test_postForm_01() throws Exception {
+        delegate.responses.add(ok("body1", Map.of("cache-control", List.of("max-age=60"))));
+        delegate.responses.add(ok("body2", Map.of("cache-control", List.of("max-age=60"))));
+
+        assertThat(client.postForm(request(URL)).body()).isEqualTo("body1");
+        assertThat(client.postForm(request(URL)).body()).isEqualTo("body2");
+        assertThat(client.getStatistics().size()).isZero();
+    }
+
+    @DisplayName("コンストラクタのテスト：異常系")
+    @Test
+    void test_constructor_01() {
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> new CachingRdkHttpClient(delegate, 0));
+        assertThatExceptionOfType(NullPointerException.class)
+                .isThrownBy(() -> new CachingRdkHttpClient(null, 1));
+    }
+
+    @DisplayName("CacheControl.parseのテスト：正常系")
+    @ParameterizedTest(
+            name =
+                    "No.{index} : value=[{0}], noStore=[{1}], noCache=[{2}], private=[{3}],"
+                            + " maxAge=[{4}], swr=[{5}]")
+    @CsvSource(
+            value = {
+                "null, false, false, false, -1, -1",
+                "'max-age=60', false, false, false, 60, -1",
+                "'public, max-age=\"30\", stale-while-revalidate=120', false, false, false, 30,"
+                        + " 120",
+                "'no-cache', false, true, false, -1, -1",
+                "'NO-STORE', true, false, false, -1, -1",
+                "'private, max-age=60', false, false, true, 60, -1",
+                "'max-age=abc, s-maxage=10', false, false, false, -1, -1",
+            },
+            nullValues = "null")
+    void test_cacheControl_01(
+            String value,
+            boolean noStore,
+            boolean noCache,
+            boolean privateCache,
+            long maxAge,
+            long swr) {
+        CacheControl cacheControl =
+                CacheControl.parse(value == null ? null : java.util.Arrays.asList(value));
+
+        assertThat(cacheControl)
+                .isEqualTo(new CacheControl(noStore, noCache, privateCache, maxAge, swr));
+    }
+
+    private static RdkHttpRequest request(String url) {
+        return RdkHttpRequest.builder().url(url).build();
+    }
+
+    private static RdkHttpResponse ok(String body, Map<String, List<String>> headers) {
+        return new TestRdkHttpResponse(200, headers, body);
+    }
+
+    /**
+     * 登録したレスポンスを順に返し、受け取ったリクエストを記録するクライアントです。
+     */
+    private static class FakeRdkHttpClient implements RdkHttpClient {
+        private final Deque<RdkHttpResponse> responses = new ArrayDeque<>();
+        private final List<RdkHttpRequest> requests = new ArrayList<>();
+
+        @Override
+        public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest) throws IOException {
+            requests.add(rdkHttpRequest);
+            return responses.removeFirst();
+        }
+
+        @Override
+        public RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest) throws IOException {
+            return get(rdkHttpRequest);
+        }
+    }
+
+    /**
+     * 任意に進められる時計です。
+     */
+    private static class MutableClock extends Clock {
+        private long millis = 1_700_000_000_000L;
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
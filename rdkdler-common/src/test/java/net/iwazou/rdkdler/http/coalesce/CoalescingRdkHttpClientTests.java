@@ -0,0 +1,245 @@
+package net.iwazou.rdkdler.http.coalesce;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import net.iwazou.rdkdler.TestRdkHttpResponse;
+import net.iwazou.rdkdler.exception.RdkDeadlineExceededException;
+import net.iwazou.rdkdler.http.RdkHttpClient;
+import net.iwazou.rdkdler.http.RdkHttpRequest;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
+import net.iwazou.rdkdler.http.coalesce.CoalescingRdkHttpClient.Statistics;
+import net.iwazou.rdkdler.util.Deadline;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CoalescingRdkHttpClientTests {
+    private static final String URL = "https://radiko.jp/v3/station/list/JP13.xml";
+    private static final int TASKS = 50;
+
+    private BlockingRdkHttpClient delegate;
+    private CoalescingRdkHttpClient client;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new BlockingRdkHttpClient();
+        client = new CoalescingRdkHttpClient(delegate);
+    }
+
+    @DisplayName("getのテスト：通信中の同一リクエストは1回の通信にまとめる")
+    @Test
+    void test_get_01() throws Exception {
+        List<RdkHttpResponse> responses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<RdkHttpResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < TASKS; i++) {
+                futures.add(executor.submit(() -> client.get(request(URL))));
+            }
+            await(() -> client.getStatistics().coalesced() == TASKS - 1);
+            delegate.release.countDown();
+            for (Future<RdkHttpResponse> future : futures) {
+                responses.add(future.get());
+            }
+        }
+
+        assertThat(delegate.requests).hasSize(1);
+        assertThat(responses).hasSize(TASKS).allSatisfy(r -> assertThat(r.body()).isEqualTo("1"));
+        assertThat(client.getStatistics()).isEqualTo(new Statistics(TASKS, TASKS - 1, 0));
+    }
+
+    @DisplayName("getのテスト：パラメータやヘッダが異なるリクエストはまとめない／完了後は改めて送信する")
+    @Test
+    void test_get_02() throws Exception {
+        delegate.release.countDown();
+
+        client.get(request(URL));
+        client.get(request(URL));
+        client.get(RdkHttpRequest.builder().url(URL).parameters(Map.of("a", "1")).build());
+        client.get(RdkHttpRequest.builder().url(URL).headers(Map.of("h", "1")).build());
+
+        assertThat(delegate.requests).hasSize(4);
+        assertThat(client.getStatistics()).isEqualTo(new Statistics(4, 0, 0));
+    }
+
+    @DisplayName("getのテスト：通信エラーは待っていたすべての呼び出し元にスローする")
+    @Test
+    void test_get_03() throws Exception {
+        delegate.failure = new ConnectException("refused");
+        List<Future<RdkHttpResponse>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 3; i++) {
+                futures.add(executor.submit(() -> client.get(request(URL))));
+            }
+            await(() -> client.getStatistics().coalesced() == 2);
+            delegate.release.countDown();
+        }
+
+        assertThat(futures)
+                .allSatisfy(
+                        f ->
+                                assertThatExceptionOfType(ExecutionException.class)
+                                        .isThrownBy(f::get)
+                                        .withCause(delegate.failure));
+        assertThat(delegate.requests).hasSize(1);
+        assertThat(client.getStatistics().inFlight()).isZero();
+    }
+
+    @DisplayName("getのテスト：先に送信した呼び出し元が中断された場合、待っていた呼び出し元は改めて送信する")
+    @Test
+    void test_get_04() throws Exception {
+        Thread leader = Thread.ofVirtual().start(() -> getQuietly(request(URL)));
+        await(() -> delegate.requests.size() == 1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<RdkHttpResponse> waiter = executor.submit(() -> client.get(request(URL)));
+            await(() -> client.getStatistics().coalesced() == 1);
+
+            leader.interrupt();
+            leader.join();
+            await(() -> delegate.requests.size() == 2);
+            delegate.release.countDown();
+
+            assertThat(waiter.get().body()).isEqualTo("2");
+        }
+    }
+
+    @DisplayName("getのテスト：待っている呼び出し元は自身の期限までしか待たず、通信は他の呼び出し元のために続ける")
+    @Test
+    void test_get_05() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<RdkHttpResponse> leader = executor.submit(() -> client.get(request(URL)));
+            await(() -> delegate.requests.size() == 1);
+            RdkHttpRequest withDeadline =
+                    RdkHttpRequest.builder()
+                            .url(URL)
+                            .deadline(Deadline.after(Duration.ofMillis(50)))
+                            .build();
+
+            assertThatExceptionOfType(RdkDeadlineExceededException.class)
+                    .isThrownBy(() -> client.get(withDeadline))
+                    .withMessage("Deadline exceeded: " + URL);
+
+            delegate.release.countDown();
+            assertThat(leader.get().body()).isEqualTo("1");
+        }
+        assertThat(delegate.requests).hasSize(1);
+        assertThat(client.getStatistics()).isEqualTo(new Statistics(2, 1, 0));
+    }
+
+    @DisplayName("getAsyncのテスト：待っている呼び出し元のFutureは自身の期限を過ぎると例外完了する")
+    @Test
+    void test_getAsync_02() throws Exception {
+        CompletableFuture<RdkHttpResponse> first = client.getAsync(request(URL));
+        await(() -> delegate.requests.size() == 1);
+        CompletableFuture<RdkHttpResponse> second =
+                client.getAsync(
+                        RdkHttpRequest.builder()
+                                .url(URL)
+                                .deadline(Deadline.after(Duration.ofMillis(50)))
+                                .build());
+
+        assertThatExceptionOfType(ExecutionException.class)
+                .isThrownBy(second::get)
+                .withCauseInstanceOf(RdkDeadlineExceededException.class);
+
+        delegate.release.countDown();
+        assertThat(first.get().body()).isEqualTo("1");
+        assertThat(delegate.requests).hasSize(1);
+    }
+
+    @DisplayName("getAsyncのテスト：通信中の同一リクエストは1回の通信にまとめ、呼び出し元ごとに別のFutureを返す")
+    @Test
+    void test_getAsync_01() throws Exception {
+        CompletableFuture<RdkHttpResponse> first = client.getAsync(request(URL));
+        await(() -> delegate.requests.size() == 1);
+        CompletableFuture<RdkHttpResponse> second = client.getAsync(request(URL));
+        CompletableFuture<RdkHttpResponse> third = client.getAsync(request(URL));
+
+        // 取り消しは他の呼び出し元に影響しない
+        third.cancel(true);
+        delegate.release.countDown();
+
+        assertThat(first.get().body()).isEqualTo("1");
+        assertThat(second.get()).isSameAs(first.get());
+        assertThat(third).isCancelled();
+        assertThat(delegate.requests).hasSize(1);
+        assertThat(client.getStatistics()).isEqualTo(new Statistics(3, 2, 0));
+    }
+
+    @DisplayName("postFormのテスト：POSTはまとめない")
+    @Test
+    void test_postForm_01() throws Exception {
+        delegate.release.countDown();
+
+        client.postForm(request(URL));
+        client.postFormAsync(request(URL)).get();
+
+        assertThat(delegate.requests).hasSize(2);
+        assertThat(client.getStatistics().requests()).isZero();
+    }
+
+    private RdkHttpResponse getQuietly(RdkHttpRequest request) {
+        try {
+            return client.get(request);
+        } catch (IOException | InterruptedException e) {
+            return null;
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("timeout");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    private static RdkHttpRequest request(String url) {
+        return RdkHttpRequest.builder().url(url).build();
+    }
+
+    /**
+     * {@link #release} が開放されるまで応答を保留する HTTP クライアントです。
+     *
+     * <p>本文には受け付けた順番を返します。
+     */
+    private static class BlockingRdkHttpClient implements RdkHttpClient {
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<RdkHttpRequest> requests = new CopyOnWriteArrayList<>();
+        private volatile IOException failure;
+
+        @Override
+        public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest)
+                throws IOException, InterruptedException {
+            requests.add(rdkHttpRequest);
+            int seq = requests.size();
+            release.await();
+            if (failure != null) {
+                throw failure;
+            }
+            return new TestRdkHttpResponse(200, null, String.valueOf(seq));
+        }
+
+        @Override
+        public RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest)
+                throws IOException, InterruptedException {
+            return get(rdkHttpRequest);
+        }
+    }
+}
@@ -1,25 +1,41 @@
 package net.iwazou.rdkdler.http.internal;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 import mockwebserver3.MockResponse;
 import mockwebserver3.MockWebServer;
 import mockwebserver3.RecordedRequest;
 import mockwebserver3.junit5.StartStop;
+import net.iwazou.rdkdler.exception.RdkDeadlineExceededException;
+import net.iwazou.rdkdler.exception.RdkResponseException;
+import net.iwazou.rdkdler.http.ByteArrayRdkHttpResponse;
 import net.iwazou.rdkdler.http.RdkHttpRequest;
 import net.iwazou.rdkdler.http.RdkHttpResponse;
+import net.iwazou.rdkdler.http.internal.JdkRdkHttpClient.CompressionStatistics;
+import net.iwazou.rdkdler.http.internal.JdkRdkHttpClient.WarmUpResult;
+import net.iwazou.rdkdler.util.Deadline;
+import okio.Buffer;
 import okio.ByteString;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 class JdkRdkHttpClientTests {
     @StartStop private MockWebServer server = new MockWebServer();
@@ -53,6 +69,7 @@ class JdkRdkHttpClientTests {
                         .build();
         RdkHttpResponse res = jdkRdkHttpClient.get(rdkHttpRequest);
 
+        assertThat(res).isInstanceOf(ByteArrayRdkHttpResponse.class);
         assertThat(res.statusCode()).isEqualTo(200);
         assertThat(res.headers())
                 .containsEntry("key1", List.of("value1"))
@@ -140,6 +157,207 @@ class JdkRdkHttpClientTests {
                         "pk1=pv1&pk2=pv2&pk3=pv3"));
     }
 
+    @DisplayName("getAsync／postFormAsyncのテスト：正常系")
+    @Test
+    void test_async_01() throws InterruptedException {
+        server.enqueue(res_ok());
+        server.enqueue(res_ok());
+
+        RdkHttpRequest rdkHttpRequest =
+                RdkHttpRequest.builder()
+                        .url(server.url("/test").toString())
+                        .headers(Map.of("hk1", "hv1"))
+                        .parameters(Map.of("pk1", "pv1"))
+                        .build();
+        RdkHttpResponse get = jdkRdkHttpClient.getAsync(rdkHttpRequest).join();
+        RdkHttpResponse post = jdkRdkHttpClient.postFormAsync(rdkHttpRequest).join();
+
+        for (RdkHttpResponse res : List.of(get, post)) {
+            assertThat(res.statusCode()).isEqualTo(200);
+            assertThat(res.headers()).containsEntry("key1", List.of("value1"));
+            assertThat(res.body())
+                    .isEqualTo(
+                            """
+                            {"message": "Hello from v3"}\
+                            """);
+        }
+
+        RecordedRequest getRequest = server.takeRequest();
+        assertThat(getRequest.getMethod()).isEqualTo("GET");
+        assertThat(getRequest.getTarget()).isEqualTo("/test?pk1=pv1");
+        assertThat(getRequest.getHeaders().get("hk1")).isEqualTo("hv1");
+        RecordedRequest postRequest = server.takeRequest();
+        assertThat(postRequest.getMethod()).isEqualTo("POST");
+        assertThat(postRequest.getBody()).isEqualTo(new ByteString("pk1=pv1".getBytes()));
+    }
+
+    @DisplayName("getAsyncのテスト：異常系（接続できない場合は例外完了する）")
+    @Test
+    void test_async_02() throws IOException {
+        String url = server.url("/test").toString();
+        server.close();
+
+        RdkHttpRequest rdkHttpRequest = RdkHttpRequest.builder().url(url).build();
+        assertThatExceptionOfType(CompletionException.class)
+                .isThrownBy(() -> jdkRdkHttpClient.getAsync(rdkHttpRequest).join())
+                .withCauseInstanceOf(IOException.class);
+    }
+
+    @DisplayName("圧縮のテスト：gzip／deflateのレスポンスを展開する")
+    @ParameterizedTest(name = "No.{index} : encoding=[{0}]")
+    @ValueSource(strings = {"gzip", "deflate", "raw-deflate"})
+    void test_compression_01(String encoding) throws IOException, InterruptedException {
+        String xml = "<radiko>" + "<prog>番組</prog>".repeat(1000) + "</radiko>";
+        byte[] plain = xml.getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = compress(encoding, plain);
+        server.enqueue(
+                new MockResponse.Builder()
+                        .code(200)
+                        .setHeader(
+                                "Content-Encoding",
+                                encoding.equals("raw-deflate") ? "deflate" : encoding)
+                        .setHeader("Content-Type", "application/xml; charset=UTF-8")
+                        .body(new Buffer().write(compressed))
+                        .build());
+
+        RdkHttpResponse res =
+                jdkRdkHttpClient.get(
+                        RdkHttpRequest.builder().url(server.url("/test").toString()).build());
+
+        assertThat(res.body()).isEqualTo(xml);
+        assertThat(res.headers())
+                .doesNotContainKeys("content-encoding", "content-length")
+                .containsKey("content-type");
+        assertThat(server.takeRequest().getHeaders().get("Accept-Encoding"))
+                .isEqualTo("gzip, deflate");
+        CompressionStatistics statistics = jdkRdkHttpClient.getCompressionStatistics();
+        assertThat(statistics)
+                .isEqualTo(new CompressionStatistics(1, 1, compressed.length, plain.length));
+        assertThat(statistics.ratio()).isGreaterThan(10.0);
+    }
+
+    @DisplayName("圧縮のテスト：圧縮を無効にした場合／未対応の形式の場合")
+    @Test
+    void test_compression_02() throws IOException, InterruptedException {
+        jdkRdkHttpClient.setCompressionEnabled(false);
+        server.enqueue(res_ok());
+        server.enqueue(
+                new MockResponse.Builder()
+                        .code(200)
+                        .setHeader("Content-Encoding", "br")
+                        .body("brotli")
+                        .build());
+
+        String url = server.url("/test").toString();
+        jdkRdkHttpClient.get(RdkHttpRequest.builder().url(url).build());
+        // 明示的に要求した場合は、未対応の形式でも展開せずに返す
+        RdkHttpResponse res =
+                jdkRdkHttpClient.get(
+                        RdkHttpRequest.builder()
+                                .url(url)
+                                .headers(Map.of("Accept-Encoding", "br"))
+                                .build());
+
+        assertThat(server.takeRequest().getHeaders().get("Accept-Encoding")).isNull();
+        assertThat(server.takeRequest().getHeaders().get("Accept-Encoding")).isEqualTo("br");
+        assertThat(res.body()).isEqualTo("brotli");
+        assertThat(res.headers()).containsEntry("content-encoding", List.of("br"));
+        assertThat(jdkRdkHttpClient.getCompressionStatistics())
+                .isEqualTo(new CompressionStatistics(2, 0, 0, 0));
+    }
+
+    @DisplayName("圧縮のテスト：展開後の大きさが上限を超える場合は RdkResponseException")
+    @Test
+    void test_compression_03() throws IOException, InterruptedException {
+        byte[] compressed = compress("gzip", new byte[1000]);
+        for (int i = 0; i < 2; i++) {
+            server.enqueue(
+                    new MockResponse.Builder()
+                            .code(200)
+                            .setHeader("Content-Encoding", "gzip")
+                            .body(new Buffer().write(compressed))
+                            .build());
+        }
+        String url = server.url("/test").toString();
+
+        jdkRdkHttpClient.setMaxDecompressedSize(1000);
+        assertThat(jdkRdkHttpClient.get(RdkHttpRequest.builder().url(url).build()).bodyBytes())
+                .hasSize(1000);
+        jdkRdkHttpClient.setMaxDecompressedSize(999);
+        assertThatExceptionOfType(RdkResponseException.class)
+                .isThrownBy(() -> jdkRdkHttpClient.get(RdkHttpRequest.builder().url(url).build()))
+                .withMessage("decompressed response body exceeds 999 bytes: " + url);
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> jdkRdkHttpClient.setMaxDecompressedSize(0))
+                .withMessage("maxDecompressedSize must be positive (value=0)");
+    }
+
+    @DisplayName("warmUpのテスト：HEADで接続し、接続先ごとの結果を返す")
+    @Test
+    void test_warmUp_01() throws IOException, InterruptedException {
+        server.enqueue(new MockResponse.Builder().code(405).build());
+        MockWebServer closed = new MockWebServer();
+        closed.start();
+        String closedUrl = closed.url("/").toString();
+        closed.close();
+        String url = server.url("/").toString();
+
+        List<WarmUpResult> results = jdkRdkHttpClient.warmUp(List.of(url, closedUrl));
+
+        assertThat(results).extracting(WarmUpResult::url).containsExactly(url, closedUrl);
+        // HEAD を許可しない接続先でも、接続できれば成功とする
+        assertThat(results.get(0).succeeded()).isTrue();
+        assertThat(results.get(0).statusCode()).isEqualTo(405);
+        assertThat(results.get(0).connect()).isPositive();
+        assertThat(results.get(1).succeeded()).isFalse();
+        assertThat(results.get(1).statusCode()).isZero();
+        assertThat(results.get(1).error()).isNotBlank();
+        assertThat(server.takeRequest().getMethod()).isEqualTo("HEAD");
+
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> jdkRdkHttpClient.warmUp(List.of("ftp://example.com/")));
+    }
+
+    @DisplayName("期限のテスト：期限を過ぎている場合は送信せずに RdkDeadlineExceededException")
+    @Test
+    void test_deadline_01() throws IOException, InterruptedException {
+        server.enqueue(res_ok());
+        String url = server.url("/test").toString();
+        RdkHttpRequest expired =
+                RdkHttpRequest.builder().url(url).deadline(Deadline.after(Duration.ZERO)).build();
+
+        assertThatExceptionOfType(RdkDeadlineExceededException.class)
+                .isThrownBy(() -> jdkRdkHttpClient.get(expired));
+        assertThatExceptionOfType(CompletionException.class)
+                .isThrownBy(() -> jdkRdkHttpClient.getAsync(expired).join())
+                .withCauseInstanceOf(RdkDeadlineExceededException.class);
+        assertThat(server.getRequestCount()).isZero();
+
+        // 期限内であれば送信する
+        RdkHttpRequest request =
+                RdkHttpRequest.builder()
+                        .url(url)
+                        .deadline(Deadline.after(Duration.ofSeconds(10)))
+                        .build();
+        assertThat(jdkRdkHttpClient.get(request).statusCode()).isEqualTo(200);
+    }
+
+    private static byte[] compress(String encoding, byte[] plain) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try (var out =
+                switch (encoding) {
+                    case "gzip" -> new GZIPOutputStream(bytes);
+                    case "deflate" -> new DeflaterOutputStream(bytes);
+                    default -> new DeflaterOutputStream(bytes, deflater);
+                }) {
+            out.write(plain);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
     private MockResponse res_ok() {
         return new MockResponse.Builder()
                 .code(200)
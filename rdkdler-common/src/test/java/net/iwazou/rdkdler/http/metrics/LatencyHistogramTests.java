@@ -0,0 +1,85 @@
+package net.iwazou.rdkdler.http.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import net.iwazou.rdkdler.http.metrics.LatencyHistogram.Snapshot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class LatencyHistogramTests {
+
+    @DisplayName("indexOf／upperBoundOfのテスト：値はバケットの範囲に収まり、相対誤差は約3%以内")
+    @ParameterizedTest(name = "No.{index} : value=[{0}]")
+    @ValueSource(
+            longs = {
+                0, 1, 31, 32, 33, 63, 64, 100, 1_000, 123_456, 1_000_000_000L, 999_999_999_999L
+            })
+    void test_indexOf_01(long value) {
+        int index = LatencyHistogram.indexOf(value);
+        long upper = LatencyHistogram.upperBoundOf(index);
+
+        assertThat(upper).isGreaterThanOrEqualTo(value);
+        assertThat(index == 0 || LatencyHistogram.upperBoundOf(index - 1) < value).isTrue();
+        assertThat((double) (upper - value)).isLessThanOrEqualTo(value / 32.0);
+    }
+
+    @DisplayName("percentileのテスト：1〜1000を記録した場合")
+    @Test
+    void test_percentile_01() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 1000; v++) {
+            histogram.record(v);
+        }
+
+        Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.count()).isEqualTo(1000);
+        assertThat(snapshot.mean()).isEqualTo(500.5);
+        assertThat(snapshot.max()).isEqualTo(1000);
+        assertThat(snapshot.p50()).isCloseTo(500, within(16L));
+        assertThat(snapshot.p90()).isCloseTo(900, within(29L));
+        assertThat(snapshot.p99()).isCloseTo(990, within(32L)).isLessThanOrEqualTo(1000);
+        assertThat(histogram.percentile(0)).isEqualTo(1);
+        assertThat(histogram.percentile(100)).isEqualTo(1000);
+    }
+
+    @DisplayName("percentileのテスト：記録がない場合／範囲外の値")
+    @Test
+    void test_percentile_02() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.snapshot()).isEqualTo(new Snapshot(0, 0, 0, 0, 0, 0));
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> histogram.percentile(100.1));
+
+        // 負の値は 0、上限以上の値は最大のバケットとして数える
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertThat(histogram.percentile(50)).isZero();
+        assertThat(histogram.max()).isEqualTo(Long.MAX_VALUE);
+        assertThat(histogram.percentile(100)).isEqualTo((1L << 40) - 1);
+    }
+
+    @DisplayName("recordのテスト：複数スレッドから同時に記録できる")
+    @Test
+    void test_record_01() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < 100; t++) {
+                executor.submit(
+                        () -> {
+                            for (int i = 0; i < 1000; i++) {
+                                histogram.record(i);
+                            }
+                        });
+            }
+        }
+
+        assertThat(histogram.count()).isEqualTo(100_000);
+        assertThat(histogram.max()).isEqualTo(999);
+    }
+}
@@ -0,0 +1,183 @@
+package net.iwazou.rdkdler.http.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import net.iwazou.rdkdler.TestRdkHttpResponse;
+import net.iwazou.rdkdler.http.RdkHttpClient;
+import net.iwazou.rdkdler.http.RdkHttpRequest;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
+import net.iwazou.rdkdler.http.metrics.InMemoryRdkMetrics.EndpointSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class MeteredRdkHttpClientTests {
+    private static final String URL = "https://radiko.jp/v3/station/list/JP13.xml";
+    private static final String ENDPOINT = "GET radiko.jp/v3/station/list/{}.xml";
+
+    private FakeRdkHttpClient delegate;
+    private InMemoryRdkMetrics metrics;
+    private MeteredRdkHttpClient client;
+    private AtomicLong now;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new FakeRdkHttpClient();
+        metrics = new InMemoryRdkMetrics();
+        client = new MeteredRdkHttpClient(delegate, metrics);
+        now = new AtomicLong();
+        // 参照するたびに 2.5 ミリ秒進む時計（1 回の通信の応答時間は 2.5 ミリ秒）
+        client.setNanoTime(() -> now.getAndAdd(2_500_000));
+    }
+
+    @DisplayName("getのテスト：応答時間・受信バイト数・ステータスコードを記録する")
+    @Test
+    void test_get_01() throws Exception {
+        delegate.outcomes.add(new TestRdkHttpResponse(200, null, "あいう"));
+        delegate.outcomes.add(new TestRdkHttpResponse(503, null, "busy"));
+
+        client.get(request(URL + "?a=1"));
+        client.get(request(URL));
+
+        assertThat(metrics.snapshot()).containsOnlyKeys(ENDPOINT);
+        EndpointSnapshot snapshot = metrics.snapshot().get(ENDPOINT);
+        assertThat(snapshot.statusCounts()).containsExactly(Map.entry(200, 1L), Map.entry(503, 1L));
+        assertThat(snapshot.bytesIn()).isEqualTo(9 + 4);
+        assertThat(snapshot.bytesOut()).isZero();
+        assertThat(snapshot.errors()).isZero();
+        assertThat(snapshot.inFlight()).isZero();
+        assertThat(snapshot.latency().count()).isEqualTo(2);
+        assertThat(snapshot.latency().max()).isEqualTo(2_500_000);
+    }
+
+    @DisplayName("getのテスト：通信エラーを記録する")
+    @Test
+    void test_get_02() throws Exception {
+        delegate.outcomes.add(new ConnectException("refused"));
+
+        assertThatExceptionOfType(ConnectException.class)
+                .isThrownBy(() -> client.get(request(URL)));
+
+        EndpointSnapshot snapshot = metrics.snapshot().get(ENDPOINT);
+        assertThat(snapshot.errors()).isEqualTo(1);
+        assertThat(snapshot.statusCounts()).isEmpty();
+        assertThat(snapshot.inFlight()).isZero();
+    }
+
+    @DisplayName("postFormのテスト：送信バイト数を記録する／集計単位を差し替える")
+    @Test
+    void test_postForm_01() throws Exception {
+        client.setEndpointResolver(r -> "login");
+        delegate.outcomes.add(new TestRdkHttpResponse(200, null, "{}"));
+
+        client.postForm(
+                RdkHttpRequest.builder()
+                        .url("https://radiko.jp/ap/member/webapi/member/login")
+                        .parameters(Map.of("mail", "a@b", "pass", "p w"))
+                        .build());
+
+        EndpointSnapshot snapshot = metrics.snapshot().get("POST login");
+        // mail=a%40b&pass=p+w
+        assertThat(snapshot.bytesOut()).isEqualTo(19);
+        assertThat(snapshot.bytesIn()).isEqualTo(2);
+    }
+
+    @DisplayName("getAsyncのテスト：完了時に記録する")
+    @Test
+    void test_getAsync_01() throws Exception {
+        delegate.outcomes.add(new TestRdkHttpResponse(200, null, "body"));
+        delegate.outcomes.add(new ConnectException("refused"));
+
+        client.getAsync(request(URL)).get();
+        assertThatExceptionOfType(ExecutionException.class)
+                .isThrownBy(() -> client.getAsync(request(URL)).get())
+                .withCauseInstanceOf(ConnectException.class);
+
+        EndpointSnapshot snapshot = metrics.snapshot().get(ENDPOINT);
+        assertThat(snapshot.statusCounts()).containsExactly(Map.entry(200, 1L));
+        assertThat(snapshot.errors()).isEqualTo(1);
+        assertThat(snapshot.latency().count()).isEqualTo(2);
+        assertThat(snapshot.inFlight()).isZero();
+    }
+
+    @DisplayName("NOOPのテスト：何も記録せずに委譲する")
+    @Test
+    void test_noop_01() throws Exception {
+        MeteredRdkHttpClient noop = new MeteredRdkHttpClient(delegate, RdkMetrics.NOOP);
+        // 集計単位・時刻は求めない
+        noop.setEndpointResolver(
+                r -> {
+                    throw new AssertionError("endpoint resolved");
+                });
+        noop.setNanoTime(
+                () -> {
+                    throw new AssertionError("time measured");
+                });
+        delegate.outcomes.add(new TestRdkHttpResponse(200, null, "body"));
+        delegate.outcomes.add(new TestRdkHttpResponse(200, null, "{}"));
+
+        assertThat(noop.get(request(URL)).body()).isEqualTo("body");
+        assertThat(noop.postForm(request(URL)).body()).isEqualTo("{}");
+    }
+
+    @DisplayName("hostAndPathのテスト")
+    @ParameterizedTest(name = "No.{index} : url=[{0}]")
+    @CsvSource({
+        "https://radiko.jp/v2/api/auth1, radiko.jp/v2/api/auth1",
+        "http://localhost:8080/test?a=1, localhost:8080/test",
+        "not a url, not a url",
+    })
+    void test_hostAndPath_01(String url, String expected) {
+        assertThat(MeteredRdkHttpClient.hostAndPath(request(url))).isEqualTo(expected);
+    }
+
+    @DisplayName("pathTemplateのテスト：局 ID・日付などを置き換える")
+    @ParameterizedTest(name = "No.{index} : url=[{0}]")
+    @CsvSource({
+        "https://radiko.jp/v2/api/auth1, radiko.jp/v2/api/auth1",
+        "https://radiko.jp/v3/station/list/JP13.xml?a=1, radiko.jp/v3/station/list/{}.xml",
+        "https://api.radiko.jp/program/v3/date/20251022/area/JP13.xml, "
+                + "api.radiko.jp/program/v3/date/{}/area/{}.xml",
+        "https://radiko.jp/v2/api/ts/playlist.m3u8?station_id=TBS, radiko.jp/v2/api/ts/{}.m3u8",
+        "http://localhost:8080/test, localhost:8080/test",
+        "not a url, not a url",
+    })
+    void test_pathTemplate_01(String url, String expected) {
+        assertThat(MeteredRdkHttpClient.pathTemplate(request(url))).isEqualTo(expected);
+    }
+
+    private static RdkHttpRequest request(String url) {
+        return RdkHttpRequest.builder().url(url).build();
+    }
+
+    /**
+     * 登録した結果（レスポンスまたは例外）を順に返す HTTP クライアントです。
+     */
+    private static class FakeRdkHttpClient implements RdkHttpClient {
+        private final Deque<Object> outcomes = new ArrayDeque<>();
+
+        @Override
+        public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest) throws IOException {
+            Object outcome = outcomes.removeFirst();
+            if (outcome instanceof IOException e) {
+                throw e;
+            }
+            return (RdkHttpResponse) outcome;
+        }
+
+        @Override
+        public RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest) throws IOException {
+            return get(rdkHttpRequest);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package net.iwazou.rdkdler.http.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import net.iwazou.rdkdler.TestRdkHttpResponse;
+import net.iwazou.rdkdler.exception.RdkRejectedException;
+import net.iwazou.rdkdler.http.RdkHttpClient;
+import net.iwazou.rdkdler.http.RdkHttpRequest;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
+import net.iwazou.rdkdler.http.ratelimit.RateLimitingRdkHttpClient.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class RateLimitingRdkHttpClientTests {
+    private static final String RADIKO = "https://radiko.jp/v3/station/list/JP13.xml";
+    private static final String API = "https://api.radiko.jp/program/v3/weekly/TBS.xml";
+
+    private FakeRdkHttpClient delegate;
+    private AtomicLong now;
+    private List<Duration> sleeps;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new FakeRdkHttpClient();
+        now = new AtomicLong(1_000_000_000L);
+        sleeps = new ArrayList<>();
+    }
+
+    @DisplayName("getのテスト：burstを超えると一定間隔で送信する")
+    @Test
+    void test_get_01() throws Exception {
+        RateLimitingRdkHttpClient client = client(10.0, 2);
+        // 待機した分だけ時刻を進める
+        client.setSleeper(
+                duration -> {
+                    sleeps.add(duration);
+                    now.addAndGet(duration.toNanos());
+                });
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(client.get(request(RADIKO)).statusCode()).isEqualTo(200);
+        }
+
+        assertThat(sleeps).containsExactly(Duration.ofMillis(100), Duration.ofMillis(100));
+        assertThat(delegate.requests).hasSize(4);
+        Statistics statistics = client.getStatistics();
+        assertThat(statistics)
+                .isEqualTo(new Statistics(4, 2, 0, Duration.ofMillis(200), Duration.ofMillis(100)));
+        assertThat(statistics.averageWait()).isEqualTo(Duration.ofMillis(50));
+    }
+
+    @DisplayName("getのテスト：同時に到着した場合は予約順に待機時間が延びる")
+    @Test
+    void test_get_02() throws Exception {
+        RateLimitingRdkHttpClient client = client(10.0, 1);
+
+        for (int i = 0; i < 4; i++) {
+            client.postForm(request(RADIKO));
+        }
+
+        assertThat(sleeps)
+                .containsExactly(
+                        Duration.ofMillis(100), Duration.ofMillis(200), Duration.ofMillis(300));
+        assertThat(client.getStatistics().maxWait()).isEqualTo(Duration.ofMillis(300));
+    }
+
+    @DisplayName("getのテスト：時間が経過するとburstまで補充される")
+    @Test
+    void test_get_03() throws Exception {
+        RateLimitingRdkHttpClient client = client(10.0, 2);
+        client.get(request(RADIKO));
+        client.get(request(RADIKO));
+
+        // 十分な時間が経過しても burst を超えては貯まらない
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        client.get(request(RADIKO));
+        client.get(request(RADIKO));
+        client.get(request(RADIKO));
+
+        assertThat(sleeps).containsExactly(Duration.ofMillis(100));
+    }
+
+    @DisplayName("getのテスト：接続先ごとに制限する")
+    @Test
+    void test_get_04() throws Exception {
+        RateLimitingRdkHttpClient client = client(10.0, 5);
+        client.setHostLimit("api.radiko.jp", 1.0, 1);
+
+        client.get(request(API));
+        client.get(request(RADIKO));
+        client.get(request(RADIKO));
+        client.get(request(API));
+
+        assertThat(sleeps).containsExactly(Duration.ofSeconds(1));
+        assertThat(client.getStatistics("api.radiko.jp"))
+                .isEqualTo(new Statistics(2, 1, 0, Duration.ofSeconds(1), Duration.ofSeconds(1)));
+        assertThat(client.getStatistics("radiko.jp"))
+                .isEqualTo(new Statistics(2, 0, 0, Duration.ZERO, Duration.ZERO));
+        assertThat(client.getStatistics("example.com"))
+                .isEqualTo(new Statistics(0, 0, 0, Duration.ZERO, Duration.ZERO));
+    }
+
+    @DisplayName("getのテスト：許容する待機時間を超える場合は送信せずに拒否する")
+    @Test
+    void test_get_05() throws Exception {
+        RateLimitingRdkHttpClient client = client(10.0, 1);
+        client.setMaxWait(Duration.ofMillis(150));
+
+        client.get(request(RADIKO));
+        client.get(request(RADIKO));
+        assertThatExceptionOfType(RdkRejectedException.class)
+                .isThrownBy(() -> client.get(request(RADIKO)))
+                .satisfies(e -> assertThat(e.getHost()).isEqualTo("radiko.jp"));
+        assertThat(delegate.requests).hasSize(2);
+
+        // 拒否した分は予約されないため、時間が経過すれば送信できる
+        now.addAndGet(Duration.ofMillis(100).toNanos());
+        client.get(request(RADIKO));
+        assertThat(sleeps).containsExactly(Duration.ofMillis(100), Duration.ofMillis(100));
+        assertThat(client.getStatistics().rejected()).isEqualTo(1);
+    }
+
+    @DisplayName("getAsyncのテスト：呼び出し元を待機させずに、送信可能な時刻に送信する")
+    @Test
+    void test_getAsync_01() throws Exception {
+        RateLimitingRdkHttpClient client = new RateLimitingRdkHttpClient(delegate, 4.0, 1);
+        client.setSleeper(sleeps::add);
+
+        CompletableFuture<RdkHttpResponse> first = client.getAsync(request(RADIKO));
+        CompletableFuture<RdkHttpResponse> second = client.postFormAsync(request(RADIKO));
+
+        assertThat(first).isCompleted();
+        assertThat(second).isNotDone();
+        assertThat(second.get().statusCode()).isEqualTo(200);
+        assertThat(delegate.requests).hasSize(2);
+        assertThat(sleeps).isEmpty();
+        assertThat(client.getStatistics().delayed()).isEqualTo(1);
+    }
+
+    @DisplayName("getAsyncのテスト：許容する待機時間を超える場合は例外完了する")
+    @Test
+    void test_getAsync_02() throws Exception {
+        RateLimitingRdkHttpClient client = client(1.0, 1);
+        client.setMaxWait(Duration.ZERO);
+
+        client.getAsync(request(RADIKO)).get();
+        CompletableFuture<RdkHttpResponse> rejected = client.getAsync(request(RADIKO));
+
+        assertThatExceptionOfType(ExecutionException.class)
+                .isThrownBy(rejected::get)
+                .withCauseInstanceOf(RdkRejectedException.class);
+        assertThat(delegate.requests).hasSize(1);
+    }
+
+    @DisplayName("fairのテスト：まとめて送信した呼び出し元がいても、他の呼び出し元の送信を交互に許可する")
+    @Test
+    void test_fair_01() throws Exception {
+        RateLimitingRdkHttpClient client = new RateLimitingRdkHttpClient(delegate, 20.0, 1, true);
+        client.setCallerKey(request -> request.getUrl().substring(request.getUrl().indexOf('?')));
+
+        List<CompletableFuture<RdkHttpResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(client.getAsync(request(RADIKO + "?a")));
+        }
+        futures.add(client.getAsync(request(RADIKO + "?b")));
+        // 同期 API も、許可されるまで待機してから送信する
+        client.get(request(RADIKO + "?b"));
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get();
+
+        assertThat(delegate.requests)
+                .extracting(request -> request.getUrl().substring(RADIKO.length()))
+                .containsExactly("?a", "?a", "?b", "?a", "?b", "?a", "?a");
+        Statistics statistics = client.getStatistics();
+        assertThat(statistics.permits()).isEqualTo(7);
+        assertThat(statistics.delayed()).isEqualTo(6);
+    }
+
+    @DisplayName("fairのテスト：待機時間の見込みが許容する待機時間を超える場合は拒否する")
+    @Test
+    void test_fair_02() throws Exception {
+        RateLimitingRdkHttpClient client = new RateLimitingRdkHttpClient(delegate, 1.0, 1, true);
+        client.setMaxWait(Duration.ofMillis(1500));
+
+        client.get(request(RADIKO));
+        CompletableFuture<RdkHttpResponse> waiting = client.getAsync(request(RADIKO));
+        assertThatExceptionOfType(RdkRejectedException.class)
+                .isThrownBy(() -> client.get(request(RADIKO)));
+
+        assertThat(waiting.get().statusCode()).isEqualTo(200);
+        assertThat(delegate.requests).hasSize(2);
+        assertThat(client.getStatistics().rejected()).isEqualTo(1);
+    }
+
+    @DisplayName("コンストラクタのテスト：異常系")
+    @ParameterizedTest(name = "No.{index} : permitsPerSecond=[{0}], burst=[{1}]")
+    @CsvSource({"0, 1", "-1, 1", "NaN, 1", "Infinity, 1", "1, 0"})
+    void test_constructor_01(double permitsPerSecond, int burst) {
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> new RateLimitingRdkHttpClient(delegate, permitsPerSecond, burst));
+    }
+
+    private RateLimitingRdkHttpClient client(double permitsPerSecond, int burst) {
+        RateLimitingRdkHttpClient client =
+                new RateLimitingRdkHttpClient(delegate, permitsPerSecond, burst);
+        client.setNanoTime(now::get);
+        client.setSleeper(sleeps::add);
+        return client;
+    }
+
+    private static RdkHttpRequest request(String url) {
+        return RdkHttpRequest.builder().url(url).build();
+    }
+
+    /**
+     * 常に 200 を返し、受け付けたリクエストを記録する HTTP クライアントです。
+     */
+    private static class FakeRdkHttpClient implements RdkHttpClient {
+        private final List<RdkHttpRequest> requests = new CopyOnWriteArrayList<>();
+
+        @Override
+        public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest) {
+            requests.add(rdkHttpRequest);
+            return new TestRdkHttpResponse(200, null, "body");
+        }
+
+        @Override
+        public RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest) {
+            return get(rdkHttpRequest);
+        }
+
+        @Override
+        public CompletableFuture<RdkHttpResponse> getAsync(RdkHttpRequest rdkHttpRequest) {
+            return CompletableFuture.completedFuture(get(rdkHttpRequest));
+        }
+
+        @Override
+        public CompletableFuture<RdkHttpResponse> postFormAsync(RdkHttpRequest rdkHttpRequest) {
+            return getAsync(rdkHttpRequest);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package net.iwazou.rdkdler.http.replay;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+import net.iwazou.rdkdler.TestRdkHttpResponse;
+import net.iwazou.rdkdler.exception.RdkDeadlineExceededException;
+import net.iwazou.rdkdler.exception.RdkException;
+import net.iwazou.rdkdler.http.RdkHttpClient;
+import net.iwazou.rdkdler.http.RdkHttpRequest;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
+import net.iwazou.rdkdler.util.Deadline;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReplayRdkHttpClientTests {
+    private static final String URL = "https://radiko.jp/v3/program/station/weekly/TBS.xml";
+    private static final String LOGIN_URL = "https://radiko.jp/ap/member/webapi/member/login";
+    private static final String AUTH1_URL = "https://radiko.jp/v2/api/auth1";
+
+    @TempDir Path tempDir;
+
+    private FakeRdkHttpClient delegate;
+    private RecordingRdkHttpClient recorder;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new FakeRdkHttpClient();
+        recorder = new RecordingRdkHttpClient(delegate);
+    }
+
+    @DisplayName("記録・保存・読み込み・再生のテスト：記録した内容を記録順に繰り返し返す")
+    @Test
+    void test_replay_01() throws Exception {
+        delegate.outcomes.add(
+                new TestRdkHttpResponse(
+                        200, Map.of("content-type", List.of("text/xml")), "<radiko>1</radiko>"));
+        delegate.outcomes.add(new TestRdkHttpResponse(503, null, "busy"));
+        delegate.outcomes.add(new TestRdkHttpResponse(200, null, null));
+        recorder.get(request(URL));
+        recorder.get(request(URL));
+        recorder.get(RdkHttpRequest.builder().url(URL).parameters(Map.of("a", "1")).build());
+
+        Path file = tempDir.resolve("radiko.rdka");
+        recorder.save(file);
+        ReplayRdkHttpClient replay = new ReplayRdkHttpClient(HttpArchive.read(file));
+
+        RdkHttpResponse first = replay.get(request(URL));
+        assertThat(first.statusCode()).isEqualTo(200);
+        assertThat(first.body()).isEqualTo("<radiko>1</radiko>");
+        assertThat(first.headers()).containsEntry("content-type", List.of("text/xml"));
+        assertThat(replay.get(request(URL)).statusCode()).isEqualTo(503);
+        // 最後まで返したら先頭に戻る
+        assertThat(replay.get(request(URL)).body()).isEqualTo("<radiko>1</radiko>");
+        RdkHttpResponse withParams =
+                replay.get(RdkHttpRequest.builder().url(URL).parameters(Map.of("a", "1")).build());
+        assertThat(withParams.bodyBytes()).isNull();
+        assertThat(replay.getStatistics()).isEqualTo(new ReplayRdkHttpClient.Statistics(4, 0));
+    }
+
+    @DisplayName("再生のテスト：記録にないリクエストは RdkException")
+    @Test
+    void test_replay_02() {
+        ReplayRdkHttpClient replay = new ReplayRdkHttpClient(new HttpArchive(List.of()));
+
+        assertThatExceptionOfType(RdkException.class)
+                .isThrownBy(() -> replay.get(request(URL)))
+                .withMessage("No recorded response: GET " + URL);
+        assertThat(replay.getStatistics()).isEqualTo(new ReplayRdkHttpClient.Statistics(0, 1));
+    }
+
+    @DisplayName("再生のテスト：応答までの待機時間を模擬する")
+    @Test
+    void test_replay_03() throws Exception {
+        delegate.outcomes.add(new TestRdkHttpResponse(200, null, "ok"));
+        recorder.get(request(URL));
+        ReplayRdkHttpClient replay = new ReplayRdkHttpClient(recorder.toArchive());
+        List<Duration> sleeps = new ArrayList<>();
+        replay.setSleeper(sleeps::add);
+
+        replay.get(request(URL));
+        replay.setLatency(Duration.ofMillis(80));
+        replay.get(request(URL));
+        replay.setJitter(Duration.ofMillis(20));
+        replay.get(request(URL));
+
+        assertThat(sleeps).hasSize(2);
+        assertThat(sleeps.get(0)).isEqualTo(Duration.ofMillis(80));
+        assertThat(sleeps.get(1)).isBetween(Duration.ofMillis(60), Duration.ofMillis(100));
+    }
+
+    @DisplayName("再生のテスト：リクエストの期限を過ぎる場合は期限まで待機して RdkDeadlineExceededException")
+    @Test
+    void test_replay_04() throws Exception {
+        delegate.outcomes.add(new TestRdkHttpResponse(200, null, "ok"));
+        recorder.get(request(URL));
+        ReplayRdkHttpClient replay = new ReplayRdkHttpClient(recorder.toArchive());
+        List<Duration> sleeps = new ArrayList<>();
+        replay.setSleeper(sleeps::add);
+        replay.setLatency(Duration.ofHours(1));
+
+        assertThatExceptionOfType(RdkDeadlineExceededException.class)
+                .isThrownBy(
+                        () ->
+                                replay.get(
+                                        RdkHttpRequest.builder()
+                                                .url(URL)
+                                                .deadline(Deadline.after(Duration.ofSeconds(30)))
+                                                .build()))
+                .withMessage("Deadline exceeded: " + URL);
+        assertThat(sleeps).hasSize(1);
+        assertThat(sleeps.get(0)).isBetween(Duration.ofSeconds(1), Duration.ofSeconds(30));
+
+        // 期限を過ぎているリクエストは待機しない
+        assertThatExceptionOfType(RdkDeadlineExceededException.class)
+                .isThrownBy(
+                        () ->
+                                replay.get(
+                                        RdkHttpRequest.builder()
+                                                .url(URL)
+                                                .deadline(Deadline.after(Duration.ZERO))
+                                                .build()));
+        assertThat(sleeps).hasSize(1);
+
+        replay.setLatency(Duration.ofMillis(80));
+        RdkHttpResponse response =
+                replay.get(
+                        RdkHttpRequest.builder()
+                                .url(URL)
+                                .deadline(Deadline.after(Duration.ofSeconds(30)))
+                                .build());
+        assertThat(response.body()).isEqualTo("ok");
+        assertThat(sleeps.get(1)).isEqualTo(Duration.ofMillis(80));
+        assertThat(replay.getStatistics()).isEqualTo(new ReplayRdkHttpClient.Statistics(1, 0));
+    }
+
+    @DisplayName("キーのテスト：POST のパラメータとリクエストヘッダは含めない")
+    @Test
+    void test_key_01() throws Exception {
+        delegate.outcomes.add(new TestRdkHttpResponse(200, null, "{}"));
+        recorder.postForm(
+                RdkHttpRequest.builder()
+                        .url(LOGIN_URL)
+                        .parameters(Map.of("mail", "a@b", "pass", "secret"))
+                        .headers(Map.of("X-Radiko-AuthToken", "token"))
+                        .build());
+
+        Path file = tempDir.resolve("login.rdka");
+        recorder.save(file);
+
+        assertThat(HttpArchive.read(file).exchanges())
+                .extracting(RecordedExchange::key)
+                .containsExactly("POST " + LOGIN_URL);
+        ReplayRdkHttpClient replay = new ReplayRdkHttpClient(HttpArchive.read(file));
+        RdkHttpResponse response =
+                replay.postForm(
+                        RdkHttpRequest.builder()
+                                .url(LOGIN_URL)
+                                .parameters(Map.of("mail", "x@y", "pass", "other"))
+                                .build());
+        // ログインのレスポンスの本文（radiko_session）は置き換える
+        assertThat(response.body()).isEqualTo(RecordingRdkHttpClient.REDACTED);
+    }
+
+    @DisplayName("記録のテスト：認証トークン・クッキーのレスポンスヘッダは値を置き換えて記録する")
+    @Test
+    void test_record_01() throws Exception {
+        delegate.outcomes.add(
+                new TestRdkHttpResponse(
+                        200,
+                        Map.of(
+                                "X-Radiko-AuthToken", List.of("token"),
+                                "Set-Cookie", List.of("session=1"),
+                                "X-Radiko-KeyLength", List.of("16")),
+                        "please send a partial key"));
+        recorder.get(request(AUTH1_URL));
+
+        RecordedExchange exchange = recorder.toArchive().exchanges().get(0);
+        assertThat(exchange.headers())
+                .containsEntry("X-Radiko-AuthToken", List.of(RecordingRdkHttpClient.REDACTED))
+                .containsEntry("Set-Cookie", List.of(RecordingRdkHttpClient.REDACTED))
+                .containsEntry("X-Radiko-KeyLength", List.of("16"));
+        assertThat(exchange.toResponse().body()).isEqualTo("please send a partial key");
+    }
+
+    @DisplayName("記録のテスト：置き換えるヘッダ・パスと変換を指定できる（nullを返した場合は記録しない）")
+    @Test
+    void test_record_02() throws Exception {
+        recorder.setRedactedHeaders(Set.of("X-Secret"));
+        recorder.setRedactedPaths(Set.of("/auth1"));
+        recorder.setRedactor(e -> e.key().contains("skip") ? null : e);
+        delegate.outcomes.add(
+                new TestRdkHttpResponse(
+                        200,
+                        Map.of("x-secret", List.of("s"), "X-Radiko-AuthToken", List.of("t")),
+                        "body"));
+        delegate.outcomes.add(new TestRdkHttpResponse(200, null, "body"));
+        recorder.get(request(AUTH1_URL));
+        recorder.get(request(URL + "?skip"));
+
+        assertThat(recorder.getRedactedHeaders()).containsExactly("x-secret");
+        List<RecordedExchange> exchanges = recorder.toArchive().exchanges();
+        assertThat(exchanges).hasSize(1);
+        assertThat(exchanges.get(0).headers())
+                .containsEntry("x-secret", List.of(RecordingRdkHttpClient.REDACTED))
+                .containsEntry("X-Radiko-AuthToken", List.of("t"));
+        assertThat(exchanges.get(0).toResponse().body()).isEqualTo(RecordingRdkHttpClient.REDACTED);
+    }
+
+    @DisplayName("readのテスト：形式が異なるファイルは RdkException")
+    @Test
+    void test_read_01() throws Exception {
+        Path file = tempDir.resolve("other.rdka");
+        try (DataOutputStream out =
+                new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(0x12345678);
+        }
+
+        assertThatExceptionOfType(RdkException.class).isThrownBy(() -> HttpArchive.read(file));
+    }
+
+    private static RdkHttpRequest request(String url) {
+        return RdkHttpRequest.builder().url(url).build();
+    }
+
+    /**
+     * 登録した結果（レスポンスまたは例外）を順に返す HTTP クライアントです。
+     */
+    private static class FakeRdkHttpClient implements RdkHttpClient {
+        private final Deque<Object> outcomes = new ArrayDeque<>();
+
+        @Override
+        public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest) throws IOException {
+            Object outcome = outcomes.removeFirst();
+            if (outcome instanceof IOException e) {
+                throw e;
+            }
+            return (RdkHttpResponse) outcome;
+        }
+
+        @Override
+        public RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest) throws IOException {
+            return get(rdkHttpRequest);
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package net.iwazou.rdkdler.http.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import net.iwazou.rdkdler.TestRdkHttpResponse;
+import net.iwazou.rdkdler.exception.RdkDeadlineExceededException;
+import net.iwazou.rdkdler.exception.RdkRejectedException;
+import net.iwazou.rdkdler.http.RdkHttpClient;
+import net.iwazou.rdkdler.http.RdkHttpRequest;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
+import net.iwazou.rdkdler.http.resilience.ResilientRdkHttpClient.Statistics;
+import net.iwazou.rdkdler.util.Deadline;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class ResilientRdkHttpClientTests {
+    private static final String URL = "https://radiko.jp/v3/program/station/weekly/TBS.xml";
+
+    private FakeRdkHttpClient delegate;
+    private MutableClock clock;
+    private List<Duration> sleeps;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new FakeRdkHttpClient();
+        clock = new MutableClock();
+        sleeps = new ArrayList<>();
+    }
+
+    @DisplayName("getのテスト：再試行対象のステータスは指数バックオフで再試行する")
+    @Test
+    void test_get_01() throws Exception {
+        ResilientRdkHttpClient client = client(ResiliencePolicy.builder().maxAttempts(4));
+        delegate.outcomes.add(response(503));
+        delegate.outcomes.add(response(500));
+        delegate.outcomes.add(response(200));
+
+        RdkHttpResponse res = client.get(request());
+
+        assertThat(res.statusCode()).isEqualTo(200);
+        assertThat(sleeps).containsExactly(Duration.ofMillis(100), Duration.ofMillis(200));
+        assertThat(client.getStatistics()).isEqualTo(new Statistics(1, 3, 2, 0));
+    }
+
+    @DisplayName("getのテスト：最大試行回数に達した場合は最後のレスポンスを返す／対象外のステータスは再試行しない")
+    @Test
+    void test_get_02() throws Exception {
+        ResilientRdkHttpClient client = client(ResiliencePolicy.builder().maxAttempts(2));
+        delegate.outcomes.add(response(502));
+        delegate.outcomes.add(response(504));
+        delegate.outcomes.add(response(404));
+
+        assertThat(client.get(request()).statusCode()).isEqualTo(504);
+        assertThat(client.get(request()).statusCode()).isEqualTo(404);
+        assertThat(delegate.requests).hasSize(3);
+        assertThat(sleeps).containsExactly(Duration.ofMillis(100));
+    }
+
+    @DisplayName("getのテスト：待機時間は上限で頭打ちになる")
+    @Test
+    void test_get_03() throws Exception {
+        ResilientRdkHttpClient client =
+                client(
+                        ResiliencePolicy.builder()
+                                .maxAttempts(5)
+                                .maxBackoff(Duration.ofMillis(300)));
+        for (int i = 0; i < 5; i++) {
+            delegate.outcomes.add(response(503));
+        }
+
+        client.get(request());
+
+        assertThat(sleeps)
+                .containsExactly(
+                        Duration.ofMillis(100),
+                        Duration.ofMillis(200),
+                        Duration.ofMillis(300),
+                        Duration.ofMillis(300));
+    }
+
+    @DisplayName("getのテスト：Retry-Afterに従って待機する")
+    @ParameterizedTest(name = "No.{index} : retryAfter=[{0}]")
+    @CsvSource(
+            delimiter = '|',
+            value = {
+                "3                             | 3000",
+                "Tue, 14 Nov 2023 22:13:30 GMT | 10000",
+                "Tue, 14 Nov 2023 22:13:00 GMT | 0",
+                "invalid                       | 100",
+            })
+    void test_get_04(String retryAfter, long expected) throws Exception {
+        ResilientRdkHttpClient client = client(ResiliencePolicy.builder());
+        delegate.outcomes.add(response(429, Map.of("Retry-After", List.of(retryAfter))));
+        delegate.outcomes.add(response(200));
+
+        assertThat(client.get(request()).statusCode()).isEqualTo(200);
+        // 待機時間が 0 の場合は待機しない
+        assertThat(sleeps)
+                .isEqualTo(expected == 0 ? List.of() : List.of(Duration.ofMillis(expected)));
+        assertThat(client.getStatistics().retries()).isEqualTo(1);
+    }
+
+    @DisplayName("getのテスト：Retry-Afterが上限を超える場合は再試行しない")
+    @Test
+    void test_get_05() throws Exception {
+        ResilientRdkHttpClient client =
+                client(ResiliencePolicy.builder().maxRetryAfter(Duration.ofSeconds(30)));
+        delegate.outcomes.add(response(503, Map.of("retry-after", List.of("120"))));
+
+        assertThat(client.get(request()).statusCode()).isEqualTo(503);
+        assertThat(delegate.requests).hasSize(1);
+        assertThat(sleeps).isEmpty();
+    }
+
+    @DisplayName("getのテスト：通信エラーは再試行し、最大試行回数に達した場合はその例外をスローする")
+    @Test
+    void test_get_06() throws Exception {
+        ResilientRdkHttpClient client = client(ResiliencePolicy.builder());
+        delegate.outcomes.add(new ConnectException("refused"));
+        delegate.outcomes.add(response(200));
+        delegate.outcomes.add(new ConnectException("refused1"));
+        delegate.outcomes.add(new ConnectException("refused2"));
+        delegate.outcomes.add(new ConnectException("refused3"));
+
+        assertThat(client.get(request()).statusCode()).isEqualTo(200);
+        assertThatExceptionOfType(ConnectException.class)
+                .isThrownBy(() -> client.get(request()))
+                .withMessage("refused3");
+        assertThat(client.getStatistics()).isEqualTo(new Statistics(2, 5, 3, 0));
+    }
+
+    @DisplayName("getのテスト：待機すると期限を過ぎる場合は再試行しない／期限切れは再試行しない")
+    @Test
+    void test_get_07() throws Exception {
+        ResilientRdkHttpClient client = client(ResiliencePolicy.builder().maxAttempts(5));
+        delegate.outcomes.add(response(503));
+        delegate.outcomes.add(response(503));
+        delegate.outcomes.add(new RdkDeadlineExceededException("Deadline exceeded: " + URL));
+
+        // 1 回目の待機（100ms）は期限内、2 回目の待機（200ms）は期限を過ぎる
+        assertThat(client.get(request(Duration.ofMillis(150))).statusCode()).isEqualTo(503);
+        assertThat(sleeps).containsExactly(Duration.ofMillis(100));
+        assertThatExceptionOfType(RdkDeadlineExceededException.class)
+                .isThrownBy(() -> client.get(request(Duration.ofSeconds(10))));
+        assertThat(delegate.requests).hasSize(3);
+        assertThat(client.getCircuitState("radiko.jp")).isEqualTo(CircuitState.CLOSED);
+    }
+
+    @DisplayName("postFormのテスト：冪等でないため、既定では再試行しない")
+    @Test
+    void test_postForm_01() throws Exception {
+        ResilientRdkHttpClient client = client(ResiliencePolicy.builder());
+        delegate.outcomes.add(response(503));
+        delegate.outcomes.add(new ConnectException("refused"));
+
+        assertThat(client.postForm(request()).statusCode()).isEqualTo(503);
+        assertThatExceptionOfType(ConnectException.class)
+                .isThrownBy(() -> client.postForm(request()));
+        assertThat(delegate.requests).hasSize(2);
+        assertThat(sleeps).isEmpty();
+    }
+
+    @DisplayName("postFormのテスト：retryNonIdempotentの場合は再試行する")
+    @Test
+    void test_postForm_02() throws Exception {
+        ResilientRdkHttpClient client =
+                client(ResiliencePolicy.builder().retryNonIdempotent(true));
+        delegate.outcomes.add(response(503));
+        delegate.outcomes.add(response(200));
+
+        assertThat(client.postForm(request()).statusCode()).isEqualTo(200);
+        assertThat(delegate.requests).hasSize(2);
+    }
+
+    @DisplayName("サーキットブレーカーのテスト：連続失敗で開き、一定時間後の試行が成功すれば閉じる")
+    @Test
+    void test_circuit_01() throws Exception {
+        ResilientRdkHttpClient client =
+                client(
+                        ResiliencePolicy.builder()
+                                .maxAttempts(1)
+                                .failureThreshold(2)
+                                .openDuration(Duration.ofSeconds(30)));
+        delegate.outcomes.add(response(500));
+        delegate.outcomes.add(new ConnectException("refused"));
+        delegate.outcomes.add(response(200));
+
+        client.get(request());
+        assertThat(client.getCircuitState("radiko.jp")).isEqualTo(CircuitState.CLOSED);
+        assertThatExceptionOfType(ConnectException.class).isThrownBy(() -> client.get(request()));
+        assertThat(client.getCircuitState("radiko.jp")).isEqualTo(CircuitState.OPEN);
+
+        // 開いている間は通信せずに拒否する
+        clock.advance(29_999);
+        assertThatExceptionOfType(RdkRejectedException.class)
+                .isThrownBy(() -> client.get(request()))
+                .satisfies(e -> assertThat(e.getHost()).isEqualTo("radiko.jp"));
+        assertThat(delegate.requests).hasSize(2);
+
+        clock.advance(1);
+        assertThat(client.get(request()).statusCode()).isEqualTo(200);
+        assertThat(client.getCircuitState("radiko.jp")).isEqualTo(CircuitState.CLOSED);
+        assertThat(client.getStatistics()).isEqualTo(new Statistics(4, 3, 0, 1));
+    }
+
+    @DisplayName("サーキットブレーカーのテスト：半開での試行が失敗すれば再び開く／4xxは失敗として数えない")
+    @Test
+    void test_circuit_02() throws Exception {
+        ResilientRdkHttpClient client =
+                client(ResiliencePolicy.builder().maxAttempts(1).failureThreshold(2));
+        delegate.outcomes.add(response(503));
+        delegate.outcomes.add(response(404));
+        delegate.outcomes.add(response(503));
+        delegate.outcomes.add(response(503));
+        delegate.outcomes.add(response(503));
+
+        client.get(request());
+        client.get(request());
+        client.get(request());
+        assertThat(client.getCircuitState("radiko.jp")).isEqualTo(CircuitState.CLOSED);
+        client.get(request());
+        assertThat(client.getCircuitState("radiko.jp")).isEqualTo(CircuitState.OPEN);
+
+        clock.advance(Duration.ofSeconds(30).toMillis());
+        client.get(request());
+        assertThat(client.getCircuitState("radiko.jp")).isEqualTo(CircuitState.OPEN);
+        assertThatExceptionOfType(RdkRejectedException.class)
+                .isThrownBy(() -> client.get(request()));
+        // 別の接続先には影響しない
+        assertThat(client.getCircuitState("example.com")).isEqualTo(CircuitState.CLOSED);
+    }
+
+    @DisplayName("バルクヘッドのテスト：同時実行数の上限に達した場合は拒否する")
+    @Test
+    void test_bulkhead_01() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RdkHttpClient blocking =
+                new RdkHttpClient() {
+                    @Override
+                    public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest)
+                            throws InterruptedException {
+                        entered.countDown();
+                        release.await();
+                        return response(200);
+                    }
+
+                    @Override
+                    public RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest) {
+                        return response(200);
+                    }
+                };
+        ResilientRdkHttpClient client =
+                new ResilientRdkHttpClient(
+                        blocking,
+                        ResiliencePolicy.builder()
+                                .maxConcurrentPerHost(1)
+                                .bulkheadTimeout(Duration.ZERO)
+                                .build());
+
+        CompletableFuture<RdkHttpResponse> first = client.getAsync(request());
+        entered.await();
+        assertThatExceptionOfType(RdkRejectedException.class)
+                .isThrownBy(() -> client.get(request()));
+        // 別の接続先は制限を受けない
+        assertThat(
+                        client.postForm(
+                                        RdkHttpRequest.builder()
+                                                .url("https://example.com/login")
+                                                .build())
+                                .statusCode())
+                .isEqualTo(200);
+
+        release.countDown();
+        assertThat(first.get().statusCode()).isEqualTo(200);
+        // 空きが出れば受け付ける
+        assertThat(client.postForm(request()).statusCode()).isEqualTo(200);
+        assertThat(client.getStatistics().rejected()).isEqualTo(1);
+    }
+
+    private ResilientRdkHttpClient client(ResiliencePolicy.ResiliencePolicyBuilder builder) {
+        ResilientRdkHttpClient client =
+                new ResilientRdkHttpClient(
+                        delegate,
+                        builder.initialBackoff(Duration.ofMillis(100)).jitter(0.0).build());
+        client.setClock(clock);
+        client.setSleeper(sleeps::add);
+        return client;
+    }
+
+    private static RdkHttpRequest request() {
+        return RdkHttpRequest.builder().url(URL).build();
+    }
+
+    private static RdkHttpRequest request(Duration deadline) {
+        return RdkHttpRequest.builder().url(URL).deadline(Deadline.after(deadline)).build();
+    }
+
+    private static RdkHttpResponse response(int statusCode) {
+        return response(statusCode, null);
+    }
+
+    private static RdkHttpResponse response(int statusCode, Map<String, List<String>> headers) {
+        return new TestRdkHttpResponse(statusCode, headers, "body" + statusCode);
+    }
+
+    /**
+     * 登録した結果（レスポンスまたは例外）を順に返す HTTP クライアントです。
+     */
+    private static class FakeRdkHttpClient implements RdkHttpClient {
+        private final Deque<Object> outcomes = new ArrayDeque<>();
+        private final List<RdkHttpRequest> requests = new ArrayList<>();
+
+        @Override
+        public RdkHttpResponse get(RdkHttpRequest rdkHttpRequest) throws IOException {
+            requests.add(rdkHttpRequest);
+            Object outcome = outcomes.removeFirst();
+            if (outcome instanceof IOException e) {
+                throw e;
+            }
+            return (RdkHttpResponse) outcome;
+        }
+
+        @Override
+        public RdkHttpResponse postForm(RdkHttpRequest rdkHttpRequest) throws IOException {
+            return get(rdkHttpRequest);
+        }
+    }
+
+    /**
+     * 任意に進められる時計です。
+     */
+    private static class MutableClock extends Clock {
+        private long millis = 1_700_000_000_000L;
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
@@ -4,10 +4,17 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatNoException;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import java.util.stream.Stream;
 import net.iwazou.rdkdler.TestRdkHttpResponse;
 import net.iwazou.rdkdler.exception.RdkHttpException;
 import net.iwazou.rdkdler.exception.RdkResponseException;
+import net.iwazou.rdkdler.http.ByteArrayRdkHttpResponse;
+import net.iwazou.rdkdler.http.RdkHttpRequest;
 import net.iwazou.rdkdler.http.RdkHttpResponse;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -57,6 +64,50 @@ class CommonUtilsTests {
                         "empty body"));
     }
 
+    @DisplayName("getBodyBytes(RdkHttpResponse)のテスト：正常系")
+    @Test
+    void test_getBodyBytes_01() throws RdkHttpException, RdkResponseException {
+        byte[] bytes = " body ".getBytes(StandardCharsets.UTF_8);
+        assertThat(CommonUtils.getBodyBytes(new ByteArrayRdkHttpResponse(200, null, bytes)))
+                .isSameAs(bytes);
+        assertThat(CommonUtils.getBodyBytes(new TestRdkHttpResponse(200, null, "body")))
+                .isEqualTo("body".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @DisplayName("getBodyBytes(RdkHttpResponse)のテスト：異常系")
+    @ParameterizedTest(name = "No.{index} : RdkHttpResponse=[{0}], RdkHttpResponse=[{1}]")
+    @MethodSource
+    void test_getBodyBytes_02(
+            RdkHttpResponse response,
+            Class<? extends Exception> exceptionType,
+            String errorMessage) {
+        assertThatExceptionOfType(exceptionType)
+                .isThrownBy(() -> CommonUtils.getBodyBytes(response))
+                .withMessage(errorMessage);
+    }
+
+    static Stream<Arguments> test_getBodyBytes_02() {
+        return Stream.of(
+                Arguments.of(
+                        new ByteArrayRdkHttpResponse(
+                                500, null, "body".getBytes(StandardCharsets.UTF_8)),
+                        RdkHttpException.class,
+                        "HTTP error code: 500"),
+                Arguments.of(
+                        new ByteArrayRdkHttpResponse(200, null, null),
+                        RdkResponseException.class,
+                        "empty body"),
+                Arguments.of(
+                        new ByteArrayRdkHttpResponse(200, null, new byte[0]),
+                        RdkResponseException.class,
+                        "empty body"),
+                Arguments.of(
+                        new ByteArrayRdkHttpResponse(
+                                200, null, " \t\r\n".getBytes(StandardCharsets.UTF_8)),
+                        RdkResponseException.class,
+                        "empty body"));
+    }
+
     @DisplayName("notEmptyのテスト：正常系")
     @Test
     void test_notEmpty_01() {
@@ -154,4 +205,110 @@ class CommonUtilsTests {
     void test_endsWithIgnoreCase_01(String str, String suffix, boolean returns) {
         assertThat(CommonUtils.endsWithIgnoreCase(str, suffix)).isEqualTo(returns);
     }
+
+    @DisplayName("hostOfのテスト：正常系")
+    @ParameterizedTest(name = "No.{index} : url=[{0}]")
+    @CsvSource({
+        "https://radiko.jp/v2/api/auth1, radiko.jp",
+        "https://api.radiko.jp/program/v3/weekly/TBS.xml, api.radiko.jp",
+        "http://localhost:8080/test, localhost:8080",
+        "not a url, not a url",
+    })
+    void test_hostOf_01(String url, String expected) {
+        assertThat(CommonUtils.hostOf(url)).isEqualTo(expected);
+    }
+
+    @DisplayName("requestKeyのテスト：正常系")
+    @Test
+    void test_requestKey_01() {
+        String url = "https://radiko.jp/v3/station/list/JP13.xml";
+        String key1 =
+                CommonUtils.requestKey(
+                        RdkHttpRequest.builder()
+                                .url(url)
+                                .parameters(Map.of("b", "2", "a", "1"))
+                                .headers(Map.of("X-Radiko-AuthToken", "token"))
+                                .build());
+
+        assertThat(CommonUtils.requestKey(RdkHttpRequest.builder().url(url).build()))
+                .isEqualTo(url);
+        // 認証情報のヘッダは値の代わりに SHA-256 を含める
+        assertThat(key1)
+                .isEqualTo(
+                        url
+                                + " params={a=1, b=2} headers={X-Radiko-AuthToken=sha256:"
+                                + CommonUtils.sha256Hex("token")
+                                + "}")
+                .doesNotContain("=token");
+        assertThat(
+                        CommonUtils.requestKey(
+                                RdkHttpRequest.builder()
+                                        .url(url)
+                                        .headers(Map.of("Accept", "text/xml"))
+                                        .build()))
+                .isEqualTo(url + " headers={Accept=text/xml}");
+        // ヘッダが異なれば別のキーになる
+        assertThat(
+                        CommonUtils.requestKey(
+                                RdkHttpRequest.builder()
+                                        .url(url)
+                                        .parameters(Map.of("a", "1", "b", "2"))
+                                        .headers(Map.of("X-Radiko-AuthToken", "other"))
+                                        .build()))
+                .isNotEqualTo(key1);
+    }
+
+    @DisplayName("isCredentialHeader・hasCredentialHeaderのテスト：正常系")
+    @Test
+    void test_isCredentialHeader_01() {
+        assertThat(CommonUtils.isCredentialHeader("X-Radiko-AuthToken")).isTrue();
+        assertThat(CommonUtils.isCredentialHeader("cookie")).isTrue();
+        assertThat(CommonUtils.isCredentialHeader("Accept")).isFalse();
+        assertThat(CommonUtils.isCredentialHeader(null)).isFalse();
+        assertThat(
+                        CommonUtils.hasCredentialHeader(
+                                RdkHttpRequest.builder()
+                                        .url("https://radiko.jp/")
+                                        .headers(Map.of("Authorization", "Basic xxx"))
+                                        .build()))
+                .isTrue();
+        assertThat(
+                        CommonUtils.hasCredentialHeader(
+                                RdkHttpRequest.builder().url("https://radiko.jp/").build()))
+                .isFalse();
+        assertThat(CommonUtils.sha256Hex("abc"))
+                .isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+    }
+
+    @DisplayName("uncheckedのテスト：正常系")
+    @Test
+    void test_unchecked_01() {
+        Function<String, Integer> function = CommonUtils.unchecked(String::length);
+        assertThat(function.apply("abc")).isEqualTo(3);
+    }
+
+    @DisplayName("uncheckedのテスト：異常系")
+    @Test
+    void test_unchecked_02() {
+        IOException cause = new RdkResponseException("error");
+        Function<String, Integer> function =
+                CommonUtils.unchecked(
+                        s -> {
+                            throw cause;
+                        });
+
+        // IOException は CompletionException に包まれる
+        assertThatExceptionOfType(CompletionException.class)
+                .isThrownBy(() -> function.apply("abc"))
+                .withCause(cause);
+        // 実行時例外はそのまま
+        Function<String, Integer> runtime =
+                CommonUtils.unchecked(
+                        s -> {
+                            throw new IllegalStateException("runtime");
+                        });
+        assertThatExceptionOfType(IllegalStateException.class)
+                .isThrownBy(() -> runtime.apply("abc"))
+                .withMessage("runtime");
+    }
 }
@@ -0,0 +1,51 @@
+package net.iwazou.rdkdler.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import net.iwazou.rdkdler.exception.RdkDeadlineExceededException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class DeadlineTests {
+
+    @DisplayName("remaining／capのテスト：経過時間に応じて残り時間が減る")
+    @Test
+    void test_remaining_01() {
+        AtomicLong now = new AtomicLong(1_000);
+        Deadline deadline = Deadline.after(Duration.ofSeconds(5), now::get);
+
+        assertThat(deadline.remaining()).isEqualTo(Duration.ofSeconds(5));
+        assertThat(deadline.cap(Duration.ofSeconds(30))).isEqualTo(Duration.ofSeconds(5));
+
+        now.addAndGet(Duration.ofSeconds(3).toNanos());
+        assertThat(deadline.remaining()).isEqualTo(Duration.ofSeconds(2));
+        assertThat(deadline.cap(Duration.ofSeconds(1))).isEqualTo(Duration.ofSeconds(1));
+        assertThat(deadline.isExpired()).isFalse();
+        assertThatNoException().isThrownBy(() -> deadline.check("auth"));
+
+        now.addAndGet(Duration.ofSeconds(3).toNanos());
+        assertThat(deadline.remaining()).isEqualTo(Duration.ZERO);
+        assertThat(deadline.cap(Duration.ofSeconds(1))).isEqualTo(Duration.ZERO);
+        assertThat(deadline.isExpired()).isTrue();
+        assertThatExceptionOfType(RdkDeadlineExceededException.class)
+                .isThrownBy(() -> deadline.check("auth"))
+                .withMessage("Deadline exceeded: auth");
+    }
+
+    @DisplayName("afterのテスト：System.nanoTime()の値が負でも期限を判定できる")
+    @Test
+    void test_after_01() {
+        AtomicLong now = new AtomicLong(Long.MAX_VALUE - 10);
+        Deadline deadline = Deadline.after(Duration.ofNanos(100), now::get);
+
+        // 期限の値が桁あふれしても、差で判定するため正しく判定できる
+        now.addAndGet(50);
+        assertThat(deadline.remaining()).isEqualTo(Duration.ofNanos(50));
+        now.addAndGet(50);
+        assertThat(deadline.isExpired()).isTrue();
+    }
+}
@@ -19,6 +19,12 @@ tasks.named<Jar>("jar") {
     }
 }
 
+// 仮想スレッドがキャリアスレッドを占有（pinning）した場合にスタックトレースを標準出力へ出す
+// （VirtualThreadPinningMockTests で検出に使用する）
+tasks.named<Test>("test") {
+    jvmArgs("-Djdk.tracePinnedThreads=short")
+}
+
 testing {
     suites.named<JvmTestSuite>("test") {
         dependencies {
@@ -5,21 +5,26 @@ import static java.util.Map.entry;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import net.iwazou.rdkdler.exception.RdkDeadlineExceededException;
 import net.iwazou.rdkdler.exception.RdkResponseException;
 import net.iwazou.rdkdler.http.RdkHttpClient;
 import net.iwazou.rdkdler.http.RdkHttpRequest;
 import net.iwazou.rdkdler.http.RdkHttpResponse;
 import net.iwazou.rdkdler.util.CommonUtils;
+import net.iwazou.rdkdler.util.Deadline;
 
 /**
  * ラジコの認証（ログイン/ログアウト、および auth1/auth2 による認証トークン取得）を行うクラスです。
@@ -31,7 +36,10 @@ import net.iwazou.rdkdler.util.CommonUtils;
  *   <li>{@code authtoken} / {@code areaId} をキャッシュし、一定時間ごとに再認証する</li>
  * </ul>
  *
- * <p><strong>スレッドセーフ</strong>：状態を持つため、公開メソッドは {@code synchronized} で直列化しています。
+ * <p><strong>スレッドセーフ</strong>：通信を伴う状態更新（ログイン/ログアウト/再認証）は {@link ReentrantLock} で直列化しています。
+ * {@code synchronized} を使用しないため、仮想スレッドから呼び出しても通信待ちの間にキャリアスレッドを占有（pinning）しません。
+ * 有効な認証結果は不変のスナップショットとして {@code volatile} フィールドに保持し、
+ * {@link #auth()} はキャッシュが有効な間はロックを取得せずに返します。
  * ただし {@link #setReauthenticationInterval(long)} や {@link #setAuthkeyValue(String)} は
  * 利用中に変更すると挙動が変わるため、基本的には初期化時に設定してください。
  */
@@ -54,6 +62,11 @@ public class RdkAuthenticator {
     private static final String X_RADIKO_KEYOFFSET = "X-Radiko-Keyoffset";
     private static final String RADIKO_SESSION = "radiko_session";
 
+    /**
+     * ログイン応答（JSON）の解析に使用するリーダーです（不変でスレッドセーフなため共有します）。
+     */
+    private static final ObjectReader JSON_READER = new ObjectMapper().reader();
+
     /**
      * -- GETTER --
      * 認証トークン（authtoken）の再取得間隔（ミリ秒）を取得します。
@@ -67,7 +80,8 @@ public class RdkAuthenticator {
      *
      * @param reauthenticationInterval 再認証間隔（ミリ秒）
      */
-    @Getter @Setter private long reauthenticationInterval = 60L * 60L * 1000L; // 再認証間隔（ミリ秒）
+    @Getter @Setter
+    private volatile long reauthenticationInterval = 60L * 60L * 1000L; // 再認証間隔（ミリ秒）
 
     /**
      * 認証キー（full key）を設定します。
@@ -80,12 +94,20 @@ public class RdkAuthenticator {
      *
      * @param authkeyValue 認証キー（full key）
      */
-    @Setter @NonNull private String authkeyValue = "bcd151073c03b352e1ef2fd66c32209da9ca0afa";
+    @Setter @NonNull
+    private volatile String authkeyValue = "bcd151073c03b352e1ef2fd66c32209da9ca0afa";
 
-    private String radikoSession = null;
-    private String authtoken = null;
-    private long acquisitionTime = 0; // トークン取得時刻
-    private String areaId = null;
+    /**
+     * ログイン/ログアウト/再認証（いずれも通信を伴う）を直列化するロックです。
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile String radikoSession = null;
+
+    /**
+     * 現在有効な認証結果です。未認証、またはログイン状態の変更により無効化された場合は {@code null}。
+     */
+    private volatile AuthState authState = null;
 
     /**
      * プレミアム会員としてログインし、レスポンスから {@code radiko_session} を取得して保持します。
@@ -98,10 +120,26 @@ public class RdkAuthenticator {
      * @throws InterruptedException 通信が割り込まれた場合
      * @throws RdkResponseException レスポンスが不正（JSON でない/必須フィールド欠落など）の場合
      */
-    public synchronized void login(String mail, String password)
-            throws IOException, InterruptedException {
+    public void login(String mail, String password) throws IOException, InterruptedException {
         CommonUtils.notEmpty(mail);
         CommonUtils.notEmpty(password);
+        lock.lock();
+        try {
+            doLogin(mail, password);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@link #login(String, String)} の本体です。ロック取得済みの状態で呼び出してください。
+     *
+     * @param mail メールアドレス
+     * @param password パスワード
+     * @throws IOException HTTP 通信に失敗した場合
+     * @throws InterruptedException 通信が割り込まれた場合
+     */
+    private void doLogin(String mail, String password) throws IOException, InterruptedException {
 
         String url = "https://radiko.jp/v4/api/member/login";
         log.debug("login(String, String) : アクセスURL={}", url);
@@ -112,10 +150,9 @@ public class RdkAuthenticator {
                         RdkHttpRequest.builder().url(url).parameters(parameters).build());
         String body = CommonUtils.getBody(response);
         log.debug("login(String, String) : レスポンスボディ={}", body);
-        ObjectMapper mapper = new ObjectMapper();
         JsonNode radikoSessionNode;
         try {
-            radikoSessionNode = mapper.readTree(body).get(RADIKO_SESSION);
+            radikoSessionNode = JSON_READER.readTree(body).get(RADIKO_SESSION);
         } catch (JsonParseException e) {
             throw new RdkResponseException("invalid JSON response. body=" + body, e);
         }
@@ -124,11 +161,8 @@ public class RdkAuthenticator {
                     "radiko_session does not exist in response. body=" + body);
         }
         this.radikoSession = radikoSessionNode.asText();
-        this.authtoken = null; // 認証を一旦無効にする
-        log.debug(
-                "login(String, String) : radikoSession={}, authtoken={}",
-                this.radikoSession,
-                this.authtoken);
+        this.authState = null; // 認証を一旦無効にする
+        log.debug("login(String, String) : radikoSession={}", this.radikoSession);
     }
 
     /**
@@ -139,7 +173,22 @@ public class RdkAuthenticator {
      * @throws IOException HTTP 通信に失敗した場合
      * @throws InterruptedException 通信が割り込まれた場合
      */
-    public synchronized void logout() throws IOException, InterruptedException {
+    public void logout() throws IOException, InterruptedException {
+        lock.lock();
+        try {
+            doLogout();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@link #logout()} の本体です。ロック取得済みの状態で呼び出してください。
+     *
+     * @throws IOException HTTP 通信に失敗した場合
+     * @throws InterruptedException 通信が割り込まれた場合
+     */
+    private void doLogout() throws IOException, InterruptedException {
         if (CommonUtils.isBlank(this.radikoSession)) {
             // radikoSessionが未設定ならなにもしない
             return;
@@ -154,7 +203,7 @@ public class RdkAuthenticator {
         String body = CommonUtils.getBody(response);
         log.debug("logout() : レスポンスボディ={}", body);
         this.radikoSession = null;
-        this.authtoken = null; // 認証を一旦無効にする
+        this.authState = null; // 認証を一旦無効にする
     }
 
     /**
@@ -162,7 +211,7 @@ public class RdkAuthenticator {
      *
      * @return true: ログイン済み / false: 未ログイン
      */
-    public synchronized boolean isLoggedIn() {
+    public boolean isLoggedIn() {
         return CommonUtils.isNotBlank(this.radikoSession);
     }
 
@@ -177,29 +226,76 @@ public class RdkAuthenticator {
      * @throws InterruptedException 通信が割り込まれた場合
      * @throws RdkResponseException 必須ヘッダー欠落などにより認証処理が成立しない場合
      */
-    synchronized AuthResult auth() throws IOException, InterruptedException {
-        long now = System.currentTimeMillis();
-        log.debug(
-                "auth() : authtoken={}, acquisitionTime={}, now={}",
-                authtoken,
-                acquisitionTime,
-                now);
-        // 認証が必要か否かを判定する。
-        if (this.authtoken == null
-                || (now - this.acquisitionTime) >= this.reauthenticationInterval) {
+    AuthResult auth() throws IOException, InterruptedException {
+        return auth(null);
+    }
+
+    /**
+     * 期限を指定して認証（auth1/auth2）を実行します。
+     *
+     * <p>{@link #auth()} と同じ処理を、他のスレッドの認証の完了待ちと auth1/auth2 の通信を合わせて
+     * {@code deadline} までに行います。auth2 のタイムアウト時間は、auth1 までに使った残りの時間になります。
+     *
+     * @param deadline 認証全体の期限（null 可。{@code null} の場合は期限なし）
+     * @return 認証結果（authtoken と areaId）
+     * @throws RdkDeadlineExceededException 期限までに認証が完了しなかった場合
+     * @throws IOException HTTP 通信に失敗した場合
+     * @throws InterruptedException 通信が割り込まれた場合
+     * @throws RdkResponseException 必須ヘッダー欠落などにより認証処理が成立しない場合
+     */
+    AuthResult auth(Deadline deadline) throws IOException, InterruptedException {
+        // キャッシュが有効な間はロックを取得しない
+        AuthState state = this.authState;
+        if (isValid(state, System.currentTimeMillis())) {
+            return state.result();
+        }
+        if (deadline == null) {
+            lock.lock();
+        } else if (!lock.tryLock(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS)) {
+            throw new RdkDeadlineExceededException("Deadline exceeded: auth");
+        }
+        try {
+            long now = System.currentTimeMillis();
+            state = this.authState;
+            log.debug("auth(Deadline) : authState={}, now={}", state, now);
+            // 待機中に他のスレッドが再認証済みであれば、その結果を返す
+            if (isValid(state, now)) {
+                return state.result();
+            }
             /*
              * authtokenが未取得の場合、または
              * 前回authtokenを取得してからreauthenticationIntervalミリ秒以上時間が経っている場合は認証を行う
              */
-            String[] result1 = auth1();
-            this.acquisitionTime = System.currentTimeMillis(); // トークン取得時刻の設定
-            this.authtoken = result1[0];
-            String[] result2 = auth2(result1[0], result1[1]);
-            this.areaId = result2[0];
+            String[] result1 = auth1(deadline);
+            long acquisitionTime = System.currentTimeMillis(); // トークン取得時刻
+            String[] result2 = auth2(result1[0], result1[1], deadline);
+            state = new AuthState(new AuthResult(result1[0], result2[0]), acquisitionTime);
+            this.authState = state;
+            return state.result();
+        } finally {
+            lock.unlock();
         }
-        return new AuthResult(this.authtoken, this.areaId);
     }
 
+    /**
+     * 認証結果が再認証間隔内で有効かどうかを返します。
+     *
+     * @param state 認証結果（{@code null} 可）
+     * @param now 現在時刻（ミリ秒）
+     * @return 有効な場合 {@code true}
+     */
+    private boolean isValid(AuthState state, long now) {
+        return state != null && (now - state.acquisitionTime()) < this.reauthenticationInterval;
+    }
+
+    /**
+     * 認証結果と取得時刻の不変スナップショットです。
+     *
+     * @param result 認証結果
+     * @param acquisitionTime トークン取得時刻（ミリ秒）
+     */
+    private record AuthState(AuthResult result, long acquisitionTime) {}
+
     /**
      * {@link #auth()} の戻り値です。
      *
@@ -215,14 +311,15 @@ public class RdkAuthenticator {
      * 認証に必要な情報（authtoken / keyoffset / keylength）を取得します。
      * 取得した offset/length と {@link #authkeyValue} から partial key を生成して返します。
      *
+     * @param deadline 認証全体の期限（null 可）
      * @return {@code String[]}（{@code [0]=authtoken}, {@code [1]=partialKey}）
      * @throws IOException HTTP 通信に失敗した場合
      * @throws InterruptedException 通信が割り込まれた場合
      * @throws NumberFormatException ヘッダー値が数値に変換できない場合
      */
-    private String[] auth1() throws IOException, InterruptedException {
+    private String[] auth1(Deadline deadline) throws IOException, InterruptedException {
         String url = "https://radiko.jp/v2/api/auth1";
-        log.debug("auth1() : アクセスURL={}", url);
+        log.debug("auth1(Deadline) : アクセスURL={}", url);
         Map<String, String> headers =
                 Map.ofEntries(
                         entry(X_RADIKO_APP, "pc_html5"),
@@ -230,16 +327,24 @@ public class RdkAuthenticator {
                         entry(X_RADIKO_DEVICE, "pc"),
                         entry(X_RADIKO_USER, "dummy_user"));
         RdkHttpResponse response =
-                rdkHttpClient.get(RdkHttpRequest.builder().url(url).headers(headers).build());
+                rdkHttpClient.get(
+                        RdkHttpRequest.builder()
+                                .url(url)
+                                .headers(headers)
+                                .deadline(deadline)
+                                .build());
         String body = CommonUtils.getBody(response);
-        log.debug("auth1() : レスポンスボディ={}", body);
+        log.debug("auth1(Deadline) : レスポンスボディ={}", body);
         String token = getFirstHeader(response, X_RADIKO_AUTHTOKEN);
         int keyoffset = Integer.parseInt(getFirstHeader(response, X_RADIKO_KEYOFFSET));
         int keylength = Integer.parseInt(getFirstHeader(response, X_RADIKO_KEYLENGTH));
         log.debug(
-                "auth1() : authtoken={}, keyoffset={}, keylength={}", token, keyoffset, keylength);
+                "auth1(Deadline) : authtoken={}, keyoffset={}, keylength={}",
+                token,
+                keyoffset,
+                keylength);
         String partialKey = partialKey(keyoffset, keylength);
-        log.debug("auth1() : partialKey={}", partialKey);
+        log.debug("auth1(Deadline) : partialKey={}", partialKey);
         return new String[] {token, partialKey};
     }
 
@@ -267,18 +372,19 @@ public class RdkAuthenticator {
      *
      * @param authtoken auth1 で取得した {@code X-Radiko-AuthToken}
      * @param partialkey auth1 の情報と {@link #authkeyValue} から生成した partial key
+     * @param deadline 認証全体の期限（null 可）
      * @return レスポンス本文を {@code ","} で分割した配列（{@code [0]=areaId}、以降はサーバー返却値の順）
      * @throws IOException HTTP 通信に失敗した場合
      * @throws InterruptedException 通信が割り込まれた場合
      * @throws RdkResponseException 引数が不正（空文字等）の場合
      */
-    private String[] auth2(String authtoken, String partialkey)
+    private String[] auth2(String authtoken, String partialkey, Deadline deadline)
             throws IOException, InterruptedException {
         CommonUtils.notBlank(authtoken);
         CommonUtils.notBlank(partialkey);
 
         String url = "https://radiko.jp/v2/api/auth2";
-        log.debug("auth2(String, String) : アクセスURL={}", url);
+        log.debug("auth2(String, String, Deadline) : アクセスURL={}", url);
         Map<String, String> headers =
                 Map.ofEntries(
                         entry(X_RADIKO_DEVICE, "pc"),
@@ -286,13 +392,13 @@ public class RdkAuthenticator {
                         entry(X_RADIKO_AUTHTOKEN, authtoken),
                         entry(X_RADIKO_PARTIALKEY, partialkey));
         RdkHttpRequest.RdkHttpRequestBuilder builder =
-                RdkHttpRequest.builder().url(url).headers(headers);
+                RdkHttpRequest.builder().url(url).headers(headers).deadline(deadline);
         if (CommonUtils.isNotBlank(this.radikoSession)) {
             builder.parameters(Map.of(RADIKO_SESSION, this.radikoSession));
         }
         RdkHttpResponse response = rdkHttpClient.get(builder.build());
         String body = CommonUtils.getBody(response);
-        log.debug("auth2(String, String) : レスポンスボディ={}", body);
+        log.debug("auth2(String, String, Deadline) : レスポンスボディ={}", body);
         return body.split(",", -1);
     }
 
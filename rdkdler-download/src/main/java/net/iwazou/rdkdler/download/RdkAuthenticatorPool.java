@@ -0,0 +1,498 @@
+package net.iwazou.rdkdler.download;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import net.iwazou.rdkdler.exception.RdkException;
+import net.iwazou.rdkdler.http.RdkHttpClient;
+import net.iwazou.rdkdler.util.CommonUtils;
+
+/**
+ * 複数のプレミアム会員セッション（{@link RdkAuthenticator}）をプールし、ダウンロード処理へ貸し出すクラスです。
+ *
+ * <p>主な役割：
+ * <ul>
+ *   <li>アカウントごとに {@link RdkAuthenticator} を生成してログインし、プールに保持する</li>
+ *   <li>{@link SelectionStrategy} に従って貸し出すセッションを選択する（ラウンドロビン／最小負荷）</li>
+ *   <li>セッションごとの同時実行数の上限を守る（上限に達している場合は空きが出るまで待機）</li>
+ *   <li>失敗が連続したセッションを「異常」とみなして貸し出し対象から外し、バックグラウンドで再ログインする</li>
+ * </ul>
+ *
+ * <p>使用例：
+ * <pre>{@code
+ * RdkAuthenticatorPool pool =
+ *         new RdkAuthenticatorPool(client, RdkAuthenticatorPool.SelectionStrategy.LEAST_LOADED, 2);
+ * pool.addAccount("mail1@example.com", "password1");
+ * pool.addAccount("mail2@example.com", "password2");
+ * RdkDownloadService service = new RdkDownloadService(pool, new DefaultFFmpegFactory());
+ * }</pre>
+ *
+ * <p><strong>スレッドセーフ</strong>：内部状態は {@link ReentrantLock} で保護しています。
+ * 待機は {@link Condition} で行うため、仮想スレッドから呼び出してもキャリアスレッドを占有しません。
+ */
+@Slf4j
+public class RdkAuthenticatorPool {
+
+    /**
+     * 貸し出すセッションの選択方式です。
+     */
+    public enum SelectionStrategy {
+        /** 登録順に順番に選択します。 */
+        ROUND_ROBIN,
+        /** 実行中の処理数が最も少ないセッションを選択します。 */
+        LEAST_LOADED
+    }
+
+    /**
+     * HTTP 通信を行うクライアントです（{@link #addAccount(String, String)} で生成する認証クラスが使用します）。
+     */
+    private final RdkHttpClient rdkHttpClient;
+
+    /**
+     * セッションの選択方式です。
+     */
+    @Getter private final SelectionStrategy strategy;
+
+    /**
+     * 1 セッションあたりの同時実行数の上限です。
+     */
+    @Getter private final int maxConcurrentPerSession;
+
+    /**
+     * -- GETTER --
+     * セッションを「異常」とみなす連続失敗回数を取得します。
+     * <p>デフォルトは 3 回です。
+     *
+     * @return 連続失敗回数のしきい値
+     *
+     * -- SETTER --
+     * セッションを「異常」とみなす連続失敗回数を設定します。
+     *
+     * @param failureThreshold 連続失敗回数のしきい値（1 以上）
+     */
+    @Getter @Setter private int failureThreshold = 3;
+
+    /**
+     * -- GETTER --
+     * 再ログインに失敗した場合の再試行間隔を取得します。
+     * <p>デフォルトは 30 秒です。
+     *
+     * @return 再試行間隔
+     *
+     * -- SETTER --
+     * 再ログインに失敗した場合の再試行間隔を設定します。
+     *
+     * @param reloginRetryInterval 再試行間隔
+     */
+    @Getter @Setter @NonNull private Duration reloginRetryInterval = Duration.ofSeconds(30);
+
+    /**
+     * 再ログインを実行する {@link Executor} を設定します。
+     *
+     * <p>デフォルトでは再ログインごとに仮想スレッドを起動します。
+     *
+     * @param reloginExecutor 再ログイン処理の実行に使用する {@link Executor}
+     */
+    @Setter @NonNull
+    private Executor reloginExecutor =
+            command -> Thread.ofVirtual().name("rdk-relogin").start(command);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final List<Member> members = new ArrayList<>();
+    private int nextIndex = 0;
+    private boolean closed = false;
+
+    /**
+     * プールを生成します。
+     *
+     * @param rdkHttpClient HTTP 通信を行うクライアント（null 不可）
+     * @param strategy セッションの選択方式（null 不可）
+     * @param maxConcurrentPerSession 1 セッションあたりの同時実行数の上限（1 以上）
+     * @throws NullPointerException {@code rdkHttpClient} または {@code strategy} が {@code null} の場合
+     * @throws IllegalArgumentException {@code maxConcurrentPerSession} が 1 未満の場合
+     */
+    public RdkAuthenticatorPool(
+            RdkHttpClient rdkHttpClient, SelectionStrategy strategy, int maxConcurrentPerSession) {
+        this.rdkHttpClient = Objects.requireNonNull(rdkHttpClient);
+        this.strategy = Objects.requireNonNull(strategy);
+        CommonUtils.isTrue(maxConcurrentPerSession >= 1);
+        this.maxConcurrentPerSession = maxConcurrentPerSession;
+    }
+
+    /**
+     * 設定済みの {@link RdkAuthenticator} だけを登録するプールを生成します。
+     *
+     * <p>このコンストラクタで生成したプールは HTTP クライアントを持たないため、
+     * {@link #addAccount(String, String)} は使用できません（{@link #addAuthenticator(RdkAuthenticator)} を使用してください）。
+     *
+     * @param strategy セッションの選択方式（null 不可）
+     * @param maxConcurrentPerSession 1 セッションあたりの同時実行数の上限（1 以上）
+     * @throws NullPointerException {@code strategy} が {@code null} の場合
+     * @throws IllegalArgumentException {@code maxConcurrentPerSession} が 1 未満の場合
+     */
+    public RdkAuthenticatorPool(SelectionStrategy strategy, int maxConcurrentPerSession) {
+        this.rdkHttpClient = null;
+        this.strategy = Objects.requireNonNull(strategy);
+        CommonUtils.isTrue(maxConcurrentPerSession >= 1);
+        this.maxConcurrentPerSession = maxConcurrentPerSession;
+    }
+
+    /**
+     * 単一の {@link RdkAuthenticator} だけを保持するプールを生成します。
+     *
+     * <p>同時実行数の上限は 1 です。資格情報を持たないため、失敗が続いても「異常」扱いにはしません。
+     *
+     * @param authenticator ラジコの認証クラス（null 不可）
+     * @return 単一セッションのプール
+     */
+    static RdkAuthenticatorPool singleton(RdkAuthenticator authenticator) {
+        RdkAuthenticatorPool pool = new RdkAuthenticatorPool(SelectionStrategy.ROUND_ROBIN, 1);
+        pool.addAuthenticator(authenticator);
+        return pool;
+    }
+
+    /**
+     * アカウントでログインしたセッションをプールに追加します。
+     *
+     * <p>ログインに成功した場合のみ追加します。ログインに失敗した場合は例外をそのまま送出します。
+     *
+     * @param mail メールアドレス（空不可）
+     * @param password パスワード（空不可）
+     * @throws IOException HTTP 通信に失敗した場合
+     * @throws InterruptedException 通信が割り込まれた場合
+     * @throws IllegalStateException HTTP クライアントを持たないプールの場合、またはプールがクローズ済みの場合
+     */
+    public void addAccount(String mail, String password) throws IOException, InterruptedException {
+        CommonUtils.notEmpty(mail);
+        CommonUtils.notEmpty(password);
+        if (rdkHttpClient == null) throw new IllegalStateException("rdkHttpClient is not set");
+        RdkAuthenticator authenticator = new RdkAuthenticator(rdkHttpClient);
+        authenticator.login(mail, password);
+        add(new Member(authenticator, mail, password));
+        log.debug("addAccount(String, String) : mail={}, size={}", mail, size());
+    }
+
+    /**
+     * 設定済みの {@link RdkAuthenticator} をプールに追加します。
+     *
+     * <p>資格情報を持たないため、このセッションは自動再ログインの対象外です（失敗が続いても貸し出しを続けます）。
+     *
+     * @param authenticator ラジコの認証クラス（null 不可）
+     * @throws IllegalStateException プールがクローズ済みの場合
+     */
+    public void addAuthenticator(RdkAuthenticator authenticator) {
+        add(new Member(Objects.requireNonNull(authenticator), null, null));
+    }
+
+    private void add(Member member) {
+        lock.lock();
+        try {
+            if (closed) throw new IllegalStateException("pool is closed");
+            members.add(member);
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * プールに登録されているセッション数を返します。
+     *
+     * @return セッション数
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return members.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 各セッションの状態を登録順に返します。
+     *
+     * @return セッション状態の一覧（不変リスト）
+     */
+    public List<SessionStatus> getStatuses() {
+        lock.lock();
+        try {
+            return members.stream()
+                    .map(
+                            m ->
+                                    new SessionStatus(
+                                            m.mail, m.inFlight, m.consecutiveFailures, m.healthy))
+                    .toList();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * セッションを 1 つ借ります。利用可能なセッションがない場合は空きが出るまで待機します。
+     *
+     * @return 貸し出したセッション。使用後は必ず {@link Lease#close()} してください
+     * @throws InterruptedException 待機中に割り込まれた場合
+     * @throws IllegalStateException セッションが 1 つも登録されていない場合、またはプールがクローズ済みの場合
+     */
+    public Lease acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                Member member = select();
+                if (member != null) return lease(member);
+                available.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * セッションを 1 つ借ります。利用可能なセッションがない場合は最大 {@code timeout} まで待機します。
+     *
+     * @param timeout 最大待機時間（null 不可）
+     * @return 貸し出したセッション。使用後は必ず {@link Lease#close()} してください
+     * @throws RdkException 待機時間内に利用可能なセッションがなかった場合
+     * @throws InterruptedException 待機中に割り込まれた場合
+     * @throws IllegalStateException セッションが 1 つも登録されていない場合、またはプールがクローズ済みの場合
+     */
+    public Lease acquire(Duration timeout) throws RdkException, InterruptedException {
+        long nanos = timeout.toNanos();
+        lock.lock();
+        try {
+            while (true) {
+                Member member = select();
+                if (member != null) return lease(member);
+                if (nanos <= 0L) {
+                    throw new RdkException("no session available within " + timeout);
+                }
+                nanos = available.awaitNanos(nanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 貸し出すセッションを選択します。ロック取得済みの状態で呼び出してください。
+     *
+     * @return 選択したセッション。空きがない場合は {@code null}
+     */
+    private Member select() {
+        if (closed) throw new IllegalStateException("pool is closed");
+        if (members.isEmpty()) throw new IllegalStateException("no session in pool");
+        int size = members.size();
+        Member selected = null;
+        for (int i = 0; i < size; i++) {
+            int index = (nextIndex + i) % size;
+            Member member = members.get(index);
+            if (!member.healthy || member.inFlight >= maxConcurrentPerSession) continue;
+            if (strategy == SelectionStrategy.ROUND_ROBIN) {
+                nextIndex = (index + 1) % size;
+                return member;
+            }
+            if (selected == null || member.inFlight < selected.inFlight) {
+                selected = member;
+            }
+        }
+        return selected;
+    }
+
+    private Lease lease(Member member) {
+        member.inFlight++;
+        return new Lease(member);
+    }
+
+    /**
+     * 貸し出し終了時の処理を行います。
+     *
+     * @param member 対象セッション
+     * @param failed 失敗として報告された場合 {@code true}
+     */
+    private void release(Member member, boolean failed) {
+        boolean relogin = false;
+        lock.lock();
+        try {
+            member.inFlight--;
+            if (!failed) {
+                member.consecutiveFailures = 0;
+            } else {
+                member.consecutiveFailures++;
+                if (member.canRelogin()
+                        && member.healthy
+                        && member.consecutiveFailures >= failureThreshold
+                        && !closed) {
+                    // 異常とみなして貸し出し対象から外し、再ログインする
+                    member.healthy = false;
+                    relogin = true;
+                }
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (relogin) {
+            log.warn(
+                    "release(Member, boolean) : セッションを異常とみなし再ログインします。mail={}, failures={}",
+                    member.mail,
+                    member.consecutiveFailures);
+            reloginExecutor.execute(() -> relogin(member));
+        }
+    }
+
+    /**
+     * 再ログインを成功するまで（またはプールがクローズされるまで）繰り返します。
+     *
+     * @param member 対象セッション
+     */
+    private void relogin(Member member) {
+        while (true) {
+            lock.lock();
+            try {
+                if (closed) return;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                member.authenticator.login(member.mail, member.password);
+                lock.lock();
+                try {
+                    member.healthy = true;
+                    member.consecutiveFailures = 0;
+                    available.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                log.info("relogin(Member) : 再ログインに成功しました。mail={}", member.mail);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.warn("relogin(Member) : 再ログインに失敗しました。mail={}", member.mail, e);
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(reloginRetryInterval.toNanos());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * プールをクローズし、資格情報を持つセッションをログアウトします。
+     *
+     * <p>クローズ後は {@link #acquire()} などが {@link IllegalStateException} を送出します。
+     * ログアウトに失敗したセッションはログに出力して処理を続行します。
+     *
+     * @throws InterruptedException ログアウト処理が割り込まれた場合
+     */
+    public void close() throws InterruptedException {
+        List<Member> targets;
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            targets = List.copyOf(members);
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Member member : targets) {
+            if (!member.canRelogin()) continue;
+            try {
+                member.authenticator.logout();
+            } catch (IOException e) {
+                log.warn("close() : ログアウトに失敗しました。mail={}", member.mail, e);
+            }
+        }
+    }
+
+    /**
+     * セッションの状態を表すスナップショットです。
+     *
+     * @param mail アカウントのメールアドレス（資格情報を持たない場合は {@code null}）
+     * @param inFlight 実行中の処理数
+     * @param consecutiveFailures 連続失敗回数
+     * @param healthy 貸し出し対象の場合 {@code true}（再ログイン中は {@code false}）
+     */
+    public record SessionStatus(
+            String mail, int inFlight, int consecutiveFailures, boolean healthy) {}
+
+    /**
+     * 貸し出したセッションです。{@code try-with-resources} での利用を想定しています。
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final Member member;
+        private boolean failed = false;
+        private boolean released = false;
+
+        private Lease(Member member) {
+            this.member = member;
+        }
+
+        /**
+         * 貸し出したセッションの認証クラスを返します。
+         *
+         * @return 認証クラス
+         */
+        public RdkAuthenticator authenticator() {
+            return member.authenticator;
+        }
+
+        /**
+         * このセッションでの処理が失敗したことを記録します。
+         *
+         * <p>{@link #close()} 時に連続失敗回数へ反映されます。記録しなかった場合は成功として扱います。
+         */
+        public void markFailure() {
+            this.failed = true;
+        }
+
+        /**
+         * セッションをプールへ返却します。2 回目以降の呼び出しは何もしません。
+         */
+        @Override
+        public void close() {
+            if (released) return;
+            released = true;
+            release(member, failed);
+        }
+    }
+
+    /**
+     * プール内の 1 セッションの状態です（{@link #lock} で保護）。
+     */
+    private static final class Member {
+        private final RdkAuthenticator authenticator;
+        private final String mail;
+        private final String password;
+        private int inFlight = 0;
+        private int consecutiveFailures = 0;
+        private boolean healthy = true;
+
+        private Member(RdkAuthenticator authenticator, String mail, String password) {
+            this.authenticator = authenticator;
+            this.mail = mail;
+            this.password = password;
+        }
+
+        private boolean canRelogin() {
+            return mail != null && password != null;
+        }
+    }
+}
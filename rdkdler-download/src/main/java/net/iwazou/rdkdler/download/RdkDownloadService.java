@@ -9,12 +9,18 @@ import java.nio.file.Path;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.iwazou.rdkdler.download.RdkAuthenticator.AuthResult;
+import net.iwazou.rdkdler.download.RdkAuthenticatorPool.Lease;
+import net.iwazou.rdkdler.exception.RdkDeadlineExceededException;
 import net.iwazou.rdkdler.exception.RdkDownloadException;
+import net.iwazou.rdkdler.exception.RdkException;
+import net.iwazou.rdkdler.exception.RdkHttpException;
+import net.iwazou.rdkdler.exception.RdkResponseException;
 import net.iwazou.rdkdler.util.CommonUtils;
+import net.iwazou.rdkdler.util.Deadline;
 
 /**
  * ラジコのタイムフリー番組（時刻範囲指定）の音声をダウンロードし、ファイルに保存するサービスです。
@@ -31,8 +37,13 @@ import net.iwazou.rdkdler.util.CommonUtils;
  * </ul>
  *
  * <p><strong>スレッドセーフ性</strong>：
- * {@link #download(String, LocalDateTime, LocalDateTime, Path, String)} は {@code synchronized} で直列化されます。
- * （認証トークンの再取得や外部プロセス実行が絡むため、同時実行を避けたい場合に有効です）
+ * ダウンロードごとに {@link RdkAuthenticatorPool} からセッションを借りて実行します。
+ * {@link #RdkDownloadService(RdkAuthenticator, FFmpegFactory)} で生成した場合は同時実行数 1 のプールとなるため、
+ * {@link #download(String, LocalDateTime, LocalDateTime, Path, String)} は従来どおり直列化されます。
+ * 複数アカウントで並行してダウンロードする場合は {@link #RdkDownloadService(RdkAuthenticatorPool, FFmpegFactory)}
+ * を使用してください。
+ * セッションの貸し出し待ち・認証処理はいずれも {@code synchronized} ではなく
+ * {@link java.util.concurrent.locks.ReentrantLock} で待機するため、仮想スレッドから呼び出してもキャリアスレッドを占有しません。
  *
  * <p>使用例：
  * <pre>{@code
@@ -41,14 +52,13 @@ import net.iwazou.rdkdler.util.CommonUtils;
  * service.download("TBS", from, to, Path.of("out_with_cover.m4a"), "https://example.com/cover.jpg");
  * }</pre>
  */
-@RequiredArgsConstructor
 @Slf4j
 public class RdkDownloadService {
 
     /**
-     * ラジコの認証クラスです。
+     * ラジコの認証クラス（セッション）のプールです。
      */
-    private final RdkAuthenticator authenticator;
+    private final RdkAuthenticatorPool authenticatorPool;
 
     /**
      *  {@link FFmpeg} インスタンスを生成するためのファクトリインターフェースです。
@@ -60,6 +70,32 @@ public class RdkDownloadService {
     private static final DateTimeFormatter DATE_TIME_FMT =
             DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
 
+    /**
+     * 単一の認証クラスを使用するサービスを生成します（ダウンロードは直列化されます）。
+     *
+     * @param authenticator ラジコの認証クラス（null 不可）
+     * @param fFmpegFactory {@link FFmpeg} インスタンスを生成するためのファクトリ（null 不可）
+     * @throws NullPointerException 引数が {@code null} の場合
+     */
+    public RdkDownloadService(RdkAuthenticator authenticator, FFmpegFactory fFmpegFactory) {
+        this(RdkAuthenticatorPool.singleton(Objects.requireNonNull(authenticator)), fFmpegFactory);
+    }
+
+    /**
+     * 認証クラスのプールを使用するサービスを生成します。
+     *
+     * <p>ダウンロードはプールのセッションへ分散され、セッションごとの同時実行数の上限まで並行して実行できます。
+     *
+     * @param authenticatorPool ラジコの認証クラスのプール（null 不可）
+     * @param fFmpegFactory {@link FFmpeg} インスタンスを生成するためのファクトリ（null 不可）
+     * @throws NullPointerException 引数が {@code null} の場合
+     */
+    public RdkDownloadService(
+            RdkAuthenticatorPool authenticatorPool, FFmpegFactory fFmpegFactory) {
+        this.authenticatorPool = Objects.requireNonNull(authenticatorPool);
+        this.fFmpegFactory = Objects.requireNonNull(fFmpegFactory);
+    }
+
     /**
      * 指定した放送局・時刻範囲のタイムフリー音声をダウンロードして保存します（カバーアート埋め込みなし）。
      *
@@ -84,6 +120,7 @@ public class RdkDownloadService {
      *
      * <p>処理概要：
      * <ol>
+     *   <li>{@link RdkAuthenticatorPool} からセッションを借りる（空きがない場合は待機）</li>
      *   <li>{@link RdkAuthenticator#auth()} で認証し、authtoken/areaId を取得（必要に応じて再認証）</li>
      *   <li>{@code from/to} を {@code yyyyMMddHHmmss} 形式に変換し、m3u8 プレイリスト URL を生成</li>
      *   <li>FFmpeg の入力に m3u8 URL を指定し、radiko 用 HTTP ヘッダー（authtoken/areaId）を付与</li>
@@ -93,6 +130,8 @@ public class RdkDownloadService {
      *
      * <p>{@code coverUrl} が {@code null} または未対応拡張子の場合、画像埋め込みは行いません。
      * 出力ファイルは常に上書きされます（{@code setOverwriteOutput(true)}）。
+     * セッションが原因の失敗（認証サーバーが認証を拒否した、または不正な応答を返した場合と、HTTP 401/403）のみ、
+     * 借りたセッションの失敗として記録します。FFmpeg の異常終了や通信・ファイルの入出力エラーは記録しません。
      *
      * @param stationId 放送局ID（例：TBS）。{@code null} は想定しません。
      * @param from 開始日時。{@code null} は想定しません。
@@ -103,12 +142,115 @@ public class RdkDownloadService {
      * @throws IOException 認証処理や外部プロセス実行に付随する I/O で失敗した場合
      * @throws InterruptedException 認証処理や外部プロセス実行が割り込まれた場合
      */
-    public synchronized void download(
+    public void download(
             String stationId, LocalDateTime from, LocalDateTime to, Path out, String coverUrl)
             throws IOException, InterruptedException {
+        download(stationId, from, to, out, coverUrl, null);
+    }
+
+    /**
+     * 期限を指定して、指定した放送局・時刻範囲のタイムフリー音声をダウンロードして保存します。
+     *
+     * <p>処理は {@link #download(String, LocalDateTime, LocalDateTime, Path, String)} と同じです。
+     * {@code startDeadline} は、ダウンロードを開始するまで（セッションの貸し出し待ちと認証）の期限です。
+     * 認証の各リクエストのタイムアウト時間は期限までの残りの時間になり、期限を過ぎた場合は FFmpeg を起動しません。
+     * FFmpeg によるダウンロード自体の所要時間は番組の長さに依存するため、期限の対象外です。
+     *
+     * @param stationId 放送局ID（例：TBS）。{@code null} は想定しません。
+     * @param from 開始日時。{@code null} は想定しません。
+     * @param to 終了日時。{@code null} は想定しません。
+     * @param out 出力ファイルの {@link Path}。{@code null} は想定しません。
+     * @param coverUrl カバーアート画像 URL。{@code null} 可。
+     * @param startDeadline ダウンロードを開始するまでの期限。{@code null} の場合は期限なし。
+     * @throws RdkDeadlineExceededException 期限までにダウンロードを開始できなかった場合
+     * @throws IOException 認証処理や外部プロセス実行に付随する I/O で失敗した場合
+     * @throws InterruptedException 認証処理や外部プロセス実行が割り込まれた場合
+     */
+    public void download(
+            String stationId,
+            LocalDateTime from,
+            LocalDateTime to,
+            Path out,
+            String coverUrl,
+            Deadline startDeadline)
+            throws IOException, InterruptedException {
+        try (Lease lease = acquire(startDeadline)) {
+            AuthResult result;
+            try {
+                result = lease.authenticator().auth(startDeadline);
+            } catch (RdkResponseException e) {
+                // 認証の応答が不正な場合は、セッションの失敗として記録する
+                lease.markFailure();
+                throw e;
+            } catch (RdkHttpException e) {
+                if (isSessionFailure(e)) {
+                    lease.markFailure();
+                }
+                throw e;
+            }
+            try {
+                download(result, stationId, from, to, out, coverUrl, startDeadline);
+            } catch (RdkHttpException e) {
+                if (isSessionFailure(e)) {
+                    lease.markFailure();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * セッションが原因の失敗（認証・プレイリストの HTTP 401/403）かどうかを返します。
+     *
+     * @param e HTTP の失敗
+     * @return セッションが原因の失敗の場合は {@code true}
+     */
+    private static boolean isSessionFailure(RdkHttpException e) {
+        return e.getStatusCode() == 401 || e.getStatusCode() == 403;
+    }
+
+    /**
+     * セッションを借ります。
+     *
+     * @param startDeadline ダウンロードを開始するまでの期限（null 可）
+     * @return 借りたセッション
+     * @throws RdkDeadlineExceededException 期限までにセッションを借りられなかった場合
+     * @throws InterruptedException 待機中に割り込まれた場合
+     */
+    private Lease acquire(Deadline startDeadline) throws RdkException, InterruptedException {
+        if (startDeadline == null) {
+            return authenticatorPool.acquire();
+        }
+        try {
+            return authenticatorPool.acquire(startDeadline.remaining());
+        } catch (RdkException e) {
+            throw new RdkDeadlineExceededException("Deadline exceeded: acquire session", e);
+        }
+    }
+
+    /**
+     * 借りたセッションの認証結果を使用してダウンロードします。
+     *
+     * @param result 借りたセッションの認証結果
+     * @param stationId 放送局ID
+     * @param from 開始日時
+     * @param to 終了日時
+     * @param out 出力ファイルの {@link Path}
+     * @param coverUrl カバーアート画像 URL（{@code null} 可）
+     * @param startDeadline ダウンロードを開始するまでの期限（null 可）
+     * @throws IOException 外部プロセス実行に付随する I/O で失敗した場合
+     * @throws InterruptedException 外部プロセス実行が割り込まれた場合
+     */
+    private void download(
+            AuthResult result,
+            String stationId,
+            LocalDateTime from,
+            LocalDateTime to,
+            Path out,
+            String coverUrl,
+            Deadline startDeadline)
+            throws IOException, InterruptedException {
 
-        // 認証する
-        AuthResult result = authenticator.auth();
         log.debug(
                 "download(String, LocalDateTime, LocalDateTime, Path, String) : authtoken={},"
                         + " areaId={}",
@@ -166,6 +308,9 @@ public class RdkDownloadService {
                     // attached_pic フラグを付与
                     .addArguments("-disposition:v:0", "attached_pic");
         }
+        if (startDeadline != null) {
+            startDeadline.check("download " + stationId);
+        }
         try {
             fFmpeg.setOverwriteOutput(true).addOutput(output).execute();
         } catch (JaffreeAbnormalExitException e) {
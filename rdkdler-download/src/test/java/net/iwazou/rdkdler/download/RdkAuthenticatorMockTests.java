@@ -11,6 +11,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,6 +20,7 @@ import net.iwazou.rdkdler.download.RdkAuthenticator.AuthResult;
 import net.iwazou.rdkdler.http.RdkHttpClient;
 import net.iwazou.rdkdler.http.RdkHttpRequest;
 import net.iwazou.rdkdler.http.RdkHttpResponse;
+import net.iwazou.rdkdler.util.Deadline;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -316,6 +318,24 @@ class RdkAuthenticatorMockTests {
                         "https://radiko.jp/v2/api/auth1", "https://radiko.jp/v2/api/auth2");
     }
 
+    @DisplayName("authのテスト（モック）：期限を auth1／auth2 のリクエストへ引き渡す")
+    @Test
+    void test_mock_auth_deadline_01() throws IOException, InterruptedException {
+        when(mockRdkHttpClient.get(argThat(req -> req != null && req.getUrl().endsWith("/auth1"))))
+                .thenReturn(auth1_ok("token1xxxxxxxxxxxxxxxx", 16, 10));
+        when(mockRdkHttpClient.get(argThat(req -> req != null && req.getUrl().endsWith("/auth2"))))
+                .thenReturn(new BasicRdkHttpResponse(200, null, "JP14,神奈川県,kanagawa Japan"));
+        Deadline deadline = Deadline.after(Duration.ofSeconds(10));
+
+        AuthResult result = rdkAuthenticator.auth(deadline);
+
+        assertThat(result).isEqualTo(new AuthResult("token1xxxxxxxxxxxxxxxx", "JP14"));
+        verify(mockRdkHttpClient, times(2)).get(rdkHttpRequestCaptor.capture());
+        assertThat(rdkHttpRequestCaptor.getAllValues())
+                .extracting(RdkHttpRequest::getDeadline)
+                .containsExactly(deadline, deadline);
+    }
+
     @DisplayName("authのテスト（モック）：正常系：初回呼び出し")
     @Test
     void test_mock_auth_01() throws IOException, InterruptedException {
@@ -0,0 +1,173 @@
+package net.iwazou.rdkdler.download;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import net.iwazou.rdkdler.TestRdkHttpResponse;
+import net.iwazou.rdkdler.download.RdkAuthenticatorPool.Lease;
+import net.iwazou.rdkdler.download.RdkAuthenticatorPool.SelectionStrategy;
+import net.iwazou.rdkdler.download.RdkAuthenticatorPool.SessionStatus;
+import net.iwazou.rdkdler.exception.RdkException;
+import net.iwazou.rdkdler.http.RdkHttpClient;
+import net.iwazou.rdkdler.http.RdkHttpRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class RdkAuthenticatorPoolMockTests {
+    @Mock RdkHttpClient mockRdkHttpClient;
+
+    @DisplayName("acquireのテスト：ラウンドロビン")
+    @Test
+    void test_acquire_01() throws Exception {
+        RdkAuthenticator a1 = mock(RdkAuthenticator.class);
+        RdkAuthenticator a2 = mock(RdkAuthenticator.class);
+        RdkAuthenticator a3 = mock(RdkAuthenticator.class);
+        RdkAuthenticatorPool pool = new RdkAuthenticatorPool(SelectionStrategy.ROUND_ROBIN, 1);
+        pool.addAuthenticator(a1);
+        pool.addAuthenticator(a2);
+        pool.addAuthenticator(a3);
+
+        List<RdkAuthenticator> actual = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            try (Lease lease = pool.acquire()) {
+                actual.add(lease.authenticator());
+            }
+        }
+
+        assertThat(actual).containsExactly(a1, a2, a3, a1);
+    }
+
+    @DisplayName("acquireのテスト：最小負荷")
+    @Test
+    void test_acquire_02() throws Exception {
+        RdkAuthenticator a1 = mock(RdkAuthenticator.class);
+        RdkAuthenticator a2 = mock(RdkAuthenticator.class);
+        RdkAuthenticatorPool pool = new RdkAuthenticatorPool(SelectionStrategy.LEAST_LOADED, 2);
+        pool.addAuthenticator(a1);
+        pool.addAuthenticator(a2);
+
+        Lease l1 = pool.acquire();
+        Lease l2 = pool.acquire();
+        Lease l3 = pool.acquire();
+        l2.close();
+        Lease l4 = pool.acquire();
+
+        assertThat(List.of(l1, l2, l3, l4))
+                .extracting(Lease::authenticator)
+                .containsExactly(a1, a2, a1, a2);
+        assertThat(pool.getStatuses()).extracting(SessionStatus::inFlight).containsExactly(2, 1);
+    }
+
+    @DisplayName("acquireのテスト：同時実行数の上限に達している場合はタイムアウトする")
+    @Test
+    void test_acquire_03() throws Exception {
+        RdkAuthenticatorPool pool = new RdkAuthenticatorPool(SelectionStrategy.ROUND_ROBIN, 1);
+        pool.addAuthenticator(mock(RdkAuthenticator.class));
+
+        try (Lease lease = pool.acquire()) {
+            assertThatExceptionOfType(RdkException.class)
+                    .isThrownBy(() -> pool.acquire(Duration.ofMillis(50)));
+        }
+        // 返却後は借りられる
+        try (Lease lease = pool.acquire(Duration.ofMillis(50))) {
+            assertThat(lease.authenticator()).isNotNull();
+        }
+    }
+
+    @DisplayName("acquireのテスト：セッション未登録／クローズ済みの場合")
+    @Test
+    void test_acquire_04() throws Exception {
+        RdkAuthenticatorPool pool = new RdkAuthenticatorPool(SelectionStrategy.ROUND_ROBIN, 1);
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> pool.acquire());
+
+        pool.addAuthenticator(mock(RdkAuthenticator.class));
+        pool.close();
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> pool.acquire());
+    }
+
+    @DisplayName("連続失敗したセッションは貸し出し対象から外れ、再ログイン後に復帰する")
+    @Test
+    void test_relogin_01() throws Exception {
+        when(mockRdkHttpClient.postForm(any(RdkHttpRequest.class)))
+                .thenReturn(
+                        new TestRdkHttpResponse(
+                                200,
+                                null,
+                                """
+                                {"radiko_session":"xxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxx"}\
+                                """));
+        List<Runnable> tasks = new ArrayList<>();
+        RdkAuthenticatorPool pool =
+                new RdkAuthenticatorPool(mockRdkHttpClient, SelectionStrategy.ROUND_ROBIN, 1);
+        pool.setFailureThreshold(2);
+        pool.setReloginExecutor(tasks::add);
+        pool.addAccount("mail1", "password1");
+        pool.addAccount("mail2", "password2");
+
+        RdkAuthenticator first;
+        try (Lease lease = pool.acquire()) {
+            first = lease.authenticator();
+            lease.markFailure();
+        }
+        try (Lease lease = pool.acquire()) {
+            assertThat(lease.authenticator()).isNotSameAs(first);
+        }
+        try (Lease lease = pool.acquire()) {
+            assertThat(lease.authenticator()).isSameAs(first);
+            lease.markFailure();
+        }
+
+        // 1件目は異常扱いとなり、再ログインが登録される
+        assertThat(pool.getStatuses())
+                .extracting(SessionStatus::mail, SessionStatus::healthy)
+                .containsExactly(tuple("mail1", false), tuple("mail2", true));
+        assertThat(tasks).hasSize(1);
+        for (int i = 0; i < 3; i++) {
+            try (Lease lease = pool.acquire()) {
+                assertThat(lease.authenticator()).isNotSameAs(first);
+            }
+        }
+
+        // 再ログイン後は復帰する
+        tasks.get(0).run();
+        assertThat(pool.getStatuses())
+                .extracting(SessionStatus::healthy, SessionStatus::consecutiveFailures)
+                .containsExactly(tuple(true, 0), tuple(true, 0));
+        // ログイン 2 回 + 再ログイン 1 回
+        verify(mockRdkHttpClient, times(3)).postForm(any(RdkHttpRequest.class));
+    }
+
+    @DisplayName("資格情報を持たないセッションは失敗が続いても貸し出し対象から外れない")
+    @Test
+    void test_relogin_02() throws Exception {
+        List<Runnable> tasks = new ArrayList<>();
+        RdkAuthenticatorPool pool = new RdkAuthenticatorPool(SelectionStrategy.ROUND_ROBIN, 1);
+        pool.setFailureThreshold(1);
+        pool.setReloginExecutor(tasks::add);
+        pool.addAuthenticator(mock(RdkAuthenticator.class));
+
+        for (int i = 0; i < 3; i++) {
+            try (Lease lease = pool.acquire(Duration.ofMillis(50))) {
+                lease.markFailure();
+            }
+        }
+
+        assertThat(pool.getStatuses())
+                .extracting(SessionStatus::healthy, SessionStatus::consecutiveFailures)
+                .containsExactly(tuple(true, 3));
+        assertThat(tasks).isEmpty();
+    }
+}
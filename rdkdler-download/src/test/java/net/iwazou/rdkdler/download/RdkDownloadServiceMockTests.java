@@ -2,6 +2,7 @@ package net.iwazou.rdkdler.download;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.times;
@@ -17,7 +18,13 @@ import com.github.kokorin.jaffree.process.JaffreeAbnormalExitException;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import net.iwazou.rdkdler.download.RdkAuthenticator.AuthResult;
+import net.iwazou.rdkdler.download.RdkAuthenticatorPool.SelectionStrategy;
+import net.iwazou.rdkdler.download.RdkAuthenticatorPool.SessionStatus;
+import net.iwazou.rdkdler.exception.RdkDownloadException;
+import net.iwazou.rdkdler.exception.RdkHttpException;
 import net.iwazou.rdkdler.http.RdkHttpRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -54,7 +61,7 @@ class RdkDownloadServiceMockTests {
     void test_download_01() throws IOException, InterruptedException {
 
         // モックの設定
-        when(mockRdkAuthenticator.auth()).thenReturn(new AuthResult("authtoken", "areaId"));
+        when(mockRdkAuthenticator.auth(any())).thenReturn(new AuthResult("authtoken", "areaId"));
         when(mockFFmpegFactory.create()).thenReturn(mockFFmpeg);
         when(mockFFmpeg.addInput(any(Input.class))).thenReturn(mockFFmpeg);
         when(mockFFmpeg.addOutput(any(Output.class))).thenReturn(mockFFmpeg);
@@ -102,7 +109,7 @@ class RdkDownloadServiceMockTests {
     void test_download_02() throws IOException, InterruptedException {
 
         // モックの設定
-        when(mockRdkAuthenticator.auth()).thenReturn(new AuthResult("authtoken", "areaId"));
+        when(mockRdkAuthenticator.auth(any())).thenReturn(new AuthResult("authtoken", "areaId"));
         when(mockFFmpegFactory.create()).thenReturn(mockFFmpeg);
         when(mockFFmpeg.addInput(any(Input.class))).thenReturn(mockFFmpeg);
         when(mockFFmpeg.addOutput(any(Output.class))).thenReturn(mockFFmpeg);
@@ -166,7 +173,7 @@ class RdkDownloadServiceMockTests {
     void test_download_03() throws IOException, InterruptedException {
 
         // モックの設定
-        when(mockRdkAuthenticator.auth()).thenReturn(new AuthResult("authtoken", "areaId"));
+        when(mockRdkAuthenticator.auth(any())).thenReturn(new AuthResult("authtoken", "areaId"));
         when(mockFFmpegFactory.create()).thenReturn(mockFFmpeg);
         when(mockFFmpeg.addInput(any(Input.class))).thenReturn(mockFFmpeg);
         when(mockFFmpeg.addOutput(any(Output.class))).thenReturn(mockFFmpeg);
@@ -194,6 +201,45 @@ class RdkDownloadServiceMockTests {
         verify(mockFFmpeg, times(1)).execute();
     }
 
+    @DisplayName("downloadのテスト（モック）：FFmpegの異常終了はセッションの失敗として記録せず、認証の拒否は記録する")
+    @Test
+    void test_download_04() throws IOException, InterruptedException {
+        List<Runnable> tasks = new ArrayList<>();
+        RdkAuthenticatorPool pool = new RdkAuthenticatorPool(SelectionStrategy.ROUND_ROBIN, 1);
+        pool.setFailureThreshold(1);
+        pool.setReloginExecutor(tasks::add);
+        pool.addAuthenticator(mockRdkAuthenticator);
+        RdkDownloadService service = new RdkDownloadService(pool, mockFFmpegFactory);
+
+        when(mockRdkAuthenticator.auth(any()))
+                .thenReturn(new AuthResult("authtoken", "areaId"))
+                .thenThrow(new RdkHttpException(401, null));
+        when(mockFFmpegFactory.create()).thenReturn(mockFFmpeg);
+        when(mockFFmpeg.addInput(any(Input.class))).thenReturn(mockFFmpeg);
+        when(mockFFmpeg.addOutput(any(Output.class))).thenReturn(mockFFmpeg);
+        when(mockFFmpeg.setOverwriteOutput(anyBoolean())).thenReturn(mockFFmpeg);
+        when(mockFFmpeg.execute())
+                .thenThrow(new JaffreeAbnormalExitException("test exception!", null));
+        LocalDateTime from = LocalDateTime.parse("2025-12-22T10:00:00");
+        LocalDateTime to = LocalDateTime.parse("2025-12-22T10:05:00");
+        Path path = tempDir.resolve("テスト.m4a");
+
+        // FFmpeg の異常終了はセッションの失敗ではない
+        assertThatExceptionOfType(RdkDownloadException.class)
+                .isThrownBy(() -> service.download("STATION", from, to, path));
+        assertThat(pool.getStatuses())
+                .extracting(SessionStatus::healthy, SessionStatus::consecutiveFailures)
+                .containsExactly(tuple(true, 0));
+
+        // 認証の拒否（HTTP 401）はセッションの失敗として記録する
+        assertThatExceptionOfType(RdkHttpException.class)
+                .isThrownBy(() -> service.download("STATION", from, to, path));
+        assertThat(pool.getStatuses())
+                .extracting(SessionStatus::consecutiveFailures)
+                .containsExactly(1);
+        assertThat(tasks).isEmpty();
+    }
+
     @DisplayName("getImageFormatのテスト：正常系")
     @ParameterizedTest(name = "No.{index} : coverUrl=[{0}], ret=[{1}]")
     @CsvSource(
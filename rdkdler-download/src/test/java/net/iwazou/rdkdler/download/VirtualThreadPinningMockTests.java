@@ -0,0 +1,193 @@
+package net.iwazou.rdkdler.download;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.when;
+
+import com.github.kokorin.jaffree.ffmpeg.FFmpeg;
+import com.github.kokorin.jaffree.ffmpeg.Input;
+import com.github.kokorin.jaffree.ffmpeg.Output;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.iwazou.rdkdler.TestRdkHttpResponse;
+import net.iwazou.rdkdler.download.RdkAuthenticator.AuthResult;
+import net.iwazou.rdkdler.download.RdkAuthenticatorPool.SelectionStrategy;
+import net.iwazou.rdkdler.http.RdkHttpClient;
+import net.iwazou.rdkdler.http.RdkHttpRequest;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * 仮想スレッドから大量に呼び出した場合にキャリアスレッドの占有（pinning）が発生しないことを確認するテストです。
+ *
+ * <p>{@code -Djdk.tracePinnedThreads=short} を指定した JVM（build.gradle.kts で設定）でのみ実行されます。
+ * 占有が発生すると JVM が標準出力へ {@code <== monitors:} を含むスタックトレースを出力するため、それを検出します。
+ */
+@ExtendWith(MockitoExtension.class)
+class VirtualThreadPinningMockTests {
+    private static final String PINNED_MARKER = "<== monitors:";
+    private static final int TASKS = 200;
+
+    @Mock FFmpegFactory mockFFmpegFactory;
+    @Mock FFmpeg mockFFmpeg;
+
+    @TempDir Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        // JDK 24 以降は synchronized でも占有が発生せず、トレースのオプションも廃止されている
+        assumeTrue(System.getProperty("jdk.tracePinnedThreads") != null);
+        assumeTrue(Runtime.version().feature() < 24);
+    }
+
+    @DisplayName("検出の確認：synchronized 内で待機すると占有が出力される")
+    @Test
+    void test_detect_01() throws Exception {
+        Object monitor = new Object();
+        String output =
+                capturePinning(
+                        () -> {
+                            synchronized (monitor) {
+                                Thread.sleep(10);
+                            }
+                            return null;
+                        });
+
+        assertThat(output).contains(PINNED_MARKER);
+    }
+
+    @DisplayName("auth()を仮想スレッドから同時に呼び出しても占有が発生しない")
+    @Test
+    void test_auth_01() throws Exception {
+        SlowRdkHttpClient client = new SlowRdkHttpClient();
+        RdkAuthenticator authenticator = new RdkAuthenticator(client);
+        // 毎回再認証させ、ロック内での通信待ちを発生させる
+        authenticator.setReauthenticationInterval(0);
+
+        List<AuthResult> results = new ArrayList<>();
+        String output = capturePinning(() -> authenticator.auth(), results);
+
+        assertThat(output).doesNotContain(PINNED_MARKER);
+        assertThat(results).hasSize(TASKS).containsOnly(new AuthResult("token", "JP13"));
+        assertThat(client.count.get()).isEqualTo(TASKS * 2);
+    }
+
+    @DisplayName("download()を仮想スレッドから同時に呼び出しても占有が発生しない")
+    @Test
+    void test_download_01() throws Exception {
+        when(mockFFmpegFactory.create()).thenReturn(mockFFmpeg);
+        when(mockFFmpeg.addInput(any(Input.class))).thenReturn(mockFFmpeg);
+        when(mockFFmpeg.addOutput(any(Output.class))).thenReturn(mockFFmpeg);
+        when(mockFFmpeg.setOverwriteOutput(anyBoolean())).thenReturn(mockFFmpeg);
+        when(mockFFmpeg.execute())
+                .thenAnswer(
+                        invocation -> {
+                            Thread.sleep(5); // FFmpeg の実行待ちの代わり
+                            return null;
+                        });
+
+        SlowRdkHttpClient client = new SlowRdkHttpClient();
+        RdkAuthenticator a1 = new RdkAuthenticator(client);
+        RdkAuthenticator a2 = new RdkAuthenticator(client);
+        a1.setReauthenticationInterval(0);
+        a2.setReauthenticationInterval(0);
+        // 同時実行数を絞り、セッションの貸し出し待ちを発生させる
+        RdkAuthenticatorPool pool = new RdkAuthenticatorPool(SelectionStrategy.LEAST_LOADED, 2);
+        pool.addAuthenticator(a1);
+        pool.addAuthenticator(a2);
+        RdkDownloadService service = new RdkDownloadService(pool, mockFFmpegFactory);
+
+        LocalDateTime from = LocalDateTime.parse("2025-12-22T10:00:00");
+        LocalDateTime to = LocalDateTime.parse("2025-12-22T10:05:00");
+        AtomicInteger seq = new AtomicInteger();
+        String output =
+                capturePinning(
+                        () -> {
+                            Path out = tempDir.resolve(seq.incrementAndGet() + ".m4a");
+                            service.download("STATION", from, to, out);
+                            return null;
+                        });
+
+        assertThat(output).doesNotContain(PINNED_MARKER);
+        assertThat(pool.getStatuses())
+                .extracting(RdkAuthenticatorPool.SessionStatus::inFlight)
+                .containsOnly(0);
+    }
+
+    private String capturePinning(Callable<?> task) throws Exception {
+        return capturePinning(task, new ArrayList<>());
+    }
+
+    /**
+     * タスクを仮想スレッドで {@link #TASKS} 回同時に実行し、その間の標準出力を返します。
+     */
+    private <T> String capturePinning(Callable<T> task, List<T> results) throws Exception {
+        PrintStream original = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < TASKS; i++) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } finally {
+            System.setOut(original);
+        }
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * auth1/auth2 に対して通信待ちを模して少し待ってから応答する HTTP クライアントです。
+     */
+    private static class SlowRdkHttpClient implements RdkHttpClient {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public RdkHttpResponse get(RdkHttpRequest request)
+                throws IOException, InterruptedException {
+            count.incrementAndGet();
+            Thread.sleep(2);
+            if (request.getUrl().endsWith("/auth1")) {
+                return new TestRdkHttpResponse(
+                        200,
+                        Map.of(
+                                "x-radiko-authtoken",
+                                List.of("token"),
+                                "x-radiko-keylength",
+                                List.of("16"),
+                                "x-radiko-keyoffset",
+                                List.of("0")),
+                        "please send a part of key");
+            }
+            return new TestRdkHttpResponse(200, null, "JP13,東京都,tokyo Japan");
+        }
+
+        @Override
+        public RdkHttpResponse postForm(RdkHttpRequest request) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
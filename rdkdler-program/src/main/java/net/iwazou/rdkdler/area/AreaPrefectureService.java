@@ -3,11 +3,13 @@ package net.iwazou.rdkdler.area;
 import java.io.IOException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import net.iwazou.rdkdler.exception.RdkDeadlineExceededException;
 import net.iwazou.rdkdler.exception.RdkResponseException;
 import net.iwazou.rdkdler.http.RdkHttpClient;
 import net.iwazou.rdkdler.http.RdkHttpRequest;
 import net.iwazou.rdkdler.http.RdkHttpResponse;
 import net.iwazou.rdkdler.util.CommonUtils;
+import net.iwazou.rdkdler.util.Deadline;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Element;
 
@@ -51,11 +53,29 @@ public class AreaPrefectureService {
      *                             またはエリアIDが未知で {@link AreaPrefecture#fromAreaId(String)} が解決できない場合
      */
     public AreaPrefecture getCurrentAreaPrefecture() throws IOException, InterruptedException {
+        return getCurrentAreaPrefecture(null);
+    }
+
+    /**
+     * 期限を指定して、現在の接続元に対応する {@link AreaPrefecture} を取得します。
+     *
+     * <p>処理は {@link #getCurrentAreaPrefecture()} と同じです。
+     *
+     * @param deadline 処理全体の期限（null 可。{@code null} の場合は期限なし）
+     * @return ラジコが判定したエリアIDに対応する都道府県（{@link AreaPrefecture}）
+     * @throws RdkDeadlineExceededException 期限までに取得できなかった場合
+     * @throws IOException 通信またはレスポンス取得・本文読み取りで入出力エラーが発生した場合
+     * @throws InterruptedException 通信処理が割り込まれた場合
+     * @throws RdkResponseException レスポンス本文が期待形式でない場合、またはエリアIDが未知の場合
+     */
+    public AreaPrefecture getCurrentAreaPrefecture(Deadline deadline)
+            throws IOException, InterruptedException {
         String url = "https://api.radiko.jp/apparea/area";
-        log.debug("getCurrentAreaPrefecture() : アクセスURL={}", url);
-        RdkHttpResponse response = rdkHttpClient.get(RdkHttpRequest.builder().url(url).build());
+        log.debug("getCurrentAreaPrefecture(Deadline) : アクセスURL={}", url);
+        RdkHttpResponse response =
+                rdkHttpClient.get(RdkHttpRequest.builder().url(url).deadline(deadline).build());
         String body = CommonUtils.getBody(response);
-        log.debug("getCurrentAreaPrefecture() : レスポンスボディ={}", body);
+        log.debug("getCurrentAreaPrefecture(Deadline) : レスポンスボディ={}", body);
         Element firstSpan = Jsoup.parse(body).select("span").first();
         if (firstSpan == null) {
             // ここはサーバーが200を返しているが期待する形式ではないため、ResponseExceptionとする
@@ -69,7 +89,7 @@ public class AreaPrefectureService {
         AreaPrefecture areaPrefecture =
                 AreaPrefecture.fromAreaId(areaId)
                         .orElseThrow(() -> new RdkResponseException("unknown area_id"));
-        log.debug("getCurrentAreaPrefecture() : 都道府県コード={}", areaPrefecture);
+        log.debug("getCurrentAreaPrefecture(Deadline) : 都道府県コード={}", areaPrefecture);
         return areaPrefecture;
     }
 }
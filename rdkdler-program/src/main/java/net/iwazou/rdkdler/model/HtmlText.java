@@ -0,0 +1,146 @@
+package net.iwazou.rdkdler.model;
+
+import java.util.Arrays;
+import net.iwazou.rdkdler.model.internal.CompactText;
+import org.jsoup.Jsoup;
+
+/**
+ * 番組説明（{@link ProgramEntry#getDesc()} など）の HTML を保持するクラスです。
+ *
+ * <p>番組説明は大きな HTML であることが多い一方、番組情報を利用する処理の多くは番組説明を参照しません。
+ * {@link #of(String)} は HTML をそのまま保持します（解析時の処理は増えません）。
+ * {@link #compressed(String)} は長い HTML を圧縮したバイト列で保持し、参照するたびに文字列に復元します
+ * （復元した文字列は保持しないため、保持するメモリは圧縮したバイト列のみです）。
+ * 短い HTML や、圧縮しても小さくならない HTML は、そのまま保持します。
+ * 解析時に圧縮するかどうかは、各サービスの {@code compressDetails} で切り替えます。
+ *
+ * <p>{@link #equals(Object)}・{@link #hashCode()} は、HTML を復元せずに、保持している形式のまま比較します。
+ * 圧縮している場合のハッシュ値は、生成時に求めた値を使用します。
+ *
+ * <p>{@link #text()} で、HTML からタグを除いた文字列（Jsoup で抽出したもの）を取得できます。
+ * 抽出した文字列は保持し、以降は抽出しません（{@link #text()} を呼び出さない限り保持しません）。
+ *
+ * <p>本クラスはスレッドセーフです（同時に参照した場合、抽出が重複して行われることがあります）。
+ */
+public final class HtmlText {
+
+    /**
+     * 圧縮を試みる最小の文字数です。
+     */
+    private static final int MIN_COMPRESS_LENGTH = 256;
+
+    /**
+     * HTML です（圧縮している場合は {@code null}）。
+     */
+    private final String html;
+
+    /**
+     * 圧縮したバイト列です（圧縮していない場合は {@code null}）。
+     */
+    private final byte[] compressed;
+
+    /**
+     * HTML のハッシュ値です（圧縮している場合のみ使用します）。
+     */
+    private final int hash;
+
+    /**
+     * HTML からタグを除いた文字列です（最初に参照するまで {@code null}）。
+     */
+    private volatile String text;
+
+    private HtmlText(String html, byte[] compressed, int hash) {
+        this.html = html;
+        this.compressed = compressed;
+        this.hash = hash;
+    }
+
+    /**
+     * HTML をそのまま保持するインスタンスを生成します。
+     *
+     * @param html HTML（null 可）
+     * @return インスタンス（html が {@code null} の場合は {@code null}）
+     */
+    public static HtmlText of(String html) {
+        return html == null ? null : new HtmlText(html, null, 0);
+    }
+
+    /**
+     * 長い HTML を圧縮して保持するインスタンスを生成します。
+     *
+     * <p>短い HTML や、圧縮しても小さくならない HTML は、{@link #of(String)} と同じくそのまま保持します。
+     *
+     * @param html HTML（null 可）
+     * @return インスタンス（html が {@code null} の場合は {@code null}）
+     */
+    public static HtmlText compressed(String html) {
+        if (html != null && html.length() >= MIN_COMPRESS_LENGTH) {
+            byte[] bytes = CompactText.encode(html);
+            // 1 文字 1 バイトで保持した場合より小さくなる場合のみ圧縮する
+            if (bytes.length < html.length()) {
+                return new HtmlText(null, bytes, html.hashCode());
+            }
+        }
+        return of(html);
+    }
+
+    /**
+     * HTML を返します。圧縮している場合は、呼び出すたびに復元します。
+     *
+     * @return HTML
+     */
+    public String html() {
+        return compressed == null ? html : CompactText.decode(compressed);
+    }
+
+    /**
+     * HTML からタグを除いた文字列を返します。最初の呼び出しで抽出します。
+     *
+     * @return タグを除いた文字列（空白は 1 つにまとめます）
+     */
+    public String text() {
+        String s = text;
+        if (s == null) {
+            s = Jsoup.parse(html()).text();
+            text = s;
+        }
+        return s;
+    }
+
+    /**
+     * HTML を圧縮して保持している場合は {@code true} を返します。
+     *
+     * @return 圧縮している場合は {@code true}
+     */
+    public boolean isCompressed() {
+        return compressed != null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof HtmlText other) || hashCode() != other.hashCode()) {
+            return false;
+        }
+        if (compressed == null && other.compressed == null) {
+            return html.equals(other.html);
+        }
+        if (compressed != null && other.compressed != null) {
+            return Arrays.equals(compressed, other.compressed);
+        }
+        // 保持している形式が異なる場合のみ復元して比較する
+        return html().equals(other.html());
+    }
+
+    @Override
+    public int hashCode() {
+        return compressed == null ? html.hashCode() : hash;
+    }
+
+    @Override
+    public String toString() {
+        return html();
+    }
+}
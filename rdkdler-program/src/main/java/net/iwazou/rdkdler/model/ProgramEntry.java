@@ -1,17 +1,25 @@
 package net.iwazou.rdkdler.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlElementWrapper;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
 import java.time.LocalDateTime;
 import java.util.List;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import net.iwazou.rdkdler.model.internal.HtmlTextDeserializer;
 
 /**
  * 番組情報（XML要素: {@code prog}）
  */
 @SuppressWarnings("doclint:missing") // javadoc生成時の警告を抑止
 @Data
+@EqualsAndHashCode(doNotUseGetters = true) // desc・info を復元せずに比較する
+@ToString(doNotUseGetters = true)
 public class ProgramEntry {
 
     /** XML属性: {@code id} */
@@ -68,11 +76,15 @@ public class ProgramEntry {
     /** XML要素: {@code tsplus_out_ng} */
     private Integer tsplusOutNg;
 
-    /** XML要素: {@code desc} */
-    private String desc;
+    /** XML要素: {@code desc}（{@link HtmlText} で保持します） */
+    @JsonProperty
+    @JsonDeserialize(using = HtmlTextDeserializer.class)
+    private HtmlText desc;
 
-    /** XML要素: {@code info} */
-    private String info;
+    /** XML要素: {@code info}（{@link HtmlText} で保持します） */
+    @JsonProperty
+    @JsonDeserialize(using = HtmlTextDeserializer.class)
+    private HtmlText info;
 
     /** XML要素: {@code pfm} */
     private String pfm;
@@ -91,6 +103,64 @@ public class ProgramEntry {
     @JacksonXmlProperty(localName = "metas")
     private List<Meta> metas;
 
+    /**
+     * XML要素: {@code desc}
+     *
+     * @return 番組説明（HTML）
+     */
+    public String getDesc() {
+        return desc == null ? null : desc.html();
+    }
+
+    /**
+     * XML要素: {@code desc}
+     *
+     * @param desc 番組説明（HTML）
+     */
+    @JsonIgnore
+    public void setDesc(String desc) {
+        this.desc = HtmlText.of(desc);
+    }
+
+    /**
+     * XML要素: {@code desc} を、復元前の {@link HtmlText} のまま返します。
+     *
+     * @return 番組説明
+     */
+    @JsonIgnore
+    public HtmlText getDescHtml() {
+        return desc;
+    }
+
+    /**
+     * XML要素: {@code info}
+     *
+     * @return 番組説明（HTML）
+     */
+    public String getInfo() {
+        return info == null ? null : info.html();
+    }
+
+    /**
+     * XML要素: {@code info}
+     *
+     * @param info 番組説明（HTML）
+     */
+    @JsonIgnore
+    public void setInfo(String info) {
+        this.info = HtmlText.of(info);
+    }
+
+    /**
+     * XML要素: {@code info} を、復元前の {@link HtmlText} のまま返します。
+     *
+     * @return 番組説明
+     */
+    @JsonIgnore
+    public HtmlText getInfoHtml() {
+        return info;
+    }
+
     /**
      * タグ項目（XML要素: {@code item}）
      */
@@ -1,11 +1,16 @@
 package net.iwazou.rdkdler.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import net.iwazou.rdkdler.model.internal.HtmlTextDeserializer;
 
 /**
  * 番組検索結果情報ルートJSON
@@ -74,6 +79,8 @@ public class ProgramSearchResult {
      * 番組情報（data）
      */
     @Data
+    @EqualsAndHashCode(doNotUseGetters = true) // info・description を復元せずに比較する
+    @ToString(doNotUseGetters = true)
     public static class ResultData {
 
         /** JSONキー: {@code start_time} */
@@ -106,11 +113,15 @@ public class ProgramSearchResult {
         /** JSONキー: {@code title} */
         private String title;
 
-        /** JSONキー: {@code info} */
-        private String info;
+        /** JSONキー: {@code info}（{@link HtmlText} で保持します） */
+        @JsonProperty
+        @JsonDeserialize(using = HtmlTextDeserializer.class)
+        private HtmlText info;
 
-        /** JSONキー: {@code description} */
-        private String description;
+        /** JSONキー: {@code description}（{@link HtmlText} で保持します） */
+        @JsonProperty
+        @JsonDeserialize(using = HtmlTextDeserializer.class)
+        private HtmlText description;
 
         /** JSONキー: {@code status} */
         private String status;
@@ -135,6 +146,64 @@ public class ProgramSearchResult {
 
         /** JSONキー: {@code metas} */
         private List<Meta> metas;
+
+        /**
+         * JSONキー: {@code info}
+         *
+         * @return 番組説明（HTML）
+         */
+        public String getInfo() {
+            return info == null ? null : info.html();
+        }
+
+        /**
+         * JSONキー: {@code info}
+         *
+         * @param info 番組説明（HTML）
+         */
+        @JsonIgnore
+        public void setInfo(String info) {
+            this.info = HtmlText.of(info);
+        }
+
+        /**
+         * JSONキー: {@code info} を、復元前の {@link HtmlText} のまま返します。
+         *
+         * @return 番組説明
+         */
+        @JsonIgnore
+        public HtmlText getInfoHtml() {
+            return info;
+        }
+
+        /**
+         * JSONキー: {@code description}
+         *
+         * @return 番組説明（HTML）
+         */
+        public String getDescription() {
+            return description == null ? null : description.html();
+        }
+
+        /**
+         * JSONキー: {@code description}
+         *
+         * @param description 番組説明（HTML）
+         */
+        @JsonIgnore
+        public void setDescription(String description) {
+            this.description = HtmlText.of(description);
+        }
+
+        /**
+         * JSONキー: {@code description} を、復元前の {@link HtmlText} のまま返します。
+         *
+         * @return 番組説明
+         */
+        @JsonIgnore
+        public HtmlText getDescriptionHtml() {
+            return description;
+        }
     }
 
     /**
@@ -0,0 +1,445 @@
+package net.iwazou.rdkdler.model.compact;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import net.iwazou.rdkdler.model.ProgramEntry;
+import net.iwazou.rdkdler.model.ProgramEntry.Genre;
+import net.iwazou.rdkdler.model.ProgramEntry.Item;
+import net.iwazou.rdkdler.model.ProgramEntry.Meta;
+import net.iwazou.rdkdler.model.ProgramEntry.Personality;
+import net.iwazou.rdkdler.model.ProgramEntry.Program;
+import net.iwazou.rdkdler.model.internal.CompactText;
+
+/**
+ * 番組情報（{@link ProgramEntry}）を、少ないメモリで保持する読み取り専用の表現です。
+ *
+ * <p>数週間分の全国の番組表のように多くの番組をメモリ上に保持する場合に使用します。
+ * {@link #of(ProgramEntry, StringDictionary)} で {@link ProgramEntry} から変換し、
+ * {@link #toProgramEntry()} で元の {@link ProgramEntry} と等しい内容に戻せます。
+ *
+ * <p>{@link ProgramEntry} からの変換では、次のようにして保持するオブジェクトを減らします。
+ * <ul>
+ *   <li>番組名・出演者・{@code ftl}／{@code tol}／{@code dur}・タグ・ジャンル・メタ情報などの文字列は
+ *       {@link StringDictionary} のコード（{@code int}）で保持し、同じ文字列を番組の間で共有します。</li>
+ *   <li>開始日時・終了日時はエポック秒（{@code long}。日本時間の日時を UTC として換算した値）で保持します（秒未満は保持しません）。</li>
+ *   <li>タイムフリーの可否（{@code ts_in_ng} など 4 項目）は 1 つの {@code int} に 8 ビットずつ詰めて保持します。</li>
+ *   <li>番組説明（{@code desc}・{@code info}）は圧縮したバイト列で保持し、取得するたびに復元します。</li>
+ * </ul>
+ *
+ * <p>番組 ID（{@code id}）は番組ごとに異なるため、辞書を使わずにそのまま保持します。
+ *
+ * <p>本クラスは不変で、スレッドセーフです。
+ *
+ * <p>使用例：
+ * <pre>{@code
+ * StringDictionary dictionary = new StringDictionary();
+ * List<CompactProgramEntry> history = new ArrayList<>();
+ * programScheduleService.forEachProgram(
+ *         AreaPrefecture.TOKYO, date, true,
+ *         p -> history.add(CompactProgramEntry.of(p.entry(), dictionary)));
+ * }</pre>
+ */
+public final class CompactProgramEntry {
+
+    /**
+     * 日時が {@code null} であることを表す値です。
+     */
+    private static final long NULL_TIME = Long.MIN_VALUE;
+
+    /**
+     * タイムフリーの可否 1 項目分のビット数です。
+     */
+    private static final int FLAG_BITS = 8;
+
+    private static final int FLAG_MASK = (1 << FLAG_BITS) - 1;
+
+    /**
+     * タイムフリーの可否が {@code null} であることを表す値です。
+     */
+    private static final int NULL_FLAG = FLAG_MASK;
+
+    private static final int TS_IN_NG = 0;
+    private static final int TSPLUS_IN_NG = 1;
+    private static final int TS_OUT_NG = 2;
+    private static final int TSPLUS_OUT_NG = 3;
+
+    private final StringDictionary dictionary;
+
+    private final String id;
+    private final long ft;
+    private final long to;
+
+    private final int masterId;
+    private final int ftl;
+    private final int tol;
+    private final int dur;
+    private final int title;
+    private final int url;
+    private final int urlLink;
+    private final int failedRecord;
+    private final int pfm;
+    private final int img;
+
+    /**
+     * タイムフリーの可否（{@code ts_in_ng}・{@code tsplus_in_ng}・{@code ts_out_ng}・{@code tsplus_out_ng}
+     * の順に下位から 8 ビットずつ）です。
+     */
+    private final int flags;
+
+    private final byte[] desc;
+    private final byte[] info;
+
+    /**
+     * タグ項目の名前のコードです（{@code items} が {@code null} の場合は {@code null}）。
+     */
+    private final int[] items;
+
+    /**
+     * ジャンル情報がある場合は {@code true} です。
+     */
+    private final boolean genre;
+
+    /**
+     * 人物カテゴリの ID と名前のコードを交互に並べた配列です（{@code personalitys} が {@code null} の場合は {@code null}）。
+     */
+    private final int[] personalitys;
+
+    /**
+     * 番組カテゴリの ID と名前のコードを交互に並べた配列です（{@code programs} が {@code null} の場合は {@code null}）。
+     */
+    private final int[] programs;
+
+    /**
+     * メタ情報の名前と値のコードを交互に並べた配列です（{@code metas} が {@code null} の場合は {@code null}）。
+     */
+    private final int[] metas;
+
+    private CompactProgramEntry(ProgramEntry entry, StringDictionary dictionary) {
+        this.dictionary = dictionary;
+        this.id = entry.getId();
+        this.ft = toEpochSecond(entry.getFt());
+        this.to = toEpochSecond(entry.getTo());
+        this.masterId = dictionary.encode(entry.getMasterId());
+        this.ftl = dictionary.encode(entry.getFtl());
+        this.tol = dictionary.encode(entry.getTol());
+        this.dur = dictionary.encode(entry.getDur());
+        this.title = dictionary.encode(entry.getTitle());
+        this.url = dictionary.encode(entry.getUrl());
+        this.urlLink = dictionary.encode(entry.getUrlLink());
+        this.failedRecord = dictionary.encode(entry.getFailedRecord());
+        this.pfm = dictionary.encode(entry.getPfm());
+        this.img = dictionary.encode(entry.getImg());
+        this.flags =
+                packFlag(entry.getTsInNg(), TS_IN_NG)
+                        | packFlag(entry.getTsplusInNg(), TSPLUS_IN_NG)
+                        | packFlag(entry.getTsOutNg(), TS_OUT_NG)
+                        | packFlag(entry.getTsplusOutNg(), TSPLUS_OUT_NG);
+        this.desc = CompactText.encode(entry.getDesc());
+        this.info = CompactText.encode(entry.getInfo());
+        if (entry.getItems() == null) {
+            this.items = null;
+        } else {
+            this.items = new int[entry.getItems().size()];
+            for (int i = 0; i < items.length; i++) {
+                items[i] = dictionary.encode(entry.getItems().get(i).getName());
+            }
+        }
+        Genre g = entry.getGenre();
+        this.genre = g != null;
+        if (g == null || g.getPersonalitys() == null) {
+            this.personalitys = null;
+        } else {
+            this.personalitys = new int[g.getPersonalitys().size() * 2];
+            for (int i = 0; i < g.getPersonalitys().size(); i++) {
+                personalitys[2 * i] = dictionary.encode(g.getPersonalitys().get(i).getId());
+                personalitys[2 * i + 1] = dictionary.encode(g.getPersonalitys().get(i).getName());
+            }
+        }
+        if (g == null || g.getPrograms() == null) {
+            this.programs = null;
+        } else {
+            this.programs = new int[g.getPrograms().size() * 2];
+            for (int i = 0; i < g.getPrograms().size(); i++) {
+                programs[2 * i] = dictionary.encode(g.getPrograms().get(i).getId());
+                programs[2 * i + 1] = dictionary.encode(g.getPrograms().get(i).getName());
+            }
+        }
+        if (entry.getMetas() == null) {
+            this.metas = null;
+        } else {
+            this.metas = new int[entry.getMetas().size() * 2];
+            for (int i = 0; i < entry.getMetas().size(); i++) {
+                metas[2 * i] = dictionary.encode(entry.getMetas().get(i).getName());
+                metas[2 * i + 1] = dictionary.encode(entry.getMetas().get(i).getValue());
+            }
+        }
+    }
+
+    /**
+     * 番組情報を変換します。
+     *
+     * @param entry 番組情報（null 不可。{@code items}・{@code personalitys}・{@code programs}・{@code metas}
+     *     の要素は null 不可）
+     * @param dictionary 文字列を登録する辞書（null 不可）
+     * @return 変換した番組情報
+     * @throws NullPointerException 引数のいずれかが {@code null} の場合
+     * @throws IllegalArgumentException タイムフリーの可否が 0〜254 の範囲外の場合
+     */
+    public static CompactProgramEntry of(ProgramEntry entry, StringDictionary dictionary) {
+        return new CompactProgramEntry(
+                Objects.requireNonNull(entry), Objects.requireNonNull(dictionary));
+    }
+
+    /**
+     * {@link ProgramEntry} に戻します。
+     *
+     * @return 番組情報（変換元の {@link ProgramEntry} と等しい内容の新しいインスタンス）
+     */
+    public ProgramEntry toProgramEntry() {
+        ProgramEntry entry = new ProgramEntry();
+        entry.setId(id);
+        entry.setMasterId(getMasterId());
+        entry.setFt(getFt());
+        entry.setTo(getTo());
+        entry.setFtl(dictionary.decode(ftl));
+        entry.setTol(dictionary.decode(tol));
+        entry.setDur(dictionary.decode(dur));
+        entry.setTitle(getTitle());
+        entry.setUrl(getUrl());
+        entry.setUrlLink(dictionary.decode(urlLink));
+        entry.setFailedRecord(dictionary.decode(failedRecord));
+        entry.setTsInNg(getTsInNg());
+        entry.setTsplusInNg(getTsplusInNg());
+        entry.setTsOutNg(getTsOutNg());
+        entry.setTsplusOutNg(getTsplusOutNg());
+        entry.setDesc(getDesc());
+        entry.setInfo(getInfo());
+        entry.setPfm(getPfm());
+        entry.setImg(getImg());
+        if (items != null) {
+            List<Item> list = new ArrayList<>(items.length);
+            for (int code : items) {
+                Item item = new Item();
+                item.setName(dictionary.decode(code));
+                list.add(item);
+            }
+            entry.setItems(list);
+        }
+        if (genre) {
+            Genre g = new Genre();
+            if (personalitys != null) {
+                List<Personality> list = new ArrayList<>(personalitys.length / 2);
+                for (int i = 0; i < personalitys.length; i += 2) {
+                    Personality p = new Personality();
+                    p.setId(dictionary.decode(personalitys[i]));
+                    p.setName(dictionary.decode(personalitys[i + 1]));
+                    list.add(p);
+                }
+                g.setPersonalitys(list);
+            }
+            if (programs != null) {
+                List<Program> list = new ArrayList<>(programs.length / 2);
+                for (int i = 0; i < programs.length; i += 2) {
+                    Program p = new Program();
+                    p.setId(dictionary.decode(programs[i]));
+                    p.setName(dictionary.decode(programs[i + 1]));
+                    list.add(p);
+                }
+                g.setPrograms(list);
+            }
+            entry.setGenre(g);
+        }
+        if (metas != null) {
+            List<Meta> list = new ArrayList<>(metas.length / 2);
+            for (int i = 0; i < metas.length; i += 2) {
+                Meta m = new Meta();
+                m.setName(dictionary.decode(metas[i]));
+                m.setValue(dictionary.decode(metas[i + 1]));
+                list.add(m);
+            }
+            entry.setMetas(list);
+        }
+        return entry;
+    }
+
+    /**
+     * 番組 ID を返します。
+     *
+     * @return 番組 ID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * 番組マスター ID を返します。
+     *
+     * @return 番組マスター ID
+     */
+    public String getMasterId() {
+        return dictionary.decode(masterId);
+    }
+
+    /**
+     * 開始日時を返します。
+     *
+     * @return 開始日時
+     */
+    public LocalDateTime getFt() {
+        return toLocalDateTime(ft);
+    }
+
+    /**
+     * 終了日時を返します。
+     *
+     * @return 終了日時
+     */
+    public LocalDateTime getTo() {
+        return toLocalDateTime(to);
+    }
+
+    /**
+     * 開始日時をエポック秒（日本時間の日時を UTC として換算した値）で返します。
+     * {@link LocalDateTime} を生成せずに日時を比較する場合に使用します。
+     *
+     * @return 開始日時のエポック秒（開始日時がない場合は {@link Long#MIN_VALUE}）
+     */
+    public long getFtEpochSecond() {
+        return ft;
+    }
+
+    /**
+     * 終了日時をエポック秒（日本時間の日時を UTC として換算した値）で返します。
+     * {@link LocalDateTime} を生成せずに日時を比較する場合に使用します。
+     *
+     * @return 終了日時のエポック秒（終了日時がない場合は {@link Long#MIN_VALUE}）
+     */
+    public long getToEpochSecond() {
+        return to;
+    }
+
+    /**
+     * 番組名を返します。
+     *
+     * @return 番組名
+     */
+    public String getTitle() {
+        return dictionary.decode(title);
+    }
+
+    /**
+     * 番組の URL を返します。
+     *
+     * @return 番組の URL
+     */
+    public String getUrl() {
+        return dictionary.decode(url);
+    }
+
+    /**
+     * 出演者を返します。
+     *
+     * @return 出演者
+     */
+    public String getPfm() {
+        return dictionary.decode(pfm);
+    }
+
+    /**
+     * 番組画像の URL を返します。
+     *
+     * @return 番組画像の URL
+     */
+    public String getImg() {
+        return dictionary.decode(img);
+    }
+
+    /**
+     * 番組説明（{@code desc}）を返します。呼び出すたびに圧縮を復元します。
+     *
+     * @return 番組説明
+     */
+    public String getDesc() {
+        return CompactText.decode(desc);
+    }
+
+    /**
+     * 番組説明（{@code info}）を返します。呼び出すたびに圧縮を復元します。
+     *
+     * @return 番組説明
+     */
+    public String getInfo() {
+        return CompactText.decode(info);
+    }
+
+    /**
+     * {@code ts_in_ng} を返します。
+     *
+     * @return {@code ts_in_ng}
+     */
+    public Integer getTsInNg() {
+        return unpackFlag(TS_IN_NG);
+    }
+
+    /**
+     * {@code tsplus_in_ng} を返します。
+     *
+     * @return {@code tsplus_in_ng}
+     */
+    public Integer getTsplusInNg() {
+        return unpackFlag(TSPLUS_IN_NG);
+    }
+
+    /**
+     * {@code ts_out_ng} を返します。
+     *
+     * @return {@code ts_out_ng}
+     */
+    public Integer getTsOutNg() {
+        return unpackFlag(TS_OUT_NG);
+    }
+
+    /**
+     * {@code tsplus_out_ng} を返します。
+     *
+     * @return {@code tsplus_out_ng}
+     */
+    public Integer getTsplusOutNg() {
+        return unpackFlag(TSPLUS_OUT_NG);
+    }
+
+    @Override
+    public String toString() {
+        return "CompactProgramEntry(id=" + id + ", ft=" + getFt() + ", title=" + getTitle() + ")";
+    }
+
+    private static int packFlag(Integer value, int index) {
+        int bits = NULL_FLAG;
+        if (value != null) {
+            if (value < 0 || value >= NULL_FLAG) {
+                throw new IllegalArgumentException(
+                        "flag must be between 0 and " + (NULL_FLAG - 1) + " (value=" + value + ")");
+            }
+            bits = value;
+        }
+        return bits << (index * FLAG_BITS);
+    }
+
+    private Integer unpackFlag(int index) {
+        int bits = (flags >>> (index * FLAG_BITS)) & FLAG_MASK;
+        return bits == NULL_FLAG ? null : bits;
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime == null ? NULL_TIME : dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochSecond) {
+        return epochSecond == NULL_TIME
+                ? null
+                : LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+}
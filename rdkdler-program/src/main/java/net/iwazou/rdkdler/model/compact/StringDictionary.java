@@ -0,0 +1,98 @@
+package net.iwazou.rdkdler.model.compact;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 文字列に通し番号（コード）を割り当てる辞書です。
+ *
+ * <p>番組表には、番組名・出演者・ジャンル名・画像の URL・{@code ftl}／{@code tol}／{@code dur} のように、
+ * 週・局をまたいで同じ文字列が繰り返し現れます。{@link CompactProgramEntry} は文字列の代わりにコードを保持し、
+ * 同じ文字列を辞書の 1 つのインスタンスで共有します。
+ *
+ * <p>登録した文字列は削除しません。番組情報を保持する期間と同じ期間だけ辞書を保持してください。
+ *
+ * <p><b>スレッドセーフ</b>：複数スレッドから同時に利用できます。登録済みの文字列の検索と復元はロックを取得しません。
+ */
+public final class StringDictionary {
+
+    /**
+     * {@code null} を表すコードです。
+     */
+    public static final int NULL = -1;
+
+    /**
+     * 文字列ごとのコードです。
+     */
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * コードごとの文字列です（{@link #lock} を取得して追加し、配列を拡張した場合は置き換えます）。
+     */
+    private volatile String[] strings = new String[256];
+
+    private volatile int size;
+
+    /**
+     * 文字列のコードを返します。登録していない文字列の場合は、新しいコードを割り当てます。
+     *
+     * @param s 文字列（null 可）
+     * @return コード（s が {@code null} の場合は {@link #NULL}）
+     */
+    public int encode(String s) {
+        if (s == null) {
+            return NULL;
+        }
+        Integer code = codes.get(s);
+        if (code != null) {
+            return code;
+        }
+        lock.lock();
+        try {
+            code = codes.get(s);
+            if (code != null) {
+                return code;
+            }
+            int next = size;
+            if (next == strings.length) {
+                strings = Arrays.copyOf(strings, next * 2);
+            }
+            strings[next] = s;
+            size = next + 1;
+            codes.put(s, next);
+            return next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * コードの文字列を返します。
+     *
+     * @param code コード
+     * @return 文字列（code が {@link #NULL} の場合は {@code null}）
+     * @throws IllegalArgumentException 割り当てていないコードの場合
+     */
+    public String decode(int code) {
+        if (code == NULL) {
+            return null;
+        }
+        if (code < 0 || code >= size) {
+            throw new IllegalArgumentException("unknown code (value=" + code + ")");
+        }
+        return strings[code];
+    }
+
+    /**
+     * 登録している文字列の件数を返します。
+     *
+     * @return 件数
+     */
+    public int size() {
+        return size;
+    }
+}
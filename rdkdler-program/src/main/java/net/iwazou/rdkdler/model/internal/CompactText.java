@@ -0,0 +1,119 @@
+package net.iwazou.rdkdler.model.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 番組説明（{@code desc}・{@code info}）のような長い文字列を、圧縮したバイト列で保持するための変換です。
+ *
+ * <p>本クラスは {@link net.iwazou.rdkdler.model.HtmlText} と
+ * {@link net.iwazou.rdkdler.model.compact.CompactProgramEntry} が共有する内部実装（internal）です。
+ *
+ * <p>バイト列の先頭の 1 バイトが形式（{@link #RAW} または {@link #DEFLATED}）で、続けて UTF-8 のバイト列
+ * （{@link #DEFLATED} の場合は Deflate で圧縮したもの）を格納します。圧縮しても小さくならない場合は圧縮しません。
+ */
+public final class CompactText {
+
+    /**
+     * 圧縮していない UTF-8 のバイト列です。
+     */
+    private static final byte RAW = 0;
+
+    /**
+     * Deflate で圧縮した UTF-8 のバイト列です。
+     */
+    private static final byte DEFLATED = 1;
+
+    /**
+     * 圧縮を試みる最小のバイト数です（これより短い場合は圧縮の効果がほとんどないため）。
+     */
+    private static final int MIN_DEFLATE_LENGTH = 64;
+
+    private CompactText() {}
+
+    /**
+     * 文字列をバイト列に変換します。
+     *
+     * @param text 文字列（null 可）
+     * @return バイト列（text が {@code null} の場合は {@code null}）
+     */
+    public static byte[] encode(String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length >= MIN_DEFLATE_LENGTH) {
+            byte[] deflated = deflate(utf8);
+            if (deflated.length < utf8.length) {
+                return withFormat(DEFLATED, deflated);
+            }
+        }
+        return withFormat(RAW, utf8);
+    }
+
+    /**
+     * {@link #encode(String)} で変換したバイト列を文字列に戻します。
+     *
+     * @param bytes バイト列（null 可）
+     * @return 文字列（bytes が {@code null} の場合は {@code null}）
+     * @throws IllegalStateException バイト列が壊れている場合
+     */
+    public static String decode(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        byte[] utf8 = Arrays.copyOfRange(bytes, 1, bytes.length);
+        if (bytes[0] == DEFLATED) {
+            utf8 = inflate(utf8);
+        }
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] withFormat(byte format, byte[] body) {
+        byte[] bytes = new byte[body.length + 1];
+        bytes[0] = format;
+        System.arraycopy(body, 0, bytes, 1, body.length);
+        return bytes;
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 3);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("truncated compressed text");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("corrupted compressed text", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
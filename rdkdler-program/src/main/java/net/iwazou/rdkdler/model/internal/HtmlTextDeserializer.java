@@ -0,0 +1,25 @@
+package net.iwazou.rdkdler.model.internal;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import java.io.IOException;
+import net.iwazou.rdkdler.model.HtmlText;
+
+/**
+ * 番組説明（{@code desc}・{@code info}）を {@link HtmlText} にデシリアライズするデシリアライザーです。
+ *
+ * <p>本クラスはモデルが共有する内部実装（internal）です。
+ * {@link ModelReaders#COMPRESS_DETAILS} 属性が {@link Boolean#TRUE} の場合は {@link HtmlText#compressed(String)}、
+ * それ以外の場合は {@link HtmlText#of(String)} で生成します。
+ */
+public final class HtmlTextDeserializer extends JsonDeserializer<HtmlText> {
+
+    @Override
+    public HtmlText deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        String html = ctxt.readValue(p, String.class);
+        return Boolean.TRUE.equals(ctxt.getAttribute(ModelReaders.COMPRESS_DETAILS))
+                ? HtmlText.compressed(html)
+                : HtmlText.of(html);
+    }
+}
@@ -0,0 +1,195 @@
+package net.iwazou.rdkdler.model.internal;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import net.iwazou.rdkdler.exception.RdkResponseException;
+import net.iwazou.rdkdler.model.AreaStations;
+import net.iwazou.rdkdler.model.ProgramEntry;
+import net.iwazou.rdkdler.model.ProgramSchedule;
+import net.iwazou.rdkdler.model.ProgramSearchResult;
+
+/**
+ * レスポンス（XML/JSON）をモデルへデシリアライズする {@link ObjectReader} を、モデルの型ごとに保持するクラスです。
+ *
+ * <p>本クラスは各サービスが共有する内部実装（internal）です。
+ * {@link ObjectMapper} の生成と、型ごとのデシリアライザーの構築はコストが大きいため、
+ * クラスの初期化時に一度だけ行い、以降はすべての呼び出しで同じ {@link ObjectReader} を使用します。
+ * {@link ObjectReader} は不変でスレッドセーフなため、複数スレッドから同時に使用できます。
+ *
+ * <p>使用例：
+ * <pre>{@code
+ * ProgramSchedule schedule = ModelReaders.read(ProgramSchedule.class, body);
+ * }</pre>
+ *
+ * <p>番組説明（{@code desc}・{@code info}）は、既定ではそのまま {@link net.iwazou.rdkdler.model.HtmlText} に保持します。
+ * {@code compressDetails} に {@code true} を指定した場合は、長い番組説明を圧縮して保持します
+ * （解析時に圧縮する分の処理が増える代わりに、保持するメモリが減ります）。
+ */
+public final class ModelReaders {
+
+    /**
+     * 番組説明を圧縮して保持するかどうかを {@link HtmlTextDeserializer} に渡す、デシリアライズ時の属性のキーです。
+     */
+    static final Object COMPRESS_DETAILS = new Object();
+
+    /**
+     * 番組表・放送局一覧（XML）用の設定です。
+     */
+    private static final XmlMapper XML_MAPPER =
+            XmlMapper.builder()
+                    .addModule(new JavaTimeModule())
+                    .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                    .build();
+
+    /**
+     * 番組の詳細（{@code desc}・{@code info}）を読み飛ばす、番組表（XML）用の設定です。
+     */
+    private static final XmlMapper XML_SUMMARY_MAPPER =
+            XmlMapper.builder()
+                    .addModule(new JavaTimeModule())
+                    .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                    .addMixIn(ProgramEntry.class, ProgramEntrySummaryMixin.class)
+                    .build();
+
+    /**
+     * 番組検索（JSON）用の設定です。
+     */
+    private static final ObjectMapper JSON_MAPPER =
+            new ObjectMapper()
+                    .registerModule(new JavaTimeModule())
+                    .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    // 空文字→nullを許容
+                    .configure(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT, true);
+
+    /**
+     * モデルの型ごとの {@link ObjectReader} です（変更不可）。
+     */
+    private static final Map<Class<?>, ObjectReader> READERS =
+            Map.of(
+                    ProgramSchedule.class, XML_MAPPER.readerFor(ProgramSchedule.class),
+                    AreaStations.class, XML_MAPPER.readerFor(AreaStations.class),
+                    ProgramSearchResult.class, JSON_MAPPER.readerFor(ProgramSearchResult.class));
+
+    /**
+     * 番組（{@code prog} 要素）の {@link ObjectReader} です。
+     */
+    private static final ObjectReader ENTRY_READER = XML_MAPPER.readerFor(ProgramEntry.class);
+
+    /**
+     * 番組の詳細を読み飛ばす、番組（{@code prog} 要素）の {@link ObjectReader} です。
+     */
+    private static final ObjectReader ENTRY_SUMMARY_READER =
+            XML_SUMMARY_MAPPER.readerFor(ProgramEntry.class);
+
+    private ModelReaders() {}
+
+    /**
+     * 指定したモデルの型の {@link ObjectReader} を返します。
+     *
+     * @param type モデルの型
+     * @return {@link ObjectReader}
+     * @throws IllegalArgumentException 登録されていない型の場合
+     */
+    public static ObjectReader readerFor(Class<?> type) {
+        ObjectReader reader = READERS.get(type);
+        if (reader == null) {
+            throw new IllegalArgumentException("no reader registered for " + type.getName());
+        }
+        return reader;
+    }
+
+    /**
+     * レスポンスの本文を、指定したモデルの型にデシリアライズします。
+     *
+     * @param <T> モデルの型
+     * @param type モデルの型
+     * @param body レスポンスの本文
+     * @return デシリアライズしたモデル
+     * @throws IllegalArgumentException 登録されていない型の場合
+     * @throws IOException デシリアライズに失敗した場合
+     */
+    public static <T> T read(Class<T> type, byte[] body) throws IOException {
+        return read(type, body, false);
+    }
+
+    /**
+     * レスポンスの本文を、指定したモデルの型にデシリアライズします。
+     *
+     * @param <T> モデルの型
+     * @param type モデルの型
+     * @param body レスポンスの本文
+     * @param compressDetails 長い番組説明（{@code desc}・{@code info}）を圧縮して保持する場合は {@code true}
+     * @return デシリアライズしたモデル
+     * @throws IllegalArgumentException 登録されていない型の場合
+     * @throws IOException デシリアライズに失敗した場合
+     */
+    public static <T> T read(Class<T> type, byte[] body, boolean compressDetails)
+            throws IOException {
+        return readerFor(type).withAttribute(COMPRESS_DETAILS, compressDetails).readValue(body);
+    }
+
+    /**
+     * XML を先頭から順に読み進める {@link XMLStreamReader} を生成します。
+     *
+     * <p>要素単位で {@link #readProgramEntry(XMLStreamReader, boolean, boolean)} と組み合わせて使用します。
+     * 入力元は呼び出し元で閉じてください。
+     *
+     * @param in 入力元（null 不可）
+     * @return {@link XMLStreamReader}
+     * @throws IOException 生成に失敗した場合
+     */
+    public static XMLStreamReader createXmlStreamReader(InputStream in) throws IOException {
+        try {
+            return XML_MAPPER.getFactory().getXMLInputFactory().createXMLStreamReader(in);
+        } catch (XMLStreamException e) {
+            throw new RdkResponseException("invalid XML response", e);
+        }
+    }
+
+    /**
+     * {@link XMLStreamReader} が指している番組（{@code prog} 要素の開始タグ）を {@link ProgramEntry} にデシリアライズします。
+     *
+     * <p>番組説明はそのまま保持します（{@link #readProgramEntry(XMLStreamReader, boolean, boolean)} の
+     * {@code compressDetails} に {@code false} を指定した場合と同じです）。
+     *
+     * @param reader {@code prog} 要素の開始タグを指している {@link XMLStreamReader}
+     * @param details 番組の詳細（{@code desc}・{@code info}）も読み込む場合は {@code true}
+     *     （{@code false} の場合、詳細は読み飛ばして {@code null} とします）
+     * @return 番組情報
+     * @throws IOException デシリアライズに失敗した場合
+     */
+    public static ProgramEntry readProgramEntry(XMLStreamReader reader, boolean details)
+            throws IOException {
+        return readProgramEntry(reader, details, false);
+    }
+
+    /**
+     * {@link XMLStreamReader} が指している番組（{@code prog} 要素の開始タグ）を {@link ProgramEntry} にデシリアライズします。
+     *
+     * <p>読み込み後、{@link XMLStreamReader} はその要素の終了タグを指します。
+     *
+     * @param reader {@code prog} 要素の開始タグを指している {@link XMLStreamReader}
+     * @param details 番組の詳細（{@code desc}・{@code info}）も読み込む場合は {@code true}
+     *     （{@code false} の場合、詳細は読み飛ばして {@code null} とします）
+     * @param compressDetails 長い番組の詳細を圧縮して保持する場合は {@code true}
+     * @return 番組情報
+     * @throws IOException デシリアライズに失敗した場合
+     */
+    public static ProgramEntry readProgramEntry(
+            XMLStreamReader reader, boolean details, boolean compressDetails) throws IOException {
+        ObjectReader entryReader = details ? ENTRY_READER : ENTRY_SUMMARY_READER;
+        return entryReader
+                .withAttribute(COMPRESS_DETAILS, compressDetails)
+                .readValue(XML_MAPPER.getFactory().createParser(reader));
+    }
+}
@@ -0,0 +1,12 @@
+package net.iwazou.rdkdler.model.internal;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import net.iwazou.rdkdler.model.ProgramEntry;
+
+/**
+ * 番組の詳細（{@code desc}・{@code info}）を読み飛ばすための {@link ProgramEntry} の Mix-in です。
+ *
+ * <p>{@code desc}・{@code info} は HTML を含む長い文字列のため、番組を絞り込むだけの場合は文字列を生成せずに読み飛ばします。
+ */
+@JsonIgnoreProperties({"desc", "info"})
+abstract class ProgramEntrySummaryMixin {}
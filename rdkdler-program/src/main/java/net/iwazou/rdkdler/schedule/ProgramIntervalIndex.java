@@ -0,0 +1,458 @@
+package net.iwazou.rdkdler.schedule;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import net.iwazou.rdkdler.model.ProgramEntry;
+import net.iwazou.rdkdler.model.ProgramSchedule;
+
+/**
+ * ラジオ局ごとに、番組の放送時間（{@link ProgramEntry#getFt()}〜{@link ProgramEntry#getTo()}）の索引を保持するクラスです。
+ *
+ * <p>指定した日時に放送している番組（{@link #programAt(String, LocalDateTime)}）、
+ * 指定した期間と重なる番組（{@link #overlapping(String, LocalDateTime, LocalDateTime)}）、
+ * 番組のない時間帯（{@link #gaps(String, LocalDateTime, LocalDateTime)}）を、
+ * 番組を順に調べることなく二分探索で求めます。
+ *
+ * <p>索引は、番組を開始日時の昇順に並べた配列と、先頭からの終了日時の最大値の配列で構成します。
+ * 番組が重なっていても正しく検索できます（重なりがない通常の番組表では、日時の検索は O(log n) です）。
+ *
+ * <p>同じラジオ局・同じ開始日時の番組を追加した場合は、後から追加した番組で置き換えます。
+ * 開始日時・終了日時のない番組は索引に含めません。
+ *
+ * <p>追加した番組はラジオ局ごとに保留し、次にそのラジオ局を検索したときにまとめて索引へ反映します。
+ * 番組を 1 件ずつ追加しても、索引の作成は検索の前に 1 回だけです。
+ *
+ * <p><b>スレッドセーフ</b>：複数スレッドから同時に利用できます。ラジオ局ごとの索引は不変で、
+ * 反映時は新しい索引を作成して置き換えるため、保留中の番組がなければ検索はロックを取得せず、
+ * 追加中も追加前または追加後の索引を参照します。
+ *
+ * <p>使用例：
+ * <pre>{@code
+ * ProgramIntervalIndex index = new ProgramIntervalIndex();
+ * index.addAll(programScheduleService.getProgramSchedule(AreaPrefecture.TOKYO, date));
+ * Optional<ScheduledProgram> onAir = index.programAt("TBS", LocalDateTime.now());
+ * }</pre>
+ */
+public class ProgramIntervalIndex {
+
+    /**
+     * 局 ID ごとの索引です。
+     */
+    private final Map<String, Station> stations = new ConcurrentHashMap<>();
+
+    /**
+     * 番組表のすべての番組を索引に追加します。
+     *
+     * @param schedule 番組スケジュール情報（null 不可）
+     * @return 索引に追加した番組の件数（置き換えた番組を含み、開始日時・終了日時のない番組を除きます）
+     * @throws NullPointerException schedule が {@code null} の場合
+     */
+    public int addAll(ProgramSchedule schedule) {
+        return addAll(ScheduledProgram.listOf(schedule));
+    }
+
+    /**
+     * 番組を索引に追加します。
+     *
+     * <p>索引への反映は、次にそのラジオ局を検索するときに行います。
+     *
+     * @param program 番組（null 不可）
+     * @return 索引に追加した場合は {@code true}（開始日時・終了日時・局 ID のない番組は {@code false}）
+     * @throws NullPointerException program が {@code null} の場合
+     */
+    public boolean add(ScheduledProgram program) {
+        if (!indexable(program)) {
+            return false;
+        }
+        station(program.stationId()).add(List.of(program));
+        return true;
+    }
+
+    /**
+     * 番組を索引に追加します。
+     *
+     * <p>索引への反映は、次にそのラジオ局を検索するときに行います。
+     *
+     * @param programs 番組（null 不可）
+     * @return 索引に追加した番組の件数（置き換えた番組を含み、開始日時・終了日時・局 ID のない番組を除きます）
+     * @throws NullPointerException programs が {@code null} の場合
+     */
+    public int addAll(Collection<ScheduledProgram> programs) {
+        Map<String, List<ScheduledProgram>> byStation = new HashMap<>();
+        int added = 0;
+        for (ScheduledProgram program : programs) {
+            if (indexable(program)) {
+                byStation.computeIfAbsent(program.stationId(), k -> new ArrayList<>()).add(program);
+                added++;
+            }
+        }
+        for (Map.Entry<String, List<ScheduledProgram>> e : byStation.entrySet()) {
+            station(e.getKey()).add(e.getValue());
+        }
+        return added;
+    }
+
+    private static boolean indexable(ScheduledProgram program) {
+        ProgramEntry entry = program.entry();
+        return program.stationId() != null
+                && entry != null
+                && entry.getFt() != null
+                && entry.getTo() != null;
+    }
+
+    private Station station(String stationId) {
+        return stations.computeIfAbsent(stationId, k -> new Station());
+    }
+
+    /**
+     * ラジオ局の索引を、保留中の番組を反映して返します。
+     *
+     * @param stationId 局 ID
+     * @return 索引（索引にないラジオ局の場合は {@code null}）
+     */
+    private Timeline timeline(String stationId) {
+        Station station = stations.get(stationId);
+        return station == null ? null : station.timeline();
+    }
+
+    /**
+     * 指定したラジオ局で、指定した日時に放送している番組を返します。
+     *
+     * <p>開始日時以上・終了日時未満の番組を返します。該当する番組が複数ある場合は、開始日時が最も遅い番組を返します。
+     *
+     * @param stationId ラジオ局の局 ID（null 不可）
+     * @param at 日時（null 不可）
+     * @return 番組（該当する番組がない場合は空）
+     * @throws NullPointerException 引数のいずれかが {@code null} の場合
+     */
+    public Optional<ScheduledProgram> programAt(String stationId, LocalDateTime at) {
+        Timeline timeline = timeline(Objects.requireNonNull(stationId));
+        long t = toEpochSecond(at);
+        if (timeline == null) {
+            return Optional.empty();
+        }
+        // 開始日時が t 以下の番組を後ろから調べる（終了日時の最大値が t 以下になったら、それより前にはない）
+        for (int i = timeline.upperBound(t) - 1; i >= 0 && timeline.maxEnds[i] > t; i--) {
+            if (timeline.ends[i] > t) {
+                return Optional.of(timeline.programs[i]);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 指定したラジオ局で、指定した期間と重なる番組を返します。
+     *
+     * <p>開始日時が {@code to} より前で、終了日時が {@code from} より後の番組を返します。
+     *
+     * @param stationId ラジオ局の局 ID（null 不可）
+     * @param from 期間の開始日時（null 不可）
+     * @param to 期間の終了日時（この日時を含まない。null 不可）
+     * @return 番組（開始日時の昇順）
+     * @throws NullPointerException 引数のいずれかが {@code null} の場合
+     */
+    public List<ScheduledProgram> overlapping(
+            String stationId, LocalDateTime from, LocalDateTime to) {
+        Timeline timeline = timeline(Objects.requireNonNull(stationId));
+        long start = toEpochSecond(from);
+        long end = toEpochSecond(to);
+        List<ScheduledProgram> found = new ArrayList<>();
+        if (timeline == null || start >= end) {
+            return found;
+        }
+        int last = timeline.upperBound(end - 1);
+        for (int i = timeline.firstEndingAfter(start); i < last; i++) {
+            if (timeline.ends[i] > start) {
+                found.add(timeline.programs[i]);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 指定したラジオ局で、指定した期間のうち番組のない時間帯を返します。
+     *
+     * <p>番組表の取得漏れや、放送休止の時間帯を調べる場合に使用します。
+     *
+     * @param stationId ラジオ局の局 ID（null 不可）
+     * @param from 期間の開始日時（null 不可）
+     * @param to 期間の終了日時（この日時を含まない。null 不可）
+     * @return 番組のない時間帯（開始日時の昇順）
+     * @throws NullPointerException 引数のいずれかが {@code null} の場合
+     */
+    public List<Gap> gaps(String stationId, LocalDateTime from, LocalDateTime to) {
+        List<Gap> gaps = new ArrayList<>();
+        LocalDateTime covered = from;
+        for (ScheduledProgram program : overlapping(stationId, from, to)) {
+            LocalDateTime ft = program.entry().getFt();
+            LocalDateTime et = program.entry().getTo();
+            if (ft.isAfter(covered)) {
+                gaps.add(new Gap(covered, ft));
+            }
+            if (et.isAfter(covered)) {
+                covered = et;
+            }
+        }
+        if (covered.isBefore(to)) {
+            gaps.add(new Gap(covered, to));
+        }
+        return gaps;
+    }
+
+    /**
+     * 番組のない時間帯です。
+     *
+     * @param from 開始日時
+     * @param to 終了日時（この日時を含まない）
+     */
+    public record Gap(LocalDateTime from, LocalDateTime to) {}
+
+    /**
+     * 索引に含まれるラジオ局の局 ID を返します。
+     *
+     * @return 局 ID（昇順）
+     */
+    public Set<String> stationIds() {
+        return new TreeSet<>(stations.keySet());
+    }
+
+    /**
+     * 索引に含まれる番組の件数を返します。
+     *
+     * @return 件数
+     */
+    public int size() {
+        int size = 0;
+        for (Station station : stations.values()) {
+            size += station.timeline().size();
+        }
+        return size;
+    }
+
+    /**
+     * 索引をすべて破棄します。
+     */
+    public void clear() {
+        stations.clear();
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * 1 局分の索引と、索引に反映していない番組です。
+     */
+    private static final class Station {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * 反映済みの索引です。
+         */
+        private volatile Timeline timeline = Timeline.EMPTY;
+
+        /**
+         * 索引に反映していない番組です（追加順。{@link #lock} で保護）。
+         */
+        private List<ScheduledProgram> pending = new ArrayList<>();
+
+        /**
+         * 索引に反映していない番組があるかどうかです。
+         */
+        private volatile boolean dirty;
+
+        /**
+         * 番組を保留します。
+         *
+         * @param programs 番組（開始日時・終了日時は null 不可）
+         */
+        void add(List<ScheduledProgram> programs) {
+            lock.lock();
+            try {
+                pending.addAll(programs);
+                dirty = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 保留中の番組をまとめて反映し、索引を返します。
+         *
+         * @return 索引
+         */
+        Timeline timeline() {
+            if (!dirty) {
+                return timeline;
+            }
+            lock.lock();
+            try {
+                if (dirty) {
+                    timeline = Timeline.merge(timeline, Timeline.of(pending));
+                    pending = new ArrayList<>();
+                    dirty = false;
+                }
+                return timeline;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 1 局分の索引です（不変）。
+     */
+    private static final class Timeline {
+
+        static final Timeline EMPTY = new Timeline(new ScheduledProgram[0]);
+
+        /**
+         * 開始日時の昇順の番組です。
+         */
+        private final ScheduledProgram[] programs;
+
+        /**
+         * 番組の開始日時（エポック秒）です。
+         */
+        private final long[] starts;
+
+        /**
+         * 番組の終了日時（エポック秒）です。
+         */
+        private final long[] ends;
+
+        /**
+         * 先頭からその番組までの終了日時の最大値です（昇順になります）。
+         */
+        private final long[] maxEnds;
+
+        private Timeline(ScheduledProgram[] programs) {
+            this.programs = programs;
+            this.starts = new long[programs.length];
+            this.ends = new long[programs.length];
+            this.maxEnds = new long[programs.length];
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < programs.length; i++) {
+                starts[i] = toEpochSecond(programs[i].entry().getFt());
+                ends[i] = toEpochSecond(programs[i].entry().getTo());
+                max = Math.max(max, ends[i]);
+                maxEnds[i] = max;
+            }
+        }
+
+        /**
+         * 番組から索引を作成します。同じ開始日時の番組は、後の番組のみを含めます。
+         *
+         * @param programs 番組（開始日時・終了日時は null 不可）
+         * @return 索引
+         */
+        static Timeline of(List<ScheduledProgram> programs) {
+            ScheduledProgram[] sorted = programs.toArray(ScheduledProgram[]::new);
+            // 安定ソートのため、同じ開始日時の番組は追加順に並ぶ
+            Arrays.sort(sorted, Comparator.comparing(p -> p.entry().getFt()));
+            return new Timeline(merge(sorted, new ScheduledProgram[0]));
+        }
+
+        /**
+         * 2 つの索引を統合した索引を作成します。同じ開始日時の番組は {@code added} の番組を含めます。
+         *
+         * @param current 現在の索引
+         * @param added 追加する番組の索引
+         * @return 統合した索引
+         */
+        static Timeline merge(Timeline current, Timeline added) {
+            return new Timeline(merge(current.programs, added.programs));
+        }
+
+        /**
+         * 開始日時の昇順の 2 つの配列を統合します。開始日時が同じ番組は後の番組（{@code b} を優先）のみを含めます。
+         *
+         * @param a 開始日時の昇順の番組
+         * @param b 開始日時の昇順の番組
+         * @return 統合した配列
+         */
+        private static ScheduledProgram[] merge(ScheduledProgram[] a, ScheduledProgram[] b) {
+            List<ScheduledProgram> merged = new ArrayList<>(a.length + b.length);
+            int i = 0;
+            int j = 0;
+            while (i < a.length || j < b.length) {
+                ScheduledProgram next;
+                // 開始日時が同じ場合は a を先に並べ、b で置き換える
+                if (j >= b.length
+                        || (i < a.length
+                                && !a[i].entry().getFt().isAfter(b[j].entry().getFt()))) {
+                    next = a[i++];
+                } else {
+                    next = b[j++];
+                }
+                int lastIndex = merged.size() - 1;
+                if (lastIndex >= 0
+                        && merged.get(lastIndex).entry().getFt().equals(next.entry().getFt())) {
+                    merged.set(lastIndex, next);
+                } else {
+                    merged.add(next);
+                }
+            }
+            return merged.toArray(ScheduledProgram[]::new);
+        }
+
+        int size() {
+            return programs.length;
+        }
+
+        /**
+         * 開始日時が {@code t} より後の最初の番組の位置を返します。
+         *
+         * @param t 日時（エポック秒）
+         * @return 位置（該当する番組がない場合は件数）
+         */
+        int upperBound(long t) {
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] <= t) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * 先頭からの終了日時の最大値が {@code t} より後になる最初の位置を返します。
+         * この位置より前の番組は、すべて {@code t} 以前に終了しています。
+         *
+         * @param t 日時（エポック秒）
+         * @return 位置（該当する番組がない場合は件数）
+         */
+        int firstEndingAfter(long t) {
+            int low = 0;
+            int high = maxEnds.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (maxEnds[mid] <= t) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package net.iwazou.rdkdler.schedule;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import net.iwazou.rdkdler.exception.RdkResponseException;
+import net.iwazou.rdkdler.model.DailyProgramSchedule;
+import net.iwazou.rdkdler.model.ProgramEntry;
+import net.iwazou.rdkdler.model.StationProgramSchedule;
+import net.iwazou.rdkdler.model.internal.ModelReaders;
+
+/**
+ * 番組表 XML を先頭から順に読み進め、ラジオ局・番組を 1 件ずつ返すリーダーです（StAX）。
+ *
+ * <p>{@link ProgramScheduleService#getProgramSchedule(net.iwazou.rdkdler.area.AreaPrefecture,
+ * LocalDate)} は XML 全体を 1 つの {@link net.iwazou.rdkdler.model.ProgramSchedule} にマッピングするため、
+ * すべての番組（{@link ProgramEntry}）を同時に保持します。本クラスは番組を 1 件ずつマッピングするため、
+ * 同時に保持するのは読み込み中の番組（{@link #readStation()} の場合は 1 局分）のみです。
+ *
+ * <p>ラジオ局は {@link #nextStation()} で、その局の番組は {@link #nextProgram()} で順に取得します。
+ * 番組を読み終える前に {@link #nextStation()} を呼び出した場合、残りの番組は読み飛ばします。
+ * すべての番組をラジオ局・放送日とともに受け取る場合は {@link #forEachProgram(Consumer)} を使用します。
+ *
+ * <p>本クラスはスレッドセーフではありません。
+ *
+ * <p>使用例：
+ * <pre>{@code
+ * try (ProgramScheduleReader reader = new ProgramScheduleReader(in)) {
+ *     while (reader.nextStation()) {
+ *         ProgramEntry entry;
+ *         while ((entry = reader.nextProgram()) != null) {
+ *             log.info("{} {} {}", reader.stationId(), reader.date(), entry.getTitle());
+ *         }
+ *     }
+ * }
+ * }</pre>
+ */
+public final class ProgramScheduleReader implements Closeable {
+
+    private static final String TTL = "ttl";
+    private static final String SRVTIME = "srvtime";
+    private static final String STATION = "station";
+    private static final String NAME = "name";
+    private static final String PROGS = "progs";
+    private static final String DATE = "date";
+    private static final String PROG = "prog";
+
+    private final XMLStreamReader xml;
+
+    /**
+     * 番組の詳細（{@code desc}・{@code info}）も読み込む場合は {@code true} です。
+     */
+    private final boolean details;
+
+    /**
+     * 長い番組の詳細を圧縮して保持する場合は {@code true} です。
+     */
+    private final boolean compressDetails;
+
+    /**
+     * XML要素 {@code ttl} の値です。
+     */
+    private String ttl;
+
+    /**
+     * XML要素 {@code srvtime} の値です。
+     */
+    private String srvtime;
+
+    /**
+     * 読み込み中のラジオ局の局 ID です。
+     */
+    private String stationId;
+
+    /**
+     * 読み込み中のラジオ局名です。
+     */
+    private String stationName;
+
+    /**
+     * 読み込み中の {@code progs} 要素の放送日です。
+     */
+    private LocalDate date;
+
+    /**
+     * 読み込み中の {@code progs} 要素の通し番号です（{@link #readStation()} で日ごとにまとめるために使用します）。
+     */
+    private int progsCount;
+
+    /**
+     * ラジオ局（{@code station} 要素）の中を読み込み中の場合は {@code true} です。
+     */
+    private boolean inStation;
+
+    /**
+     * 現在の位置の開始タグが未処理の場合は {@code true} です。
+     */
+    private boolean pending;
+
+    /**
+     * 番組の詳細も読み込むリーダーを生成します。
+     *
+     * @param in 番組表 XML の入力元（null 不可。{@link #close()} では閉じません）
+     * @throws NullPointerException in が {@code null} の場合
+     * @throws IOException 生成に失敗した場合
+     */
+    public ProgramScheduleReader(InputStream in) throws IOException {
+        this(in, true);
+    }
+
+    /**
+     * リーダーを生成します。
+     *
+     * @param in 番組表 XML の入力元（null 不可。{@link #close()} では閉じません）
+     * @param details 番組の詳細（{@code desc}・{@code info}）も読み込む場合は {@code true}
+     *     （{@code false} の場合、HTML を含む詳細は文字列を生成せずに読み飛ばし、{@code null} とします）
+     * @throws NullPointerException in が {@code null} の場合
+     * @throws IOException 生成に失敗した場合
+     */
+    public ProgramScheduleReader(InputStream in, boolean details) throws IOException {
+        this(in, details, false);
+    }
+
+    /**
+     * リーダーを生成します。
+     *
+     * @param in 番組表 XML の入力元（null 不可。{@link #close()} では閉じません）
+     * @param details 番組の詳細（{@code desc}・{@code info}）も読み込む場合は {@code true}
+     *     （{@code false} の場合、HTML を含む詳細は文字列を生成せずに読み飛ばし、{@code null} とします）
+     * @param compressDetails 長い番組の詳細を圧縮して保持する場合は {@code true}
+     *     （{@link net.iwazou.rdkdler.model.HtmlText#compressed(String)}）
+     * @throws NullPointerException in が {@code null} の場合
+     * @throws IOException 生成に失敗した場合
+     */
+    public ProgramScheduleReader(InputStream in, boolean details, boolean compressDetails)
+            throws IOException {
+        this.xml = ModelReaders.createXmlStreamReader(Objects.requireNonNull(in));
+        this.details = details;
+        this.compressDetails = compressDetails;
+    }
+
+    /**
+     * 次のラジオ局（{@code station} 要素）へ進みます。
+     *
+     * @return 次のラジオ局がある場合は {@code true}、XML の終わりに達した場合は {@code false}
+     * @throws IOException XML の解析に失敗した場合
+     */
+    public boolean nextStation() throws IOException {
+        try {
+            if (inStation) {
+                skipStation();
+            }
+            stationId = null;
+            stationName = null;
+            date = null;
+            while (xml.hasNext()) {
+                if (xml.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                switch (xml.getLocalName()) {
+                    case STATION -> {
+                        stationId = xml.getAttributeValue(null, "id");
+                        inStation = true;
+                        readStationName();
+                        return true;
+                    }
+                    case TTL -> ttl = xml.getElementText();
+                    case SRVTIME -> srvtime = xml.getElementText();
+                    default -> {}
+                }
+            }
+            return false;
+        } catch (XMLStreamException e) {
+            throw new RdkResponseException("invalid XML response", e);
+        }
+    }
+
+    /**
+     * 読み込み中のラジオ局の次の番組（{@code prog} 要素）を返します。
+     *
+     * @return 番組（このラジオ局の番組をすべて読み終えた場合は {@code null}）
+     * @throws IOException XML の解析、または番組のマッピングに失敗した場合
+     */
+    public ProgramEntry nextProgram() throws IOException {
+        try {
+            while (inStation) {
+                int event = pending ? xml.getEventType() : xml.next();
+                pending = false;
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if (PROG.equals(name)) {
+                        return ModelReaders.readProgramEntry(xml, details, compressDetails);
+                    }
+                    switch (name) {
+                        case PROGS -> {
+                            date = null;
+                            progsCount++;
+                        }
+                        case DATE -> date = parseDate(xml.getElementText());
+                        case NAME -> stationName = xml.getElementText();
+                        default -> skipElement();
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT
+                        && STATION.equals(xml.getLocalName())) {
+                    inStation = false;
+                } else if (event == XMLStreamConstants.END_DOCUMENT) {
+                    throw new RdkResponseException("unexpected end of XML in station " + stationId);
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new RdkResponseException("invalid XML response", e);
+        }
+    }
+
+    /**
+     * 次のラジオ局へ進み、その局の番組をすべて読み込んで返します。
+     *
+     * @return ラジオ局の番組情報（XML の終わりに達した場合は {@code null}）
+     * @throws IOException XML の解析、または番組のマッピングに失敗した場合
+     */
+    public StationProgramSchedule readStation() throws IOException {
+        return nextStation() ? readPrograms() : null;
+    }
+
+    /**
+     * 読み込み中のラジオ局の残りの番組をすべて読み込み、ラジオ局の番組情報として返します。
+     *
+     * <p>{@link #nextStation()} で局 ID を確認してから、必要なラジオ局のみを読み込む場合に使用します。
+     *
+     * @return ラジオ局の番組情報（{@link #nextStation()} を呼び出す前は局 ID が {@code null} で、番組は空）
+     * @throws IOException XML の解析、または番組のマッピングに失敗した場合
+     */
+    public StationProgramSchedule readPrograms() throws IOException {
+        List<DailyProgramSchedule> dailies = new ArrayList<>();
+        DailyProgramSchedule daily = null;
+        int dailyProgs = -1;
+        ProgramEntry entry;
+        while ((entry = nextProgram()) != null) {
+            if (daily == null || dailyProgs != progsCount) {
+                daily = new DailyProgramSchedule();
+                daily.setDate(date);
+                daily.setProgramEntrys(new ArrayList<>());
+                dailies.add(daily);
+                dailyProgs = progsCount;
+            }
+            daily.getProgramEntrys().add(entry);
+        }
+        StationProgramSchedule station = new StationProgramSchedule();
+        station.setStationId(stationId);
+        station.setStationName(stationName);
+        station.setDailyProgramSchedules(dailies);
+        return station;
+    }
+
+    /**
+     * 残りのすべての番組を、ラジオ局・放送日とともに順に {@code action} へ渡します。
+     *
+     * <p>番組は 1 件ずつマッピングして渡すため、{@code action} が保持しない番組はすぐに破棄できます。
+     *
+     * @param action 番組を受け取る処理（null 不可）
+     * @throws NullPointerException action が {@code null} の場合
+     * @throws IOException XML の解析、または番組のマッピングに失敗した場合
+     */
+    public void forEachProgram(Consumer<? super ScheduledProgram> action) throws IOException {
+        Objects.requireNonNull(action);
+        do {
+            ProgramEntry entry;
+            while ((entry = nextProgram()) != null) {
+                action.accept(new ScheduledProgram(stationId, stationName, date, entry));
+            }
+        } while (nextStation());
+    }
+
+    /**
+     * XML要素 {@code ttl} の値を返します。
+     *
+     * @return {@code ttl}（最初のラジオ局より前にあるため、{@link #nextStation()} の呼び出し後に取得できます）
+     */
+    public String ttl() {
+        return ttl;
+    }
+
+    /**
+     * XML要素 {@code srvtime} の値を返します。
+     *
+     * @return {@code srvtime}（最初のラジオ局より前にあるため、{@link #nextStation()} の呼び出し後に取得できます）
+     */
+    public String srvtime() {
+        return srvtime;
+    }
+
+    /**
+     * 読み込み中のラジオ局の局 ID を返します。
+     *
+     * @return 局 ID（{@link #nextStation()} を呼び出す前は {@code null}）
+     */
+    public String stationId() {
+        return stationId;
+    }
+
+    /**
+     * 読み込み中のラジオ局名を返します。
+     *
+     * @return ラジオ局名（{@code name} 要素を読み込む前は {@code null}）
+     */
+    public String stationName() {
+        return stationName;
+    }
+
+    /**
+     * 直前に {@link #nextProgram()} で返した番組の放送日（{@code progs} 要素の {@code date}）を返します。
+     *
+     * @return 放送日（{@code date} 要素を読み込む前は {@code null}）
+     */
+    public LocalDate date() {
+        return date;
+    }
+
+    /**
+     * XML の読み込みを終了します。入力元のストリームは閉じません。
+     *
+     * @throws IOException 終了に失敗した場合
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new RdkResponseException("failed to close XML reader", e);
+        }
+    }
+
+    /**
+     * {@code station} 要素の最初の子要素がラジオ局名（{@code name}）の場合は読み込みます。
+     *
+     * @throws XMLStreamException XML の解析に失敗した場合
+     */
+    private void readStationName() throws XMLStreamException {
+        int event = xml.nextTag();
+        if (event == XMLStreamConstants.START_ELEMENT && NAME.equals(xml.getLocalName())) {
+            stationName = xml.getElementText();
+        } else if (event == XMLStreamConstants.START_ELEMENT) {
+            pending = true;
+        } else {
+            inStation = false; // 子要素のない station 要素
+        }
+    }
+
+    /**
+     * 読み込み中の {@code station} 要素の終了タグまで読み飛ばします。
+     *
+     * @throws XMLStreamException XML の解析に失敗した場合
+     */
+    private void skipStation() throws XMLStreamException {
+        // station 要素は入れ子にならないため、同名の終了タグまで進める
+        pending = false;
+        while (xml.hasNext()) {
+            if (xml.next() == XMLStreamConstants.END_ELEMENT
+                    && STATION.equals(xml.getLocalName())) {
+                break;
+            }
+        }
+        inStation = false;
+    }
+
+    /**
+     * 現在の開始タグに対応する終了タグまで読み飛ばします。
+     *
+     * @throws XMLStreamException XML の解析に失敗した場合
+     */
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * 放送日（{@code yyyyMMdd}）を解析します。
+     *
+     * @param text 放送日の文字列
+     * @return 放送日
+     * @throws XMLStreamException 形式が異なる場合
+     */
+    private static LocalDate parseDate(String text) throws XMLStreamException {
+        try {
+            return LocalDate.parse(text.strip(), DateTimeFormatter.BASIC_ISO_DATE);
+        } catch (DateTimeParseException e) {
+            throw new XMLStreamException("invalid date: " + text, e);
+        }
+    }
+}
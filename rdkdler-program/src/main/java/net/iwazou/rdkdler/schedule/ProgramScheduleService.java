@@ -1,29 +1,65 @@
 package net.iwazou.rdkdler.schedule;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.PropertyNamingStrategies;
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.iwazou.rdkdler.area.AreaPrefecture;
+import net.iwazou.rdkdler.exception.RdkDeadlineExceededException;
+import net.iwazou.rdkdler.exception.RdkException;
 import net.iwazou.rdkdler.http.RdkHttpClient;
 import net.iwazou.rdkdler.http.RdkHttpRequest;
 import net.iwazou.rdkdler.http.RdkHttpResponse;
 import net.iwazou.rdkdler.model.ProgramSchedule;
+import net.iwazou.rdkdler.model.StationProgramSchedule;
+import net.iwazou.rdkdler.model.internal.ModelReaders;
 import net.iwazou.rdkdler.util.CommonUtils;
+import net.iwazou.rdkdler.util.Deadline;
 
 /**
  * ラジコの番組スケジュール情報（番組表 XML）を取得するサービスクラスです。
  *
  * <p>HTTP クライアントを用いてラジコが提供する番組表 XML を取得し、
- * Jackson（{@link XmlMapper}）で {@link ProgramSchedule} にマッピングして返します。
+ * Jackson（{@link ModelReaders}）で {@link ProgramSchedule} にマッピングして返します。
  *
  * <p>本クラスは状態を保持しない（依存する {@link RdkHttpClient} を除く）想定のため、
- * スレッドセーフに利用できる設計が望ましいです（呼び出しごとに {@link ObjectMapper} を生成しています）。
+ * スレッドセーフに利用できます（XML の解析には、全サービスで共有する {@link ModelReaders} を使用します）。
+ *
+ * <p>各メソッドには {@link CompletableFuture} を返す非同期版（{@code ～Async}）があります。
+ * 非同期版は {@link RdkHttpClient#getAsync(RdkHttpRequest)} を使用するため、
+ * 多数の番組表を同時に取得する場合でもリクエストごとにスレッドを占有しません。
+ *
+ * <p>番組表全体を保持せずにラジオ局ごとに処理する場合は
+ * {@link #forEachStation(AreaPrefecture, LocalDate, Consumer)} を、番組ごとに処理・絞り込む場合は
+ * {@link #forEachProgram(AreaPrefecture, LocalDate, boolean, Consumer)}・
+ * {@link #findPrograms(AreaPrefecture, LocalDate, boolean, Predicate)} を使用します。
+ *
+ * <p>各メソッドには、処理全体の期限（{@link Deadline}）を指定する版があります。
+ * 期限は送信するすべてのリクエストに設定し（{@link RdkHttpRequest#getDeadline()}）、
+ * 期限を過ぎた場合は {@link RdkDeadlineExceededException} をスローします。
+ *
+ * <p>{@link #setCompressDetails(boolean)} で {@code true} を設定すると、長い番組説明（{@code desc}・{@code info}）を
+ * 圧縮して保持します（{@link net.iwazou.rdkdler.model.HtmlText#compressed(String)}）。
+ * 番組表を長時間保持する場合にメモリを減らせますが、解析時に圧縮する分の処理が増えます。
  */
 @RequiredArgsConstructor
 @Slf4j
@@ -41,6 +77,14 @@ public class ProgramScheduleService {
      */
     private final DateTimeFormatter fmt = DateTimeFormatter.ofPattern("yyyyMMdd");
 
+    /**
+     * 長い番組説明（{@code desc}・{@code info}）を圧縮して保持する場合は {@code true} です（デフォルト {@code false}）。
+     *
+     * @param compressDetails 長い番組説明を圧縮して保持する場合は {@code true}
+     * @return 長い番組説明を圧縮して保持する場合は {@code true}
+     */
+    @Getter @Setter private volatile boolean compressDetails = false;
+
     /**
      * ラジコのサーバーにアクセスして、指定したラジオ局の週間番組表（前後1週間程度）を取得します。
      *
@@ -58,18 +102,58 @@ public class ProgramScheduleService {
      */
     public ProgramSchedule getProgramSchedule(String stationId)
             throws IOException, InterruptedException {
-        String url = String.format("https://radiko.jp/v3/program/station/weekly/%s.xml", stationId);
-        log.debug("getProgramSchedule(String) : アクセスURL={}", url);
-        RdkHttpResponse response = rdkHttpClient.get(RdkHttpRequest.builder().url(url).build());
-        String body = CommonUtils.getBody(response);
-        log.debug("getProgramSchedule(String) : レスポンスボディ={}", body);
-        ObjectMapper objectMapper =
-                new XmlMapper()
-                        .registerModule(new JavaTimeModule())
-                        .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
-        ProgramSchedule programSchedule = objectMapper.readValue(body, ProgramSchedule.class);
-        log.debug("getProgramSchedule(String) : ラジオ局のスケジュール情報={}", programSchedule);
-        return programSchedule;
+        return getProgramSchedule(stationId, null);
+    }
+
+    /**
+     * 期限を指定して、指定したラジオ局の週間番組表を取得します。
+     *
+     * <p>処理は {@link #getProgramSchedule(String)} と同じです。
+     *
+     * @param stationId ラジオ局の局 ID（例: {@code "TBS"}）
+     * @param deadline 処理全体の期限（null 可。{@code null} の場合は期限なし）
+     * @return 指定ラジオ局の番組スケジュール情報
+     * @throws RdkDeadlineExceededException 期限までに取得できなかった場合
+     * @throws IOException
+     *         通信・レスポンス読み取り・XML 解析（マッピング）で入出力エラーが発生した場合
+     * @throws InterruptedException
+     *         HTTP 通信処理中などにスレッドが割り込まれた場合
+     */
+    public ProgramSchedule getProgramSchedule(String stationId, Deadline deadline)
+            throws IOException, InterruptedException {
+        String url = weeklyUrl(stationId);
+        log.debug("getProgramSchedule(String, Deadline) : アクセスURL={}", url);
+        RdkHttpResponse response = rdkHttpClient.get(request(url, deadline));
+        return toProgramSchedule("getProgramSchedule(String, Deadline)", response);
+    }
+
+    /**
+     * {@link #getProgramSchedule(String)} の非同期版です。
+     *
+     * @param stationId ラジオ局の局 ID（例: {@code "TBS"}）
+     * @return 指定ラジオ局の番組スケジュール情報で完了する {@link CompletableFuture}
+     *     （通信・XML 解析でエラーが発生した場合は、その {@link IOException} を原因として例外完了します）
+     */
+    public CompletableFuture<ProgramSchedule> getProgramScheduleAsync(String stationId) {
+        return getProgramScheduleAsync(stationId, null);
+    }
+
+    /**
+     * {@link #getProgramSchedule(String, Deadline)} の非同期版です。
+     *
+     * @param stationId ラジオ局の局 ID（例: {@code "TBS"}）
+     * @param deadline 処理全体の期限（null 可。{@code null} の場合は期限なし）
+     * @return 指定ラジオ局の番組スケジュール情報で完了する {@link CompletableFuture}
+     *     （期限を過ぎた場合は {@link RdkDeadlineExceededException} を原因として例外完了します）
+     */
+    public CompletableFuture<ProgramSchedule> getProgramScheduleAsync(
+            String stationId, Deadline deadline) {
+        String url = weeklyUrl(stationId);
+        String method = "getProgramScheduleAsync(String, Deadline)";
+        log.debug("{} : アクセスURL={}", method, url);
+        return rdkHttpClient
+                .getAsync(request(url, deadline))
+                .thenApply(CommonUtils.unchecked(response -> toProgramSchedule(method, response)));
     }
 
     /**
@@ -93,22 +177,552 @@ public class ProgramScheduleService {
      */
     public ProgramSchedule getProgramSchedule(AreaPrefecture area, LocalDate date)
             throws IOException, InterruptedException {
-        String url =
-                String.format(
-                        "https://api.radiko.jp/program/v3/date/%s/area/%s.xml",
-                        date.format(fmt), area.getAreaId());
-        log.debug("getProgramSchedule(AreaPrefecture, LocalDate) : アクセスURL={}", url);
-        RdkHttpResponse response = rdkHttpClient.get(RdkHttpRequest.builder().url(url).build());
-        String body = CommonUtils.getBody(response);
-        log.debug("getProgramSchedule(AreaPrefecture, LocalDate) : レスポンスボディ={}", body);
-        ObjectMapper objectMapper =
-                new XmlMapper()
-                        .registerModule(new JavaTimeModule())
-                        .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
-        ProgramSchedule programSchedule = objectMapper.readValue(body, ProgramSchedule.class);
-        log.debug(
-                "getProgramSchedule(AreaPrefecture, LocalDate) : ラジオ局のスケジュール情報={}",
-                programSchedule);
+        return getProgramSchedule(area, date, null);
+    }
+
+    /**
+     * 期限を指定して、指定都道府県エリア内の放送局の指定日付の番組表を取得します。
+     *
+     * <p>処理は {@link #getProgramSchedule(AreaPrefecture, LocalDate)} と同じです。
+     *
+     * @param area ラジコのエリア（都道府県）コード（null 不可）
+     * @param date 番組情報を取得する日付（null 不可）
+     * @param deadline 処理全体の期限（null 可。{@code null} の場合は期限なし）
+     * @return 指定エリア・指定日付の番組スケジュール情報
+     * @throws RdkDeadlineExceededException 期限までに取得できなかった場合
+     * @throws IOException
+     *         通信・レスポンス読み取り・XML 解析（マッピング）で入出力エラーが発生した場合
+     * @throws InterruptedException
+     *         HTTP 通信処理中などにスレッドが割り込まれた場合
+     * @throws NullPointerException {@code area} または {@code date} が {@code null} の場合
+     */
+    public ProgramSchedule getProgramSchedule(
+            AreaPrefecture area, LocalDate date, Deadline deadline)
+            throws IOException, InterruptedException {
+        String url = dateAreaUrl(area, date);
+        String method = "getProgramSchedule(AreaPrefecture, LocalDate, Deadline)";
+        log.debug("{} : アクセスURL={}", method, url);
+        RdkHttpResponse response = rdkHttpClient.get(request(url, deadline));
+        return toProgramSchedule(method, response);
+    }
+
+    /**
+     * {@link #getProgramSchedule(AreaPrefecture, LocalDate)} の非同期版です。
+     *
+     * @param area ラジコのエリア（都道府県）コード（null 不可）
+     * @param date 番組情報を取得する日付（null 不可）
+     * @return 指定エリア・指定日付の番組スケジュール情報で完了する {@link CompletableFuture}
+     *     （通信・XML 解析でエラーが発生した場合は、その {@link IOException} を原因として例外完了します）
+     * @throws NullPointerException
+     *         {@code area} または {@code date} が {@code null} の場合（本メソッド内で明示チェックはしていません）
+     */
+    public CompletableFuture<ProgramSchedule> getProgramScheduleAsync(
+            AreaPrefecture area, LocalDate date) {
+        return getProgramScheduleAsync(area, date, null);
+    }
+
+    /**
+     * {@link #getProgramSchedule(AreaPrefecture, LocalDate, Deadline)} の非同期版です。
+     *
+     * @param area ラジコのエリア（都道府県）コード（null 不可）
+     * @param date 番組情報を取得する日付（null 不可）
+     * @param deadline 処理全体の期限（null 可。{@code null} の場合は期限なし）
+     * @return 指定エリア・指定日付の番組スケジュール情報で完了する {@link CompletableFuture}
+     *     （期限を過ぎた場合は {@link RdkDeadlineExceededException} を原因として例外完了します）
+     * @throws NullPointerException {@code area} または {@code date} が {@code null} の場合
+     */
+    public CompletableFuture<ProgramSchedule> getProgramScheduleAsync(
+            AreaPrefecture area, LocalDate date, Deadline deadline) {
+        String url = dateAreaUrl(area, date);
+        String method = "getProgramScheduleAsync(AreaPrefecture, LocalDate, Deadline)";
+        log.debug("{} : アクセスURL={}", method, url);
+        return rdkHttpClient
+                .getAsync(request(url, deadline))
+                .thenApply(CommonUtils.unchecked(response -> toProgramSchedule(method, response)));
+    }
+
+    /**
+     * 全都道府県エリア（{@link AreaPrefecture#values()}）の指定日付の番組表を取得し、全国の番組表として返します。
+     *
+     * <p>エリアごとの番組表は {@link RdkHttpClient#submitAll(List, int)} で同時に
+     * {@code maxConcurrency} 件まで取得し、受信したものから順に解析します。
+     * 複数のエリアに含まれるラジオ局は 1 局として扱い、最初に解析したエリア以外では番組をマッピングせずに読み飛ばします
+     * （同じ日付の同じラジオ局の番組表は、エリアによらず同じ内容である前提です）。
+     *
+     * <p>ラジオ局の順序は、エリアの順（{@link AreaPrefecture#values()}）に、各エリアの番組表の順で初めて現れた順です。
+     * {@code ttl}・{@code srvtime} は最初のエリア（北海道）の番組表の値です。
+     *
+     * <p>いずれかのエリアの取得・解析に失敗した場合は、未送信のリクエストを送信せずに例外をスローします。
+     *
+     * @param date 番組情報を取得する日付（null 不可）
+     * @param maxConcurrency 同時に取得するエリアの最大数
+     * @return 全国の番組スケジュール情報
+     * @throws IOException
+     *         通信・レスポンス読み取り・XML 解析（マッピング）で入出力エラーが発生した場合
+     * @throws InterruptedException
+     *         HTTP 通信処理中などにスレッドが割り込まれた場合
+     * @throws NullPointerException {@code date} が {@code null} の場合
+     * @throws IllegalArgumentException {@code maxConcurrency} が 0 以下の場合
+     */
+    public ProgramSchedule getNationalProgramSchedule(LocalDate date, int maxConcurrency)
+            throws IOException, InterruptedException {
+        return getNationalProgramSchedule(date, maxConcurrency, null);
+    }
+
+    /**
+     * 期限を指定して、全都道府県エリアの指定日付の番組表を取得し、全国の番組表として返します。
+     *
+     * <p>処理は {@link #getNationalProgramSchedule(LocalDate, int)} と同じです。
+     * 期限はすべてのエリアのリクエストに設定し、期限までに送信できなかったエリアは送信しません。
+     * 期限を過ぎた場合は、未完了のリクエストを取り消して例外をスローします。
+     *
+     * @param date 番組情報を取得する日付（null 不可）
+     * @param maxConcurrency 同時に取得するエリアの最大数
+     * @param deadline 処理全体の期限（null 可。{@code null} の場合は期限なし）
+     * @return 全国の番組スケジュール情報
+     * @throws RdkDeadlineExceededException 期限までにすべてのエリアを取得・解析できなかった場合
+     * @throws IOException
+     *         通信・レスポンス読み取り・XML 解析（マッピング）で入出力エラーが発生した場合
+     * @throws InterruptedException
+     *         HTTP 通信処理中などにスレッドが割り込まれた場合
+     * @throws NullPointerException {@code date} が {@code null} の場合
+     * @throws IllegalArgumentException {@code maxConcurrency} が 0 以下の場合
+     */
+    public ProgramSchedule getNationalProgramSchedule(
+            LocalDate date, int maxConcurrency, Deadline deadline)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(date);
+        List<RdkHttpRequest> requests = new ArrayList<>();
+        for (AreaPrefecture area : AreaPrefecture.values()) {
+            requests.add(request(dateAreaUrl(area, date), deadline));
+        }
+        String method = "getNationalProgramSchedule(LocalDate, int, Deadline)";
+        log.debug("{} : エリア数={}, 同時取得数={}", method, requests.size(), maxConcurrency);
+        // 複数のエリアに含まれるラジオ局は、最初に解析したエリアでのみマッピングする
+        Set<String> claimed = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<RdkHttpResponse>> responses =
+                rdkHttpClient.submitAll(requests, maxConcurrency);
+        List<CompletableFuture<AreaSweep>> sweeps = new ArrayList<>(responses.size());
+        for (CompletableFuture<RdkHttpResponse> response : responses) {
+            sweeps.add(response.thenApply(CommonUtils.unchecked(r -> sweep(r, claimed))));
+        }
+
+        Map<String, StationProgramSchedule> stations = new HashMap<>();
+        List<AreaSweep> done = new ArrayList<>(sweeps.size());
+        try {
+            for (CompletableFuture<AreaSweep> sweep : sweeps) {
+                AreaSweep area = await(sweep, deadline);
+                area.stations().forEach(station -> stations.put(station.getStationId(), station));
+                done.add(area);
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException ioe) {
+                throw ioe;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new RdkException(cause);
+        } finally {
+            responses.forEach(f -> f.cancel(true));
+        }
+
+        Map<String, StationProgramSchedule> national = new LinkedHashMap<>();
+        for (AreaSweep area : done) {
+            for (String stationId : area.stationIds()) {
+                StationProgramSchedule station = stations.get(stationId);
+                if (station != null) {
+                    national.putIfAbsent(stationId, station);
+                }
+            }
+        }
+        ProgramSchedule schedule = new ProgramSchedule();
+        schedule.setTtl(done.get(0).ttl());
+        schedule.setSrvtime(done.get(0).srvtime());
+        schedule.setStationProgramSchedules(new ArrayList<>(national.values()));
+        log.debug("{} : ラジオ局数={}", method, national.size());
+        return schedule;
+    }
+
+    /**
+     * 1 エリア分の解析結果を待ちます。期限を指定した場合は、期限までの残り時間だけ待ちます。
+     *
+     * @param sweep 解析結果
+     * @param deadline 処理全体の期限（null 可）
+     * @return 解析結果
+     * @throws RdkDeadlineExceededException 期限までに解析が完了しなかった場合
+     * @throws ExecutionException 取得・解析に失敗した場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    private static AreaSweep await(CompletableFuture<AreaSweep> sweep, Deadline deadline)
+            throws ExecutionException, InterruptedException, RdkDeadlineExceededException {
+        if (deadline == null) {
+            return sweep.get();
+        }
+        try {
+            return sweep.get(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new RdkDeadlineExceededException("Deadline exceeded: national schedule", e);
+        }
+    }
+
+    /**
+     * 指定都道府県エリア内の放送局の指定日付の番組表を取得し、ラジオ局ごとに {@code action} へ渡します。
+     *
+     * <p>{@link #getProgramSchedule(AreaPrefecture, LocalDate)} と同じ番組表を、{@link ProgramScheduleReader}
+     * で 1 局ずつマッピングします。番組表全体を {@link ProgramSchedule} として保持しないため、
+     * 多数のエリアを続けて処理する場合でも、同時に保持する番組は 1 局分のみです
+     * （{@code action} に渡したラジオ局を保持し続けない場合）。
+     *
+     * <p>なお、レスポンスの本文（XML のバイト列）は {@link RdkHttpClient} が受信時にまとめて保持します。
+     *
+     * @param area ラジコのエリア（都道府県）コード（null 不可）
+     * @param date 番組情報を取得する日付（null 不可）
+     * @param action ラジオ局ごとの番組情報を受け取る処理（null 不可）
+     * @throws IOException
+     *         通信・レスポンス読み取り・XML 解析（マッピング）で入出力エラーが発生した場合
+     * @throws InterruptedException
+     *         HTTP 通信処理中などにスレッドが割り込まれた場合
+     * @throws NullPointerException
+     *         {@code area}・{@code date}・{@code action} のいずれかが {@code null} の場合
+     */
+    public void forEachStation(
+            AreaPrefecture area, LocalDate date, Consumer<? super StationProgramSchedule> action)
+            throws IOException, InterruptedException {
+        forEachStation(area, date, action, null);
+    }
+
+    /**
+     * 期限を指定して、指定都道府県エリア内の放送局の指定日付の番組表をラジオ局ごとに {@code action} へ渡します。
+     *
+     * <p>処理は {@link #forEachStation(AreaPrefecture, LocalDate, Consumer)} と同じです。
+     * 期限は番組表の取得に適用します（{@code action} の処理時間は期限の対象外です）。
+     *
+     * @param area ラジコのエリア（都道府県）コード（null 不可）
+     * @param date 番組情報を取得する日付（null 不可）
+     * @param action ラジオ局ごとの番組情報を受け取る処理（null 不可）
+     * @param deadline 番組表の取得の期限（null 可。{@code null} の場合は期限なし）
+     * @throws RdkDeadlineExceededException 期限までに番組表を取得できなかった場合
+     * @throws IOException
+     *         通信・レスポンス読み取り・XML 解析（マッピング）で入出力エラーが発生した場合
+     * @throws InterruptedException
+     *         HTTP 通信処理中などにスレッドが割り込まれた場合
+     * @throws NullPointerException
+     *         {@code area}・{@code date}・{@code action} のいずれかが {@code null} の場合
+     */
+    public void forEachStation(
+            AreaPrefecture area,
+            LocalDate date,
+            Consumer<? super StationProgramSchedule> action,
+            Deadline deadline)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(action);
+        String method = "forEachStation(AreaPrefecture, LocalDate, Consumer, Deadline)";
+        String url = dateAreaUrl(area, date);
+        try (ProgramScheduleReader reader = openReader(method, url, true, deadline)) {
+            StationProgramSchedule station;
+            while ((station = reader.readStation()) != null) {
+                action.accept(station);
+            }
+        }
+    }
+
+    /**
+     * 指定都道府県エリア内の放送局の指定日付の番組表を取得し、番組を 1 件ずつ {@code action} へ渡します。
+     *
+     * <p>番組はラジオ局・放送日とともに {@link ScheduledProgram} として渡します。番組表全体を保持せず、
+     * 番組を 1 件ずつマッピングするため、{@code action} が保持しない番組はすぐに破棄できます。
+     * 番組を絞り込むだけで詳細が不要な場合は、{@code details} に {@code false} を指定してください
+     * （HTML を含む {@code desc}・{@code info} の文字列を生成せずに読み飛ばします）。
+     *
+     * @param area ラジコのエリア（都道府県）コード（null 不可）
+     * @param date 番組情報を取得する日付（null 不可）
+     * @param details 番組の詳細（{@code desc}・{@code info}）も読み込む場合は {@code true}
+     * @param action 番組を受け取る処理（null 不可）
+     * @throws IOException
+     *         通信・レスポンス読み取り・XML 解析（マッピング）で入出力エラーが発生した場合
+     * @throws InterruptedException
+     *         HTTP 通信処理中などにスレッドが割り込まれた場合
+     * @throws NullPointerException
+     *         {@code area}・{@code date}・{@code action} のいずれかが {@code null} の場合
+     */
+    public void forEachProgram(
+            AreaPrefecture area,
+            LocalDate date,
+            boolean details,
+            Consumer<? super ScheduledProgram> action)
+            throws IOException, InterruptedException {
+        forEachProgram(area, date, details, action, null);
+    }
+
+    /**
+     * 期限を指定して、指定都道府県エリア内の放送局の指定日付の番組表の番組を 1 件ずつ {@code action} へ渡します。
+     *
+     * <p>処理は {@link #forEachProgram(AreaPrefecture, LocalDate, boolean, Consumer)} と同じです。
+     * 期限は番組表の取得に適用します（{@code action} の処理時間は期限の対象外です）。
+     *
+     * @param area ラジコのエリア（都道府県）コード（null 不可）
+     * @param date 番組情報を取得する日付（null 不可）
+     * @param details 番組の詳細（{@code desc}・{@code info}）も読み込む場合は {@code true}
+     * @param action 番組を受け取る処理（null 不可）
+     * @param deadline 番組表の取得の期限（null 可。{@code null} の場合は期限なし）
+     * @throws RdkDeadlineExceededException 期限までに番組表を取得できなかった場合
+     * @throws IOException
+     *         通信・レスポンス読み取り・XML 解析（マッピング）で入出力エラーが発生した場合
+     * @throws InterruptedException
+     *         HTTP 通信処理中などにスレッドが割り込まれた場合
+     * @throws NullPointerException
+     *         {@code area}・{@code date}・{@code action} のいずれかが {@code null} の場合
+     */
+    public void forEachProgram(
+            AreaPrefecture area,
+            LocalDate date,
+            boolean details,
+            Consumer<? super ScheduledProgram> action,
+            Deadline deadline)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(action);
+        String method = "forEachProgram(AreaPrefecture, LocalDate, boolean, Consumer, Deadline)";
+        String url = dateAreaUrl(area, date);
+        try (ProgramScheduleReader reader = openReader(method, url, details, deadline)) {
+            reader.forEachProgram(action);
+        }
+    }
+
+    /**
+     * 指定したラジオ局の週間番組表を取得し、番組を 1 件ずつ {@code action} へ渡します。
+     *
+     * <p>{@link #forEachProgram(AreaPrefecture, LocalDate, boolean, Consumer)} の週間番組表版です。
+     *
+     * @param stationId ラジオ局の局 ID（例: {@code "TBS"}）
+     * @param details 番組の詳細（{@code desc}・{@code info}）も読み込む場合は {@code true}
+     * @param action 番組を受け取る処理（null 不可）
+     * @throws IOException
+     *         通信・レスポンス読み取り・XML 解析（マッピング）で入出力エラーが発生した場合
+     * @throws InterruptedException
+     *         HTTP 通信処理中などにスレッドが割り込まれた場合
+     * @throws NullPointerException {@code action} が {@code null} の場合
+     */
+    public void forEachProgram(
+            String stationId, boolean details, Consumer<? super ScheduledProgram> action)
+            throws IOException, InterruptedException {
+        forEachProgram(stationId, details, action, null);
+    }
+
+    /**
+     * 期限を指定して、指定したラジオ局の週間番組表の番組を 1 件ずつ {@code action} へ渡します。
+     *
+     * <p>処理は {@link #forEachProgram(String, boolean, Consumer)} と同じです。
+     * 期限は番組表の取得に適用します（{@code action} の処理時間は期限の対象外です）。
+     *
+     * @param stationId ラジオ局の局 ID（例: {@code "TBS"}）
+     * @param details 番組の詳細（{@code desc}・{@code info}）も読み込む場合は {@code true}
+     * @param action 番組を受け取る処理（null 不可）
+     * @param deadline 番組表の取得の期限（null 可。{@code null} の場合は期限なし）
+     * @throws RdkDeadlineExceededException 期限までに番組表を取得できなかった場合
+     * @throws IOException
+     *         通信・レスポンス読み取り・XML 解析（マッピング）で入出力エラーが発生した場合
+     * @throws InterruptedException
+     *         HTTP 通信処理中などにスレッドが割り込まれた場合
+     * @throws NullPointerException {@code action} が {@code null} の場合
+     */
+    public void forEachProgram(
+            String stationId,
+            boolean details,
+            Consumer<? super ScheduledProgram> action,
+            Deadline deadline)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(action);
+        String method = "forEachProgram(String, boolean, Consumer, Deadline)";
+        String url = weeklyUrl(stationId);
+        try (ProgramScheduleReader reader = openReader(method, url, details, deadline)) {
+            reader.forEachProgram(action);
+        }
+    }
+
+    /**
+     * 指定都道府県エリア内の放送局の指定日付の番組表から、条件に一致する番組のみを返します。
+     *
+     * <p>{@link #forEachProgram(AreaPrefecture, LocalDate, boolean, Consumer)} で番組を 1 件ずつ判定し、
+     * 一致しない番組はその場で破棄します。
+     *
+     * @param area ラジコのエリア（都道府県）コード（null 不可）
+     * @param date 番組情報を取得する日付（null 不可）
+     * @param details 番組の詳細（{@code desc}・{@code info}）も読み込む場合は {@code true}
+     * @param filter 番組の条件（null 不可）
+     * @return 条件に一致した番組（番組表の順）
+     * @throws IOException
+     *         通信・レスポンス読み取り・XML 解析（マッピング）で入出力エラーが発生した場合
+     * @throws InterruptedException
+     *         HTTP 通信処理中などにスレッドが割り込まれた場合
+     * @throws NullPointerException
+     *         {@code area}・{@code date}・{@code filter} のいずれかが {@code null} の場合
+     */
+    public List<ScheduledProgram> findPrograms(
+            AreaPrefecture area,
+            LocalDate date,
+            boolean details,
+            Predicate<? super ScheduledProgram> filter)
+            throws IOException, InterruptedException {
+        return findPrograms(area, date, details, filter, null);
+    }
+
+    /**
+     * 期限を指定して、指定都道府県エリア内の放送局の指定日付の番組表から、条件に一致する番組のみを返します。
+     *
+     * <p>処理は {@link #findPrograms(AreaPrefecture, LocalDate, boolean, Predicate)} と同じです。
+     *
+     * @param area ラジコのエリア（都道府県）コード（null 不可）
+     * @param date 番組情報を取得する日付（null 不可）
+     * @param details 番組の詳細（{@code desc}・{@code info}）も読み込む場合は {@code true}
+     * @param filter 番組の条件（null 不可）
+     * @param deadline 番組表の取得の期限（null 可。{@code null} の場合は期限なし）
+     * @return 条件に一致した番組（番組表の順）
+     * @throws RdkDeadlineExceededException 期限までに番組表を取得できなかった場合
+     * @throws IOException
+     *         通信・レスポンス読み取り・XML 解析（マッピング）で入出力エラーが発生した場合
+     * @throws InterruptedException
+     *         HTTP 通信処理中などにスレッドが割り込まれた場合
+     * @throws NullPointerException
+     *         {@code area}・{@code date}・{@code filter} のいずれかが {@code null} の場合
+     */
+    public List<ScheduledProgram> findPrograms(
+            AreaPrefecture area,
+            LocalDate date,
+            boolean details,
+            Predicate<? super ScheduledProgram> filter,
+            Deadline deadline)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(filter);
+        List<ScheduledProgram> found = new ArrayList<>();
+        forEachProgram(
+                area,
+                date,
+                details,
+                program -> {
+                    if (filter.test(program)) {
+                        found.add(program);
+                    }
+                },
+                deadline);
+        return found;
+    }
+
+    /**
+     * 番組表を取得し、{@link ProgramScheduleReader} で読み込みを開始します。
+     *
+     * @param method ログ出力用の呼び出し元メソッド名
+     * @param url アクセス URL
+     * @param details 番組の詳細も読み込む場合は {@code true}
+     * @param deadline 処理全体の期限（null 可）
+     * @return リーダー
+     * @throws IOException 通信エラー、ステータスコードが 200 以外、または本文が空の場合
+     * @throws InterruptedException スレッド割り込みにより中断された場合
+     */
+    private ProgramScheduleReader openReader(
+            String method, String url, boolean details, Deadline deadline)
+            throws IOException, InterruptedException {
+        log.debug("{} : アクセスURL={}", method, url);
+        RdkHttpResponse response = rdkHttpClient.get(request(url, deadline));
+        byte[] body = CommonUtils.getBodyBytes(response);
+        return new ProgramScheduleReader(new ByteArrayInputStream(body), details, compressDetails);
+    }
+
+    /**
+     * 1 エリア分の番組表の解析結果です（{@link #getNationalProgramSchedule(LocalDate, int)} で使用します）。
+     *
+     * @param ttl XML要素 {@code ttl}
+     * @param srvtime XML要素 {@code srvtime}
+     * @param stationIds エリアに含まれるラジオ局の局 ID（番組表の順）
+     * @param stations このエリアでマッピングしたラジオ局の番組情報
+     */
+    private record AreaSweep(
+            String ttl,
+            String srvtime,
+            List<String> stationIds,
+            List<StationProgramSchedule> stations) {}
+
+    /**
+     * 1 エリア分の番組表を解析します。他のエリアで解析済みのラジオ局は読み飛ばします。
+     *
+     * @param response HTTP レスポンス
+     * @param claimed 解析済み（または解析中）のラジオ局の局 ID
+     * @return 解析結果
+     * @throws IOException ステータスコードが 200 以外、本文が空、または XML 解析に失敗した場合
+     */
+    private AreaSweep sweep(RdkHttpResponse response, Set<String> claimed) throws IOException {
+        byte[] body = CommonUtils.getBodyBytes(response);
+        List<String> stationIds = new ArrayList<>();
+        List<StationProgramSchedule> stations = new ArrayList<>();
+        try (ProgramScheduleReader reader =
+                new ProgramScheduleReader(new ByteArrayInputStream(body), true, compressDetails)) {
+            while (reader.nextStation()) {
+                String stationId = reader.stationId();
+                stationIds.add(stationId);
+                if (claimed.add(stationId)) {
+                    stations.add(reader.readPrograms());
+                }
+            }
+            return new AreaSweep(reader.ttl(), reader.srvtime(), stationIds, stations);
+        }
+    }
+
+    /**
+     * 番組表を取得するリクエストを組み立てます。
+     *
+     * @param url アクセス URL
+     * @param deadline 処理全体の期限（null 可）
+     * @return リクエスト
+     */
+    private static RdkHttpRequest request(String url, Deadline deadline) {
+        return RdkHttpRequest.builder().url(url).deadline(deadline).build();
+    }
+
+    /**
+     * 週間番組表のアクセス URL を組み立てます。
+     *
+     * @param stationId ラジオ局の局 ID
+     * @return アクセス URL
+     */
+    private String weeklyUrl(String stationId) {
+        return String.format("https://radiko.jp/v3/program/station/weekly/%s.xml", stationId);
+    }
+
+    /**
+     * エリア・日付指定の番組表のアクセス URL を組み立てます。
+     *
+     * @param area ラジコのエリア（都道府県）コード
+     * @param date 番組情報を取得する日付
+     * @return アクセス URL
+     */
+    private String dateAreaUrl(AreaPrefecture area, LocalDate date) {
+        return String.format(
+                "https://api.radiko.jp/program/v3/date/%s/area/%s.xml",
+                date.format(fmt), area.getAreaId());
+    }
+
+    /**
+     * レスポンスの XML を {@link ProgramSchedule} にマッピングします（同期版・非同期版で共通）。
+     *
+     * @param method ログ出力用の呼び出し元メソッド名
+     * @param response HTTP レスポンス
+     * @return 番組スケジュール情報
+     * @throws IOException ステータスコードが 200 以外、本文が空、または XML 解析に失敗した場合
+     */
+    private ProgramSchedule toProgramSchedule(String method, RdkHttpResponse response)
+            throws IOException {
+        byte[] body = CommonUtils.getBodyBytes(response);
+        if (log.isDebugEnabled()) {
+            // 本文の文字列化はデバッグ出力する場合のみ行う
+            log.debug("{} : レスポンスボディ={}", method, response.body());
+        }
+        ProgramSchedule programSchedule =
+                ModelReaders.read(ProgramSchedule.class, body, compressDetails);
+        log.debug("{} : ラジオ局のスケジュール情報={}", method, programSchedule);
         return programSchedule;
     }
 }
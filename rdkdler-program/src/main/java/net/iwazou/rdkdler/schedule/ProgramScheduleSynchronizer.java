@@ -0,0 +1,480 @@
+package net.iwazou.rdkdler.schedule;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import net.iwazou.rdkdler.area.AreaPrefecture;
+import net.iwazou.rdkdler.model.ProgramEntry;
+import net.iwazou.rdkdler.model.ProgramSchedule;
+
+/**
+ * 番組表を定期的に取得し、前回からの変更（追加・変更・削除された番組）をリスナーに通知するクラスです。
+ *
+ * <p>番組表の XML に含まれる {@code ttl}（有効期間の秒数）が経過した時点で、次の取得を予約します。
+ * 一定間隔で取得する場合と比べて、番組表が更新されない間の通信を減らし、更新された番組表を早く反映します。
+ * {@code ttl} は {@link #setMinInterval(Duration)}〜{@link #setMaxInterval(Duration)} の範囲に収め、
+ * {@code ttl} がない場合は {@link #setDefaultInterval(Duration)} の間隔で取得します。
+ * 取得に失敗した場合は、{@link #setRetryInterval(Duration)} の経過後に再度取得します。
+ *
+ * <p>取得した番組は、ラジオ局と番組 ID（{@link ProgramEntry#getId()}。ない場合は開始日時）で前回の番組と照合し、
+ * 内容が異なる番組を「変更」とします。変更がない場合は通知しません。
+ * 最初の取得では、すべての番組を「追加」として通知します。
+ *
+ * <p>取得と通知は、コンストラクタで指定した {@link ScheduledExecutorService} のスレッドで行います。
+ * 同じ対象の通知は取得した順に行われます。{@link ScheduledExecutorService} は呼び出し元で終了してください。
+ *
+ * <p><b>スレッドセーフ</b>：複数スレッドから同時に利用できます。
+ *
+ * <p>使用例：
+ * <pre>{@code
+ * ProgramScheduleSynchronizer synchronizer =
+ *         new ProgramScheduleSynchronizer(programScheduleService, scheduler);
+ * synchronizer.addListener(changes -> changes.added().forEach(index::add));
+ * synchronizer.watchStation("TBS");
+ * }</pre>
+ */
+@Slf4j
+public class ProgramScheduleSynchronizer implements Closeable {
+
+    private final ProgramScheduleService programScheduleService;
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * 対象ごとの取得の状態です。
+     */
+    private final Map<String, Watch> watches = new ConcurrentHashMap<>();
+
+    private final List<Consumer<? super Changes>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * -- GETTER --
+     * 取得の最短の間隔を取得します。
+     *
+     * @return 最短の間隔
+     *
+     * -- SETTER --
+     * 取得の最短の間隔を設定します。{@code ttl} がこれより短い場合も、この間隔を空けて取得します。
+     * <p>デフォルトは 1 分です。
+     *
+     * @param minInterval 最短の間隔
+     */
+    @Getter @Setter @NonNull private volatile Duration minInterval = Duration.ofMinutes(1);
+
+    /**
+     * -- GETTER --
+     * 取得の最長の間隔を取得します。
+     *
+     * @return 最長の間隔
+     *
+     * -- SETTER --
+     * 取得の最長の間隔を設定します。{@code ttl} がこれより長い場合も、この間隔で取得します。
+     * <p>デフォルトは 12 時間です。
+     *
+     * @param maxInterval 最長の間隔
+     */
+    @Getter @Setter @NonNull private volatile Duration maxInterval = Duration.ofHours(12);
+
+    /**
+     * -- GETTER --
+     * {@code ttl} がない番組表の取得の間隔を取得します。
+     *
+     * @return 間隔
+     *
+     * -- SETTER --
+     * {@code ttl} がない（数値でない）番組表の取得の間隔を設定します。
+     * <p>デフォルトは 1 時間です。
+     *
+     * @param defaultInterval 間隔
+     */
+    @Getter @Setter @NonNull private volatile Duration defaultInterval = Duration.ofHours(1);
+
+    /**
+     * -- GETTER --
+     * 取得に失敗した場合の、再度取得するまでの間隔を取得します。
+     *
+     * @return 間隔
+     *
+     * -- SETTER --
+     * 取得に失敗した場合の、再度取得するまでの間隔を設定します。
+     * <p>デフォルトは 5 分です。
+     *
+     * @param retryInterval 間隔
+     */
+    @Getter @Setter @NonNull private volatile Duration retryInterval = Duration.ofMinutes(5);
+
+    /**
+     * インスタンスを生成します。
+     *
+     * @param programScheduleService 番組表の取得に使用するサービス（null 不可）
+     * @param scheduler 取得を予約・実行する {@link ScheduledExecutorService}（null 不可）
+     * @throws NullPointerException 引数のいずれかが {@code null} の場合
+     */
+    public ProgramScheduleSynchronizer(
+            ProgramScheduleService programScheduleService, ScheduledExecutorService scheduler) {
+        this.programScheduleService = Objects.requireNonNull(programScheduleService);
+        this.scheduler = Objects.requireNonNull(scheduler);
+    }
+
+    /**
+     * 変更を通知するリスナーを追加します。
+     *
+     * <p>リスナーがスローした例外はログに出力し、他のリスナーへの通知を続けます。
+     *
+     * @param listener リスナー（null 不可）
+     * @throws NullPointerException listener が {@code null} の場合
+     */
+    public void addListener(Consumer<? super Changes> listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * リスナーを削除します。
+     *
+     * @param listener リスナー
+     * @return 削除した場合は {@code true}
+     */
+    public boolean removeListener(Consumer<? super Changes> listener) {
+        return listeners.remove(listener);
+    }
+
+    /**
+     * 指定したラジオ局の週間番組表（{@link ProgramScheduleService#getProgramSchedule(String)}）の取得を開始します。
+     *
+     * <p>すぐに最初の取得を予約します。既に取得している場合は何もしません。
+     *
+     * @param stationId ラジオ局の局 ID（null 不可）
+     * @return 取得を開始した場合は {@code true}、既に取得している場合は {@code false}
+     * @throws NullPointerException stationId が {@code null} の場合
+     */
+    public boolean watchStation(String stationId) {
+        Objects.requireNonNull(stationId);
+        return watch(
+                stationTarget(stationId),
+                () -> programScheduleService.getProgramSchedule(stationId));
+    }
+
+    /**
+     * 指定したエリア・日付の番組表（{@link ProgramScheduleService#getProgramSchedule(AreaPrefecture, LocalDate)}）の
+     * 取得を開始します。
+     *
+     * <p>すぐに最初の取得を予約します。既に取得している場合は何もしません。
+     *
+     * @param area エリア（都道府県）（null 不可）
+     * @param date 日付（null 不可）
+     * @return 取得を開始した場合は {@code true}、既に取得している場合は {@code false}
+     * @throws NullPointerException 引数のいずれかが {@code null} の場合
+     */
+    public boolean watchArea(AreaPrefecture area, LocalDate date) {
+        Objects.requireNonNull(area);
+        Objects.requireNonNull(date);
+        return watch(
+                areaTarget(area, date),
+                () -> programScheduleService.getProgramSchedule(area, date));
+    }
+
+    /**
+     * {@link #watchStation(String)} で開始した取得を終了します。
+     *
+     * @param stationId ラジオ局の局 ID（null 不可）
+     * @return 終了した場合は {@code true}、取得していない場合は {@code false}
+     * @throws NullPointerException stationId が {@code null} の場合
+     */
+    public boolean unwatchStation(String stationId) {
+        return unwatch(stationTarget(Objects.requireNonNull(stationId)));
+    }
+
+    /**
+     * {@link #watchArea(AreaPrefecture, LocalDate)} で開始した取得を終了します。
+     *
+     * @param area エリア（都道府県）（null 不可）
+     * @param date 日付（null 不可）
+     * @return 終了した場合は {@code true}、取得していない場合は {@code false}
+     * @throws NullPointerException 引数のいずれかが {@code null} の場合
+     */
+    public boolean unwatchArea(AreaPrefecture area, LocalDate date) {
+        return unwatch(areaTarget(Objects.requireNonNull(area), Objects.requireNonNull(date)));
+    }
+
+    /**
+     * すべての取得を終了します。{@link ScheduledExecutorService} は終了しません。
+     */
+    @Override
+    public void close() {
+        for (String target : List.copyOf(watches.keySet())) {
+            unwatch(target);
+        }
+    }
+
+    /**
+     * 前回の取得からの変更です。
+     *
+     * @param target 取得の対象（{@code "station:[stationId]"} または {@code "area:[areaId]/[yyyy-MM-dd]"}）
+     * @param added 追加された番組
+     * @param changed 内容が変更された番組（変更後の番組）
+     * @param removed 削除された番組（前回の番組）
+     */
+    public record Changes(
+            String target,
+            List<ScheduledProgram> added,
+            List<ScheduledProgram> changed,
+            List<ScheduledProgram> removed) {
+
+        /**
+         * 変更がない場合は {@code true} を返します。
+         *
+         * @return 変更がない場合は {@code true}
+         */
+        public boolean isEmpty() {
+            return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    /**
+     * 番組表の取得を表す関数です。
+     */
+    @FunctionalInterface
+    private interface Fetch {
+        ProgramSchedule fetch() throws IOException, InterruptedException;
+    }
+
+    private boolean watch(String target, Fetch fetch) {
+        Watch watch = new Watch(target, fetch);
+        if (watches.putIfAbsent(target, watch) != null) {
+            return false;
+        }
+        log.debug("watch(String, Fetch) : 取得を開始します。target={}", target);
+        watch.schedule(Duration.ZERO);
+        return true;
+    }
+
+    private boolean unwatch(String target) {
+        Watch watch = watches.remove(target);
+        if (watch == null) {
+            return false;
+        }
+        log.debug("unwatch(String) : 取得を終了します。target={}", target);
+        watch.cancel();
+        return true;
+    }
+
+    private static String stationTarget(String stationId) {
+        return "station:" + stationId;
+    }
+
+    private static String areaTarget(AreaPrefecture area, LocalDate date) {
+        return "area:" + area.getAreaId() + "/" + date;
+    }
+
+    /**
+     * 番組表の {@code ttl} から、次の取得までの間隔を求めます。
+     *
+     * @param schedule 番組表
+     * @return 間隔（{@link #minInterval}〜{@link #maxInterval} の範囲）
+     */
+    private Duration nextInterval(ProgramSchedule schedule) {
+        Duration interval = defaultInterval;
+        String ttl = schedule.getTtl();
+        if (ttl != null && !ttl.isBlank()) {
+            try {
+                interval = Duration.ofSeconds(Long.parseLong(ttl.trim()));
+            } catch (NumberFormatException e) {
+                log.debug("nextInterval(ProgramSchedule) : ttl が数値ではありません。ttl={}", ttl);
+            }
+        }
+        if (interval.compareTo(minInterval) < 0) {
+            return minInterval;
+        }
+        return interval.compareTo(maxInterval) > 0 ? maxInterval : interval;
+    }
+
+    /**
+     * 前回の番組と今回の番組を照合し、変更を求めます。
+     *
+     * @param target 取得の対象
+     * @param previous 前回の番組（キーごと）
+     * @param current 今回の番組（キーごと）
+     * @return 変更
+     */
+    private static Changes diff(
+            String target,
+            Map<String, ScheduledProgram> previous,
+            Map<String, ScheduledProgram> current) {
+        List<ScheduledProgram> added = new ArrayList<>();
+        List<ScheduledProgram> changed = new ArrayList<>();
+        List<ScheduledProgram> removed = new ArrayList<>();
+        for (Map.Entry<String, ScheduledProgram> e : current.entrySet()) {
+            ScheduledProgram before = previous.get(e.getKey());
+            if (before == null) {
+                added.add(e.getValue());
+            } else if (!before.entry().equals(e.getValue().entry())) {
+                changed.add(e.getValue());
+            }
+        }
+        for (Map.Entry<String, ScheduledProgram> e : previous.entrySet()) {
+            if (!current.containsKey(e.getKey())) {
+                removed.add(e.getValue());
+            }
+        }
+        return new Changes(target, List.copyOf(added), List.copyOf(changed), List.copyOf(removed));
+    }
+
+    /**
+     * 番組表の番組を、照合に使用するキーごとにまとめます。
+     *
+     * @param schedule 番組表
+     * @return 番組（キーごと。番組表の順）
+     */
+    private static Map<String, ScheduledProgram> keyed(ProgramSchedule schedule) {
+        Map<String, ScheduledProgram> keyed = new LinkedHashMap<>();
+        for (ScheduledProgram program : ScheduledProgram.listOf(schedule)) {
+            ProgramEntry entry = program.entry();
+            if (entry.getId() != null && !entry.getId().isEmpty()) {
+                keyed.put(program.stationId() + "/" + entry.getId(), program);
+            } else if (entry.getFt() != null) {
+                keyed.put(program.stationId() + "/" + entry.getFt(), program);
+            }
+        }
+        return keyed;
+    }
+
+    private void notifyListeners(Changes changes) {
+        for (Consumer<? super Changes> listener : listeners) {
+            try {
+                listener.accept(changes);
+            } catch (RuntimeException e) {
+                log.warn(
+                        "notifyListeners(Changes) : リスナーで例外が発生しました。target={}",
+                        changes.target(),
+                        e);
+            }
+        }
+    }
+
+    /**
+     * 1 つの対象の取得の状態です。
+     */
+    private final class Watch implements Runnable {
+
+        private final String target;
+
+        private final Fetch fetch;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * 前回取得した番組です（まだ取得していない場合は {@code null}）。
+         */
+        private Map<String, ScheduledProgram> snapshot;
+
+        private ScheduledFuture<?> future;
+
+        private boolean cancelled;
+
+        Watch(String target, Fetch fetch) {
+            this.target = target;
+            this.fetch = fetch;
+        }
+
+        @Override
+        public void run() {
+            if (isCancelled()) {
+                return;
+            }
+            Duration next;
+            try {
+                ProgramSchedule schedule = fetch.fetch();
+                synchronize(schedule);
+                next = nextInterval(schedule);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.warn("run() : 番組表の取得に失敗しました。target={}", target, e);
+                next = retryInterval;
+            }
+            log.debug("run() : 次の取得を予約します。target={}, 間隔={}", target, next);
+            schedule(next);
+        }
+
+        /**
+         * 取得した番組表を前回の番組と照合し、変更があればリスナーに通知します。
+         *
+         * @param schedule 取得した番組表
+         */
+        private void synchronize(ProgramSchedule schedule) {
+            Map<String, ScheduledProgram> current = keyed(schedule);
+            lock.lock();
+            try {
+                if (cancelled) {
+                    return;
+                }
+                Changes changes =
+                        diff(target, snapshot == null ? new HashMap<>() : snapshot, current);
+                snapshot = current;
+                log.debug(
+                        "synchronize(ProgramSchedule) : target={}, 追加={}, 変更={}, 削除={}",
+                        target,
+                        changes.added().size(),
+                        changes.changed().size(),
+                        changes.removed().size());
+                if (!changes.isEmpty()) {
+                    // 同じ対象の通知が前後しないよう、ロックを保持したまま通知する
+                    notifyListeners(changes);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void schedule(Duration delay) {
+            lock.lock();
+            try {
+                if (!cancelled) {
+                    future = scheduler.schedule(this, delay.toMillis(), TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isCancelled() {
+            lock.lock();
+            try {
+                return cancelled;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void cancel() {
+            lock.lock();
+            try {
+                cancelled = true;
+                if (future != null) {
+                    future.cancel(false);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
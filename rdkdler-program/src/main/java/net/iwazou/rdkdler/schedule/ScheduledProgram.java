@@ -0,0 +1,57 @@
+package net.iwazou.rdkdler.schedule;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import net.iwazou.rdkdler.model.DailyProgramSchedule;
+import net.iwazou.rdkdler.model.ProgramEntry;
+import net.iwazou.rdkdler.model.ProgramSchedule;
+import net.iwazou.rdkdler.model.StationProgramSchedule;
+
+/**
+ * 番組情報と、その番組を放送するラジオ局・放送日の組です。
+ *
+ * <p>{@link ProgramScheduleService#forEachProgram(net.iwazou.rdkdler.area.AreaPrefecture,
+ * LocalDate, boolean, java.util.function.Consumer)} などで、番組表を保持せずに番組を 1 件ずつ渡す際に使用します。
+ *
+ * @param stationId ラジオ局の局 ID
+ * @param stationName ラジオ局名
+ * @param date 放送日（{@code progs} 要素の {@code date}。朝 5 時区切り）
+ * @param entry 番組情報
+ */
+public record ScheduledProgram(
+        String stationId, String stationName, LocalDate date, ProgramEntry entry) {
+
+    /**
+     * 番組表のすべての番組を、ラジオ局・放送日とともに番組表の順で返します。
+     *
+     * @param schedule 番組スケジュール情報（null 不可）
+     * @return 番組
+     * @throws NullPointerException schedule が {@code null} の場合
+     */
+    public static List<ScheduledProgram> listOf(ProgramSchedule schedule) {
+        List<ScheduledProgram> programs = new ArrayList<>();
+        if (schedule.getStationProgramSchedules() == null) {
+            return programs;
+        }
+        for (StationProgramSchedule station : schedule.getStationProgramSchedules()) {
+            if (station.getDailyProgramSchedules() == null) {
+                continue;
+            }
+            for (DailyProgramSchedule daily : station.getDailyProgramSchedules()) {
+                if (daily.getProgramEntrys() == null) {
+                    continue;
+                }
+                for (ProgramEntry entry : daily.getProgramEntrys()) {
+                    programs.add(
+                            new ScheduledProgram(
+                                    station.getStationId(),
+                                    station.getStationName(),
+                                    daily.getDate(),
+                                    entry));
+                }
+            }
+        }
+        return programs;
+    }
+}
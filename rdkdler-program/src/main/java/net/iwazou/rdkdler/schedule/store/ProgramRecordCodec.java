@@ -0,0 +1,344 @@
+package net.iwazou.rdkdler.schedule.store;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import net.iwazou.rdkdler.model.ProgramEntry;
+import net.iwazou.rdkdler.model.ProgramEntry.Genre;
+import net.iwazou.rdkdler.model.ProgramEntry.Item;
+import net.iwazou.rdkdler.model.ProgramEntry.Meta;
+import net.iwazou.rdkdler.model.ProgramEntry.Personality;
+import net.iwazou.rdkdler.model.ProgramEntry.Program;
+import net.iwazou.rdkdler.schedule.ScheduledProgram;
+
+/**
+ * {@link ProgramStore} のファイルに格納する、番組 1 件分のレコードの形式です。
+ *
+ * <p>レコードは次の順に格納します（数値はビッグエンディアン）。
+ * <ol>
+ *   <li>レコード長（{@code int}。この値自身を含まないバイト数）
+ *   <li>開始日時・終了日時（{@code long}。エポック秒。日本時間の日時を UTC として換算した値）
+ *   <li>局 ID・ラジオ局名・放送日（{@code int}。エポック日）
+ *   <li>番組情報（{@link ProgramEntry} の各項目）
+ * </ol>
+ * 文字列は長さ（{@code int}。{@code null} の場合は {@code -1}）と UTF-8 のバイト列、
+ * {@code null} になりうる数値は {@link #NULL_INT} で表します。
+ * 先頭の 3 項目は、番組情報を復元せずに読み取れます（索引の構築に使用します）。
+ */
+final class ProgramRecordCodec {
+
+    /**
+     * {@code null} を表す {@code int} の値です。
+     */
+    private static final int NULL_INT = Integer.MIN_VALUE;
+
+    /**
+     * レコード長の位置から、局 ID の位置までのバイト数です。
+     */
+    private static final int STATION_ID_OFFSET = Integer.BYTES + 2 * Long.BYTES;
+
+    private ProgramRecordCodec() {}
+
+    /**
+     * 番組をレコードに変換します。
+     *
+     * @param program 番組（開始日時・終了日時は null 不可）
+     * @return レコード長を含むレコードのバイト列
+     */
+    static byte[] encode(ScheduledProgram program) {
+        ProgramEntry e = program.entry();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0); // レコード長（後で書き換える）
+            out.writeLong(toEpochSecond(e.getFt()));
+            out.writeLong(toEpochSecond(e.getTo()));
+            writeString(out, program.stationId());
+            writeString(out, program.stationName());
+            out.writeInt(program.date() == null ? NULL_INT : (int) program.date().toEpochDay());
+            writeString(out, e.getId());
+            writeString(out, e.getMasterId());
+            writeString(out, e.getFtl());
+            writeString(out, e.getTol());
+            writeString(out, e.getDur());
+            writeString(out, e.getTitle());
+            writeString(out, e.getUrl());
+            writeString(out, e.getUrlLink());
+            writeString(out, e.getFailedRecord());
+            writeInteger(out, e.getTsInNg());
+            writeInteger(out, e.getTsplusInNg());
+            writeInteger(out, e.getTsOutNg());
+            writeInteger(out, e.getTsplusOutNg());
+            writeString(out, e.getDesc());
+            writeString(out, e.getInfo());
+            writeString(out, e.getPfm());
+            writeString(out, e.getImg());
+            writeItems(out, e.getItems());
+            writeGenre(out, e.getGenre());
+            writeMetas(out, e.getMetas());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex); // ByteArrayOutputStream への書き込みでは発生しない
+        }
+        byte[] record = bytes.toByteArray();
+        ByteBuffer.wrap(record).putInt(0, record.length - Integer.BYTES);
+        return record;
+    }
+
+    /**
+     * レコード長を返します。
+     *
+     * @param buffer ファイルの内容
+     * @param offset レコードの位置
+     * @return レコード長（レコード長自身を含まないバイト数）
+     */
+    static int length(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset);
+    }
+
+    /**
+     * 番組の開始日時（エポック秒）を返します。
+     *
+     * @param buffer ファイルの内容
+     * @param offset レコードの位置
+     * @return 開始日時
+     */
+    static long start(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + Integer.BYTES);
+    }
+
+    /**
+     * 番組の終了日時（エポック秒）を返します。
+     *
+     * @param buffer ファイルの内容
+     * @param offset レコードの位置
+     * @return 終了日時
+     */
+    static long end(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + Integer.BYTES + Long.BYTES);
+    }
+
+    /**
+     * 局 ID を返します。
+     *
+     * @param buffer ファイルの内容
+     * @param offset レコードの位置
+     * @return 局 ID
+     */
+    static String stationId(ByteBuffer buffer, int offset) {
+        return new Reader(buffer, offset + STATION_ID_OFFSET).string();
+    }
+
+    /**
+     * レコードから番組を復元します。
+     *
+     * @param buffer ファイルの内容
+     * @param offset レコードの位置
+     * @return 番組
+     */
+    static ScheduledProgram decode(ByteBuffer buffer, int offset) {
+        Reader in = new Reader(buffer, offset + Integer.BYTES);
+        ProgramEntry e = new ProgramEntry();
+        e.setFt(toDateTime(in.int64()));
+        e.setTo(toDateTime(in.int64()));
+        String stationId = in.string();
+        String stationName = in.string();
+        int epochDay = in.int32();
+        LocalDate date = epochDay == NULL_INT ? null : LocalDate.ofEpochDay(epochDay);
+        e.setId(in.string());
+        e.setMasterId(in.string());
+        e.setFtl(in.string());
+        e.setTol(in.string());
+        e.setDur(in.string());
+        e.setTitle(in.string());
+        e.setUrl(in.string());
+        e.setUrlLink(in.string());
+        e.setFailedRecord(in.string());
+        e.setTsInNg(in.integer());
+        e.setTsplusInNg(in.integer());
+        e.setTsOutNg(in.integer());
+        e.setTsplusOutNg(in.integer());
+        e.setDesc(in.string());
+        e.setInfo(in.string());
+        e.setPfm(in.string());
+        e.setImg(in.string());
+        e.setItems(readItems(in));
+        e.setGenre(readGenre(in));
+        e.setMetas(readMetas(in));
+        return new ScheduledProgram(stationId, stationName, date, e);
+    }
+
+    static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeInt(value == null ? NULL_INT : value);
+    }
+
+    private static void writeItems(DataOutputStream out, List<Item> items) throws IOException {
+        out.writeInt(items == null ? -1 : items.size());
+        if (items != null) {
+            for (Item item : items) {
+                writeString(out, item.getName());
+            }
+        }
+    }
+
+    private static void writeGenre(DataOutputStream out, Genre genre) throws IOException {
+        out.writeBoolean(genre != null);
+        if (genre == null) {
+            return;
+        }
+        List<Personality> personalities = genre.getPersonalitys();
+        out.writeInt(personalities == null ? -1 : personalities.size());
+        if (personalities != null) {
+            for (Personality p : personalities) {
+                writeString(out, p.getId());
+                writeString(out, p.getName());
+            }
+        }
+        List<Program> programs = genre.getPrograms();
+        out.writeInt(programs == null ? -1 : programs.size());
+        if (programs != null) {
+            for (Program p : programs) {
+                writeString(out, p.getId());
+                writeString(out, p.getName());
+            }
+        }
+    }
+
+    private static void writeMetas(DataOutputStream out, List<Meta> metas) throws IOException {
+        out.writeInt(metas == null ? -1 : metas.size());
+        if (metas != null) {
+            for (Meta meta : metas) {
+                writeString(out, meta.getName());
+                writeString(out, meta.getValue());
+            }
+        }
+    }
+
+    private static List<Item> readItems(Reader in) {
+        int count = in.int32();
+        if (count < 0) {
+            return null;
+        }
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Item item = new Item();
+            item.setName(in.string());
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static Genre readGenre(Reader in) {
+        if (!in.bool()) {
+            return null;
+        }
+        Genre genre = new Genre();
+        int count = in.int32();
+        if (count >= 0) {
+            List<Personality> personalities = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Personality p = new Personality();
+                p.setId(in.string());
+                p.setName(in.string());
+                personalities.add(p);
+            }
+            genre.setPersonalitys(personalities);
+        }
+        count = in.int32();
+        if (count >= 0) {
+            List<Program> programs = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Program p = new Program();
+                p.setId(in.string());
+                p.setName(in.string());
+                programs.add(p);
+            }
+            genre.setPrograms(programs);
+        }
+        return genre;
+    }
+
+    private static List<Meta> readMetas(Reader in) {
+        int count = in.int32();
+        if (count < 0) {
+            return null;
+        }
+        List<Meta> metas = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Meta meta = new Meta();
+            meta.setName(in.string());
+            meta.setValue(in.string());
+            metas.add(meta);
+        }
+        return metas;
+    }
+
+    /**
+     * {@link ByteBuffer} の絶対位置を指定して順に読み取ります（バッファの位置は変更しません）。
+     */
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private int position;
+
+        Reader(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        int int32() {
+            int v = buffer.getInt(position);
+            position += Integer.BYTES;
+            return v;
+        }
+
+        long int64() {
+            long v = buffer.getLong(position);
+            position += Long.BYTES;
+            return v;
+        }
+
+        boolean bool() {
+            return buffer.get(position++) != 0;
+        }
+
+        Integer integer() {
+            int v = int32();
+            return v == NULL_INT ? null : v;
+        }
+
+        String string() {
+            int length = int32();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(position, bytes);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
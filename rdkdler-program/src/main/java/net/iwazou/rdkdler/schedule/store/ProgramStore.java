@@ -0,0 +1,557 @@
+package net.iwazou.rdkdler.schedule.store;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import net.iwazou.rdkdler.exception.RdkException;
+import net.iwazou.rdkdler.model.ProgramEntry;
+import net.iwazou.rdkdler.schedule.ProgramScheduleService;
+import net.iwazou.rdkdler.schedule.ScheduledProgram;
+
+/**
+ * 番組情報をファイルに保存し、ラジオ局と期間を指定して検索するストアです。
+ *
+ * <p>番組は 1 件ずつ、コンパクトなバイナリ形式のレコード（{@link ProgramRecordCodec}）としてファイルの末尾に追記します。
+ * 検索はファイルをメモリマップして読み取り、ラジオ局ごとの索引（開始日時の昇順）を二分探索するため、
+ * 番組表を再取得・XML を再解析せずに、ラジオ局・期間を指定した検索を行えます。
+ * 追記のたびにマップし直さないよう、マップする範囲は段階的に広げ、まだマップしていない末尾のレコードはファイルから読み込みます。
+ *
+ * <p>ファイルを開く際は、各レコードの先頭（開始日時・終了日時・局 ID）のみを読み取って索引を構築します。
+ * 書き込み中に異常終了するなどして末尾のレコードが途中までしかない場合は、そのレコードを切り捨てます。
+ *
+ * <p>同じラジオ局で放送時間が重なる番組（同じ開始日時の番組を含みます）を追加した場合は、後から追加した番組で置き換えます
+ * （番組表の再取得で開始日時が変わった番組も、古い番組を残しません。
+ * 置き換えられたレコードは {@link #compact()} を呼び出すまでファイルに残ります）。
+ * 保存済みの番組と内容が同じ番組は、書き込まずに読み飛ばすため、同じ番組表を繰り返し保存してもファイルは大きくなりません。
+ * 開始日時・終了日時のない番組は保存しません。ファイルの大きさの上限は 2GB です。
+ *
+ * <p><b>スレッドセーフ</b>：複数スレッドから同時に利用できます。
+ * 1 つのファイルを複数のストア（プロセス）から同時に開くことはできません。開いている間は、ファイル名に {@code .lock}
+ * を付けたロックファイルの排他ロックを保持し、他のストアがファイルを開こうとした場合は {@link RdkException} をスローします
+ * （{@link #compact()} でファイルを置き換えてもロックを保持し続けるため、ファイル自体ではなくロックファイルをロックします）。
+ *
+ * <p>使用例：
+ * <pre>{@code
+ * try (ProgramStore store = ProgramStore.open(Path.of("programs.rdkp"))) {
+ *     programScheduleService.forEachProgram(AreaPrefecture.TOKYO, date, true, store.appender());
+ *     List<ScheduledProgram> aired = store.find("TBS", from, to);
+ * }
+ * }</pre>
+ */
+@Slf4j
+public final class ProgramStore implements Closeable {
+
+    /**
+     * ファイルの先頭に書き出すマジックナンバー（{@code "RDKP"}）です。
+     */
+    private static final int MAGIC = 0x52444B50;
+
+    /**
+     * ファイル形式のバージョンです。形式を変更した場合は値を変えてください。
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    /**
+     * マップし直さずに読み込む、マップしていない末尾の最小のバイト数です。
+     */
+    private static final long MIN_UNMAPPED_TAIL = 64 * 1024;
+
+    private final Path file;
+
+    /**
+     * ファイルのチャネルです（{@link #compact()} で開き直します）。
+     */
+    private FileChannel channel;
+
+    /**
+     * ロックファイルのチャネルです（ストアを閉じるまで開いたままにします）。
+     */
+    private final FileChannel lockChannel;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 局 ID ごとの索引です。
+     */
+    private final Map<String, StationIndex> stations = new HashMap<>();
+
+    /**
+     * ファイルの大きさ（次のレコードを書き込む位置）です。
+     */
+    private long size;
+
+    /**
+     * 保存している番組の件数です（置き換えられた番組を除きます）。
+     */
+    private int count;
+
+    /**
+     * ファイルをメモリマップしたバッファです（{@link #mappedSize} までを読み取れます）。
+     */
+    private MappedByteBuffer mapped;
+
+    private long mappedSize;
+
+    private ProgramStore(Path file, FileChannel channel, FileChannel lockChannel) {
+        this.file = file;
+        this.channel = channel;
+        this.lockChannel = lockChannel;
+    }
+
+    /**
+     * ファイルを開きます。ファイルがない場合は新規に作成します。
+     *
+     * @param file ファイル（null 不可）
+     * @return ストア
+     * @throws NullPointerException file が {@code null} の場合
+     * @throws RdkException ファイルの形式が異なる場合、または他のストアがファイルを開いている場合
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    public static ProgramStore open(Path file) throws IOException {
+        FileChannel lockChannel = lockFile(Objects.requireNonNull(file));
+        FileChannel channel = null;
+        try {
+            channel = openChannel(file);
+            ProgramStore store = new ProgramStore(file, channel, lockChannel);
+            store.load();
+            return store;
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 番組を追加します。
+     *
+     * <p>同じラジオ局で放送時間が重なる保存済みの番組は、追加した番組で置き換えます。
+     * 同じラジオ局・同じ開始日時の番組を、同じ内容で保存済みの場合は書き込みません。
+     *
+     * @param program 番組（null 不可）
+     * @return 保存した（保存済みの）場合は {@code true}、
+     *     開始日時・終了日時・局 ID のいずれかがないため保存しなかった場合は {@code false}
+     * @throws NullPointerException program が {@code null} の場合
+     * @throws IOException ファイルへの書き込みに失敗した場合
+     */
+    public boolean add(ScheduledProgram program) throws IOException {
+        ProgramEntry entry = program.entry();
+        if (entry == null
+                || entry.getFt() == null
+                || entry.getTo() == null
+                || program.stationId() == null) {
+            return false;
+        }
+        byte[] record = ProgramRecordCodec.encode(program);
+        long start = ProgramRecordCodec.toEpochSecond(entry.getFt());
+        long end = ProgramRecordCodec.toEpochSecond(entry.getTo());
+        lock.lock();
+        try {
+            ensureOpen();
+            StationIndex stored = stations.get(program.stationId());
+            long storedOffset = stored == null ? -1 : stored.get(start);
+            if (storedOffset >= 0 && record(storedOffset).equals(ByteBuffer.wrap(record))) {
+                return true;
+            }
+            if (size + record.length > Integer.MAX_VALUE) {
+                throw new RdkException("program store is full: " + file);
+            }
+            long offset = size;
+            size += write(channel, ByteBuffer.wrap(record), offset);
+            index(program.stationId(), start, end, offset);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@link #add(ScheduledProgram)} で番組を追加する {@link Consumer} を返します。
+     *
+     * <p>{@link ProgramScheduleService#forEachProgram} などに渡して、取得した番組を順に保存する場合に使用します。
+     * 書き込みに失敗した場合は {@link UncheckedIOException} をスローします。
+     *
+     * @return 番組を追加する {@link Consumer}
+     */
+    public Consumer<ScheduledProgram> appender() {
+        return program -> {
+            try {
+                add(program);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * 指定したラジオ局で、指定した期間に放送した番組を返します。
+     *
+     * <p>期間と少しでも重なる番組（開始日時が {@code to} より前で、終了日時が {@code from} より後の番組）を返します。
+     *
+     * @param stationId ラジオ局の局 ID（null 不可）
+     * @param from 期間の開始日時（null 不可）
+     * @param to 期間の終了日時（この日時を含まない。null 不可）
+     * @return 番組（開始日時の昇順）
+     * @throws NullPointerException 引数のいずれかが {@code null} の場合
+     * @throws IOException ファイルの読み取りに失敗した場合
+     */
+    public List<ScheduledProgram> find(String stationId, LocalDateTime from, LocalDateTime to)
+            throws IOException {
+        Objects.requireNonNull(stationId);
+        long start = ProgramRecordCodec.toEpochSecond(from);
+        long end = ProgramRecordCodec.toEpochSecond(to);
+        List<ScheduledProgram> found = new ArrayList<>();
+        lock.lock();
+        try {
+            ensureOpen();
+            StationIndex index = stations.get(stationId);
+            if (index == null || index.size() == 0 || start >= end) {
+                return found;
+            }
+            // 同じラジオ局の番組は重ならないため、from 以前に始まる最後の番組から調べる
+            for (int i = index.floor(start); i < index.size() && index.start(i) < end; i++) {
+                ByteBuffer record = record(index.offset(i));
+                if (ProgramRecordCodec.end(record, 0) > start) {
+                    found.add(ProgramRecordCodec.decode(record, 0));
+                }
+            }
+            return found;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 番組を保存しているラジオ局の局 ID を返します。
+     *
+     * @return 局 ID（昇順）
+     */
+    public Set<String> stationIds() {
+        lock.lock();
+        try {
+            return new TreeSet<>(stations.keySet());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 保存している番組の件数を返します（置き換えられた番組を除きます）。
+     *
+     * @return 件数
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 置き換えられたレコードを取り除き、ファイルを詰めます。
+     *
+     * <p>保存している番組のレコードのみを一時ファイルに書き出してから、ファイルを置き換えます。
+     * 書き出しに失敗した場合、ファイルと索引は変更しません。
+     *
+     * @return 取り除いたバイト数
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    public long compact() throws IOException {
+        lock.lock();
+        try {
+            ensureOpen();
+            Path absolute = file.toAbsolutePath();
+            Path temp = Files.createTempFile(absolute.getParent(), "tmp", ".rdkp");
+            try {
+                Map<String, StationIndex> compacted = new HashMap<>();
+                long compactedSize;
+                try (FileChannel out = openChannel(temp)) {
+                    compactedSize = write(out, header(), 0);
+                    for (Map.Entry<String, StationIndex> e : stations.entrySet()) {
+                        StationIndex index = e.getValue();
+                        StationIndex moved = new StationIndex();
+                        for (int i = 0; i < index.size(); i++) {
+                            moved.put(index.start(i), index.end(i), compactedSize);
+                            compactedSize += write(out, record(index.offset(i)), compactedSize);
+                        }
+                        compacted.put(e.getKey(), moved);
+                    }
+                    out.force(false);
+                }
+                long removed = size - compactedSize;
+                channel.close();
+                mapped = null;
+                mappedSize = 0;
+                try {
+                    try {
+                        Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    stations.clear();
+                    stations.putAll(compacted);
+                    size = compactedSize;
+                } finally {
+                    // 置き換えに失敗した場合は、元のファイルを開き直す
+                    channel = openChannel(file);
+                }
+                log.debug("compact() : 取り除いたバイト数={}, file={}", removed, file);
+                return removed;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 追加した番組をストレージへ書き出します。
+     *
+     * @throws IOException 書き出しに失敗した場合
+     */
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            ensureOpen();
+            channel.force(false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 追加した番組をストレージへ書き出し、ファイルを閉じます。
+     *
+     * @throws IOException 書き出しに失敗した場合
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (channel.isOpen()) {
+                try {
+                    channel.force(false);
+                } finally {
+                    channel.close();
+                    mapped = null;
+                    // ロックファイルを閉じると排他ロックも解放される
+                    lockChannel.close();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * ファイルを読み込み、索引を構築します。新規のファイルの場合は先頭を書き出します。
+     *
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    private void load() throws IOException {
+        size = channel.size();
+        if (size == 0) {
+            size = write(channel, header(), 0);
+            return;
+        }
+        if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+            throw new RdkException("not an rdkdler program store: " + file);
+        }
+        ByteBuffer buffer = mapped();
+        if (buffer.getInt(0) != MAGIC) {
+            throw new RdkException("not an rdkdler program store: " + file);
+        }
+        int version = buffer.getInt(Integer.BYTES);
+        if (version != FORMAT_VERSION) {
+            throw new RdkException("unsupported program store format version: " + version);
+        }
+        long offset = HEADER_SIZE;
+        while (offset + Integer.BYTES <= size) {
+            int length = ProgramRecordCodec.length(buffer, (int) offset);
+            if (length <= 0 || offset + Integer.BYTES + length > size) {
+                break;
+            }
+            index(
+                    ProgramRecordCodec.stationId(buffer, (int) offset),
+                    ProgramRecordCodec.start(buffer, (int) offset),
+                    ProgramRecordCodec.end(buffer, (int) offset),
+                    offset);
+            offset += Integer.BYTES + length;
+        }
+        if (offset < size) {
+            log.warn("load() : 途中までのレコードを切り捨てます。file={}, size={}", file, offset);
+            mapped = null;
+            mappedSize = 0;
+            channel.truncate(offset);
+            size = offset;
+        }
+        log.debug("load() : 番組数={}, ラジオ局数={}, file={}", count, stations.size(), file);
+    }
+
+    /**
+     * 索引に番組を追加します。放送時間が重なる番組は索引から取り除きます。
+     *
+     * @param stationId 局 ID
+     * @param start 開始日時（エポック秒）
+     * @param end 終了日時（エポック秒）
+     * @param offset レコードの位置
+     */
+    private void index(String stationId, long start, long end, long offset) {
+        StationIndex index = stations.computeIfAbsent(stationId, k -> new StationIndex());
+        count += 1 - index.put(start, end, offset);
+    }
+
+    /**
+     * ファイルをメモリマップしたバッファを返します（{@link #mappedSize} までを読み取れます）。
+     *
+     * <p>追記のたびにマップし直さないよう、マップしていない末尾が {@link #MIN_UNMAPPED_TAIL} と
+     * マップ済みの大きさの半分のいずれよりも大きくなった場合にのみマップし直します
+     * （マップする範囲は 1.5 倍以上ずつ広がります）。
+     *
+     * @return バッファ
+     * @throws IOException マップに失敗した場合
+     */
+    private ByteBuffer mapped() throws IOException {
+        if (mapped == null || size - mappedSize > Math.max(MIN_UNMAPPED_TAIL, mappedSize / 2)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mappedSize = size;
+        }
+        return mapped;
+    }
+
+    /**
+     * 指定した位置のレコードを返します。
+     *
+     * <p>マップ済みの範囲のレコードはマップしたバッファから、マップしていない末尾のレコードはファイルから読み込みます
+     * （レコードは追記した単位でマップするため、マップ済みの範囲をまたぐことはありません）。
+     *
+     * @param offset レコードの位置
+     * @return レコード（レコード長を含み、位置 0 から始まるバッファ）
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private ByteBuffer record(long offset) throws IOException {
+        ByteBuffer buffer = mapped();
+        if (offset < mappedSize) {
+            int length = ProgramRecordCodec.length(buffer, (int) offset);
+            return buffer.slice((int) offset, Integer.BYTES + length);
+        }
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        read(length, offset);
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + length.getInt(0));
+        read(record, offset);
+        return record.flip();
+    }
+
+    /**
+     * ファイルの指定した位置から、バッファの残りの大きさ分を読み込みます。
+     *
+     * @param buffer 読み込み先
+     * @param offset 読み込む位置
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private void read(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("unexpected end of program store: " + file);
+            }
+        }
+    }
+
+    /**
+     * ファイルの指定した位置に、バッファの残りを書き込みます。
+     *
+     * @param out 書き込み先
+     * @param buffer 書き込む内容（位置 0 から始まるバッファ）
+     * @param offset 書き込む位置
+     * @return 書き込んだバイト数
+     * @throws IOException 書き込みに失敗した場合
+     */
+    private static int write(FileChannel out, ByteBuffer buffer, long offset) throws IOException {
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            out.write(buffer, offset + buffer.position());
+        }
+        return length;
+    }
+
+    /**
+     * ファイルの先頭（マジックナンバーと形式のバージョン）を返します。
+     *
+     * @return ファイルの先頭
+     */
+    private static ByteBuffer header() {
+        return ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+    }
+
+    /**
+     * ファイルに対応するロックファイルを開き、排他ロックを取得します。
+     *
+     * @param file ファイル
+     * @return 排他ロックを取得したロックファイルのチャネル
+     * @throws RdkException 他のストアがファイルを開いている場合
+     * @throws IOException ロックファイルを開けない場合
+     */
+    private static FileChannel lockFile(Path file) throws IOException {
+        Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        FileChannel lockChannel =
+                FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock fileLock;
+        try {
+            fileLock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // 同じ JVM の他のストアがロックしている
+            fileLock = null;
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+        if (fileLock == null) {
+            lockChannel.close();
+            throw new RdkException("program store is already open: " + file);
+        }
+        return lockChannel;
+    }
+
+    private static FileChannel openChannel(Path file) throws IOException {
+        return FileChannel.open(
+                file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (!channel.isOpen()) {
+            throw new RdkException("program store is closed: " + file);
+        }
+    }
+}
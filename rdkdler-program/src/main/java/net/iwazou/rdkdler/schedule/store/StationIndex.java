@@ -0,0 +1,154 @@
+package net.iwazou.rdkdler.schedule.store;
+
+import java.util.Arrays;
+
+/**
+ * 1 局分の番組の索引です。番組の開始日時の昇順に、開始日時・終了日時とレコードの位置を保持します。
+ *
+ * <p>同じラジオ局の番組は放送時間が重ならないため、放送時間が重なる番組を追加した場合は、既存の番組を取り除きます
+ * （番組表の再取得で開始日時が変わった番組を置き換えます）。このため、終了日時も開始日時の昇順に並びます。
+ *
+ * <p>番組は通常、開始日時の順に追加されるため、末尾への追加は配列の拡張のみで行います。
+ * 1 件あたりのメモリ使用量は 24 バイトです（オブジェクトを生成しません）。
+ *
+ * <p>本クラスはスレッドセーフではありません（{@link ProgramStore} のロックで保護します）。
+ */
+final class StationIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * 番組の開始日時（エポック秒）の昇順の配列です。
+     */
+    private long[] starts = new long[INITIAL_CAPACITY];
+
+    /**
+     * {@link #starts} と同じ順の、番組の終了日時（エポック秒）です。
+     */
+    private long[] ends = new long[INITIAL_CAPACITY];
+
+    /**
+     * {@link #starts} と同じ順の、レコードのファイル上の位置です。
+     */
+    private long[] offsets = new long[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * 番組を追加します。放送時間が重なる番組（同じ開始日時の番組を含みます）がある場合は取り除きます。
+     *
+     * @param start 開始日時（エポック秒）
+     * @param end 終了日時（エポック秒）
+     * @param offset レコードの位置
+     * @return 取り除いた番組の件数
+     */
+    int put(long start, long end, long offset) {
+        // 開始日時が end 以上（start と同じ場合を除く）の最初の番組は重ならない
+        int to = search(Math.max(start + 1, end));
+        to = to >= 0 ? to : -(to + 1);
+        // 終了日時も昇順のため、重なる番組は to の直前に連続する
+        int from = to;
+        while (from > 0 && (ends[from - 1] > start || starts[from - 1] == start)) {
+            from--;
+        }
+        int removed = to - from;
+        if (removed > 0) {
+            starts[from] = start;
+            ends[from] = end;
+            offsets[from] = offset;
+            remove(from + 1, to);
+            return removed;
+        }
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        System.arraycopy(starts, to, starts, to + 1, size - to);
+        System.arraycopy(ends, to, ends, to + 1, size - to);
+        System.arraycopy(offsets, to, offsets, to + 1, size - to);
+        starts[to] = start;
+        ends[to] = end;
+        offsets[to] = offset;
+        size++;
+        return 0;
+    }
+
+    /**
+     * 開始日時が {@code start} の番組のレコードの位置を返します。
+     *
+     * @param start 開始日時（エポック秒）
+     * @return レコードの位置（該当する番組がない場合は {@code -1}）
+     */
+    long get(long start) {
+        int i = search(start);
+        return i >= 0 ? offsets[i] : -1;
+    }
+
+    /**
+     * 開始日時が {@code start} 以下の番組のうち、最後の番組の位置（索引上の位置）を返します。
+     *
+     * @param start 開始日時（エポック秒）
+     * @return 索引上の位置（該当する番組がない場合は 0）
+     */
+    int floor(long start) {
+        int i = search(start);
+        return i >= 0 ? i : Math.max(0, -(i + 1) - 1);
+    }
+
+    /**
+     * 索引上の位置の番組の開始日時を返します。
+     *
+     * @param i 索引上の位置
+     * @return 開始日時（エポック秒）
+     */
+    long start(int i) {
+        return starts[i];
+    }
+
+    /**
+     * 索引上の位置の番組の終了日時を返します。
+     *
+     * @param i 索引上の位置
+     * @return 終了日時（エポック秒）
+     */
+    long end(int i) {
+        return ends[i];
+    }
+
+    /**
+     * 索引上の位置の番組のレコードの位置を返します。
+     *
+     * @param i 索引上の位置
+     * @return レコードの位置
+     */
+    long offset(int i) {
+        return offsets[i];
+    }
+
+    /**
+     * 番組の件数を返します。
+     *
+     * @return 件数
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 索引上の位置が {@code from} 以上 {@code to} 未満の番組を取り除きます。
+     *
+     * @param from 取り除く最初の位置
+     * @param to 取り除く最後の位置の次
+     */
+    private void remove(int from, int to) {
+        System.arraycopy(starts, to, starts, from, size - to);
+        System.arraycopy(ends, to, ends, from, size - to);
+        System.arraycopy(offsets, to, offsets, from, size - to);
+        size -= to - from;
+    }
+
+    private int search(long start) {
+        return Arrays.binarySearch(starts, 0, size, start);
+    }
+}
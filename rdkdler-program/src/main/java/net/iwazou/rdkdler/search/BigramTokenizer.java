@@ -0,0 +1,78 @@
+package net.iwazou.rdkdler.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 文字列を、連続する 2 文字ずつの語（文字 bigram）に分割するクラスです。
+ *
+ * <p>日本語は単語の区切りがないため、形態素解析を行わずに、文字・数字の連続を 2 文字ずつ重ねて区切ります
+ * （例：{@code "ラジオ局"} → {@code "ラジ"}, {@code "ジオ"}, {@code "オ局"}）。
+ * 記号・空白は区切りとして扱い、1 文字だけの連続はその 1 文字を語とします。
+ *
+ * <p>分割の前に、NFKC で正規化（全角英数字・半角カナの統一）し、英字を小文字にします。
+ */
+final class BigramTokenizer {
+
+    private BigramTokenizer() {}
+
+    /**
+     * 文字列を語に分割します。
+     *
+     * @param text 文字列（null 可）
+     * @return 語（出現順。重複を含みます）
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String s = normalize(text);
+        int previous = -1; // 直前の文字の位置（文字・数字の連続の外では -1）
+        int runLength = 0;
+        for (int i = 0; i < s.length(); ) {
+            int cp = s.codePointAt(i);
+            int next = i + Character.charCount(cp);
+            if (Character.isLetterOrDigit(cp)) {
+                if (previous >= 0) {
+                    tokens.add(s.substring(previous, next));
+                }
+                previous = i;
+                runLength++;
+            } else {
+                addSingle(tokens, s, previous, runLength);
+                previous = -1;
+                runLength = 0;
+            }
+            i = next;
+        }
+        addSingle(tokens, s, previous, runLength);
+        return tokens;
+    }
+
+    /**
+     * 文字・数字の連続が 1 文字だけの場合に、その 1 文字を語として追加します。
+     *
+     * @param tokens 語の追加先
+     * @param s 正規化した文字列
+     * @param last 連続の最後の文字の位置
+     * @param runLength 連続の文字数
+     */
+    private static void addSingle(List<String> tokens, String s, int last, int runLength) {
+        if (runLength == 1) {
+            tokens.add(s.substring(last, last + Character.charCount(s.codePointAt(last))));
+        }
+    }
+
+    /**
+     * 文字列を正規化します（NFKC、英字は小文字）。
+     *
+     * @param text 文字列
+     * @return 正規化した文字列
+     */
+    static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,383 @@
+package net.iwazou.rdkdler.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import net.iwazou.rdkdler.model.ProgramEntry;
+import net.iwazou.rdkdler.schedule.ProgramScheduleSynchronizer;
+import net.iwazou.rdkdler.schedule.ScheduledProgram;
+
+/**
+ * 多数のキーワードを登録し、番組名・出演者がいずれかのキーワードを含む番組を検出するクラスです。
+ *
+ * <p>録音予約のように多数のキーワードで番組を探す場合に、キーワードごとに {@link ProgramSearchService} で検索する代わりに使用します。
+ * 登録したキーワードを 1 つのオートマトン（Aho-Corasick 法）にまとめ、番組ごとに番組名・出演者を 1 回走査して、
+ * 含まれるすべてのキーワードを求めます。照合の時間は、番組名・出演者の長さに比例し、キーワードの数にはほとんど依存しません。
+ *
+ * <p>キーワードと番組名・出演者は、{@link BigramTokenizer#normalize(String)} で正規化（NFKC、英字は小文字）してから照合します。
+ * キーワードを追加・削除すると、次の照合の前にオートマトンを作り直します。
+ *
+ * <p>{@link ProgramScheduleSynchronizer} のリスナーとして登録すると、追加・変更された番組を照合し、
+ * 一致した番組をリスナーに通知します（変更された番組は、以前に通知した番組でも再度通知します）。
+ *
+ * <p><b>スレッドセーフ</b>：複数スレッドから同時に利用できます。照合はロックを取得しません。
+ *
+ * <p>使用例：
+ * <pre>{@code
+ * KeywordWatchEngine engine = new KeywordWatchEngine();
+ * engine.addKeyword("radio-night", "深夜ラジオ");
+ * engine.addListener(match -> reserve(match.program()));
+ * synchronizer.addListener(engine);
+ * }</pre>
+ */
+@Slf4j
+public class KeywordWatchEngine implements Consumer<ProgramScheduleSynchronizer.Changes> {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * キーワード ID ごとの、正規化したキーワードです（登録順。{@link #lock} で保護）。
+     */
+    private final Map<String, String> keywords = new LinkedHashMap<>();
+
+    /**
+     * 登録しているキーワードから作成したオートマトンです（キーワードを変更した場合は {@code null}）。
+     */
+    private volatile Automaton automaton;
+
+    private final List<Consumer<? super KeywordMatch>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * キーワードを登録します。同じ ID のキーワードを登録している場合は置き換えます。
+     *
+     * @param id キーワード ID（通知でキーワードを識別するための値。null 不可）
+     * @param keyword キーワード（null 不可）
+     * @throws NullPointerException 引数のいずれかが {@code null} の場合
+     * @throws IllegalArgumentException キーワードが空（正規化後に空白のみ）の場合
+     */
+    public void addKeyword(String id, String keyword) {
+        Objects.requireNonNull(id);
+        String normalized = BigramTokenizer.normalize(keyword).strip();
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("keyword must not be blank (id=" + id + ")");
+        }
+        lock.lock();
+        try {
+            keywords.put(id, normalized);
+            automaton = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * キーワードの登録を解除します。
+     *
+     * @param id キーワード ID
+     * @return 解除した場合は {@code true}
+     */
+    public boolean removeKeyword(String id) {
+        lock.lock();
+        try {
+            if (keywords.remove(id) == null) {
+                return false;
+            }
+            automaton = null;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 登録しているキーワードの件数を返します。
+     *
+     * @return 件数
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return keywords.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 一致した番組を通知するリスナーを追加します。
+     *
+     * <p>リスナーがスローした例外はログに出力し、他のリスナーへの通知を続けます。
+     *
+     * @param listener リスナー（null 不可）
+     * @throws NullPointerException listener が {@code null} の場合
+     */
+    public void addListener(Consumer<? super KeywordMatch> listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * リスナーを削除します。
+     *
+     * @param listener リスナー
+     * @return 削除した場合は {@code true}
+     */
+    public boolean removeListener(Consumer<? super KeywordMatch> listener) {
+        return listeners.remove(listener);
+    }
+
+    /**
+     * 番組名・出演者に含まれるキーワードを返します。リスナーには通知しません。
+     *
+     * @param entry 番組情報（null 不可）
+     * @return 含まれるキーワードの ID（登録順）
+     * @throws NullPointerException entry が {@code null} の場合
+     */
+    public List<String> match(ProgramEntry entry) {
+        Automaton a = automaton();
+        BitSet matched = new BitSet(a.ids.length);
+        a.scan(entry.getTitle(), matched);
+        a.scan(entry.getPfm(), matched);
+        List<String> ids = new ArrayList<>(matched.cardinality());
+        for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+            ids.add(a.ids[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * 番組を照合し、キーワードを含む場合はリスナーに通知します。
+     *
+     * @param program 番組（null 不可）
+     * @return キーワードを含む場合は {@code true}
+     * @throws NullPointerException program が {@code null} の場合
+     */
+    public boolean evaluate(ScheduledProgram program) {
+        List<String> ids = match(program.entry());
+        if (ids.isEmpty()) {
+            return false;
+        }
+        KeywordMatch match = new KeywordMatch(program, List.copyOf(ids));
+        for (Consumer<? super KeywordMatch> listener : listeners) {
+            try {
+                listener.accept(match);
+            } catch (RuntimeException e) {
+                log.warn(
+                        "evaluate(ScheduledProgram) : リスナーで例外が発生しました。keywordIds={}",
+                        match.keywordIds(),
+                        e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@link ProgramScheduleSynchronizer} が通知した、追加・変更された番組を照合します。
+     *
+     * @param changes 変更（null 不可）
+     */
+    @Override
+    public void accept(ProgramScheduleSynchronizer.Changes changes) {
+        changes.added().forEach(this::evaluate);
+        changes.changed().forEach(this::evaluate);
+    }
+
+    /**
+     * キーワードを含む番組です。
+     *
+     * @param program 番組
+     * @param keywordIds 含まれるキーワードの ID（登録順）
+     */
+    public record KeywordMatch(ScheduledProgram program, List<String> keywordIds) {}
+
+    /**
+     * オートマトンを返します。キーワードを変更していた場合は作り直します。
+     *
+     * @return オートマトン
+     */
+    private Automaton automaton() {
+        Automaton a = automaton;
+        if (a != null) {
+            return a;
+        }
+        lock.lock();
+        try {
+            if (automaton == null) {
+                automaton = Automaton.build(keywords);
+                log.debug("automaton() : キーワード数={}, 状態数={}", keywords.size(), automaton.size());
+            }
+            return automaton;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * キーワードから作成した Aho-Corasick 法のオートマトンです（不変）。
+     *
+     * <p>遷移は状態ごとに、文字（コードポイント）の昇順の配列と遷移先の配列で保持し、二分探索で求めます
+     * （照合時にコードポイントをボックス化しません）。
+     */
+    private static final class Automaton {
+
+        private static final int[] NONE = new int[0];
+
+        /**
+         * キーワード ID です（添字がキーワードの番号）。
+         */
+        private final String[] ids;
+
+        /**
+         * 状態ごとの、遷移できる文字（コードポイント）の昇順の配列です。状態 0 が初期状態です。
+         */
+        private final int[][] keys;
+
+        /**
+         * 状態ごとの、{@link #keys} と同じ順の遷移先です。
+         */
+        private final int[][] targets;
+
+        /**
+         * 状態ごとの失敗時の遷移先です。
+         */
+        private final int[] failures;
+
+        /**
+         * 状態ごとの、その状態で一致するキーワードの番号です（失敗時の遷移先で一致するものを含みます）。
+         */
+        private final int[][] outputs;
+
+        private Automaton(String[] ids, int[][] keys, int[][] targets) {
+            this.ids = ids;
+            this.keys = keys;
+            this.targets = targets;
+            this.failures = new int[keys.length];
+            this.outputs = new int[keys.length][];
+        }
+
+        static Automaton build(Map<String, String> keywords) {
+            // キーワードの木（トライ）を作成する
+            List<Map<Integer, Integer>> trie = new ArrayList<>();
+            trie.add(new HashMap<>());
+            List<List<Integer>> own = new ArrayList<>();
+            own.add(new ArrayList<>());
+            int index = 0;
+            for (String keyword : keywords.values()) {
+                int state = 0;
+                for (int i = 0; i < keyword.length(); ) {
+                    int cp = keyword.codePointAt(i);
+                    Integer next = trie.get(state).get(cp);
+                    if (next == null) {
+                        next = trie.size();
+                        trie.get(state).put(cp, next);
+                        trie.add(new HashMap<>());
+                        own.add(new ArrayList<>());
+                    }
+                    state = next;
+                    i += Character.charCount(cp);
+                }
+                own.get(state).add(index++);
+            }
+            // 照合に使用する遷移の配列に変換する
+            int n = trie.size();
+            int[][] keys = new int[n][];
+            int[][] targets = new int[n][];
+            for (int state = 0; state < n; state++) {
+                Map<Integer, Integer> children = trie.get(state);
+                int[] k = NONE;
+                int[] t = NONE;
+                if (!children.isEmpty()) {
+                    k = children.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+                    t = new int[k.length];
+                    for (int i = 0; i < k.length; i++) {
+                        t[i] = children.get(k[i]);
+                    }
+                }
+                keys[state] = k;
+                targets[state] = t;
+            }
+            Automaton a = new Automaton(keywords.keySet().toArray(String[]::new), keys, targets);
+            // 幅優先で失敗時の遷移先と、一致するキーワードを求める
+            a.outputs[0] = toArray(own.get(0), NONE);
+            int[] queue = new int[n];
+            int head = 0;
+            int tail = 0;
+            for (int child : a.targets[0]) {
+                a.failures[child] = 0;
+                queue[tail++] = child;
+            }
+            while (head < tail) {
+                int state = queue[head++];
+                a.outputs[state] = toArray(own.get(state), a.outputs[a.failures[state]]);
+                for (int i = 0; i < a.keys[state].length; i++) {
+                    int child = a.targets[state][i];
+                    a.failures[child] = a.next(a.failures[state], a.keys[state][i]);
+                    queue[tail++] = child;
+                }
+            }
+            return a;
+        }
+
+        private static int[] toArray(List<Integer> own, int[] inherited) {
+            if (own.isEmpty()) {
+                return inherited;
+            }
+            int[] merged = new int[own.size() + inherited.length];
+            for (int i = 0; i < own.size(); i++) {
+                merged[i] = own.get(i);
+            }
+            System.arraycopy(inherited, 0, merged, own.size(), inherited.length);
+            return merged;
+        }
+
+        /**
+         * 状態から文字で遷移した先を返します（遷移できない場合は失敗時の遷移先をたどります）。
+         */
+        private int next(int state, int cp) {
+            while (true) {
+                int i = Arrays.binarySearch(keys[state], cp);
+                if (i >= 0) {
+                    return targets[state][i];
+                }
+                if (state == 0) {
+                    return 0;
+                }
+                state = failures[state];
+            }
+        }
+
+        /**
+         * 文字列を正規化して走査し、含まれるキーワードの番号を設定します。
+         *
+         * @param text 文字列（null 可）
+         * @param matched キーワードの番号の設定先
+         */
+        void scan(String text, BitSet matched) {
+            if (text == null || text.isEmpty() || ids.length == 0) {
+                return;
+            }
+            String s = BigramTokenizer.normalize(text);
+            int state = 0;
+            for (int i = 0; i < s.length(); ) {
+                int cp = s.codePointAt(i);
+                state = next(state, cp);
+                for (int k : outputs[state]) {
+                    matched.set(k);
+                }
+                i += Character.charCount(cp);
+            }
+        }
+
+        int size() {
+            return keys.length;
+        }
+    }
+}
@@ -1,24 +1,24 @@
 package net.iwazou.rdkdler.search;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.PropertyNamingStrategies;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.iwazou.rdkdler.area.AreaPrefecture;
+import net.iwazou.rdkdler.exception.RdkDeadlineExceededException;
 import net.iwazou.rdkdler.http.RdkHttpClient;
 import net.iwazou.rdkdler.http.RdkHttpRequest;
 import net.iwazou.rdkdler.http.RdkHttpResponse;
 import net.iwazou.rdkdler.model.ProgramSearchResult;
+import net.iwazou.rdkdler.model.internal.ModelReaders;
 import net.iwazou.rdkdler.util.CommonUtils;
+import net.iwazou.rdkdler.util.Deadline;
 
 /**
  * ラジコの番組キーワード検索 API を呼び出すサービスクラスです。
@@ -32,6 +32,14 @@ import net.iwazou.rdkdler.util.CommonUtils;
  * そのため、同一インスタンスを複数スレッドから同時に利用する場合は、呼び出し側で同期するか、
  * 「1 リクエスト 1 インスタンス」等の運用にしてください。
  *
+ * <h2>非同期 API</h2>
+ * <p>{@link #searchAsync(String, int)} は {@link RdkHttpClient#getAsync(RdkHttpRequest)} を使用する非同期版です。
+ * 検索条件は呼び出し時点の値でリクエストに反映されるため、結果を待たずに条件を変更しても
+ * 送信済みの検索には影響しません。
+ *
+ * <p>{@link #search(String, int, Deadline)}・{@link #searchAsync(String, int, Deadline)} では、
+ * リクエストの期限（{@link Deadline}）を指定できます。
+ *
  * <h2>API 仕様について</h2>
  * <p>ラジコは検索 API の公式仕様を公開していないため、パラメータ名・制約等は
  * Web クライアントの通信等を参考にしています。将来の仕様変更により動作しなくなる可能性があります。
@@ -83,6 +91,17 @@ public class ProgramSearchService {
      */
     @Getter private int rowLimit = 12; // デフォルト値（好みで）
 
+    /**
+     * 長い番組説明（{@code info}・{@code description}）を圧縮して保持する場合は {@code true} です（デフォルト {@code false}）。
+     *
+     * <p>{@code true} の場合、{@link net.iwazou.rdkdler.model.HtmlText#compressed(String)} で保持します。
+     * 検索結果を長時間保持する場合にメモリを減らせますが、解析時に圧縮する分の処理が増えます。
+     *
+     * @param compressDetails 長い番組説明を圧縮して保持する場合は {@code true}
+     * @return 長い番組説明を圧縮して保持する場合は {@code true}
+     */
+    @Getter @Setter private boolean compressDetails = false;
+
     /**
      * 1 回の検索で取得できる最小件数です。
      */
@@ -163,11 +182,92 @@ public class ProgramSearchService {
      */
     public ProgramSearchResult search(String keyword, int pageIndex)
             throws IOException, InterruptedException {
+        return search(keyword, pageIndex, null);
+    }
+
+    /**
+     * 期限を指定して、キーワードで番組を検索します。
+     *
+     * <p>送信するパラメータは {@link #search(String, int)} と同じです。
+     *
+     * @param keyword 検索キーワード（空文字列や空白のみは不可）
+     * @param pageIndex ページインデックス（0 始まり）
+     * @param deadline 処理全体の期限（null 可。{@code null} の場合は期限なし）
+     * @return 検索結果を表す {@link ProgramSearchResult}
+     * @throws IllegalArgumentException {@code keyword} が空または空白のみの場合、または {@code pageIndex < 0} の場合
+     * @throws RdkDeadlineExceededException 期限までに検索できなかった場合
+     * @throws IOException 通信エラー、レスポンス読み取りエラー、JSON デシリアライズエラーが発生した場合
+     * @throws InterruptedException 呼び出しスレッドが割り込まれた場合
+     */
+    public ProgramSearchResult search(String keyword, int pageIndex, Deadline deadline)
+            throws IOException, InterruptedException {
+        RdkHttpRequest request = toSearchRequest(keyword, pageIndex, deadline);
+        log.debug("search(String, int, Deadline) : アクセスURL={}", request.getUrl());
+        RdkHttpResponse response = rdkHttpClient.get(request);
+        return toSearchResult("search(String, int, Deadline)", response);
+    }
+
+    /**
+     * キーワードで番組を非同期で検索します（ページインデックスは {@code 0} 固定）。
+     *
+     * @param keyword 検索キーワード（空文字列や空白のみは不可）
+     * @return 検索結果で完了する {@link CompletableFuture}
+     * @throws IllegalArgumentException {@code keyword} が空または空白のみの場合
+     * @see #searchAsync(String, int)
+     */
+    public CompletableFuture<ProgramSearchResult> searchAsync(String keyword) {
+        return searchAsync(keyword, 0);
+    }
+
+    /**
+     * {@link #search(String, int)} の非同期版です。
+     *
+     * <p>送信するパラメータは {@link #search(String, int)} と同じです。
+     *
+     * @param keyword 検索キーワード（空文字列や空白のみは不可）
+     * @param pageIndex ページインデックス（0 始まり）
+     * @return 検索結果で完了する {@link CompletableFuture}
+     *     （通信・JSON デシリアライズでエラーが発生した場合は、その {@link IOException} を原因として例外完了します）
+     * @throws IllegalArgumentException {@code keyword} が空または空白のみの場合、または {@code pageIndex < 0} の場合
+     */
+    public CompletableFuture<ProgramSearchResult> searchAsync(String keyword, int pageIndex) {
+        return searchAsync(keyword, pageIndex, null);
+    }
+
+    /**
+     * {@link #search(String, int, Deadline)} の非同期版です。
+     *
+     * @param keyword 検索キーワード（空文字列や空白のみは不可）
+     * @param pageIndex ページインデックス（0 始まり）
+     * @param deadline 処理全体の期限（null 可。{@code null} の場合は期限なし）
+     * @return 検索結果で完了する {@link CompletableFuture}
+     *     （期限を過ぎた場合は {@link RdkDeadlineExceededException} を原因として例外完了します）
+     * @throws IllegalArgumentException {@code keyword} が空または空白のみの場合、または {@code pageIndex < 0} の場合
+     */
+    public CompletableFuture<ProgramSearchResult> searchAsync(
+            String keyword, int pageIndex, Deadline deadline) {
+        RdkHttpRequest request = toSearchRequest(keyword, pageIndex, deadline);
+        String method = "searchAsync(String, int, Deadline)";
+        log.debug("{} : アクセスURL={}", method, request.getUrl());
+        return rdkHttpClient
+                .getAsync(request)
+                .thenApply(CommonUtils.unchecked(response -> toSearchResult(method, response)));
+    }
+
+    /**
+     * 現在の検索条件から検索リクエストを組み立てます。
+     *
+     * @param keyword 検索キーワード（空文字列や空白のみは不可）
+     * @param pageIndex ページインデックス（0 始まり）
+     * @param deadline 処理全体の期限（null 可）
+     * @return 検索リクエスト
+     * @throws IllegalArgumentException {@code keyword} が空または空白のみの場合、または {@code pageIndex < 0} の場合
+     */
+    private RdkHttpRequest toSearchRequest(String keyword, int pageIndex, Deadline deadline) {
         CommonUtils.notBlank(keyword);
         CommonUtils.isTrue(pageIndex >= 0);
 
         String url = "https://api.annex-cf.radiko.jp/v1/programs/legacy/perl/program/search";
-        log.debug("search(String, int) : アクセスURL={}", url);
         String startDay = LocalDate.now().minusDays(30).format(fmt); // 30日前の日付を設定
         Map<String, String> parameters =
                 Map.ofEntries(
@@ -189,19 +289,31 @@ public class ProgramSearchService {
                         Map.entry("row_limit", String.valueOf(this.rowLimit)),
                         Map.entry("app_id", "pc"),
                         Map.entry("action_id", "0"));
-        RdkHttpResponse response =
-                rdkHttpClient.get(RdkHttpRequest.builder().url(url).parameters(parameters).build());
-        String body = CommonUtils.getBody(response);
-        log.debug("search(String, int) : レスポンスボディ={}", body);
-        ObjectMapper objectMapper =
-                new ObjectMapper()
-                        .registerModule(new JavaTimeModule())
-                        .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
-                        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
-                        // 空文字→nullを許容
-                        .configure(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT, true);
-        ProgramSearchResult data = objectMapper.readValue(body, ProgramSearchResult.class);
-        log.debug("search(String, int) : 検索結果={}", data);
+        return RdkHttpRequest.builder()
+                .url(url)
+                .parameters(parameters)
+                .deadline(deadline)
+                .build();
+    }
+
+    /**
+     * レスポンスの JSON を {@link ProgramSearchResult} にデシリアライズします（同期版・非同期版で共通）。
+     *
+     * @param method ログ出力用の呼び出し元メソッド名
+     * @param response HTTP レスポンス
+     * @return 検索結果
+     * @throws IOException ステータスコードが 200 以外、本文が空、または JSON デシリアライズに失敗した場合
+     */
+    private ProgramSearchResult toSearchResult(String method, RdkHttpResponse response)
+            throws IOException {
+        byte[] body = CommonUtils.getBodyBytes(response);
+        if (log.isDebugEnabled()) {
+            // 本文の文字列化はデバッグ出力する場合のみ行う
+            log.debug("{} : レスポンスボディ={}", method, response.body());
+        }
+        ProgramSearchResult data =
+                ModelReaders.read(ProgramSearchResult.class, body, compressDetails);
+        log.debug("{} : 検索結果={}", method, data);
         return data;
     }
 }
@@ -0,0 +1,549 @@
+package net.iwazou.rdkdler.search;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import net.iwazou.rdkdler.model.ProgramEntry;
+import net.iwazou.rdkdler.model.ProgramSchedule;
+import net.iwazou.rdkdler.model.ProgramSearchResult;
+import net.iwazou.rdkdler.model.ProgramSearchResult.ResultData;
+import net.iwazou.rdkdler.schedule.ScheduledProgram;
+import org.jsoup.Jsoup;
+
+/**
+ * 取得した番組情報をメモリ上で全文検索する索引（転置索引）です。
+ *
+ * <p>{@link ProgramSearchService} はラジコの検索 API を使用するため、取得件数や検索できる期間に上限があります。
+ * 本クラスは、番組表（{@link ProgramSchedule}）や検索結果（{@link ProgramSearchResult}）から取得した番組を索引に追加し、
+ * 保持している期間の番組をキーワードで検索します。
+ *
+ * <p><b>検索対象</b>：番組名（{@code title}）・出演者（{@code pfm}）・タグ（{@code tag}・{@code genre} の名前）・
+ * 番組説明（{@code desc}・{@code info}。HTML のタグは除きます）です。
+ * 文字列は {@link BigramTokenizer} で文字 bigram に分割し、キーワードのすべての bigram を含む番組を検索します。
+ * 空白で区切った複数のキーワードは、すべてを含む番組を検索します（AND 検索）。
+ * 1 文字のキーワードは、その文字を含むすべての語から検索します。
+ *
+ * <p><b>順位</b>：BM25 で採点し、点数の高い順に返します。番組名は 3 倍、出演者・タグは 2 倍の重みで数えます。
+ *
+ * <p><b>更新</b>：同じラジオ局・同じ開始日時の番組を追加した場合は置き換えます（開始日時がない場合は番組 ID で識別します）。
+ * {@link #removeEndedBefore(LocalDateTime)} で、保持期間を過ぎた番組を削除できます。
+ *
+ * <p><b>スレッドセーフ</b>：複数スレッドから同時に利用できます。検索は同時に実行でき、追加・削除の間は待機します。
+ *
+ * <p>使用例：
+ * <pre>{@code
+ * ProgramTextIndex index = new ProgramTextIndex();
+ * index.addAll(programScheduleService.getProgramSchedule(AreaPrefecture.TOKYO, date));
+ * for (ProgramTextIndex.Hit hit : index.search("深夜 ラジオ", 20)) {
+ *     log.info("{} {}", hit.score(), hit.program().entry().getTitle());
+ * }
+ * }</pre>
+ */
+public class ProgramTextIndex {
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int PERFORMER_WEIGHT = 2;
+    private static final int TAG_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    /**
+     * BM25 の語の出現回数に対する飽和の度合いです。
+     */
+    private static final double K1 = 1.2;
+
+    /**
+     * BM25 の番組の長さによる補正の度合いです。
+     */
+    private static final double B = 0.75;
+
+    /**
+     * 削除済みの番組がこの件数を超え、かつ残っている番組より多くなった場合に索引を作り直します。
+     */
+    private static final int COMPACT_THRESHOLD = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 番組の通し番号ごとの番組です（削除済みの番組は {@code null}）。
+     */
+    private final List<ScheduledProgram> programs = new ArrayList<>();
+
+    /**
+     * 番組の通し番号ごとの長さ（重みを掛けた語の数）です。
+     */
+    private int[] lengths = new int[64];
+
+    /**
+     * 番組を識別するキーごとの、番組の通し番号です。
+     */
+    private final Map<String, Integer> keys = new HashMap<>();
+
+    /**
+     * 語ごとの出現する番組の一覧（転置リスト）です。
+     */
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    /**
+     * 削除されていない番組の件数です。
+     */
+    private int live;
+
+    /**
+     * 削除されていない番組の長さの合計です。
+     */
+    private long totalLength;
+
+    /**
+     * 番組表のすべての番組を索引に追加します。
+     *
+     * @param schedule 番組スケジュール情報（null 不可）
+     * @return 索引に追加した番組の件数（置き換えた番組を含みます）
+     * @throws NullPointerException schedule が {@code null} の場合
+     */
+    public int addAll(ProgramSchedule schedule) {
+        return addAll(ScheduledProgram.listOf(schedule));
+    }
+
+    /**
+     * 番組検索の結果の番組を索引に追加します。
+     *
+     * <p>番組名・出演者・番組説明（{@code description}・{@code info}）・ジャンル・開始日時・終了日時・放送日を
+     * {@link ProgramEntry} に詰め替えて追加します。
+     *
+     * @param result 番組検索の結果（null 不可）
+     * @return 索引に追加した番組の件数（置き換えた番組を含みます）
+     * @throws NullPointerException result が {@code null} の場合
+     */
+    public int addAll(ProgramSearchResult result) {
+        List<ScheduledProgram> converted = new ArrayList<>();
+        if (result.getResultDatas() != null) {
+            for (ResultData data : result.getResultDatas()) {
+                ProgramEntry entry = new ProgramEntry();
+                entry.setFt(data.getStartTime());
+                entry.setTo(data.getEndTime());
+                entry.setTitle(data.getTitle());
+                entry.setPfm(data.getPerformer());
+                entry.setDesc(data.getDescription());
+                entry.setInfo(data.getInfo());
+                entry.setUrl(data.getProgramUrl());
+                entry.setImg(data.getImg());
+                entry.setGenre(genreOf(data.getGenre()));
+                converted.add(
+                        new ScheduledProgram(
+                                data.getStationId(), null, data.getProgramDate(), entry));
+            }
+        }
+        return addAll(converted);
+    }
+
+    /**
+     * 番組を索引に追加します。
+     *
+     * @param programs 番組（null 不可）
+     * @return 索引に追加した番組の件数（置き換えた番組を含み、局 ID のない番組、開始日時・番組 ID のいずれもない番組を除きます）
+     * @throws NullPointerException programs が {@code null} の場合
+     */
+    public int addAll(Collection<ScheduledProgram> programs) {
+        // 語への分割（HTML の解析を含む）はロックの外で行う
+        List<Document> documents = new ArrayList<>(programs.size());
+        for (ScheduledProgram program : programs) {
+            String key = keyOf(program);
+            if (key != null) {
+                documents.add(Document.of(key, program));
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            for (Document document : documents) {
+                add(document);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return documents.size();
+    }
+
+    /**
+     * 番組検索の結果のジャンルを、番組表のジャンルに詰め替えます。
+     *
+     * @param genre 番組検索の結果のジャンル（null 可）
+     * @return 番組表のジャンル（genre が {@code null} の場合は {@code null}）
+     */
+    private static ProgramEntry.Genre genreOf(ProgramSearchResult.Genre genre) {
+        if (genre == null) {
+            return null;
+        }
+        ProgramEntry.Genre converted = new ProgramEntry.Genre();
+        if (genre.getPersonality() != null) {
+            ProgramEntry.Personality personality = new ProgramEntry.Personality();
+            personality.setId(genre.getPersonality().getId());
+            personality.setName(genre.getPersonality().getName());
+            converted.setPersonalitys(List.of(personality));
+        }
+        if (genre.getProgram() != null) {
+            ProgramEntry.Program program = new ProgramEntry.Program();
+            program.setId(genre.getProgram().getId());
+            program.setName(genre.getProgram().getName());
+            converted.setPrograms(List.of(program));
+        }
+        return converted;
+    }
+
+    /**
+     * 終了日時が指定した日時以前の番組を削除します。
+     *
+     * @param dateTime 日時（null 不可）
+     * @return 削除した番組の件数
+     * @throws NullPointerException dateTime が {@code null} の場合
+     */
+    public int removeEndedBefore(LocalDateTime dateTime) {
+        Objects.requireNonNull(dateTime);
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            for (int id = 0; id < programs.size(); id++) {
+                ScheduledProgram program = programs.get(id);
+                if (program != null
+                        && program.entry().getTo() != null
+                        && !program.entry().getTo().isAfter(dateTime)) {
+                    keys.remove(keyOf(program));
+                    remove(id);
+                    removed++;
+                }
+            }
+            compactIfNeeded();
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * キーワードで番組を検索します。
+     *
+     * @param query キーワード（空白で区切った場合は、すべてを含む番組を検索します。null 不可）
+     * @param limit 返す番組の最大数
+     * @return 検索結果（点数の高い順。点数が同じ場合は開始日時の新しい順）
+     * @throws NullPointerException query が {@code null} の場合
+     * @throws IllegalArgumentException limit が 0 以下の場合
+     */
+    public List<Hit> search(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive (value=" + limit + ")");
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        for (String keyword : query.trim().split("\\s+")) {
+            terms.addAll(BigramTokenizer.tokenize(keyword));
+        }
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return score(terms, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 検索結果の番組と点数です。
+     *
+     * @param program 番組
+     * @param score 点数（BM25）
+     */
+    public record Hit(ScheduledProgram program, double score) {}
+
+    /**
+     * 索引に含まれる番組の件数を返します。
+     *
+     * @return 件数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 索引をすべて破棄します。
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            programs.clear();
+            keys.clear();
+            postings.clear();
+            lengths = new int[64];
+            live = 0;
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * すべての語を含む番組を採点し、点数の高い順に返します。
+     *
+     * @param terms 語（重複なし）
+     * @param limit 返す番組の最大数
+     * @return 検索結果
+     */
+    private List<Hit> score(Set<String> terms, int limit) {
+        List<Postings> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            Postings list =
+                    term.codePointCount(0, term.length()) == 1 ? union(term) : postings.get(term);
+            if (list == null) {
+                return List.of(); // 含まない語がある
+            }
+            lists.add(list);
+        }
+        // 出現する番組の少ない語から調べ、候補を絞り込む
+        lists.sort(Comparator.comparingInt(Postings::size));
+        int n = programs.size();
+        double[] scores = new double[n];
+        int[] matched = new int[n];
+        double averageLength = live == 0 ? 1 : (double) totalLength / live;
+        for (int t = 0; t < lists.size(); t++) {
+            Postings list = lists.get(t);
+            double idf = Math.log(1 + (live - list.size() + 0.5) / (list.size() + 0.5));
+            for (int i = 0; i < list.size(); i++) {
+                int id = list.ids[i];
+                // 前の語をすべて含む番組のみを採点する（削除済みの番組は候補にならない）
+                if (matched[id] != t || programs.get(id) == null) {
+                    continue;
+                }
+                int tf = list.frequencies[i];
+                double norm = K1 * (1 - B + B * lengths[id] / averageLength);
+                scores[id] += idf * tf * (K1 + 1) / (tf + norm);
+                matched[id]++;
+            }
+        }
+        List<Hit> hits = new ArrayList<>();
+        for (int id = 0; id < n; id++) {
+            if (matched[id] == lists.size()) {
+                hits.add(new Hit(programs.get(id), scores[id]));
+            }
+        }
+        hits.sort(
+                Comparator.comparingDouble(Hit::score)
+                        .reversed()
+                        .thenComparing(
+                                hit -> hit.program().entry().getFt(),
+                                Comparator.nullsLast(Comparator.reverseOrder())));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    /**
+     * 1 文字の語について、その文字を含むすべての語の転置リストを合わせた転置リストを返します。
+     *
+     * <p>番組は 2 文字ずつ語に分割して索引に追加するため、1 文字のキーワードは、その文字を含む語から検索します。
+     * すべての語を調べるため、2 文字以上のキーワードより時間がかかります。
+     *
+     * @param character 1 文字の語
+     * @return 転置リスト（該当する番組がない場合は {@code null}）
+     */
+    private Postings union(String character) {
+        int[] frequencies = new int[programs.size()];
+        boolean found = false;
+        for (Map.Entry<String, Postings> e : postings.entrySet()) {
+            if (e.getKey().contains(character)) {
+                Postings list = e.getValue();
+                for (int i = 0; i < list.size(); i++) {
+                    frequencies[list.ids[i]] += list.frequencies[i];
+                }
+                found = true;
+            }
+        }
+        if (!found) {
+            return null;
+        }
+        Postings merged = new Postings();
+        for (int id = 0; id < frequencies.length; id++) {
+            if (frequencies[id] > 0) {
+                merged.add(id, frequencies[id]);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 番組を追加します（同じキーの番組は置き換えます）。書き込みロックを取得して呼び出してください。
+     *
+     * @param document 語に分割した番組
+     */
+    private void add(Document document) {
+        Integer previous = keys.get(document.key);
+        if (previous != null) {
+            remove(previous);
+        }
+        int id = programs.size();
+        programs.add(document.program);
+        if (id == lengths.length) {
+            lengths = Arrays.copyOf(lengths, id * 2);
+        }
+        lengths[id] = document.length;
+        keys.put(document.key, id);
+        live++;
+        totalLength += document.length;
+        document.frequencies.forEach(
+                (term, tf) -> postings.computeIfAbsent(term, k -> new Postings()).add(id, tf));
+    }
+
+    /**
+     * 番組を削除済みにします。転置リストからは {@link #compactIfNeeded()} で取り除きます。
+     *
+     * @param id 番組の通し番号
+     */
+    private void remove(int id) {
+        programs.set(id, null);
+        live--;
+        totalLength -= lengths[id];
+    }
+
+    /**
+     * 削除済みの番組が多くなった場合に、残っている番組で索引を作り直します。
+     */
+    private void compactIfNeeded() {
+        int deleted = programs.size() - live;
+        if (deleted <= COMPACT_THRESHOLD || deleted <= live) {
+            return;
+        }
+        List<ScheduledProgram> remaining = new ArrayList<>(live);
+        for (ScheduledProgram program : programs) {
+            if (program != null) {
+                remaining.add(program);
+            }
+        }
+        programs.clear();
+        keys.clear();
+        postings.clear();
+        lengths = new int[Math.max(64, remaining.size())];
+        live = 0;
+        totalLength = 0;
+        for (ScheduledProgram program : remaining) {
+            add(Document.of(keyOf(program), program));
+        }
+    }
+
+    /**
+     * 番組を識別するキーを返します。
+     *
+     * @param program 番組
+     * @return キー（局 ID がない場合、または開始日時・番組 ID のいずれもない場合は {@code null}）
+     */
+    private static String keyOf(ScheduledProgram program) {
+        ProgramEntry entry = program.entry();
+        if (program.stationId() == null || entry == null) {
+            return null;
+        }
+        if (entry.getFt() != null) {
+            return program.stationId() + '/' + entry.getFt();
+        }
+        return entry.getId() == null || entry.getId().isEmpty()
+                ? null
+                : program.stationId() + "/id:" + entry.getId();
+    }
+
+    /**
+     * 語に分割した番組です。
+     */
+    private static final class Document {
+        private final String key;
+        private final ScheduledProgram program;
+
+        /**
+         * 語ごとの、重みを掛けた出現回数です。
+         */
+        private final Map<String, Integer> frequencies = new HashMap<>();
+
+        private int length;
+
+        private Document(String key, ScheduledProgram program) {
+            this.key = key;
+            this.program = program;
+        }
+
+        static Document of(String key, ScheduledProgram program) {
+            Document document = new Document(key, program);
+            ProgramEntry entry = program.entry();
+            document.addText(entry.getTitle(), TITLE_WEIGHT);
+            document.addText(entry.getPfm(), PERFORMER_WEIGHT);
+            if (entry.getItems() != null) {
+                entry.getItems().forEach(item -> document.addText(item.getName(), TAG_WEIGHT));
+            }
+            if (entry.getGenre() != null) {
+                if (entry.getGenre().getPersonalitys() != null) {
+                    entry.getGenre()
+                            .getPersonalitys()
+                            .forEach(p -> document.addText(p.getName(), TAG_WEIGHT));
+                }
+                if (entry.getGenre().getPrograms() != null) {
+                    entry.getGenre()
+                            .getPrograms()
+                            .forEach(p -> document.addText(p.getName(), TAG_WEIGHT));
+                }
+            }
+            document.addText(textOf(entry.getDesc()), DESCRIPTION_WEIGHT);
+            document.addText(textOf(entry.getInfo()), DESCRIPTION_WEIGHT);
+            return document;
+        }
+
+        private void addText(String text, int weight) {
+            for (String token : BigramTokenizer.tokenize(text)) {
+                frequencies.merge(token, weight, Integer::sum);
+                length += weight;
+            }
+        }
+
+        /**
+         * HTML からタグを除いた文字列を返します。
+         *
+         * @param html HTML（null 可）
+         * @return 文字列（html が {@code null} または空の場合はそのまま）
+         */
+        private static String textOf(String html) {
+            if (html == null || html.isEmpty() || html.indexOf('<') < 0 && html.indexOf('&') < 0) {
+                return html;
+            }
+            return Jsoup.parse(html).text();
+        }
+    }
+
+    /**
+     * 1 語分の転置リストです。番組の通し番号の昇順に、番組と語の出現回数を保持します。
+     */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void add(int id, int frequency) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ids[size] = id;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -1,26 +1,29 @@
 package net.iwazou.rdkdler.station;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.PropertyNamingStrategies;
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.iwazou.rdkdler.area.AreaPrefecture;
+import net.iwazou.rdkdler.exception.RdkDeadlineExceededException;
 import net.iwazou.rdkdler.http.RdkHttpClient;
 import net.iwazou.rdkdler.http.RdkHttpRequest;
 import net.iwazou.rdkdler.http.RdkHttpResponse;
 import net.iwazou.rdkdler.model.AreaStations;
+import net.iwazou.rdkdler.model.internal.ModelReaders;
 import net.iwazou.rdkdler.util.CommonUtils;
+import net.iwazou.rdkdler.util.Deadline;
 
 /**
  * ラジコのエリアごとのラジオ局一覧（ステーションリスト）を取得するサービスクラスです。
  *
  * <p>ステーションリスト API（XML）にアクセスし、取得した XML を
- * Jackson（{@link XmlMapper}）で {@link AreaStations} にデシリアライズして返します。
+ * Jackson（{@link ModelReaders}）で {@link AreaStations} にデシリアライズして返します。
  *
- * <p>本クラスでは XML のプロパティ名を {@link PropertyNamingStrategies#SNAKE_CASE} として扱う前提です。
+ * <p>本クラスでは XML のプロパティ名を SNAKE_CASE として扱う前提です。
+ *
+ * <p>{@link #getStationsAsync(AreaPrefecture)} は {@link RdkHttpClient#getAsync(RdkHttpRequest)} を使用する非同期版です。
+ * 各メソッドには、リクエストの期限（{@link Deadline}）を指定する版があります。
  *
  * <p><strong>注意</strong>：
  * 取得元 URL や XML 形式はラジコ側の仕様変更により変わる可能性があります。
@@ -52,17 +55,89 @@ public class StationService {
      * @throws NullPointerException {@code area} が {@code null} の場合（本メソッド内で明示チェックはしていません）
      */
     public AreaStations getStations(AreaPrefecture area) throws IOException, InterruptedException {
-        String url = String.format("https://radiko.jp/v3/station/list/%s.xml", area.getAreaId());
-        log.debug("getStations(AreaPrefecture) : アクセスURL={}", url);
-        RdkHttpResponse response = rdkHttpClient.get(RdkHttpRequest.builder().url(url).build());
-        String body = CommonUtils.getBody(response);
-        log.debug("getStations(AreaPrefecture) : レスポンスボディ={}", body);
-        ObjectMapper objectMapper =
-                new XmlMapper()
-                        .registerModule(new JavaTimeModule())
-                        .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
-        AreaStations data = objectMapper.readValue(body, AreaStations.class);
-        log.debug("getStations(AreaPrefecture) : 取得結果={}", data);
+        return getStations(area, null);
+    }
+
+    /**
+     * 期限を指定して、指定したエリア（都道府県）に対応するラジオ局一覧を取得します。
+     *
+     * <p>処理は {@link #getStations(AreaPrefecture)} と同じです。
+     *
+     * @param area ラジコのエリア（都道府県）コード（{@code null} 不可）
+     * @param deadline 処理全体の期限（null 可。{@code null} の場合は期限なし）
+     * @return 指定エリアのラジオ局一覧を表す {@link AreaStations}
+     * @throws RdkDeadlineExceededException 期限までに取得できなかった場合
+     * @throws IOException 通信・レスポンス読み取り・XML デシリアライズで入出力エラーが発生した場合
+     * @throws InterruptedException HTTP 通信処理中などにスレッドが割り込まれた場合
+     * @throws NullPointerException {@code area} が {@code null} の場合
+     */
+    public AreaStations getStations(AreaPrefecture area, Deadline deadline)
+            throws IOException, InterruptedException {
+        String url = stationListUrl(area);
+        log.debug("getStations(AreaPrefecture, Deadline) : アクセスURL={}", url);
+        RdkHttpResponse response =
+                rdkHttpClient.get(RdkHttpRequest.builder().url(url).deadline(deadline).build());
+        return toAreaStations("getStations(AreaPrefecture, Deadline)", response);
+    }
+
+    /**
+     * {@link #getStations(AreaPrefecture)} の非同期版です。
+     *
+     * @param area ラジコのエリア（都道府県）コード（{@code null} 不可）
+     * @return 指定エリアのラジオ局一覧で完了する {@link CompletableFuture}
+     *     （通信・XML デシリアライズでエラーが発生した場合は、その {@link IOException} を原因として例外完了します）
+     * @throws NullPointerException {@code area} が {@code null} の場合（本メソッド内で明示チェックはしていません）
+     */
+    public CompletableFuture<AreaStations> getStationsAsync(AreaPrefecture area) {
+        return getStationsAsync(area, null);
+    }
+
+    /**
+     * {@link #getStations(AreaPrefecture, Deadline)} の非同期版です。
+     *
+     * @param area ラジコのエリア（都道府県）コード（{@code null} 不可）
+     * @param deadline 処理全体の期限（null 可。{@code null} の場合は期限なし）
+     * @return 指定エリアのラジオ局一覧で完了する {@link CompletableFuture}
+     *     （期限を過ぎた場合は {@link RdkDeadlineExceededException} を原因として例外完了します）
+     * @throws NullPointerException {@code area} が {@code null} の場合
+     */
+    public CompletableFuture<AreaStations> getStationsAsync(
+            AreaPrefecture area, Deadline deadline) {
+        String url = stationListUrl(area);
+        String method = "getStationsAsync(AreaPrefecture, Deadline)";
+        log.debug("{} : アクセスURL={}", method, url);
+        return rdkHttpClient
+                .getAsync(RdkHttpRequest.builder().url(url).deadline(deadline).build())
+                .thenApply(CommonUtils.unchecked(response -> toAreaStations(method, response)));
+    }
+
+    /**
+     * ステーションリストのアクセス URL を組み立てます。
+     *
+     * @param area ラジコのエリア（都道府県）コード
+     * @return アクセス URL
+     */
+    private String stationListUrl(AreaPrefecture area) {
+        return String.format("https://radiko.jp/v3/station/list/%s.xml", area.getAreaId());
+    }
+
+    /**
+     * レスポンスの XML を {@link AreaStations} にデシリアライズします（同期版・非同期版で共通）。
+     *
+     * @param method ログ出力用の呼び出し元メソッド名
+     * @param response HTTP レスポンス
+     * @return 指定エリアのラジオ局一覧
+     * @throws IOException ステータスコードが 200 以外、本文が空、または XML デシリアライズに失敗した場合
+     */
+    private AreaStations toAreaStations(String method, RdkHttpResponse response)
+            throws IOException {
+        byte[] body = CommonUtils.getBodyBytes(response);
+        if (log.isDebugEnabled()) {
+            // 本文の文字列化はデバッグ出力する場合のみ行う
+            log.debug("{} : レスポンスボディ={}", method, response.body());
+        }
+        AreaStations data = ModelReaders.read(AreaStations.class, body);
+        log.debug("{} : 取得結果={}", method, data);
         return data;
     }
 }
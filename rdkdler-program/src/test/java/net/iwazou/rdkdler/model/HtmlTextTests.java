@@ -0,0 +1,108 @@
+package net.iwazou.rdkdler.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import net.iwazou.rdkdler.model.internal.ModelReaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class HtmlTextTests {
+
+    @DisplayName("compressedのテスト：長いHTMLは圧縮して保持し、参照するたびに復元する")
+    @Test
+    void test_compressed_01() {
+        String html = "<p>" + "番組の<b>説明</b>です。".repeat(40) + "</p>";
+
+        HtmlText text = HtmlText.compressed(html);
+
+        assertThat(text.isCompressed()).isTrue();
+        assertThat(text.html()).isEqualTo(html);
+        // 復元した文字列は保持しない
+        assertThat(text.html()).isNotSameAs(text.html());
+        assertThat(text.text()).startsWith("番組の説明です。番組の説明です。");
+        assertThat(text.text()).isSameAs(text.text());
+        assertThat(text)
+                .isEqualTo(HtmlText.compressed(html))
+                .hasSameHashCodeAs(HtmlText.compressed(html))
+                .isEqualTo(HtmlText.of(html))
+                .hasSameHashCodeAs(HtmlText.of(html))
+                .isNotEqualTo(HtmlText.compressed(html + " "));
+        assertThat(HtmlText.of(html)).isEqualTo(text);
+    }
+
+    @DisplayName("compressedのテスト：短いHTMLはそのまま保持する")
+    @Test
+    void test_compressed_02() {
+        HtmlText text = HtmlText.compressed("<p>短い&amp;説明</p>");
+
+        assertThat(text.isCompressed()).isFalse();
+        assertThat(text.html()).isEqualTo("<p>短い&amp;説明</p>");
+        assertThat(text.text()).isEqualTo("短い&説明");
+        assertThat(HtmlText.compressed(null)).isNull();
+    }
+
+    @DisplayName("ofのテスト：HTMLは長さによらずそのまま保持する")
+    @Test
+    void test_of_01() {
+        String html = "<p>" + "番組の<b>説明</b>です。".repeat(40) + "</p>";
+
+        HtmlText text = HtmlText.of(html);
+
+        assertThat(text.isCompressed()).isFalse();
+        assertThat(text.html()).isSameAs(html);
+        assertThat(HtmlText.of("<p>短い&amp;説明</p>").text()).isEqualTo("短い&説明");
+        assertThat(HtmlText.of(null)).isNull();
+    }
+
+    @DisplayName("ProgramEntryのテスト：desc・infoをHtmlTextで保持し、文字列で取得・比較する")
+    @Test
+    void test_ProgramEntry_01() throws IOException {
+        ProgramSchedule schedule =
+                ModelReaders.read(
+                        ProgramSchedule.class,
+                        Files.readAllBytes(
+                                Path.of("src/test/resources/xml/program_date_area_sample.xml")));
+        ProgramEntry entry =
+                schedule.getStationProgramSchedules()
+                        .get(0)
+                        .getDailyProgramSchedules()
+                        .get(0)
+                        .getProgramEntrys()
+                        .get(0);
+
+        assertThat(entry.getDesc()).isEqualTo("デスク１１");
+        assertThat(entry.getDescHtml().text()).isEqualTo("デスク１１");
+        assertThat(entry.getInfoHtml().html()).isEqualTo("インフォ１１");
+
+        ProgramEntry copy = new ProgramEntry();
+        copy.setDesc("デスク１１");
+        ProgramEntry other = new ProgramEntry();
+        other.setDesc("デスク１１");
+        assertThat(copy).isEqualTo(other).hasSameHashCodeAs(other);
+        assertThat(copy.toString()).contains("desc=デスク１１");
+    }
+
+    @DisplayName("ModelReadersのテスト：compressDetailsを指定した場合のみ、長いdesc・infoを圧縮して保持する")
+    @Test
+    void test_ModelReaders_01() throws IOException {
+        String html = "<p>" + "番組の<b>説明</b>です。".repeat(40) + "</p>";
+        byte[] body =
+                ("{\"data\":[{\"title\":\"番組\",\"info\":\"" + html + "\",\"description\":\"短い\"}]}")
+                        .getBytes(StandardCharsets.UTF_8);
+
+        ProgramSearchResult.ResultData plain =
+                ModelReaders.read(ProgramSearchResult.class, body).getResultDatas().get(0);
+        ProgramSearchResult.ResultData compressed =
+                ModelReaders.read(ProgramSearchResult.class, body, true).getResultDatas().get(0);
+
+        assertThat(plain.getInfoHtml().isCompressed()).isFalse();
+        assertThat(compressed.getInfoHtml().isCompressed()).isTrue();
+        assertThat(compressed.getDescriptionHtml().isCompressed()).isFalse();
+        assertThat(compressed.getInfo()).isEqualTo(html);
+        assertThat(compressed).isEqualTo(plain).hasSameHashCodeAs(plain);
+    }
+}
@@ -0,0 +1,129 @@
+package net.iwazou.rdkdler.model.compact;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import net.iwazou.rdkdler.model.ProgramEntry;
+import net.iwazou.rdkdler.model.ProgramSchedule;
+import net.iwazou.rdkdler.model.internal.ModelReaders;
+import net.iwazou.rdkdler.schedule.ScheduledProgram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CompactProgramEntryTests {
+
+    @DisplayName("of・toProgramEntryのテスト：番組表のすべての番組を変換し、元の番組情報に戻す")
+    @Test
+    void test_toProgramEntry_01() throws IOException {
+        ProgramSchedule schedule =
+                ModelReaders.read(
+                        ProgramSchedule.class,
+                        Files.readAllBytes(
+                                Path.of("src/test/resources/xml/program_date_area_sample.xml")));
+        StringDictionary dictionary = new StringDictionary();
+
+        List<ScheduledProgram> programs = ScheduledProgram.listOf(schedule);
+        assertThat(programs).hasSize(6);
+        for (ScheduledProgram program : programs) {
+            ProgramEntry entry = program.entry();
+            CompactProgramEntry compact = CompactProgramEntry.of(entry, dictionary);
+
+            assertThat(compact.toProgramEntry()).isEqualTo(entry);
+            assertThat(compact.getId()).isEqualTo(entry.getId());
+            assertThat(compact.getTitle()).isEqualTo(entry.getTitle());
+            assertThat(compact.getFt()).isEqualTo(entry.getFt());
+            assertThat(compact.getTo()).isEqualTo(entry.getTo());
+            assertThat(compact.getDesc()).isEqualTo(entry.getDesc());
+            assertThat(compact.getTsInNg()).isEqualTo(entry.getTsInNg());
+        }
+    }
+
+    @DisplayName("ofのテスト：同じ文字列は辞書で共有する")
+    @Test
+    void test_of_01() {
+        StringDictionary dictionary = new StringDictionary();
+        CompactProgramEntry first = CompactProgramEntry.of(entry("1", "深夜ラジオ"), dictionary);
+        int size = dictionary.size();
+        CompactProgramEntry second = CompactProgramEntry.of(entry("2", "深夜ラジオ"), dictionary);
+
+        assertThat(dictionary.size()).isEqualTo(size);
+        assertThat(first.getTitle()).isSameAs(second.getTitle());
+        assertThat(second.getId()).isEqualTo("2");
+    }
+
+    @DisplayName("ofのテスト：日時・タイムフリーの可否・長い番組説明・null の項目")
+    @Test
+    void test_of_02() {
+        ProgramEntry entry = entry("1", "番組");
+        entry.setTsInNg(0);
+        entry.setTsplusInNg(1);
+        entry.setTsOutNg(2);
+        entry.setTsplusOutNg(null);
+        entry.setDesc("<p>" + "番組の説明です。".repeat(50) + "</p>");
+        entry.setInfo("短い説明");
+        StringDictionary dictionary = new StringDictionary();
+
+        CompactProgramEntry compact = CompactProgramEntry.of(entry, dictionary);
+
+        assertThat(compact.getFtEpochSecond())
+                .isEqualTo(LocalDateTime.parse("2025-10-22T05:00").toEpochSecond(ZoneOffset.UTC));
+        assertThat(compact.getTo()).isNull();
+        assertThat(compact.getToEpochSecond()).isEqualTo(Long.MIN_VALUE);
+        assertThat(compact.getTsInNg()).isZero();
+        assertThat(compact.getTsplusInNg()).isEqualTo(1);
+        assertThat(compact.getTsOutNg()).isEqualTo(2);
+        assertThat(compact.getTsplusOutNg()).isNull();
+        assertThat(compact.getDesc()).isEqualTo(entry.getDesc());
+        assertThat(compact.getInfo()).isEqualTo("短い説明");
+        assertThat(compact.getPfm()).isNull();
+        assertThat(compact.toProgramEntry()).isEqualTo(entry);
+        assertThat(compact.toProgramEntry().getItems()).isNull();
+        assertThat(compact.toProgramEntry().getGenre()).isNull();
+    }
+
+    @DisplayName("ofのテスト：タイムフリーの可否が範囲外の場合はIllegalArgumentException")
+    @Test
+    void test_of_03() {
+        ProgramEntry entry = entry("1", "番組");
+        entry.setTsOutNg(255);
+
+        assertThatThrownBy(() -> CompactProgramEntry.of(entry, new StringDictionary()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("flag must be between 0 and 254 (value=255)");
+    }
+
+    @DisplayName("StringDictionaryのテスト：コードの割り当てと復元")
+    @Test
+    void test_StringDictionary_01() {
+        StringDictionary dictionary = new StringDictionary();
+        int a = dictionary.encode("A");
+        int b = dictionary.encode("B");
+        for (int i = 0; i < 1000; i++) {
+            dictionary.encode("S" + i);
+        }
+
+        assertThat(dictionary.encode("A")).isEqualTo(a);
+        assertThat(dictionary.decode(b)).isEqualTo("B");
+        assertThat(dictionary.decode(dictionary.encode("S999"))).isEqualTo("S999");
+        assertThat(dictionary.encode(null)).isEqualTo(StringDictionary.NULL);
+        assertThat(dictionary.decode(StringDictionary.NULL)).isNull();
+        assertThat(dictionary.size()).isEqualTo(1002);
+        assertThatThrownBy(() -> dictionary.decode(1002))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("unknown code (value=1002)");
+    }
+
+    private static ProgramEntry entry(String id, String title) {
+        ProgramEntry entry = new ProgramEntry();
+        entry.setId(id);
+        entry.setFt(LocalDateTime.parse("2025-10-22T05:00"));
+        entry.setTitle(title);
+        return entry;
+    }
+}
@@ -0,0 +1,51 @@
+package net.iwazou.rdkdler.model.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import net.iwazou.rdkdler.model.AreaStations;
+import net.iwazou.rdkdler.model.ProgramSchedule;
+import net.iwazou.rdkdler.model.ProgramSearchResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ModelReadersTests {
+
+    @DisplayName("readerForのテスト：型ごとに同じリーダーを返す")
+    @Test
+    void test_readerFor_01() {
+        assertThat(ModelReaders.readerFor(AreaStations.class))
+                .isSameAs(ModelReaders.readerFor(AreaStations.class));
+        assertThat(ModelReaders.readerFor(ProgramSchedule.class))
+                .isNotSameAs(ModelReaders.readerFor(AreaStations.class));
+    }
+
+    @DisplayName("readerForのテスト：登録されていない型")
+    @Test
+    void test_readerFor_02() {
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> ModelReaders.readerFor(String.class))
+                .withMessageContaining("java.lang.String");
+    }
+
+    @DisplayName("readのテスト：XML・JSON")
+    @Test
+    void test_read_01() throws IOException {
+        AreaStations stations =
+                ModelReaders.read(
+                        AreaStations.class,
+                        Files.readAllBytes(
+                                Path.of("src/test/resources/xml/station_list_sample.xml")));
+        assertThat(stations.getAreaId()).isEqualTo("AREA_ID");
+
+        ProgramSearchResult result =
+                ModelReaders.read(
+                        ProgramSearchResult.class,
+                        Files.readAllBytes(
+                                Path.of("src/test/resources/json/search_result_sample.json")));
+        assertThat(result.getResultDatas()).isNotEmpty();
+    }
+}
@@ -0,0 +1,182 @@
+package net.iwazou.rdkdler.schedule;
+
+import static net.iwazou.rdkdler.schedule.TestPrograms.program;
+import static net.iwazou.rdkdler.schedule.TestPrograms.t;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.iwazou.rdkdler.model.ProgramSchedule;
+import net.iwazou.rdkdler.model.internal.ModelReaders;
+import net.iwazou.rdkdler.schedule.ProgramIntervalIndex.Gap;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ProgramIntervalIndexTests {
+
+    @DisplayName("addAll・programAtのテスト：番組表から索引を作成し、日時で番組を検索する")
+    @Test
+    void test_programAt_01() throws IOException {
+        ProgramSchedule schedule =
+                ModelReaders.read(
+                        ProgramSchedule.class,
+                        Files.readAllBytes(
+                                Path.of("src/test/resources/xml/program_date_area_sample.xml")));
+        ProgramIntervalIndex index = new ProgramIntervalIndex();
+
+        // 開始日時のない番組は含めない
+        assertThat(index.addAll(schedule)).isEqualTo(5);
+
+        assertThat(index.stationIds()).containsExactly("STATION01", "STATION02", "STATION03");
+        assertThat(index.programAt("STATION01", t("2025-10-22T05:00")))
+                .get()
+                .extracting(p -> p.entry().getTitle())
+                .isEqualTo("タイトル１１");
+        assertThat(index.programAt("STATION01", t("2025-10-22T06:29:59")))
+                .get()
+                .extracting(p -> p.entry().getTitle())
+                .isEqualTo("タイトル１１");
+        assertThat(index.programAt("STATION01", t("2025-10-22T06:30")))
+                .get()
+                .extracting(ScheduledProgram::stationName, p -> p.entry().getTitle())
+                .containsExactly("ステーション１", "タイトル１２");
+        assertThat(index.programAt("STATION01", t("2025-10-22T04:59"))).isEmpty();
+        assertThat(index.programAt("STATION01", t("2025-10-22T08:30"))).isEmpty();
+        assertThat(index.programAt("UNKNOWN", t("2025-10-22T06:00"))).isEmpty();
+    }
+
+    @DisplayName("overlapping・gapsのテスト：期間と重なる番組と、番組のない時間帯")
+    @Test
+    void test_overlapping_01() {
+        ProgramIntervalIndex index = new ProgramIntervalIndex();
+        index.addAll(
+                List.of(
+                        program("TBS", "2025-10-22T09:00", "2025-10-22T10:00", "C"),
+                        program("TBS", "2025-10-22T05:00", "2025-10-22T06:00", "A"),
+                        program("TBS", "2025-10-22T06:00", "2025-10-22T07:00", "B")));
+
+        assertThat(index.overlapping("TBS", t("2025-10-22T05:30"), t("2025-10-22T09:00")))
+                .extracting(p -> p.entry().getTitle())
+                .containsExactly("A", "B");
+        assertThat(index.overlapping("TBS", t("2025-10-22T07:00"), t("2025-10-22T09:00")))
+                .isEmpty();
+        assertThat(index.gaps("TBS", t("2025-10-22T04:00"), t("2025-10-22T11:00")))
+                .containsExactly(
+                        new Gap(t("2025-10-22T04:00"), t("2025-10-22T05:00")),
+                        new Gap(t("2025-10-22T07:00"), t("2025-10-22T09:00")),
+                        new Gap(t("2025-10-22T10:00"), t("2025-10-22T11:00")));
+        assertThat(index.gaps("TBS", t("2025-10-22T05:00"), t("2025-10-22T07:00"))).isEmpty();
+    }
+
+    @DisplayName("programAtのテスト：長い番組と重なる番組")
+    @Test
+    void test_programAt_02() {
+        ProgramIntervalIndex index = new ProgramIntervalIndex();
+        index.addAll(
+                List.of(
+                        program("TBS", "2025-10-22T05:00", "2025-10-22T12:00", "特番"),
+                        program("TBS", "2025-10-22T06:00", "2025-10-22T07:00", "ニュース")));
+
+        assertThat(index.programAt("TBS", t("2025-10-22T06:30")))
+                .get()
+                .extracting(p -> p.entry().getTitle())
+                .isEqualTo("ニュース");
+        assertThat(index.programAt("TBS", t("2025-10-22T08:00")))
+                .get()
+                .extracting(p -> p.entry().getTitle())
+                .isEqualTo("特番");
+        assertThat(index.overlapping("TBS", t("2025-10-22T08:00"), t("2025-10-22T09:00")))
+                .extracting(p -> p.entry().getTitle())
+                .containsExactly("特番");
+    }
+
+    @DisplayName("addAllのテスト：同じ開始日時の番組は後から追加した番組で置き換える")
+    @Test
+    void test_addAll_01() {
+        ProgramIntervalIndex index = new ProgramIntervalIndex();
+        index.addAll(List.of(program("TBS", "2025-10-22T05:00", "2025-10-22T06:00", "旧")));
+        index.addAll(
+                List.of(
+                        program("TBS", "2025-10-22T05:00", "2025-10-22T06:00", "新"),
+                        program("TBS", "2025-10-22T06:00", "2025-10-22T07:00", "次")));
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.programAt("TBS", t("2025-10-22T05:30")))
+                .get()
+                .extracting(p -> p.entry().getTitle())
+                .isEqualTo("新");
+    }
+
+    @DisplayName("addのテスト：1 件ずつ追加した番組を、次の検索でまとめて反映する")
+    @Test
+    void test_add_01() {
+        ProgramIntervalIndex index = new ProgramIntervalIndex();
+        LocalDateTime start = t("2025-10-22T05:00");
+        for (int i = 999; i >= 0; i--) {
+            assertThat(
+                            index.add(
+                                    program(
+                                            "TBS",
+                                            start.plusMinutes(i).toString(),
+                                            start.plusMinutes(i + 1).toString(),
+                                            "P" + i)))
+                    .isTrue();
+        }
+        ScheduledProgram noTime = program("TBS", "2025-10-22T05:00", "2025-10-22T06:00", "X");
+        noTime.entry().setTo(null);
+        assertThat(index.add(noTime)).isFalse();
+        index.add(program("TBS", "2025-10-22T05:10", "2025-10-22T05:11", "置換"));
+
+        assertThat(index.size()).isEqualTo(1000);
+        assertThat(index.programAt("TBS", t("2025-10-22T05:10:30")))
+                .get()
+                .extracting(p -> p.entry().getTitle())
+                .isEqualTo("置換");
+        assertThat(index.overlapping("TBS", t("2025-10-22T05:00"), t("2025-10-22T05:03")))
+                .extracting(p -> p.entry().getTitle())
+                .containsExactly("P0", "P1", "P2");
+
+        index.add(program("TBS", "2025-10-22T04:00", "2025-10-22T05:00", "前"));
+        assertThat(index.gaps("TBS", t("2025-10-22T03:00"), t("2025-10-22T05:00")))
+                .containsExactly(new Gap(t("2025-10-22T03:00"), t("2025-10-22T04:00")));
+    }
+
+    @DisplayName("programAtのテスト：追加中も追加前または追加後の索引を参照する")
+    @Test
+    void test_programAt_03() throws InterruptedException {
+        ProgramIntervalIndex index = new ProgramIntervalIndex();
+        index.addAll(List.of(program("TBS", "2025-10-22T05:00", "2025-10-22T06:00", "A")));
+        AtomicBoolean failed = new AtomicBoolean();
+        Thread reader =
+                Thread.ofVirtual()
+                        .start(
+                                () -> {
+                                    for (int i = 0; i < 10_000; i++) {
+                                        if (index.programAt("TBS", t("2025-10-22T05:30"))
+                                                .isEmpty()) {
+                                            failed.set(true);
+                                        }
+                                    }
+                                });
+        LocalDateTime start = t("2025-10-22T06:00");
+        for (int i = 0; i < 500; i++) {
+            List<ScheduledProgram> programs = new ArrayList<>();
+            programs.add(
+                    program(
+                            "TBS",
+                            start.plusMinutes(i).toString(),
+                            start.plusMinutes(i + 1).toString(),
+                            "P" + i));
+            index.addAll(programs);
+        }
+        reader.join();
+
+        assertThat(failed).isFalse();
+        assertThat(index.size()).isEqualTo(501);
+    }
+}
@@ -0,0 +1,108 @@
+package net.iwazou.rdkdler.schedule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import net.iwazou.rdkdler.exception.RdkResponseException;
+import net.iwazou.rdkdler.model.ProgramEntry;
+import net.iwazou.rdkdler.model.ProgramSchedule;
+import net.iwazou.rdkdler.model.StationProgramSchedule;
+import net.iwazou.rdkdler.model.internal.ModelReaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ProgramScheduleReaderTests {
+
+    private static final Path DATE_AREA =
+            Path.of("src/test/resources/xml/program_date_area_sample.xml");
+    private static final Path WEEKLY =
+            Path.of("src/test/resources/xml/program_station_weekly_sample.xml");
+
+    @DisplayName("readStationのテスト：エリア・日付指定の番組表（一括マッピングと同じ結果となる）")
+    @Test
+    void test_readStation_01() throws IOException {
+        assertThat(readAll(DATE_AREA))
+                .usingRecursiveComparison()
+                .isEqualTo(
+                        ModelReaders.read(ProgramSchedule.class, Files.readAllBytes(DATE_AREA))
+                                .getStationProgramSchedules());
+    }
+
+    @DisplayName("readStationのテスト：週間番組表（日ごとにまとめる）")
+    @Test
+    void test_readStation_02() throws IOException {
+        List<StationProgramSchedule> stations = readAll(WEEKLY);
+
+        assertThat(stations)
+                .usingRecursiveComparison()
+                .isEqualTo(
+                        ModelReaders.read(ProgramSchedule.class, Files.readAllBytes(WEEKLY))
+                                .getStationProgramSchedules());
+        assertThat(stations.get(0).getDailyProgramSchedules()).hasSize(3);
+    }
+
+    @DisplayName("nextProgramのテスト：局・放送日の情報と、読み終える前の次の局への移動")
+    @Test
+    void test_nextProgram_01() throws IOException {
+        try (InputStream in = Files.newInputStream(DATE_AREA);
+                ProgramScheduleReader reader = new ProgramScheduleReader(in)) {
+            assertThat(reader.nextStation()).isTrue();
+            assertThat(reader.stationId()).isEqualTo("STATION01");
+            assertThat(reader.stationName()).isEqualTo("ステーション１");
+            ProgramEntry first = reader.nextProgram();
+            assertThat(first.getTitle()).isEqualTo("タイトル１１");
+            assertThat(reader.date()).isEqualTo(LocalDate.of(2025, 10, 22));
+
+            // 残りの番組を読み飛ばす
+            assertThat(reader.nextStation()).isTrue();
+            assertThat(reader.stationId()).isEqualTo("STATION02");
+            assertThat(reader.date()).isNull();
+
+            assertThat(reader.nextStation()).isTrue();
+            List<String> ids = new ArrayList<>();
+            ProgramEntry entry;
+            while ((entry = reader.nextProgram()) != null) {
+                ids.add(entry.getId());
+            }
+            assertThat(reader.stationId()).isEqualTo("STATION03");
+            assertThat(ids).isNotEmpty();
+            assertThat(reader.nextProgram()).isNull();
+
+            assertThat(reader.nextStation()).isFalse();
+        }
+    }
+
+    @DisplayName("nextStationのテスト：XML でない場合")
+    @Test
+    void test_nextStation_01() {
+        InputStream in = new ByteArrayInputStream("not xml".getBytes(StandardCharsets.UTF_8));
+        assertThatExceptionOfType(RdkResponseException.class)
+                .isThrownBy(
+                        () -> {
+                            try (ProgramScheduleReader reader = new ProgramScheduleReader(in)) {
+                                reader.nextStation();
+                            }
+                        });
+    }
+
+    private List<StationProgramSchedule> readAll(Path file) throws IOException {
+        List<StationProgramSchedule> stations = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(file);
+                ProgramScheduleReader reader = new ProgramScheduleReader(in)) {
+            StationProgramSchedule station;
+            while ((station = reader.readStation()) != null) {
+                stations.add(station);
+            }
+        }
+        return stations;
+    }
+}
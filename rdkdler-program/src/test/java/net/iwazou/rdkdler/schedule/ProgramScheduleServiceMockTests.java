@@ -1,19 +1,30 @@
 package net.iwazou.rdkdler.schedule;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import net.iwazou.rdkdler.TestRdkHttpResponse;
 import net.iwazou.rdkdler.area.AreaPrefecture;
+import net.iwazou.rdkdler.exception.RdkDeadlineExceededException;
+import net.iwazou.rdkdler.exception.RdkHttpException;
 import net.iwazou.rdkdler.http.RdkHttpClient;
 import net.iwazou.rdkdler.http.RdkHttpRequest;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
 import net.iwazou.rdkdler.model.DailyProgramSchedule;
 import net.iwazou.rdkdler.model.ProgramEntry;
 import net.iwazou.rdkdler.model.ProgramEntry.Genre;
@@ -23,10 +34,12 @@ import net.iwazou.rdkdler.model.ProgramEntry.Personality;
 import net.iwazou.rdkdler.model.ProgramEntry.Program;
 import net.iwazou.rdkdler.model.ProgramSchedule;
 import net.iwazou.rdkdler.model.StationProgramSchedule;
+import net.iwazou.rdkdler.util.Deadline;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -400,6 +413,223 @@ class ProgramScheduleServiceMockTests {
                 .isEqualTo(expected);
     }
 
+    @DisplayName("getProgramScheduleAsyncのテスト（モック）：同期版と同じ結果となる")
+    @Test
+    void test_mock_getProgramScheduleAsync_01() throws IOException, InterruptedException {
+        RdkHttpResponse response =
+                new TestRdkHttpResponse(
+                        200,
+                        null,
+                        Files.readString(
+                                Path.of("src/test/resources/xml/program_date_area_sample.xml")));
+        when(mockRdkHttpClient.get(any(RdkHttpRequest.class))).thenReturn(response);
+        when(mockRdkHttpClient.getAsync(any(RdkHttpRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        LocalDate date = LocalDate.parse("2025-10-22");
+        AreaPrefecture area = AreaPrefecture.KANAGAWA;
+        ProgramSchedule sync = programScheduleService.getProgramSchedule(area, date);
+        ProgramSchedule async = programScheduleService.getProgramScheduleAsync(area, date).join();
+
+        assertThat(async).usingRecursiveComparison().isEqualTo(sync);
+        ArgumentCaptor<RdkHttpRequest> captor = ArgumentCaptor.forClass(RdkHttpRequest.class);
+        verify(mockRdkHttpClient).getAsync(captor.capture());
+        assertThat(captor.getValue().getUrl())
+                .isEqualTo("https://api.radiko.jp/program/v3/date/20251022/area/JP14.xml");
+    }
+
+    @DisplayName("forEachStationのテスト（モック）：getProgramScheduleと同じラジオ局を順に受け取る")
+    @Test
+    void test_mock_forEachStation_01() throws IOException, InterruptedException {
+        when(mockRdkHttpClient.get(any(RdkHttpRequest.class)))
+                .thenReturn(
+                        new TestRdkHttpResponse(
+                                200,
+                                null,
+                                Files.readString(
+                                        Path.of(
+                                                "src/test/resources/xml/program_date_area_sample.xml"))));
+
+        LocalDate date = LocalDate.parse("2025-10-22");
+        AreaPrefecture area = AreaPrefecture.KANAGAWA;
+        List<StationProgramSchedule> stations = new ArrayList<>();
+        programScheduleService.forEachStation(area, date, stations::add);
+
+        assertThat(stations)
+                .usingRecursiveComparison()
+                .isEqualTo(
+                        programScheduleService
+                                .getProgramSchedule(area, date)
+                                .getStationProgramSchedules());
+    }
+
+    @DisplayName("forEachProgramのテスト（モック）：詳細を読み飛ばし、局・放送日とともに番組を受け取る")
+    @Test
+    void test_mock_forEachProgram_01() throws IOException, InterruptedException {
+        when(mockRdkHttpClient.get(any(RdkHttpRequest.class)))
+                .thenReturn(
+                        new TestRdkHttpResponse(
+                                200,
+                                null,
+                                Files.readString(
+                                        Path.of(
+                                                "src/test/resources/xml/program_date_area_sample.xml"))));
+
+        List<ScheduledProgram> programs = new ArrayList<>();
+        programScheduleService.forEachProgram(
+                AreaPrefecture.KANAGAWA, d("2025-10-22"), false, programs::add);
+
+        assertThat(programs).hasSize(6);
+        assertThat(programs)
+                .extracting(ScheduledProgram::stationId)
+                .containsExactly(
+                        "STATION01", "STATION01", "STATION01", "STATION02", "STATION02",
+                        "STATION03");
+        assertThat(programs).allMatch(p -> d("2025-10-22").equals(p.date()));
+        assertThat(programs.get(0).stationName()).isEqualTo("ステーション１");
+        assertThat(programs.get(0).entry().getTitle()).isEqualTo("タイトル１１");
+        assertThat(programs.get(0).entry().getPfm()).isEqualTo("PFM11");
+        // 詳細は読み飛ばす
+        assertThat(programs).allMatch(p -> p.entry().getDesc() == null);
+        assertThat(programs).allMatch(p -> p.entry().getInfo() == null);
+    }
+
+    @DisplayName("findProgramsのテスト（モック）：条件に一致する番組のみを詳細とともに返す")
+    @Test
+    void test_mock_findPrograms_01() throws IOException, InterruptedException {
+        when(mockRdkHttpClient.get(any(RdkHttpRequest.class)))
+                .thenReturn(
+                        new TestRdkHttpResponse(
+                                200,
+                                null,
+                                Files.readString(
+                                        Path.of(
+                                                "src/test/resources/xml/program_date_area_sample.xml"))));
+
+        List<ScheduledProgram> found =
+                programScheduleService.findPrograms(
+                        AreaPrefecture.KANAGAWA,
+                        d("2025-10-22"),
+                        true,
+                        p -> "タイトル２２".equals(p.entry().getTitle()));
+
+        assertThat(found).hasSize(1);
+        assertThat(found.get(0).stationId()).isEqualTo("STATION02");
+        assertThat(found.get(0).entry().getDesc()).isEqualTo("デスク２２");
+        assertThat(found.get(0).entry().getInfo()).isEqualTo("インフォ２２");
+    }
+
+    @DisplayName("getNationalProgramScheduleのテスト（モック）：全エリアを取得し、重複するラジオ局を1局にまとめる")
+    @Test
+    void test_mock_getNationalProgramSchedule_01() throws IOException, InterruptedException {
+        RdkHttpResponse response =
+                new TestRdkHttpResponse(
+                        200,
+                        null,
+                        Files.readString(
+                                Path.of("src/test/resources/xml/program_date_area_sample.xml")));
+        when(mockRdkHttpClient.submitAll(anyList(), anyInt())).thenCallRealMethod();
+        when(mockRdkHttpClient.getAsync(any(RdkHttpRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+        when(mockRdkHttpClient.get(any(RdkHttpRequest.class))).thenReturn(response);
+
+        LocalDate date = d("2025-10-22");
+        ProgramSchedule national = programScheduleService.getNationalProgramSchedule(date, 4);
+
+        ArgumentCaptor<RdkHttpRequest> captor = ArgumentCaptor.forClass(RdkHttpRequest.class);
+        verify(mockRdkHttpClient, times(AreaPrefecture.values().length))
+                .getAsync(captor.capture());
+        assertThat(captor.getAllValues())
+                .extracting(RdkHttpRequest::getUrl)
+                .contains(
+                        "https://api.radiko.jp/program/v3/date/20251022/area/JP1.xml",
+                        "https://api.radiko.jp/program/v3/date/20251022/area/JP47.xml");
+        // 全エリアが同じラジオ局を返すため、1エリア分と同じ結果となる
+        assertThat(national)
+                .usingRecursiveComparison()
+                .isEqualTo(programScheduleService.getProgramSchedule(AreaPrefecture.TOKYO, date));
+    }
+
+    @DisplayName("getNationalProgramScheduleのテスト（モック）：いずれかのエリアの取得に失敗した場合")
+    @Test
+    void test_mock_getNationalProgramSchedule_02() throws IOException {
+        RdkHttpResponse ok =
+                new TestRdkHttpResponse(
+                        200,
+                        null,
+                        Files.readString(
+                                Path.of("src/test/resources/xml/program_date_area_sample.xml")));
+        RdkHttpResponse error = new TestRdkHttpResponse(500, null, "error");
+        when(mockRdkHttpClient.submitAll(anyList(), anyInt())).thenCallRealMethod();
+        when(mockRdkHttpClient.getAsync(any(RdkHttpRequest.class)))
+                .thenAnswer(
+                        invocation -> {
+                            RdkHttpRequest request = invocation.getArgument(0);
+                            return CompletableFuture.completedFuture(
+                                    request.getUrl().endsWith("/JP13.xml") ? error : ok);
+                        });
+
+        assertThatExceptionOfType(RdkHttpException.class)
+                .isThrownBy(
+                        () ->
+                                programScheduleService.getNationalProgramSchedule(
+                                        d("2025-10-22"), 4));
+    }
+
+    @DisplayName("期限を指定した各メソッドのテスト（モック）：送信するすべてのリクエストに期限を設定する")
+    @Test
+    void test_mock_deadline_01() throws IOException, InterruptedException {
+        RdkHttpResponse response =
+                new TestRdkHttpResponse(
+                        200,
+                        null,
+                        Files.readString(
+                                Path.of("src/test/resources/xml/program_date_area_sample.xml")));
+        when(mockRdkHttpClient.submitAll(anyList(), anyInt())).thenCallRealMethod();
+        when(mockRdkHttpClient.getAsync(any(RdkHttpRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+        when(mockRdkHttpClient.get(any(RdkHttpRequest.class))).thenReturn(response);
+        Deadline deadline = Deadline.after(Duration.ofMinutes(1));
+        LocalDate date = d("2025-10-22");
+
+        programScheduleService.getProgramSchedule("TBS", deadline);
+        programScheduleService.getProgramSchedule(AreaPrefecture.TOKYO, date, deadline);
+        programScheduleService.forEachStation(AreaPrefecture.TOKYO, date, s -> {}, deadline);
+        programScheduleService.forEachProgram("TBS", false, p -> {}, deadline);
+        programScheduleService.findPrograms(AreaPrefecture.TOKYO, date, false, p -> true, deadline);
+        programScheduleService.getProgramScheduleAsync("TBS", deadline).join();
+        programScheduleService.getNationalProgramSchedule(date, 4, deadline);
+
+        ArgumentCaptor<RdkHttpRequest> sync = ArgumentCaptor.forClass(RdkHttpRequest.class);
+        verify(mockRdkHttpClient, times(5)).get(sync.capture());
+        ArgumentCaptor<RdkHttpRequest> async = ArgumentCaptor.forClass(RdkHttpRequest.class);
+        verify(mockRdkHttpClient, times(1 + AreaPrefecture.values().length))
+                .getAsync(async.capture());
+        assertThat(sync.getAllValues())
+                .extracting(RdkHttpRequest::getDeadline)
+                .containsOnly(deadline);
+        assertThat(async.getAllValues())
+                .extracting(RdkHttpRequest::getDeadline)
+                .containsOnly(deadline);
+    }
+
+    @DisplayName("getNationalProgramScheduleのテスト（モック）：期限までに取得できなかった場合")
+    @Test
+    void test_mock_getNationalProgramSchedule_03() {
+        CompletableFuture<RdkHttpResponse> pending = new CompletableFuture<>();
+        when(mockRdkHttpClient.submitAll(anyList(), anyInt())).thenCallRealMethod();
+        when(mockRdkHttpClient.getAsync(any(RdkHttpRequest.class))).thenReturn(pending);
+        Deadline deadline = Deadline.after(Duration.ofMillis(100));
+
+        assertThatExceptionOfType(RdkDeadlineExceededException.class)
+                .isThrownBy(
+                        () ->
+                                programScheduleService.getNationalProgramSchedule(
+                                        d("2025-10-22"), 4, deadline));
+        // 未完了のリクエストは取り消す
+        assertThat(pending).isCancelled();
+    }
+
     private LocalDate d(String text) {
         return LocalDate.parse(text);
     }
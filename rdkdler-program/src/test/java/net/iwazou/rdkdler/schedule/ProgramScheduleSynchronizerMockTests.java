@@ -0,0 +1,204 @@
+package net.iwazou.rdkdler.schedule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import net.iwazou.rdkdler.area.AreaPrefecture;
+import net.iwazou.rdkdler.exception.RdkException;
+import net.iwazou.rdkdler.model.DailyProgramSchedule;
+import net.iwazou.rdkdler.model.ProgramEntry;
+import net.iwazou.rdkdler.model.ProgramSchedule;
+import net.iwazou.rdkdler.model.StationProgramSchedule;
+import net.iwazou.rdkdler.schedule.ProgramScheduleSynchronizer.Changes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ProgramScheduleSynchronizerMockTests {
+    @Mock ProgramScheduleService mockProgramScheduleService;
+    @Mock ScheduledExecutorService mockScheduler;
+    @Mock ScheduledFuture<?> mockFuture;
+    private ProgramScheduleSynchronizer synchronizer;
+    private final List<Changes> notified = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        synchronizer = new ProgramScheduleSynchronizer(mockProgramScheduleService, mockScheduler);
+        synchronizer.addListener(notified::add);
+        doReturn(mockFuture)
+                .when(mockScheduler)
+                .schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @DisplayName("watchStationのテスト（モック）：追加・変更・削除された番組のみを通知し、ttlの経過後に再取得する")
+    @Test
+    void test_mock_watchStation_01() throws IOException, InterruptedException {
+        when(mockProgramScheduleService.getProgramSchedule("TBS"))
+                .thenReturn(
+                        schedule("1800", entry("A", "05:00", "番組A"), entry("B", "06:00", "番組B")))
+                .thenReturn(
+                        schedule(
+                                "3600",
+                                entry("A", "05:00", "番組A（変更）"),
+                                entry("C", "07:00", "番組C")))
+                .thenReturn(
+                        schedule(
+                                "3600",
+                                entry("A", "05:00", "番組A（変更）"),
+                                entry("C", "07:00", "番組C")));
+
+        assertThat(synchronizer.watchStation("TBS")).isTrue();
+        assertThat(synchronizer.watchStation("TBS")).isFalse();
+
+        // 最初の取得：すべての番組を追加として通知する
+        runScheduled(1).run();
+        assertThat(notified).hasSize(1);
+        assertThat(notified.get(0).target()).isEqualTo("station:TBS");
+        assertThat(notified.get(0).added())
+                .extracting(p -> p.entry().getTitle())
+                .containsExactly("番組A", "番組B");
+        assertThat(notified.get(0).changed()).isEmpty();
+        assertThat(notified.get(0).removed()).isEmpty();
+
+        // 2 回目の取得：前回との差分を通知する
+        runScheduled(2).run();
+        assertThat(notified).hasSize(2);
+        assertThat(notified.get(1).added())
+                .extracting(p -> p.entry().getTitle())
+                .containsExactly("番組C");
+        assertThat(notified.get(1).changed())
+                .extracting(p -> p.entry().getTitle())
+                .containsExactly("番組A（変更）");
+        assertThat(notified.get(1).removed())
+                .extracting(p -> p.entry().getTitle())
+                .containsExactly("番組B");
+
+        // 3 回目の取得：変更がない場合は通知しない
+        runScheduled(3).run();
+        assertThat(notified).hasSize(2);
+
+        assertThat(scheduledDelays(4)).containsExactly(0L, 1_800_000L, 3_600_000L, 3_600_000L);
+    }
+
+    @DisplayName("watchAreaのテスト（モック）：ttlを最短・最長の間隔に収め、取得に失敗した場合は再試行する")
+    @Test
+    void test_mock_watchArea_01() throws IOException, InterruptedException {
+        LocalDate date = LocalDate.of(2025, 10, 22);
+        when(mockProgramScheduleService.getProgramSchedule(AreaPrefecture.TOKYO, date))
+                .thenReturn(schedule("10", entry("A", "05:00", "番組A")))
+                .thenReturn(schedule("999999", entry("A", "05:00", "番組A")))
+                .thenReturn(schedule(null, entry("A", "05:00", "番組A")))
+                .thenThrow(new RdkException("error"));
+
+        assertThat(synchronizer.watchArea(AreaPrefecture.TOKYO, date)).isTrue();
+        for (int i = 1; i <= 4; i++) {
+            runScheduled(i).run();
+        }
+
+        assertThat(scheduledDelays(5))
+                .containsExactly(0L, 60_000L, 43_200_000L, 3_600_000L, 300_000L);
+        assertThat(notified).hasSize(1);
+        assertThat(notified.get(0).target()).isEqualTo("area:JP13/2025-10-22");
+    }
+
+    @DisplayName("unwatchStationのテスト（モック）：予約した取得を取り消し、以降は取得・通知しない")
+    @Test
+    void test_mock_unwatchStation_01() {
+        synchronizer.watchStation("TBS");
+        Runnable scheduled = runScheduled(1);
+
+        assertThat(synchronizer.unwatchStation("TBS")).isTrue();
+        assertThat(synchronizer.unwatchStation("TBS")).isFalse();
+        verify(mockFuture).cancel(false);
+
+        // 取り消し後に予約した処理が実行された場合も、取得・通知・再予約しない
+        scheduled.run();
+        assertThat(notified).isEmpty();
+        verify(mockScheduler, times(1))
+                .schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @DisplayName("addListenerのテスト（モック）：リスナーで例外が発生しても他のリスナーに通知する")
+    @Test
+    void test_mock_addListener_01() throws IOException, InterruptedException {
+        ProgramScheduleSynchronizer failing =
+                new ProgramScheduleSynchronizer(mockProgramScheduleService, mockScheduler);
+        List<Changes> received = new ArrayList<>();
+        failing.addListener(
+                changes -> {
+                    throw new IllegalStateException("listener error");
+                });
+        failing.addListener(received::add);
+        when(mockProgramScheduleService.getProgramSchedule("TBS"))
+                .thenReturn(schedule("1800", entry("A", "05:00", "番組A")));
+
+        failing.watchStation("TBS");
+        runScheduled(1).run();
+
+        assertThat(received).hasSize(1);
+        assertThat(scheduledDelays(2)).containsExactly(0L, 1_800_000L);
+        failing.close();
+    }
+
+    /**
+     * n 回目に予約した処理を返します。
+     */
+    private Runnable runScheduled(int n) {
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockScheduler, times(n))
+                .schedule(captor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        return captor.getAllValues().get(n - 1);
+    }
+
+    /**
+     * 予約した処理の待機時間（ミリ秒）を予約順に返します。
+     */
+    private List<Long> scheduledDelays(int n) {
+        ArgumentCaptor<Long> captor = ArgumentCaptor.forClass(Long.class);
+        verify(mockScheduler, times(n))
+                .schedule(any(Runnable.class), captor.capture(), eq(TimeUnit.MILLISECONDS));
+        return captor.getAllValues();
+    }
+
+    private static ProgramSchedule schedule(String ttl, ProgramEntry... entries) {
+        DailyProgramSchedule daily = new DailyProgramSchedule();
+        daily.setDate(LocalDate.of(2025, 10, 22));
+        daily.setProgramEntrys(Arrays.asList(entries));
+        StationProgramSchedule station = new StationProgramSchedule();
+        station.setStationId("TBS");
+        station.setStationName("TBSラジオ");
+        station.setDailyProgramSchedules(List.of(daily));
+        ProgramSchedule schedule = new ProgramSchedule();
+        schedule.setTtl(ttl);
+        schedule.setStationProgramSchedules(List.of(station));
+        return schedule;
+    }
+
+    private static ProgramEntry entry(String id, String time, String title) {
+        ProgramEntry entry = new ProgramEntry();
+        entry.setId(id);
+        entry.setFt(LocalDateTime.parse("2025-10-22T" + time));
+        entry.setTitle(title);
+        return entry;
+    }
+}
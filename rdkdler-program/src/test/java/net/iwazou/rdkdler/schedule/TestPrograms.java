@@ -0,0 +1,101 @@
+package net.iwazou.rdkdler.schedule;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import net.iwazou.rdkdler.model.ProgramEntry;
+import net.iwazou.rdkdler.model.ProgramEntry.Genre;
+import net.iwazou.rdkdler.model.ProgramEntry.Item;
+import net.iwazou.rdkdler.model.ProgramEntry.Meta;
+import net.iwazou.rdkdler.model.ProgramEntry.Personality;
+
+/**
+ * テスト用の番組（{@link ScheduledProgram}）を作成します。
+ *
+ * <p>番組の日付はすべて 2025-10-22 です。
+ */
+public class TestPrograms {
+    private TestPrograms() {}
+
+    /**
+     * 番組の日付です。
+     */
+    public static final LocalDate DATE = LocalDate.of(2025, 10, 22);
+
+    /**
+     * 開始日時・終了日時・タイトルのみの番組を作成します。
+     *
+     * @param stationId 局 ID
+     * @param ft 開始日時（{@link LocalDateTime#parse(CharSequence)} の形式）
+     * @param to 終了日時（{@link LocalDateTime#parse(CharSequence)} の形式）
+     * @param title タイトル
+     * @return 番組
+     */
+    public static ScheduledProgram program(String stationId, String ft, String to, String title) {
+        return program(stationId, ft, to, title, null);
+    }
+
+    /**
+     * 開始日時・終了日時・タイトル・説明のみの番組を作成します。
+     *
+     * @param stationId 局 ID
+     * @param ft 開始日時（{@link LocalDateTime#parse(CharSequence)} の形式）
+     * @param to 終了日時（{@link LocalDateTime#parse(CharSequence)} の形式）
+     * @param title タイトル
+     * @param desc 説明
+     * @return 番組
+     */
+    public static ScheduledProgram program(
+            String stationId, String ft, String to, String title, String desc) {
+        ProgramEntry entry = new ProgramEntry();
+        entry.setFt(t(ft));
+        entry.setTo(t(to));
+        entry.setTitle(title);
+        entry.setDesc(desc);
+        return new ScheduledProgram(stationId, null, DATE, entry);
+    }
+
+    /**
+     * 番組 ID・説明・出演者・タグ・メタ情報・局名を含む番組を作成します。
+     *
+     * @param stationId 局 ID
+     * @param ft 開始日時（{@link LocalDateTime#parse(CharSequence)} の形式）
+     * @param to 終了日時（{@link LocalDateTime#parse(CharSequence)} の形式）
+     * @param title タイトル
+     * @return 番組
+     */
+    public static ScheduledProgram detailedProgram(
+            String stationId, String ft, String to, String title) {
+        ProgramEntry entry = new ProgramEntry();
+        entry.setId(stationId + ft);
+        entry.setFt(t(ft));
+        entry.setTo(t(to));
+        entry.setTitle(title);
+        entry.setDesc("<p>" + title + "の説明</p>");
+        entry.setTsInNg(0);
+        Item item = new Item();
+        item.setName("タグ");
+        entry.setItems(List.of(item));
+        Personality personality = new Personality();
+        personality.setId("C1");
+        personality.setName("出演者");
+        Genre genre = new Genre();
+        genre.setPersonalitys(List.of(personality));
+        entry.setGenre(genre);
+        Meta meta = new Meta();
+        meta.setName("twitter");
+        meta.setValue("#tag");
+        entry.setMetas(List.of(meta));
+        return new ScheduledProgram(stationId, stationId + "ラジオ", DATE, entry);
+    }
+
+    /**
+     * 日時の文字列を解析します。
+     *
+     * @param text 日時（{@link LocalDateTime#parse(CharSequence)} の形式）
+     * @return 日時
+     */
+    public static LocalDateTime t(String text) {
+        return LocalDateTime.parse(text);
+    }
+}
@@ -0,0 +1,233 @@
+package net.iwazou.rdkdler.schedule.store;
+
+import static net.iwazou.rdkdler.schedule.TestPrograms.detailedProgram;
+import static net.iwazou.rdkdler.schedule.TestPrograms.t;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import net.iwazou.rdkdler.exception.RdkException;
+import net.iwazou.rdkdler.schedule.ScheduledProgram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProgramStoreTests {
+
+    @TempDir Path dir;
+
+    @DisplayName("add・findのテスト：期間と重なる番組を返し、開き直しても同じ結果となる")
+    @Test
+    void test_find_01() throws IOException {
+        Path file = dir.resolve("programs.rdkp");
+        ScheduledProgram p1 = detailedProgram("TBS", "2025-10-22T05:00", "2025-10-22T06:30", "番組１");
+        ScheduledProgram p2 = detailedProgram("TBS", "2025-10-22T06:30", "2025-10-22T08:30", "番組２");
+        ScheduledProgram p3 = detailedProgram("TBS", "2025-10-22T08:30", "2025-10-22T11:00", "番組３");
+        ScheduledProgram q1 = detailedProgram("QRR", "2025-10-22T06:00", "2025-10-22T07:00", "番組４");
+        try (ProgramStore store = ProgramStore.open(file)) {
+            // 開始日時の順でなくても追加できる
+            assertThat(store.add(p2)).isTrue();
+            assertThat(store.add(p1)).isTrue();
+            assertThat(store.add(q1)).isTrue();
+            assertThat(store.add(p3)).isTrue();
+
+            assertThat(store.find("TBS", t("2025-10-22T06:00"), t("2025-10-22T08:30")))
+                    .containsExactly(p1, p2);
+            assertThat(store.size()).isEqualTo(4);
+        }
+
+        try (ProgramStore store = ProgramStore.open(file)) {
+            assertThat(store.size()).isEqualTo(4);
+            assertThat(store.stationIds()).containsExactly("QRR", "TBS");
+            assertThat(store.find("TBS", t("2025-10-22T06:30"), t("2025-10-22T12:00")))
+                    .containsExactly(p2, p3);
+            assertThat(store.find("TBS", t("2025-10-22T11:00"), t("2025-10-22T12:00"))).isEmpty();
+            assertThat(store.find("QRR", t("2025-10-22T00:00"), t("2025-10-23T00:00")))
+                    .containsExactly(q1);
+            assertThat(store.find("XXX", t("2025-10-22T00:00"), t("2025-10-23T00:00"))).isEmpty();
+        }
+    }
+
+    @DisplayName("addのテスト：同じ開始日時の番組は置き換え、開始日時のない番組は保存しない")
+    @Test
+    void test_add_01() throws IOException {
+        Path file = dir.resolve("programs.rdkp");
+        ScheduledProgram before =
+                detailedProgram("TBS", "2025-10-22T05:00", "2025-10-22T06:30", "旧");
+        ScheduledProgram after =
+                detailedProgram("TBS", "2025-10-22T05:00", "2025-10-22T06:30", "新");
+        ScheduledProgram noTime =
+                detailedProgram("TBS", "2025-10-22T07:00", "2025-10-22T08:00", "不明");
+        noTime.entry().setFt(null);
+        try (ProgramStore store = ProgramStore.open(file)) {
+            store.add(before);
+            store.add(after);
+            assertThat(store.add(noTime)).isFalse();
+        }
+        try (ProgramStore store = ProgramStore.open(file)) {
+            assertThat(store.size()).isEqualTo(1);
+            assertThat(store.find("TBS", t("2025-10-22T00:00"), t("2025-10-23T00:00")))
+                    .containsExactly(after);
+        }
+    }
+
+    @DisplayName("addのテスト：保存済みの番組と内容が同じ番組は書き込まない")
+    @Test
+    void test_add_02() throws IOException {
+        Path file = dir.resolve("programs.rdkp");
+        ScheduledProgram p1 = detailedProgram("TBS", "2025-10-22T05:00", "2025-10-22T06:30", "番組１");
+        try (ProgramStore store = ProgramStore.open(file)) {
+            assertThat(store.add(p1)).isTrue();
+            long size = Files.size(file);
+
+            assertThat(
+                            store.add(
+                                    detailedProgram(
+                                            "TBS",
+                                            "2025-10-22T05:00",
+                                            "2025-10-22T06:30",
+                                            "番組１")))
+                    .isTrue();
+            assertThat(Files.size(file)).isEqualTo(size);
+            assertThat(store.size()).isEqualTo(1);
+        }
+    }
+
+    @DisplayName("addのテスト：開始日時が変わった番組は、放送時間が重なる古い番組を置き換える")
+    @Test
+    void test_add_03() throws IOException {
+        Path file = dir.resolve("programs.rdkp");
+        ScheduledProgram p1 = detailedProgram("TBS", "2025-10-22T05:00", "2025-10-22T06:30", "番組１");
+        ScheduledProgram p2 = detailedProgram("TBS", "2025-10-22T06:30", "2025-10-22T07:00", "番組２");
+        ScheduledProgram p3 = detailedProgram("TBS", "2025-10-22T07:00", "2025-10-22T08:30", "番組３");
+        // 番組１の開始が遅れ、番組２・番組３は 1 つの特番に変わった
+        ScheduledProgram moved =
+                detailedProgram("TBS", "2025-10-22T05:15", "2025-10-22T06:30", "番組１");
+        ScheduledProgram special =
+                detailedProgram("TBS", "2025-10-22T06:30", "2025-10-22T08:30", "特番");
+        ScheduledProgram q1 = detailedProgram("QRR", "2025-10-22T05:00", "2025-10-22T09:00", "番組４");
+        try (ProgramStore store = ProgramStore.open(file)) {
+            store.add(p1);
+            store.add(p2);
+            store.add(p3);
+            store.add(q1);
+            store.add(moved);
+            store.add(special);
+
+            assertThat(store.find("TBS", t("2025-10-22T00:00"), t("2025-10-23T00:00")))
+                    .containsExactly(moved, special);
+            assertThat(store.size()).isEqualTo(3);
+        }
+        try (ProgramStore store = ProgramStore.open(file)) {
+            assertThat(store.size()).isEqualTo(3);
+            assertThat(store.find("TBS", t("2025-10-22T05:00"), t("2025-10-22T06:00")))
+                    .containsExactly(moved);
+            assertThat(store.find("QRR", t("2025-10-22T00:00"), t("2025-10-23T00:00")))
+                    .containsExactly(q1);
+        }
+    }
+
+    @DisplayName("compactのテスト：置き換えられたレコードを取り除き、開き直しても同じ結果となる")
+    @Test
+    void test_compact_01() throws IOException {
+        Path file = dir.resolve("programs.rdkp");
+        ScheduledProgram before =
+                detailedProgram("TBS", "2025-10-22T05:00", "2025-10-22T06:30", "旧");
+        ScheduledProgram after =
+                detailedProgram("TBS", "2025-10-22T05:00", "2025-10-22T06:30", "新");
+        ScheduledProgram p2 = detailedProgram("TBS", "2025-10-22T06:30", "2025-10-22T08:30", "番組２");
+        ScheduledProgram q1 = detailedProgram("QRR", "2025-10-22T06:00", "2025-10-22T07:00", "番組４");
+        try (ProgramStore store = ProgramStore.open(file)) {
+            store.add(before);
+            long replaced = Files.size(file) - 8;
+            store.add(p2);
+            store.add(q1);
+            store.add(after);
+            long size = Files.size(file);
+
+            assertThat(store.compact()).isEqualTo(replaced);
+            assertThat(Files.size(file)).isEqualTo(size - replaced);
+            assertThat(store.find("TBS", t("2025-10-22T00:00"), t("2025-10-23T00:00")))
+                    .containsExactly(after, p2);
+            // 詰めた後も追加できる
+            ScheduledProgram p3 =
+                    detailedProgram("TBS", "2025-10-22T08:30", "2025-10-22T11:00", "番組３");
+            store.add(p3);
+            assertThat(store.size()).isEqualTo(4);
+        }
+        try (ProgramStore store = ProgramStore.open(file)) {
+            assertThat(store.size()).isEqualTo(4);
+            assertThat(store.find("QRR", t("2025-10-22T00:00"), t("2025-10-23T00:00")))
+                    .containsExactly(q1);
+            assertThat(store.find("TBS", t("2025-10-22T05:00"), t("2025-10-22T06:00")))
+                    .containsExactly(after);
+        }
+    }
+
+    @DisplayName("findのテスト：多数の番組を追加しながら検索しても、追加した番組を返す")
+    @Test
+    void test_find_02() throws IOException {
+        Path file = dir.resolve("programs.rdkp");
+        LocalDateTime base = t("2025-10-22T00:00");
+        try (ProgramStore store = ProgramStore.open(file)) {
+            for (int i = 0; i < 3000; i++) {
+                LocalDateTime ft = base.plusMinutes(30L * i);
+                ScheduledProgram p =
+                        detailedProgram(
+                                "TBS", ft.toString(), ft.plusMinutes(30).toString(), "番組" + i);
+                store.add(p);
+                // マップしていない末尾のレコードも検索できる
+                assertThat(store.find("TBS", ft, ft.plusMinutes(1))).containsExactly(p);
+            }
+        }
+    }
+
+    @DisplayName("openのテスト：途中までのレコードを切り捨てる")
+    @Test
+    void test_open_01() throws IOException {
+        Path file = dir.resolve("programs.rdkp");
+        ScheduledProgram p1 = detailedProgram("TBS", "2025-10-22T05:00", "2025-10-22T06:30", "番組１");
+        try (ProgramStore store = ProgramStore.open(file)) {
+            store.add(p1);
+        }
+        long size = Files.size(file);
+        // 書き込み途中で終了した状態（レコード長のみ書き込まれている）
+        Files.write(file, new byte[] {0, 0, 1, 0, 1, 2}, StandardOpenOption.APPEND);
+
+        ScheduledProgram p2 = detailedProgram("TBS", "2025-10-22T06:30", "2025-10-22T08:30", "番組２");
+        try (ProgramStore store = ProgramStore.open(file)) {
+            assertThat(Files.size(file)).isEqualTo(size);
+            store.add(p2);
+            assertThat(store.find("TBS", t("2025-10-22T00:00"), t("2025-10-23T00:00")))
+                    .containsExactly(p1, p2);
+        }
+    }
+
+    @DisplayName("openのテスト：ストアのファイルでない場合")
+    @Test
+    void test_open_02() throws IOException {
+        Path file = dir.resolve("other.txt");
+        Files.writeString(file, "not a program store");
+
+        assertThatExceptionOfType(RdkException.class).isThrownBy(() -> ProgramStore.open(file));
+    }
+
+    @DisplayName("openのテスト：他のストアが開いているファイルは開けない")
+    @Test
+    void test_open_03() throws IOException {
+        Path file = dir.resolve("programs.rdkp");
+        try (ProgramStore store = ProgramStore.open(file)) {
+            assertThatExceptionOfType(RdkException.class)
+                    .isThrownBy(() -> ProgramStore.open(file))
+                    .withMessageContaining("already open");
+        }
+        // 閉じた後は開ける
+        try (ProgramStore store = ProgramStore.open(file)) {
+            assertThat(store.size()).isZero();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package net.iwazou.rdkdler.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import net.iwazou.rdkdler.model.ProgramEntry;
+import net.iwazou.rdkdler.schedule.ProgramScheduleSynchronizer.Changes;
+import net.iwazou.rdkdler.schedule.ScheduledProgram;
+import net.iwazou.rdkdler.search.KeywordWatchEngine.KeywordMatch;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class KeywordWatchEngineTests {
+
+    @DisplayName("matchのテスト：番組名・出演者に含まれるすべてのキーワードを登録順に返す")
+    @Test
+    void test_match_01() {
+        KeywordWatchEngine engine = new KeywordWatchEngine();
+        engine.addKeyword("he", "he");
+        engine.addKeyword("she", "she");
+        engine.addKeyword("his", "his");
+        engine.addKeyword("hers", "hers");
+        engine.addKeyword("radio", "ラジオ");
+        engine.addKeyword("abc", "ＡＢＣ");
+
+        // 重なり合うキーワードもすべて検出し、全角・半角、大文字・小文字を区別しない
+        assertThat(engine.match(entry("ushers", "深夜ﾗｼﾞｵ Abc")))
+                .containsExactly("he", "she", "hers", "radio", "abc");
+        assertThat(engine.match(entry("ニュース", null))).isEmpty();
+        // 番組名と出演者をまたいで一致しない
+        assertThat(engine.match(entry("ラジ", "オ"))).isEmpty();
+    }
+
+    @DisplayName("addKeyword・removeKeywordのテスト：キーワードの変更を次の照合に反映する")
+    @Test
+    void test_addKeyword_01() {
+        KeywordWatchEngine engine = new KeywordWatchEngine();
+        assertThat(engine.match(entry("深夜ラジオ", null))).isEmpty();
+
+        engine.addKeyword("k1", "深夜");
+        assertThat(engine.match(entry("深夜ラジオ", null))).containsExactly("k1");
+
+        engine.addKeyword("k1", "早朝");
+        assertThat(engine.match(entry("深夜ラジオ", null))).isEmpty();
+
+        engine.addKeyword("k2", "ラジオ");
+        assertThat(engine.size()).isEqualTo(2);
+        assertThat(engine.removeKeyword("k2")).isTrue();
+        assertThat(engine.removeKeyword("k2")).isFalse();
+        assertThat(engine.match(entry("深夜ラジオ", null))).isEmpty();
+
+        assertThatThrownBy(() -> engine.addKeyword("k3", "　"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("keyword must not be blank (id=k3)");
+    }
+
+    @DisplayName("acceptのテスト：追加・変更された番組を照合し、一致した番組を通知する")
+    @Test
+    void test_accept_01() {
+        KeywordWatchEngine engine = new KeywordWatchEngine();
+        engine.addKeyword("night", "深夜");
+        engine.addKeyword("pfm", "出演者Ａ");
+        List<KeywordMatch> matches = new ArrayList<>();
+        engine.addListener(
+                match -> {
+                    throw new IllegalStateException("listener error");
+                });
+        engine.addListener(matches::add);
+
+        engine.accept(
+                new Changes(
+                        "station:TBS",
+                        List.of(program("深夜ラジオ", "出演者A"), program("朝のニュース", null)),
+                        List.of(program("深夜便", null)),
+                        List.of(program("深夜の特番", null))));
+
+        assertThat(matches)
+                .extracting(m -> m.program().entry().getTitle(), KeywordMatch::keywordIds)
+                .containsExactly(
+                        tuple("深夜ラジオ", List.of("night", "pfm")),
+                        tuple("深夜便", List.of("night")));
+    }
+
+    @DisplayName("matchのテスト：多数のキーワードを登録した場合も、含まれるキーワードのみを返す")
+    @Test
+    void test_match_02() {
+        KeywordWatchEngine engine = new KeywordWatchEngine();
+        for (int i = 0; i < 2000; i++) {
+            engine.addKeyword("k" + i, "番組" + i + "回");
+        }
+
+        assertThat(engine.match(entry("番組12回・番組1999回", null)))
+                .containsExactly("k12", "k1999");
+    }
+
+    private static ProgramEntry entry(String title, String pfm) {
+        ProgramEntry entry = new ProgramEntry();
+        entry.setTitle(title);
+        entry.setPfm(pfm);
+        return entry;
+    }
+
+    private static ScheduledProgram program(String title, String pfm) {
+        return new ScheduledProgram("TBS", null, LocalDate.of(2025, 10, 22), entry(title, pfm));
+    }
+}
@@ -10,23 +10,27 @@ import static org.mockito.Mockito.when;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 import net.iwazou.rdkdler.TestRdkHttpResponse;
 import net.iwazou.rdkdler.area.AreaPrefecture;
 import net.iwazou.rdkdler.http.RdkHttpClient;
 import net.iwazou.rdkdler.http.RdkHttpRequest;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
 import net.iwazou.rdkdler.model.ProgramSearchResult;
 import net.iwazou.rdkdler.model.ProgramSearchResult.Category;
 import net.iwazou.rdkdler.model.ProgramSearchResult.Genre;
 import net.iwazou.rdkdler.model.ProgramSearchResult.Meta;
 import net.iwazou.rdkdler.model.ProgramSearchResult.ResultData;
 import net.iwazou.rdkdler.model.ProgramSearchResult.ResultMeta;
+import net.iwazou.rdkdler.util.Deadline;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -345,6 +349,69 @@ class ProgramSearchServiceMockTests {
                 .withMessage("Validation failed");
     }
 
+    @DisplayName("searchAsyncのテスト（モック）：正常系")
+    @Test
+    void test_mock_searchAsync_01() throws IOException, InterruptedException {
+        RdkHttpResponse response =
+                new TestRdkHttpResponse(
+                        200,
+                        null,
+                        Files.readString(
+                                Path.of("src/test/resources/json/search_result_sample.json")));
+        when(mockRdkHttpClient.get(any(RdkHttpRequest.class))).thenReturn(response);
+        when(mockRdkHttpClient.getAsync(any(RdkHttpRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        ProgramSearchResult sync = programSearchService.search("ニュース", 1);
+        ProgramSearchResult async = programSearchService.searchAsync("ニュース", 1).join();
+
+        assertThat(async).usingRecursiveComparison().isEqualTo(sync);
+
+        // 同期版と同じパラメータで送信される
+        verify(mockRdkHttpClient, times(1)).getAsync(rdkHttpRequestCaptor.capture());
+        expectedParameters.put("key", "ニュース");
+        expectedParameters.put("page_idx", "1");
+        assertThat(rdkHttpRequestCaptor.getValue().getParameters())
+                .usingRecursiveComparison()
+                .isEqualTo(expectedParameters);
+    }
+
+    @DisplayName("searchAsyncのテスト（モック）：異常系")
+    @Test
+    void test_mock_searchAsync_02() {
+        // 引数の検証エラーは呼び出し時に送出する
+        assertThatExceptionOfType(java.lang.IllegalArgumentException.class)
+                .isThrownBy(() -> programSearchService.searchAsync(" "))
+                .withMessage("Validation failed");
+        assertThatExceptionOfType(java.lang.IllegalArgumentException.class)
+                .isThrownBy(() -> programSearchService.searchAsync("検索", -1))
+                .withMessage("Validation failed");
+    }
+
+    @DisplayName("search(String keyword, int pageIndex, Deadline deadline)のテスト（モック）：リクエストに期限を設定する")
+    @Test
+    void test_mock_search_04() throws IOException, InterruptedException {
+        RdkHttpResponse response =
+                new TestRdkHttpResponse(
+                        200,
+                        null,
+                        Files.readString(
+                                Path.of("src/test/resources/json/search_result_sample.json")));
+        when(mockRdkHttpClient.get(any(RdkHttpRequest.class))).thenReturn(response);
+        when(mockRdkHttpClient.getAsync(any(RdkHttpRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+        Deadline deadline = Deadline.after(Duration.ofMinutes(1));
+
+        programSearchService.search("ニュース", 0, deadline);
+        programSearchService.searchAsync("ニュース", 0, deadline).join();
+
+        verify(mockRdkHttpClient, times(1)).get(rdkHttpRequestCaptor.capture());
+        verify(mockRdkHttpClient, times(1)).getAsync(rdkHttpRequestCaptor.capture());
+        assertThat(rdkHttpRequestCaptor.getAllValues())
+                .extracting(RdkHttpRequest::getDeadline)
+                .containsExactly(deadline, deadline);
+    }
+
     private void when_RdkHttpClient_get_ok(RdkHttpClient mockRdkHttpClient)
             throws IOException, InterruptedException {
         when(mockRdkHttpClient.get(any(RdkHttpRequest.class)))
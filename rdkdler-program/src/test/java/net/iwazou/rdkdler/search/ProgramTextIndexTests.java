@@ -0,0 +1,207 @@
+package net.iwazou.rdkdler.search;
+
+import static net.iwazou.rdkdler.schedule.TestPrograms.program;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import net.iwazou.rdkdler.model.ProgramSchedule;
+import net.iwazou.rdkdler.model.ProgramSearchResult;
+import net.iwazou.rdkdler.model.internal.ModelReaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ProgramTextIndexTests {
+
+    @DisplayName("addAll・searchのテスト：番組表から索引を作成し、番組名・出演者・タグ・番組説明で検索する")
+    @Test
+    void test_search_01() throws IOException {
+        ProgramSchedule schedule =
+                ModelReaders.read(
+                        ProgramSchedule.class,
+                        Files.readAllBytes(
+                                Path.of("src/test/resources/xml/program_date_area_sample.xml")));
+        ProgramTextIndex index = new ProgramTextIndex();
+
+        // 開始日時・番組 ID のいずれもない番組は含めない
+        assertThat(index.addAll(schedule)).isEqualTo(5);
+        assertThat(index.size()).isEqualTo(5);
+
+        // 全角・半角、大文字・小文字を区別しない
+        assertThat(index.search("タイトル12", 10))
+                .extracting(h -> h.program().stationId(), h -> h.program().entry().getTitle())
+                .containsExactly(tuple("STATION01", "タイトル１２"));
+        assertThat(index.search("pfm21", 10))
+                .extracting(h -> h.program().entry().getTitle())
+                .containsExactly("タイトル２１");
+        assertThat(index.search("アイテム１１２", 10))
+                .extracting(h -> h.program().entry().getTitle())
+                .containsExactly("タイトル１１");
+        assertThat(index.search("パーソナリティー３１１", 10))
+                .extracting(h -> h.program().entry().getTitle())
+                .containsExactly("タイトル３１");
+        assertThat(index.search("インフォ２２", 10))
+                .extracting(h -> h.program().entry().getTitle())
+                .containsExactly("タイトル２２");
+        assertThat(index.search("タイトル", 10)).hasSize(5);
+        assertThat(index.search("タイトル", 2)).hasSize(2);
+        assertThat(index.search("存在しない", 10)).isEmpty();
+        assertThat(index.search("  ", 10)).isEmpty();
+    }
+
+    @DisplayName("searchのテスト：番組名で一致した番組を、番組説明で一致した番組より上位にする")
+    @Test
+    void test_search_02() {
+        ProgramTextIndex index = new ProgramTextIndex();
+        index.addAll(
+                List.of(
+                        program(
+                                "TBS",
+                                "2025-10-22T01:00",
+                                "2025-10-22T03:00",
+                                "音楽の時間",
+                                "深夜ラジオの音楽"),
+                        program(
+                                "LFR",
+                                "2025-10-22T01:00",
+                                "2025-10-22T03:00",
+                                "深夜ラジオ",
+                                "トーク"),
+                        program(
+                                "QRR",
+                                "2025-10-22T05:00",
+                                "2025-10-22T06:00",
+                                "朝のニュース",
+                                null)));
+
+        assertThat(index.search("深夜ラジオ", 10))
+                .extracting(h -> h.program().stationId())
+                .containsExactly("LFR", "TBS");
+        assertThat(index.search("深夜ラジオ", 10).get(0).score())
+                .isGreaterThan(index.search("深夜ラジオ", 10).get(1).score());
+        // 空白で区切ったキーワードは、すべてを含む番組を検索する
+        assertThat(index.search("深夜　音楽", 10))
+                .extracting(h -> h.program().stationId())
+                .containsExactly("TBS");
+        assertThat(index.search("深夜 ニュース", 10)).isEmpty();
+        // 1 文字のキーワードは、その文字を含む語から検索する
+        assertThat(index.search("朝", 10))
+                .extracting(h -> h.program().stationId())
+                .containsExactly("QRR");
+    }
+
+    @DisplayName("searchのテスト：番組説明の HTML のタグは検索対象にしない")
+    @Test
+    void test_search_03() {
+        ProgramTextIndex index = new ProgramTextIndex();
+        index.addAll(
+                List.of(
+                        program(
+                                "TBS",
+                                "2025-10-22T01:00",
+                                "2025-10-22T03:00",
+                                "番組",
+                                "<p>深夜<b>放送</b>&amp;配信</p>")));
+
+        assertThat(index.search("夜放", 10)).hasSize(1);
+        assertThat(index.search("配信", 10)).hasSize(1);
+        assertThat(index.search("amp", 10)).isEmpty();
+        assertThat(index.search("p", 10)).isEmpty();
+    }
+
+    @DisplayName("addAll・removeEndedBeforeのテスト：同じ開始日時の番組は置き換え、終了した番組を削除する")
+    @Test
+    void test_addAll_01() {
+        ProgramTextIndex index = new ProgramTextIndex();
+        index.addAll(
+                List.of(program("TBS", "2025-10-22T05:00", "2025-10-22T06:00", "旧番組", null)));
+        index.addAll(
+                List.of(
+                        program("TBS", "2025-10-22T05:00", "2025-10-22T06:00", "新番組", null),
+                        program("TBS", "2025-10-22T06:00", "2025-10-22T07:00", "次の番組", null)));
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.search("旧番", 10)).isEmpty();
+        assertThat(index.search("番組", 10))
+                .extracting(h -> h.program().entry().getTitle())
+                .containsExactlyInAnyOrder("新番組", "次の番組");
+
+        assertThat(index.removeEndedBefore(LocalDateTime.parse("2025-10-22T06:00"))).isEqualTo(1);
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("番組", 10))
+                .extracting(h -> h.program().entry().getTitle())
+                .containsExactly("次の番組");
+
+        index.clear();
+        assertThat(index.size()).isZero();
+        assertThat(index.search("番組", 10)).isEmpty();
+    }
+
+    @DisplayName("removeEndedBeforeのテスト：削除済みの番組が多くなった場合も検索できる")
+    @Test
+    void test_removeEndedBefore_01() {
+        ProgramTextIndex index = new ProgramTextIndex();
+        LocalDateTime start = LocalDateTime.parse("2025-10-22T00:00");
+        for (int i = 0; i < 3000; i++) {
+            index.addAll(
+                    List.of(
+                            program(
+                                    "TBS",
+                                    start.plusMinutes(i).toString(),
+                                    start.plusMinutes(i + 1).toString(),
+                                    "番組" + i,
+                                    null)));
+        }
+
+        assertThat(index.removeEndedBefore(start.plusMinutes(2990))).isEqualTo(2990);
+        assertThat(index.size()).isEqualTo(10);
+        assertThat(index.search("番組", 100)).hasSize(10);
+        assertThat(index.search("番組2995", 100))
+                .extracting(h -> h.program().entry().getTitle())
+                .containsExactly("番組2995");
+    }
+
+    @DisplayName("addAllのテスト：番組検索の結果から索引を作成する")
+    @Test
+    void test_addAll_02() {
+        ProgramSearchResult.ResultData data = new ProgramSearchResult.ResultData();
+        data.setStationId("TBS");
+        data.setTitle("深夜ラジオ");
+        data.setPerformer("出演者");
+        data.setDescription("説明");
+        data.setStartTime(LocalDateTime.parse("2025-10-22T01:00"));
+        data.setEndTime(LocalDateTime.parse("2025-10-22T03:00"));
+        data.setProgramDate(LocalDate.of(2025, 10, 21));
+        ProgramSearchResult.Category category = new ProgramSearchResult.Category();
+        category.setName("バラエティ");
+        ProgramSearchResult.Genre genre = new ProgramSearchResult.Genre();
+        genre.setProgram(category);
+        data.setGenre(genre);
+        ProgramSearchResult result = new ProgramSearchResult();
+        result.setResultDatas(List.of(data));
+        ProgramTextIndex index = new ProgramTextIndex();
+
+        assertThat(index.addAll(result)).isEqualTo(1);
+
+        assertThat(index.search("出演者", 10))
+                .extracting(h -> h.program().stationId(), h -> h.program().date())
+                .containsExactly(tuple("TBS", LocalDate.of(2025, 10, 21)));
+        assertThat(index.search("バラエティ", 10)).hasSize(1);
+    }
+
+    @DisplayName("searchのテスト：limitが0以下の場合はIllegalArgumentException")
+    @Test
+    void test_search_04() {
+        ProgramTextIndex index = new ProgramTextIndex();
+
+        assertThatThrownBy(() -> index.search("番組", 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("limit must be positive (value=0)");
+    }
+}
@@ -1,6 +1,7 @@
 package net.iwazou.rdkdler.station;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
@@ -8,10 +9,14 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import net.iwazou.rdkdler.TestRdkHttpResponse;
 import net.iwazou.rdkdler.area.AreaPrefecture;
+import net.iwazou.rdkdler.exception.RdkHttpException;
 import net.iwazou.rdkdler.http.RdkHttpClient;
 import net.iwazou.rdkdler.http.RdkHttpRequest;
+import net.iwazou.rdkdler.http.RdkHttpResponse;
 import net.iwazou.rdkdler.model.AreaStations;
 import net.iwazou.rdkdler.model.Station;
 import net.iwazou.rdkdler.model.Station.Logo;
@@ -98,6 +103,41 @@ class StationServiceTests {
                 .isEqualTo(expected);
     }
 
+    @DisplayName("getStationsAsyncのテスト（モック）：正常系")
+    @Test
+    void test_mock_getStationsAsync_01() throws IOException, InterruptedException {
+        RdkHttpResponse response =
+                new TestRdkHttpResponse(
+                        200,
+                        null,
+                        Files.readString(
+                                Path.of("src/test/resources/xml/station_list_sample.xml")));
+        when(mockRdkHttpClient.get(any(RdkHttpRequest.class))).thenReturn(response);
+        when(mockRdkHttpClient.getAsync(any(RdkHttpRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        AreaStations sync = stationService.getStations(AreaPrefecture.KANAGAWA);
+        AreaStations async = stationService.getStationsAsync(AreaPrefecture.KANAGAWA).join();
+
+        assertThat(async).usingRecursiveComparison().isEqualTo(sync);
+    }
+
+    @DisplayName("getStationsAsyncのテスト（モック）：異常系")
+    @Test
+    void test_mock_getStationsAsync_02() {
+        when(mockRdkHttpClient.getAsync(any(RdkHttpRequest.class)))
+                .thenReturn(
+                        CompletableFuture.completedFuture(
+                                new TestRdkHttpResponse(500, null, "error")));
+
+        // レスポンスの検証エラーで例外完了する
+        assertThatExceptionOfType(CompletionException.class)
+                .isThrownBy(() -> stationService.getStationsAsync(AreaPrefecture.KANAGAWA).join())
+                .havingCause()
+                .isInstanceOf(RdkHttpException.class)
+                .withMessage("HTTP error code: 500");
+    }
+
     private AreaStations createAreaStations(
             String areaId, String areaName, List<Station> stations) {
         AreaStations a = new AreaStations();